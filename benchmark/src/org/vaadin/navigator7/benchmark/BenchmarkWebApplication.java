@@ -0,0 +1,67 @@
+package org.vaadin.navigator7.benchmark;
+
+import org.vaadin.navigator7.Navigator;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.interceptor.PageChangeListenersInterceptor;
+import org.vaadin.navigator7.uri.ParsedFragment;
+
+import com.vaadin.ui.Component;
+
+import example.ui.application.MyUriAnalyzer;
+import example.ui.page.DashboardPage;
+import example.ui.page.EditorPage;
+import example.ui.page.ParamTestPage;
+import example.ui.page.ProductAPage;
+import example.ui.page.ProductBPage;
+import example.ui.page.SeoPage;
+import example.ui.page.TicketPage;
+
+/** WebApplication of the benchmarks: the example pages and MyUriAnalyzer, without servlet container.
+ * Same configuration as MyWebApplication, except the NavigationWarningInterceptor (it needs a window).
+ * 
+ * The benchmarks are JMH benchmarks (http://openjdk.java.net/projects/code-tools/jmh/). This module is not part of the library:
+ * benchmark/pom.xml compiles benchmark/src with the sources of src (the annotation processor of JMH generates the benchmark harness)
+ * into benchmark/target/benchmarks.jar. From the benchmark directory, run for example:
+ * <pre>
+ *   mvn package
+ *   java -jar target/benchmarks.jar "org.vaadin.navigator7.benchmark.*" -f 1 -wi 5 -i 5
+ * </pre>
+ * The methods suffixed with "Contended" run with 4 threads (@Threads), to compare with the single thread ones and expose contention.
+ */
+public class BenchmarkWebApplication extends WebApplication {
+
+    public BenchmarkWebApplication() {
+        registerPages(new Class[] {
+                DashboardPage.class,
+                EditorPage.class,
+                TicketPage.class,
+                ParamTestPage.class,
+                ProductAPage.class,
+                ProductBPage.class,
+                SeoPage.class,
+        });
+        setUriAnalyzer( new MyUriAnalyzer() );
+    }
+
+    @Override
+    protected void registerInterceptors() {
+        registerInterceptor( new PageChangeListenersInterceptor() );  // No listener: measures the cost of an interceptor doing nothing.
+        super.registerInterceptors();
+    }
+
+    /** Call it from the @Setup methods. Does nothing if already initialized (the benchmarks share the same JVM). */
+    public static void init() {
+        WebApplication.init(BenchmarkWebApplication.class);
+    }
+
+
+    /** Navigator that does not need a window: the page is "placed" in a field (so the JIT cannot eliminate its construction). */
+    public static class BenchmarkNavigator extends Navigator {
+        public Component placedPage;
+
+        @Override
+        public void placePage(Component page, String params, ParsedFragment parsedParams, boolean needToChangeUri) {
+            placedPage = page;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.vaadin.navigator7.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.vaadin.navigator7.NavigableApplication;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.metrics.LatencyHistogram;
+
+import example.ui.application.MyNavigableApplication;
+import example.ui.application.MyWebApplication;
+
+/** Simulates many users navigating in the same JVM, to size the nodes: sessions per GB and navigations per second for a page set.
+ * 
+ * Creates the sessions (SimulatedSession: Vaadin's WebApplicationContext with the NavigableApplication, its NavigableAppLevelWindow and its terminal;
+ * no browser, no servlet container), then each worker thread drives its share of the sessions through the scripts (sequences of URI fragments, repeated),
+ * via Navigator.fragmentChanged() followed by the paint of the changes (as the response of the terminal).
+ * 
+ * Reports:
+ * - throughput (navigations per second, all threads);
+ * - latency percentiles of a navigation (LatencyHistogram);
+ * - retained heap per session (heap used after GC, with the sessions alive, minus before creating them, divided by the amount of sessions);
+ * - allocation per navigation (bytes allocated by the worker threads, HotSpot only).
+ * 
+ * Run it with the classpath of the benchmarks (see BenchmarkWebApplication), as:
+ * <pre>
+ *   java -Xmx2g -cp target/benchmarks.jar org.vaadin.navigator7.benchmark.LoadSimulator [sessions] [threads] [navigationsPerSession]
+ * </pre>
+ * The default scripts use the pages of the example application. Use the API (setScripts()...) to simulate your own application.
+ */
+public class LoadSimulator {
+
+    /** Fragments of the example application (EditorPage is avoided: its NavigationWarner would stop the navigations). */
+    public static final String[][] EXAMPLE_SCRIPTS = {
+        {"dash", "Ticket", "!ProductA/34/AAAA/BBBB/namedValue=CCCC", "!ProductA/34/AAAA/DDDD/namedValue=CCCC", "dash"},
+        {"ParamTest/John-Rizzo-Belgium/ssn=xxxxxx/userId=123", "ParamTest/John-Rizzo-Belgium/ssn=yyyyyy", "Ticket", "dash"},
+    };
+
+    private Class<? extends WebApplication> webApplicationClass = MyWebApplication.class;
+    private Class<? extends NavigableApplication> applicationClass = MyNavigableApplication.class;
+    private String[][] scripts = EXAMPLE_SCRIPTS;
+    private int sessionCount = 1000;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private int navigationsPerSession = 100;
+    private int warmupNavigationsPerSession = 20;
+
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadSimulator simulator = new LoadSimulator();
+        if (args.length > 0) {
+            simulator.setSessionCount(Integer.parseInt(args[0]));
+        }
+        if (args.length > 1) {
+            simulator.setThreadCount(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            simulator.setNavigationsPerSession(Integer.parseInt(args[2]));
+        }
+        System.out.println(simulator.run());
+    }
+
+
+    public Report run() throws InterruptedException {
+        WebApplication.init(webApplicationClass);
+        Report report = new Report();
+        report.sessionCount = sessionCount;
+        report.threadCount = threadCount;
+
+        //// 1. Sessions (memory measured around their creation and first navigations).
+        long heapBefore = usedHeapAfterGc();
+        List<SimulatedSession> sessions = new ArrayList<SimulatedSession>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            SimulatedSession session = new SimulatedSession(applicationClass);
+            String[] script = scripts[i % scripts.length];
+            for (String fragment : script) {  // Every page of the script has been visited (page caches, entity caches... filled).
+                session.navigate(fragment);
+            }
+            sessions.add(session);
+        }
+        report.retainedBytesPerSession = (usedHeapAfterGc() - heapBefore) / Math.max(1, sessionCount);
+
+        //// 2. Warmup (JIT), not measured.
+        drive(sessions, warmupNavigationsPerSession, null, null);
+
+        //// 3. Measure.
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong allocatedBytes = new AtomicLong();
+        long start = System.nanoTime();
+        drive(sessions, navigationsPerSession, latencies, allocatedBytes);
+        long elapsedNanos = System.nanoTime() - start;
+
+        report.navigationCount = latencies.getCount();
+        report.navigationsPerSecond = latencies.getCount() * 1000000000.0 / elapsedNanos;
+        report.latencies = latencies;
+        report.allocatedBytesPerNavigation = allocatedBytes.get() < 0 ? -1 : allocatedBytes.get() / Math.max(1, latencies.getCount());
+
+        for (SimulatedSession session : sessions) {
+            session.close();
+        }
+        return report;
+    }
+
+    /** Each thread drives sessions[threadIndex], sessions[threadIndex + threadCount]... in turn, navigationsPerSession times each. */
+    private void drive(final List<SimulatedSession> sessions, final int navigationsPerSession,
+            final LatencyHistogram latencies, final AtomicLong allocatedBytes) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        final RuntimeException[] failure = new RuntimeException[1];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            Thread thread = new Thread("simulator-" + t) {
+                @Override
+                public void run() {
+                    long allocatedBefore = allocatedBytes == null ? 0 : currentThreadAllocatedBytes();
+                    try {
+                        for (int n = 0; n < navigationsPerSession; n++) {
+                            for (int s = threadIndex; s < sessions.size(); s += threadCount) {
+                                String[] script = scripts[s % scripts.length];
+                                String fragment = script[n % script.length];
+                                long start = System.nanoTime();
+                                sessions.get(s).navigate(fragment);
+                                if (latencies != null) {
+                                    latencies.record(System.nanoTime() - start);
+                                }
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        failure[0] = e;
+                    } finally {
+                        if (allocatedBytes != null) {
+                            long allocatedAfter = currentThreadAllocatedBytes();
+                            allocatedBytes.addAndGet(allocatedBefore < 0 || allocatedAfter < 0 ? Long.MIN_VALUE / 2 : allocatedAfter - allocatedBefore);
+                        }
+                        done.countDown();
+                    }
+                }
+            };
+            thread.start();
+        }
+        done.await();
+        if (failure[0] != null) {
+            throw new RuntimeException("Navigation failed during the simulation", failure[0]);
+        }
+    }
+
+    /** -1 if the JVM cannot tell (not HotSpot). */
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {  // A single GC does not always collect everything (finalizers, soft references...).
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+
+
+    public void setWebApplicationClass(Class<? extends WebApplication> webApplicationClass) {
+        this.webApplicationClass = webApplicationClass;
+    }
+
+    public void setApplicationClass(Class<? extends NavigableApplication> applicationClass) {
+        this.applicationClass = applicationClass;
+    }
+
+    /** Each session follows one of the scripts (round robin), repeating it. A script is a sequence of URI fragments (without "#"). */
+    public void setScripts(String[][] scripts) {
+        if (scripts.length == 0) {
+            throw new IllegalArgumentException("At least one script is needed");
+        }
+        this.scripts = scripts;
+    }
+
+    public void setSessionCount(int sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setNavigationsPerSession(int navigationsPerSession) {
+        this.navigationsPerSession = navigationsPerSession;
+    }
+
+    public void setWarmupNavigationsPerSession(int warmupNavigationsPerSession) {
+        this.warmupNavigationsPerSession = warmupNavigationsPerSession;
+    }
+
+
+    /** Results of a run. */
+    public static class Report {
+        int sessionCount;
+        int threadCount;
+        long navigationCount;
+        double navigationsPerSecond;
+        LatencyHistogram latencies;
+        long retainedBytesPerSession;
+        long allocatedBytesPerNavigation;  // -1 if unknown.
+
+        public long getNavigationCount() {
+            return navigationCount;
+        }
+
+        public double getNavigationsPerSecond() {
+            return navigationsPerSecond;
+        }
+
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        public long getRetainedBytesPerSession() {
+            return retainedBytesPerSession;
+        }
+
+        /** Sessions that fit in 1GB of heap (from the retained heap per session). */
+        public long getSessionsPerGB() {
+            return retainedBytesPerSession <= 0 ? -1 : (1L << 30) / retainedBytesPerSession;
+        }
+
+        public long getAllocatedBytesPerNavigation() {
+            return allocatedBytesPerNavigation;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadSimulator report: " + sessionCount + " sessions, " + threadCount + " threads\n"
+                    + "  navigations:      " + navigationCount + " (" + Math.round(navigationsPerSecond) + "/s)\n"
+                    + "  latency (us):     p50=" + latencies.getPercentileNanos(50) / 1000 + " p90=" + latencies.getPercentileNanos(90) / 1000
+                            + " p99=" + latencies.getPercentileNanos(99) / 1000 + " p99.9=" + latencies.getPercentileNanos(99.9) / 1000
+                            + " max=" + latencies.getMaxNanos() / 1000 + "\n"
+                    + "  heap per session: " + retainedBytesPerSession / 1024 + " KB (" + getSessionsPerGB() + " sessions/GB)\n"
+                    + "  allocation:       " + (allocatedBytesPerNavigation < 0 ? "unknown" : allocatedBytesPerNavigation / 1024 + " KB/navigation");
+        }
+    }
+}
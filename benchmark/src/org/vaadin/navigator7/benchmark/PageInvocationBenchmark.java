@@ -0,0 +1,90 @@
+package org.vaadin.navigator7.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.benchmark.BenchmarkWebApplication.BenchmarkNavigator;
+import org.vaadin.navigator7.interceptor.PageInvocation;
+import org.vaadin.navigator7.uri.ResolvedFragment;
+
+import com.vaadin.ui.Component;
+
+import example.ui.page.ParamTestPage;
+import example.ui.page.ProductAPage;
+
+/** Whole navigations, as Navigator.fragmentChanged() does them: fragment resolution, interceptor chain, page construction (or reuse),
+ * param injection, ParamChangeListener.paramChanged(). Only the window is missing (see BenchmarkNavigator). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class PageInvocationBenchmark {
+
+    BenchmarkNavigator navigator;
+    ProductAPage productAPage;  // For the params change on the same page.
+    ParamTestPage paramTestPage;
+
+    String productFragment = "!ProductA/34/AAAA/BBBB/namedValue=CCCC";
+    String paramTestFragment = "ParamTest/John-Rizzo-Belgium/ssn=xxxxxx/userId=123";
+
+    @Setup
+    public void setup() {
+        BenchmarkWebApplication.init();
+        navigator = new BenchmarkNavigator();
+        productAPage = new ProductAPage();
+        paramTestPage = new ParamTestPage();
+    }
+
+    private Component navigateToNewPage(String fragment) {
+        ResolvedFragment resolved = WebApplication.getCurrent().getUriAnalyzer().resolveFragment(fragment);
+        new PageInvocation(navigator, resolved.getPageClass(), resolved.getParams(), resolved.getParsedParams(), false).invoke();
+        return navigator.placedPage;
+    }
+
+    private Component navigateToSamePage(Component page, String fragment) {
+        ResolvedFragment resolved = WebApplication.getCurrent().getUriAnalyzer().resolveFragment(fragment);
+        new PageInvocation(navigator, page, resolved.getParams(), resolved.getParsedParams(), false).invoke();
+        return navigator.placedPage;
+    }
+
+
+    @Benchmark
+    public Component navigateToProductA() {
+        return navigateToNewPage(productFragment);
+    }
+
+    @Benchmark
+    public Component navigateToParamTest() {
+        return navigateToNewPage(paramTestFragment);
+    }
+
+    /** The page instance is reused (only the params changed). */
+    @Benchmark
+    public Component paramsChangeOnProductA() {
+        return navigateToSamePage(productAPage, productFragment);
+    }
+
+    @Benchmark
+    public Component paramsChangeOnParamTest() {
+        return navigateToSamePage(paramTestPage, paramTestFragment);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Component navigateToProductAContended() {
+        return navigateToNewPage(productFragment);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Component navigateToParamTestContended() {
+        return navigateToNewPage(paramTestFragment);
+    }
+}
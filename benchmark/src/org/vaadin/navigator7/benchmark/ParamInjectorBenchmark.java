@@ -0,0 +1,99 @@
+package org.vaadin.navigator7.benchmark;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.uri.ParamInjector;
+import org.vaadin.navigator7.uri.ParsedFragment;
+
+import example.model.Product;
+import example.ui.page.ParamTestPage;
+import example.ui.page.ProductAPage;
+
+/** @Param fields: fragment generation (links) and validation/injection (navigation).
+ * The pages are per thread (Scope.Thread): injection writes in their fields. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ParamInjectorBenchmark {
+
+    Product product;
+    Object[] productPosParams;
+    SortedMap<String, Object> productNamedParams = new TreeMap<String, Object>();
+
+    ParamTestPage paramTestPage;
+    ProductAPage productAPage;
+
+    String paramTestParams = "John-Rizzo-Belgium/ssn=xxxxxx/userId=123";
+    String productParams = "34/AAAA/BBBB/namedValue=CCCC";
+    ParsedFragment parsedParamTestParams;
+    ParsedFragment parsedProductParams;
+
+    @Setup
+    public void setup() {
+        BenchmarkWebApplication.init();
+        product = new Product();
+        product.setId(34L);
+        productPosParams = new Object[] {product, "AAAA", "BBBB"};
+        productNamedParams.put("namedValue", "CCCC");
+
+        paramTestPage = new ParamTestPage();
+        productAPage = new ProductAPage();
+        parsedParamTestParams = WebApplication.getCurrent().getUriAnalyzer().parseFragment(paramTestParams);
+        parsedProductParams = WebApplication.getCurrent().getUriAnalyzer().parseFragment(productParams);
+        check(ParamInjector.validateAndInject(paramTestPage, parsedParamTestParams, false));
+        check(ParamInjector.validateAndInject(productAPage, parsedProductParams, false));
+    }
+
+    private static void check(String problem) {
+        if (problem != null) {  // We would measure the error path (that shows notifications) instead of the normal one.
+            throw new IllegalStateException("Benchmark params are invalid: " + problem);
+        }
+    }
+
+
+    /** As a ParamPageLink does. */
+    @Benchmark
+    public String generateFragmentFromParams() {
+        return ParamInjector.generateFragment(ProductAPage.class, productPosParams, productNamedParams);
+    }
+
+    /** From the @Param fields of a page (entity included). */
+    @Benchmark
+    public String generateFragmentFromPage() {
+        return ParamInjector.generateFragment(productAPage);
+    }
+
+    @Benchmark
+    public String validateAndInjectParamTest() {
+        return ParamInjector.validateAndInject(paramTestPage, parsedParamTestParams, true);
+    }
+
+    /** Entity param, from the EntityCache enabled by MyUriAnalyzer. */
+    @Benchmark
+    public String validateAndInjectProduct() {
+        return ParamInjector.validateAndInject(productAPage, parsedProductParams, true);
+    }
+
+    /** Same, with the parsing of the params. */
+    @Benchmark
+    public String validateAndInjectProductUnparsed() {
+        return ParamInjector.validateAndInject(productAPage, productParams, true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String validateAndInjectProductContended() {
+        return ParamInjector.validateAndInject(productAPage, parsedProductParams, true);
+    }
+}
@@ -0,0 +1,83 @@
+package org.vaadin.navigator7.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vaadin.navigator7.WebApplication;
+
+import com.vaadin.ui.Component;
+
+import example.ui.application.MyNavigableApplication;
+
+/** Session replication/passivation: the whole component trees (compact=false) versus the navigation state of the windows (compact=true,
+ * see NavigatorConfig.setCompactSerialization()). The session is Vaadin's WebApplicationContext (see SimulatedSession): in both modes,
+ * the components of the displayed page and of the template are serialized through the paintable maps of the terminal; compact mode saves the page cache.
+ * serialize() is what the container pays at each replication, restore() what the node taking over the session pays at the first request
+ * (deserialization, then the rebuild of the window in compact mode).
+ * 
+ * The replicated bytes are printed by main(), for both modes:
+ * <pre>
+ *   java -cp target/benchmarks.jar org.vaadin.navigator7.benchmark.SessionSerializationBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SessionSerializationBenchmark {
+
+    /** Visited pages: the last one is displayed, the @CachedPage ones before it are in the page cache. */
+    static final String[] SCRIPT = {"ProductA/34", "Dash", "Ticket/5", "ProductB", "ProductA/35/AAAA"};
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    SimulatedSession session;
+    byte[] serialized;
+
+    @Setup
+    public void setup() {
+        BenchmarkWebApplication.init();
+        WebApplication.getCurrent().getNavigatorConfig().setCompactSerialization(compact);
+        session = createSession();
+        serialized = session.serialize();
+    }
+
+    static SimulatedSession createSession() {
+        SimulatedSession session = new SimulatedSession(MyNavigableApplication.class);
+        for (String fragment : SCRIPT) {
+            session.navigate(fragment);
+        }
+        return session;
+    }
+
+
+    @Benchmark
+    public byte[] serialize() {
+        return session.serialize();
+    }
+
+    @Benchmark
+    public Component restore() {
+        return SimulatedSession.deserialize(serialized).request();
+    }
+
+
+    public static void main(String[] args) {
+        BenchmarkWebApplication.init();
+        for (boolean compact : new boolean[] {false, true}) {
+            WebApplication.getCurrent().getNavigatorConfig().setCompactSerialization(compact);
+            SimulatedSession session = createSession();
+            byte[] bytes = session.serialize();
+            Component restoredPage = SimulatedSession.deserialize(bytes).request();
+            System.out.println((compact ? "compact" : "full   ") + ": " + bytes.length + " bytes, page after restore: "
+                    + (restoredPage == null ? null : restoredPage.getClass().getSimpleName()));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.vaadin.navigator7.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.vaadin.navigator7.NavigableApplication;
+import org.vaadin.navigator7.NavigableApplicationServlet;
+import org.vaadin.navigator7.Navigator;
+import org.vaadin.navigator7.window.NavigableAppLevelWindow;
+
+import com.vaadin.Application;
+import com.vaadin.terminal.PaintException;
+import com.vaadin.terminal.gwt.server.AbstractCommunicationManager;
+import com.vaadin.terminal.gwt.server.CommunicationManager;
+import com.vaadin.terminal.gwt.server.WebApplicationContext;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.UriFragmentUtility;
+import com.vaadin.ui.UriFragmentUtility.FragmentChangedEvent;
+
+/** One user session of the LoadSimulator: a NavigableApplication with its main NavigableAppLevelWindow, without servlet container nor browser.
+ * 
+ * The session is what a container holds: Vaadin's WebApplicationContext (the session attribute), with the Application and its terminal
+ * (the CommunicationManager, created through NavigableApplicationServlet as at the first request).
+ * navigate() does what the Vaadin terminal does when the browser reports a new URI fragment:
+ * starts a transaction (NavigableApplication's thread locals), then calls Navigator.fragmentChanged() within a lock on the Application,
+ * and paints the changes of the window for the browser (the terminal keeps the painted components in its paintable maps, serialized with the session).
+ * 
+ * Not thread safe: one session is driven by one thread at a time.
+ */
+public class SimulatedSession {
+
+    private static final NavigableApplicationServlet SERVLET = new NavigableApplicationServlet();  // Creates the terminals (not initialized: no container).
+
+    private final NavigableApplication application;
+    private final SimulatedContext context;
+    private final HttpServletRequest request = stubRequest();
+    private NavigableAppLevelWindow window;
+    private UriFragmentUtility uriFragmentUtility;
+    private boolean painted;  // false until the first paint of the window (the browser loads the whole window).
+
+
+    public SimulatedSession(Class<? extends NavigableApplication> applicationClass) {
+        context = new SimulatedContext();
+        try {
+            application = applicationClass.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot instantiate NavigableApplication class " + applicationClass.getName() + ". Does it have a public no-arg constructor?", e);
+        }
+        context.register(application);
+        try {
+            application.start(new URL("http://localhost/simulator/"), new Properties(), context);  // Calls NavigableApplication.init() (main window creation).
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);  // Cannot happen.
+        }
+    }
+
+    private SimulatedSession(NavigableApplication application, SimulatedContext context) {
+        this.application = application;
+        this.context = context;
+    }
+
+    /** Serializes the session, as a container does to replicate or passivate it: the WebApplicationContext (with the Application and its terminal). */
+    public byte[] serialize() {
+        synchronized (application) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+                ObjectOutputStream out = new ObjectOutputStream(bytes);
+                out.writeObject(context);
+                out.close();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot serialize the session", e);
+            }
+        }
+    }
+
+    /** The session as another node gets it (see serialize()). Call request() to get its window back, as the first request on that node does. */
+    public static SimulatedSession deserialize(byte[] bytes) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            SimulatedContext context = (SimulatedContext) in.readObject();
+            return new SimulatedSession((NavigableApplication) context.getApplications().iterator().next(), context);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot deserialize the session", e);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Cannot deserialize the session", e);
+        }
+    }
+
+    /** A request without navigation (as a click): the window is asked to the Application. Returns the current page. */
+    public Component request() {
+        synchronized (application) {
+            context.begin(application, request);
+            try {
+                NavigableAppLevelWindow navigableWindow = getWindow();
+                paint(navigableWindow);
+                return navigableWindow.getPage();
+            } finally {
+                context.end(application, request);
+            }
+        }
+    }
+
+    /** Navigates to the given fragment (without "#"), as if the user typed it or clicked a link. */
+    public void navigate(String fragment) {
+        synchronized (application) {  // As the Vaadin terminal does.
+            context.begin(application, request);
+            try {
+                NavigableAppLevelWindow navigableWindow = getWindow();
+                uriFragmentUtility.setFragment(fragment, false);
+                navigableWindow.getNavigator().fragmentChanged(uriFragmentUtility.new FragmentChangedEvent(uriFragmentUtility));
+                paint(navigableWindow);
+            } finally {
+                context.end(application, request);
+            }
+        }
+    }
+
+    /** As the terminal does at each request: the window is asked to the Application (that sets its current window thread local). */
+    private NavigableAppLevelWindow getWindow() {
+        String name = application.getMainWindow().getName();
+        NavigableAppLevelWindow navigableWindow = (NavigableAppLevelWindow) application.getWindow(name);
+        if (window != navigableWindow) {
+            painted = false;  // New window (rebuilt): the browser gets all of it.
+            window = navigableWindow;
+            Navigator navigator = window.getNavigator();
+            uriFragmentUtility = (UriFragmentUtility) navigator.getComponentIterator().next();  // The composition root of the Navigator.
+        }
+        return window;
+    }
+
+    /** The response of the terminal to the browser (the UIDL changes of the window, thrown away): the painted components get their ids in the paintable maps,
+     * and the components detached since the previous response are removed from them. */
+    private void paint(NavigableAppLevelWindow navigableWindow) {
+        try {
+            context.getTerminal(application).writeUidlResponce(CALLBACK, ! painted, new PrintWriter(NULL_WRITER), navigableWindow, false);
+        } catch (PaintException e) {
+            throw new RuntimeException("Cannot paint the window", e);
+        }
+        painted = true;
+    }
+
+    public NavigableApplication getApplication() {
+        return application;
+    }
+
+    /** Current page, null before the first navigation. */
+    public Component getPage() {
+        return window == null ? null : window.getPage();
+    }
+
+    public void close() {
+        application.close();
+    }
+
+
+    /** Request parameters are all null ("fr" included: no home page initialization, the simulator navigates explicitly). */
+    private static HttpServletRequest stubRequest() {
+        return (HttpServletRequest) Proxy.newProxyInstance(SimulatedSession.class.getClassLoader(), new Class[] {HttpServletRequest.class}, NULL_HANDLER);
+    }
+
+    private static final InvocationHandler NULL_HANDLER = new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            return null;
+        }
+    };
+
+
+    /** The WebApplicationContext of a session without servlet container: the transactions are started by hand, the terminal is created as the servlet does. */
+    private static class SimulatedContext extends WebApplicationContext {
+        SimulatedContext() {
+            session = stubSession();
+        }
+
+        void register(Application application) {
+            addApplication(application);
+            getTerminal(application);
+        }
+
+        CommunicationManager getTerminal(Application application) {
+            return getApplicationManager(application, SERVLET);
+        }
+
+        void begin(Application application, Object request) {
+            startTransaction(application, request);
+        }
+
+        void end(Application application, Object request) {
+            endTransaction(application, request);
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            session = stubSession();  // Transient: the container gives it again at each request.
+        }
+    }
+
+    /** Stub of the HttpSession of the context (only its identity is used): all the methods return null. */
+    private static HttpSession stubSession() {
+        return (HttpSession) Proxy.newProxyInstance(SimulatedSession.class.getClassLoader(), new Class[] {HttpSession.class}, NULL_HANDLER);
+    }
+
+    private static final AbstractCommunicationManager.Callback CALLBACK = new AbstractCommunicationManager.Callback() {
+        @Override
+        public void criticalNotification(AbstractCommunicationManager.Request request, AbstractCommunicationManager.Response response,
+                String cap, String msg, String details, String outOfSyncURL) {
+            throw new IllegalStateException(cap + ": " + msg);
+        }
+
+        @Override
+        public String getRequestPathInfo(AbstractCommunicationManager.Request request) {
+            return null;
+        }
+
+        @Override
+        public InputStream getThemeResourceAsStream(String themeName, String resource) {
+            return null;
+        }
+    };
+
+    private static final Writer NULL_WRITER = new Writer() {
+        @Override public void write(char[] cbuf, int off, int len) {}
+        @Override public void flush() {}
+        @Override public void close() {}
+    };
+}
@@ -0,0 +1,92 @@
+package org.vaadin.navigator7.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vaadin.navigator7.NavigatorConfig;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.uri.ParamUriAnalyzer;
+import org.vaadin.navigator7.uri.ParsedFragment;
+import org.vaadin.navigator7.uri.ResolvedFragment;
+
+import com.vaadin.ui.Component;
+
+/** Fragment analysis: what every navigation (and every page reading its params by hand) goes through. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UriAnalyzerBenchmark {
+
+    ParamUriAnalyzer uriAnalyzer;
+    NavigatorConfig navigatorConfig;
+
+    String fragment = "ParamTest/John-Rizzo-Belgium/ssn=xxxxxx/userId=123";
+    String params = "John-Rizzo-Belgium/ssn=xxxxxx/userId=123";
+    ParsedFragment parsedParams;
+
+    @Setup
+    public void setup() {
+        BenchmarkWebApplication.init();
+        uriAnalyzer = WebApplication.getCurrent().getUriAnalyzer();
+        navigatorConfig = WebApplication.getCurrent().getNavigatorConfig();
+        parsedParams = uriAnalyzer.parseFragment(params);
+    }
+
+
+    @Benchmark
+    public String[] extractPageNameAndParamsFromFragment() {
+        return uriAnalyzer.extractPageNameAndParamsFromFragment(fragment);
+    }
+
+    /** From the FragmentCache (always a hit here). */
+    @Benchmark
+    public ResolvedFragment resolveFragment() {
+        return uriAnalyzer.resolveFragment(fragment);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ResolvedFragment resolveFragmentContended() {
+        return uriAnalyzer.resolveFragment(fragment);
+    }
+
+    @Benchmark
+    public ParsedFragment parseFragment() {
+        return uriAnalyzer.parseFragment(params);
+    }
+
+    /** String version: parses the params at each call. */
+    @Benchmark
+    public void getStringAndLong(Blackhole blackhole) {
+        blackhole.consume(uriAnalyzer.getString(params, 0));
+        blackhole.consume(uriAnalyzer.getString(params, "ssn"));
+        blackhole.consume(uriAnalyzer.getLong(params, "userId"));
+    }
+
+    /** ParsedFragment version: what the pages should use. */
+    @Benchmark
+    public void getStringAndLongParsed(Blackhole blackhole) {
+        blackhole.consume(uriAnalyzer.getString(parsedParams, 0));
+        blackhole.consume(uriAnalyzer.getString(parsedParams, "ssn"));
+        blackhole.consume(uriAnalyzer.getLong(parsedParams, "userId"));
+    }
+
+    @Benchmark
+    public Class<? extends Component> getPageClass() {
+        return navigatorConfig.getPageClass("ParamTest");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Class<? extends Component> getPageClassContended() {
+        return navigatorConfig.getPageClass("ParamTest");
+    }
+}
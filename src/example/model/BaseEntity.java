@@ -1,14 +1,20 @@
-package example.model;
-
-public class BaseEntity {
-    protected Long id;
-
-    public Long getId() {
-        return id;
-    }
-
-    public void setId(Long id) {
-        this.id = id;
-    }
-    
-}
+package example.model;
+
+import java.io.Serializable;
+
+/** Serializable: the entities end up in the components (links params), which are serialized with the session. */
+public class BaseEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected Long id;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+}
@@ -1,13 +1,13 @@
-package example.model;
-
-public class Company extends BaseEntity {
-    String comanyName;
-
-    public String getComanyName() {
-        return comanyName;
-    }
-
-    public void setComanyName(String comanyName) {
-        this.comanyName = comanyName;
-    }
-}
+package example.model;
+
+public class Company extends BaseEntity {
+    String comanyName;
+
+    public String getComanyName() {
+        return comanyName;
+    }
+
+    public void setComanyName(String comanyName) {
+        this.comanyName = comanyName;
+    }
+}
@@ -1,5 +1,6 @@
 package example.ui.page;
 
+import org.vaadin.navigator7.CachedPage;
 import org.vaadin.navigator7.Page;
 import org.vaadin.navigator7.PageResource;
 
@@ -15,10 +16,12 @@ import com.vaadin.ui.VerticalLayout;
  * Demo of @Page, 
  *         home page concept
  *         PageResource link
+ *         @CachedPage (the instance is reused when coming back with the browser back button)
  * 
  * @author John Rizzo - BlackBeltFactory.com
  */
 @Page(uriName="dash")
+@CachedPage(sizeKb=64)
 @SuppressWarnings("serial")
 public class DashboardPage extends CustomComponent {
 
@@ -0,0 +1,24 @@
+package org.vaadin.navigator7;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** Applied to a page class (in addition to @Page) whose instances should be kept for a while when the user leaves them.
+ * If the user comes back to the same page with the same params (typically with the browser back/forward buttons),
+ * the kept instance is shown again instead of instantiating a new one. Useful for heavy pages (dashboards, big tables,...).
+ *
+ * The instance comes back through the interceptors chain, as a reused instance (PageInvocation.isInstanceNew() is false):
+ * NavigationWarner, param injection and ParamChangeListener apply as usual.
+ *
+ * Instances are kept per NavigableAppLevelWindow (see PageCache), within a memory budget per session (see NavigatorConfig.setPageCacheBudgetKb()).
+ * Implement PageEvictionListener in your page if it must release something when it's evicted.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface CachedPage {
+    /** Estimation of the memory (in KB) held by an instance of the page, counted in the session budget.
+     * Vaadin gives no way to measure a component tree, so it's up to you to give a sensible figure (measured once with a profiler, for example). */
+    int sizeKb() default 256;
+}
@@ -0,0 +1,65 @@
+package org.vaadin.navigator7;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vaadin.ui.Component;
+
+/** PageFactory calling the no-arg constructor of the page classes.
+ * The constructor is looked up once per page class (when the page is registered) and kept as a MethodHandle:
+ * createPage() is then a direct call (no reflective access check as with Class.newInstance(), and the constructor exceptions are not wrapped).
+ * 
+ * Thread safe.
+ */
+public class DefaultPageFactory implements PageFactory {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Component.class);
+
+    // Value = constructor with the type ()Component, or the problem message (String) if the class has no usable no-arg constructor.
+    private final ConcurrentHashMap<Class<? extends Component>, Object> constructors = new ConcurrentHashMap<Class<? extends Component>, Object>();
+
+
+    @Override
+    public void preparePage(Class<? extends Component> pageClass) {
+        constructors.put(pageClass, compileConstructor(pageClass));
+    }
+
+    @Override
+    public Component createPage(Class<? extends Component> pageClass) {
+        Object constructor = constructors.get(pageClass);
+        if (constructor == null) {  // Not a registered page (an interceptor may have changed the page class to an unregistered one).
+            constructor = compileConstructor(pageClass);
+            constructors.put(pageClass, constructor);
+        }
+        if (! (constructor instanceof MethodHandle)) {
+            throw new RuntimeException((String) constructor);
+        }
+        try {
+            return (Component) ((MethodHandle) constructor).invokeExact();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {  // Checked exception sneaked out of the constructor.
+            throw new RuntimeException("Problem while instantiating page class [" + pageClass + "]", t);
+        }
+    }
+
+    /** Returns the constructor as a MethodHandle, or a String describing why there is none. */
+    protected Object compileConstructor(Class<? extends Component> pageClass) {
+        try {
+            Constructor<? extends Component> constructor = pageClass.getDeclaredConstructor();
+            constructor.setAccessible(true);  // Page classes and constructors are not always public.
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException e) {
+            return "Page class [" + pageClass + "] has no no-arg constructor. Add one, or use a PageFactory (NavigatorConfig.setPageFactory()) able to create it.";
+        } catch (IllegalAccessException e) {
+            return "No access to the no-arg constructor of page class [" + pageClass + "]: " + e.getMessage();
+        } catch (SecurityException e) {
+            return "No access to the no-arg constructor of page class [" + pageClass + "]: " + e.getMessage();
+        }
+    }
+}
@@ -1,195 +1,380 @@
-package org.vaadin.navigator7;
-
-import javax.servlet.http.HttpServletRequest;
-
-import org.vaadin.navigator7.window.NavigableAppLevelWindow;
-
-import com.vaadin.Application;
-import com.vaadin.service.ApplicationContext.TransactionListener;
-import com.vaadin.ui.Window;
-
-/** Application that instantiates NavigableAppLevelWindow and manages browser tabs correctly (one AppLevelWindow per tab).
- * It implements the thread local pattern to enable the easy (for you) retrieval of the current application and AppLevelWindow, wherever you are in your code (with static no arg methods). 
- * It is bound to a NavigatorConfig that you may use to know the pages managed by your application. 
- * 
- * @author John Rizzo - BlackBeltFactory.com
- *
- */
-public abstract class NavigableApplication extends Application implements TransactionListener {
-
-    private static final long serialVersionUID = 1L;
-    
-    
-    static protected ThreadLocal<NavigableApplication> currentApplication = new ThreadLocal<NavigableApplication>();
-    static protected ThreadLocal<NavigableAppLevelWindow> currentNavigableAppLevelWindow = new ThreadLocal<NavigableAppLevelWindow>();
-    static protected ThreadLocal<String> veryInitialUriFragment = new ThreadLocal<String>();  // Trick until further version of Vaadin. See comment in transactionListener below
-
-    private WebApplication webApplication = null;  // Trick. Useless because of WebApplication.getCurrent(), but ..... sometimes we know the window (-> v6 Application) but not the v7 WebApplication, and we are not in a usual web thread. This is the case of File upload event listeners.
-    
-
-    /** Don't override me, because you are not supposed to create any window by yourself */
-    @Override
-    public void init() {
-        webApplication = WebApplication.getCurrent();
-        // Defensive programming.
-        if (webApplication.getNavigatorConfig().getPagesClass().size() == 0) {
-            throw new IllegalStateException("No page in configuration. You should register pages in the constructor of your NavigableApplication sub-class," +
-            		" typically by calling NavigableApplication.registerPages() method." +
-            		" If you did, then no page has been found. Check your settings as the presence of the @Page annotation on your pages.");
-        }
-        
-        // Register a transaction listener that updates our ThreadLocal with each request
-        getContext().addTransactionListener(this);
-
-
-        boolean currentWasNull = false;  // During initialization, we trigger code that might needs getCurrent(), but TransactionListener has not been set yet and will not be called.
-        if (getCurrent() == null) {
-            currentApplication.set(this);
-            currentWasNull = true;
-        }
-
-        
-        NavigableAppLevelWindow navWin;
-        setMainWindow(navWin = createNewNavigableAppLevelWindow("AppLevelWindow"));
-        
-//        navWin.pageContainer = navWin.createComponents(); 
-
-        
-        if (currentWasNull == true) {
-            currentApplication.remove();
-        }
-    }
-    
-    private NavigableAppLevelWindow createNewNavigableAppLevelWindow(String name) {
-        NavigableAppLevelWindow appLevelWindow = createNewNavigableAppLevelWindow();
-        appLevelWindow.setName(name);   // Thank to this name, we can easily sort application level windows from floating windows (dialog boxes).
-                                            // we could leave the name null and it would be set to a random number "012345679", but the form "AppLevelWindow_0123456789" is probably clearer when debugging.
-        return appLevelWindow;
-    }
-
-    /** Please override me, to instantiate your application's NavigableAppLevelWindow descendant */  
-    public abstract NavigableAppLevelWindow createNewNavigableAppLevelWindow();
-
-
-    /** see ancestor useful JavaDoc */
-    @SuppressWarnings("unchecked")
-    @Override
-    public Window getWindow(String name) {
-        // We check application state here because superclass returns null if
-        // a) the application is not running anymore
-        // b) it doesn't have a window for the given name
-        if (!isRunning()) {
-            return null;
-        }
-        
-        Window result;
-        
-        // Is that an existing window?
-        Window existingWindow =  super.getWindow(name);
-        if (existingWindow != null) {  // Yes, existing window, nothing to be created.
-            result = existingWindow;
-            
-        } else {  // New case where we create one instance of the main window per browser window/tab that the user opens in the same HttpSession (= in the same Application instance).
-            ///// Is it a request for a new main window (from another browser tab, for the same user/session) ?
-            ///// If the name is like MainWindowName_01234567890 (where the number is random), then it is a request for a new instance of main window.
-            ///// else, it's noise (floating window?)
-            
-            if  (! isNameOfAppLevelWindow(name)) {  // Already happened during debugging with Vaadin 6.0 or 6.1 (don't remember)
-                return null;
-            }
-            
-            
-            /////// We create a new instance of a App level Window.
-            result = this.createNewNavigableAppLevelWindow(name); // we could leave the name null and it would be set to a random number "012345679", but the form "AppLevelWindow_0123456789" is probably clearer when debugging.
-            addWindow(result);
-        }
-        
-        if  (isNameOfAppLevelWindow(name)) {
-            NavigableAppLevelWindow navigableAppLevelWindow = (NavigableAppLevelWindow)result;
-            currentNavigableAppLevelWindow.set(navigableAppLevelWindow);
-
-            
-            // SEE: http://vaadin.com/forum/-/message_boards/message/57240
-            //   Probably to be removed with Vaadin 7 and the notion of application level window.
-            if ("".equals(getVeryInitialUriFragment())) { // This case is different from null. If "", then it's for the home page.
-                if (navigableAppLevelWindow.getPage() == null) {  // screen not decided yet
-                    navigableAppLevelWindow.getNavigator().initializeHomePageAsFristPage();  // Then it should be the home page (we expect no #pageName uri in the current URL).
-                }
-            }
-        }
-
-        return result;
-    }   
-    /** Is name like AppLevelWindow_01234567890   ?? */
-    private boolean isNameOfAppLevelWindow(String name) {
-        Window primaryMainWindow = getMainWindow();
-        if (primaryMainWindow == null) {
-            // We may be in a strange case where Application.getWindow() is called before Application.setMainWindow() has been called. Would it be a Vaadin bug?
-            return false;
-        }
-        String[] nameParts = name.split("_");
-        return name.equals(primaryMainWindow.getName()) ||
-              (nameParts.length == 2  &&  nameParts[0].equals(primaryMainWindow.getName()));
-    }
-
-    /**
-     * @return the current application instance
-     */
-    public static NavigableApplication getCurrent() {
-        return currentApplication.get();
-    }
-
-    /**
-     * @return the current application level Window instance
-     */
-    public static NavigableAppLevelWindow getCurrentNavigableAppLevelWindow() {
-        return currentNavigableAppLevelWindow.get();
-    }
-
-    public WebApplication getWebApplication() {
-        return webApplication;
-    }
-
-
-
-    public static String getVeryInitialUriFragment() {
-        return veryInitialUriFragment.get();
-    }
-    
-    /**
-     * TransactionListener
-     */
-    @Override
-    public void transactionStart(Application application, Object transactionData) {
-        if (this != application) { // It does not concern us.
-            return;
-        } 
-    
-        if (getCurrent() == null) {
-            currentApplication.set(this);
-        }
-        
-        // SEE: http://vaadin.com/forum/-/message_boards/message/57240
-        //   Probably to be removed with Vaadin 7 when the uri mechanism will be more deeply integrated in the core of Vaadin.
-        // This tries to detect if it's an initial request (HomeScreen should be rendered) or not.
-        // If we don't do that, the HomeScreen is redisplayed before every page when we use a direct url (or a link).
-        // Better solution should come with Vaadin 7.
-        HttpServletRequest request = (HttpServletRequest) transactionData;
-        veryInitialUriFragment.set(request.getParameter("fr"));  // Could be null.
-    }
-
-    @Override
-    public void transactionEnd(Application application, Object transactionData) {
-        if (this != application) { // It does not concern us.
-            return;
-        } 
-
-        currentApplication.remove();
-        currentNavigableAppLevelWindow.remove();
-        veryInitialUriFragment.remove();
-    }
-
-    
-
-
+package org.vaadin.navigator7;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.vaadin.navigator7.window.NavigableAppLevelWindow;
+import org.vaadin.navigator7.window.PageCacheBudget;
+import org.vaadin.navigator7.window.PageHibernator;
+import org.vaadin.navigator7.window.WindowRegistry;
+
+import com.vaadin.Application;
+import com.vaadin.service.ApplicationContext.TransactionListener;
+import com.vaadin.terminal.gwt.server.AbstractCommunicationManager;
+import com.vaadin.ui.Window;
+
+/** Application that instantiates NavigableAppLevelWindow and manages browser tabs correctly (one AppLevelWindow per tab).
+ * It implements the thread local pattern to enable the easy (for you) retrieval of the current application and AppLevelWindow, wherever you are in your code (with static no arg methods). 
+ * It is bound to a NavigatorConfig that you may use to know the pages managed by your application. 
+ * The windows of the tabs are kept in a WindowRegistry, that bounds their amount and evicts the idle ones (rebuilt on demand).
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ *
+ */
+public abstract class NavigableApplication extends Application implements TransactionListener {
+
+    private static final long serialVersionUID = 1L;
+    
+    
+    static protected ThreadLocal<NavigableApplication> currentApplication = new ThreadLocal<NavigableApplication>();
+    static protected ThreadLocal<NavigableAppLevelWindow> currentNavigableAppLevelWindow = new ThreadLocal<NavigableAppLevelWindow>();
+    static protected ThreadLocal<String> veryInitialUriFragment = new ThreadLocal<String>();  // Trick until further version of Vaadin. See comment in transactionListener below
+
+    private PageCacheBudget pageCacheBudget;  // Shared by the page caches of all the windows of this session. Lazily created.
+    private Prefetcher.SessionState prefetchState = new Prefetcher.SessionState();
+    private WindowRegistry windowRegistry;  // Created with the main window.
+    private transient boolean rebuildingWindow;  // Guards getMainWindow() while a compacted window is rebuilt (or removed).
+    private AbstractCommunicationManager communicationManager;  // The Vaadin terminal of this session (serialized with it anyway, in the WebApplicationContext). Null if not created by a NavigableApplicationServlet.
+
+    private transient WebApplication webApplication = null;  // Not serialized: shared by all the sessions (found again by getWebApplication()). Trick. Useless because of WebApplication.getCurrent(), but ..... sometimes we know the window (-> v6 Application) but not the v7 WebApplication, and we are not in a usual web thread. This is the case of File upload event listeners.
+    
+
+    /** Don't override me, because you are not supposed to create any window by yourself */
+    @Override
+    public void init() {
+        webApplication = WebApplication.getCurrent();
+        // Defensive programming.
+        if (webApplication.getNavigatorConfig().getPagesClass().size() == 0) {
+            throw new IllegalStateException("No page in configuration. You should register pages in the constructor of your NavigableApplication sub-class," +
+            		" typically by calling NavigableApplication.registerPages() method." +
+            		" If you did, then no page has been found. Check your settings as the presence of the @Page annotation on your pages.");
+        }
+        
+        // Register a transaction listener that updates our ThreadLocal with each request
+        getContext().addTransactionListener(this);
+
+
+        boolean currentWasNull = false;  // During initialization, we trigger code that might needs getCurrent(), but TransactionListener has not been set yet and will not be called.
+        if (getCurrent() == null) {
+            currentApplication.set(this);
+            currentWasNull = true;
+        }
+
+        
+        NavigableAppLevelWindow navWin;
+        setMainWindow(navWin = createNewNavigableAppLevelWindow("AppLevelWindow"));
+        NavigatorConfig navigatorConfig = webApplication.getNavigatorConfig();
+        windowRegistry = new WindowRegistry(navWin, navigatorConfig.getMaxAppLevelWindowsPerSession(), navigatorConfig.getAppLevelWindowIdleTimeoutMillis());
+        navigatorConfig.getSessionFootprintAnalyzer().track(this);
+        if (navigatorConfig.getPageHibernator() != null) {
+            navigatorConfig.getPageHibernator().track(this);
+        }
+        
+//        navWin.pageContainer = navWin.createComponents(); 
+
+        
+        if (currentWasNull == true) {
+            currentApplication.remove();
+        }
+    }
+    
+    private NavigableAppLevelWindow createNewNavigableAppLevelWindow(String name) {
+        NavigableAppLevelWindow appLevelWindow = createNewNavigableAppLevelWindow();
+        appLevelWindow.setName(name);   // Thank to this name, we can easily sort application level windows from floating windows (dialog boxes).
+                                            // we could leave the name null and it would be set to a random number "012345679", but the form "AppLevelWindow_0123456789" is probably clearer when debugging.
+        return appLevelWindow;
+    }
+
+    /** Please override me, to instantiate your application's NavigableAppLevelWindow descendant */  
+    public abstract NavigableAppLevelWindow createNewNavigableAppLevelWindow();
+
+
+    /** see ancestor useful JavaDoc */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Window getWindow(String name) {
+        // We check application state here because superclass returns null if
+        // a) the application is not running anymore
+        // b) it doesn't have a window for the given name
+        if (!isRunning()) {
+            return null;
+        }
+        
+        if (windowRegistry == null) {
+            // We may be in a strange case where Application.getWindow() is called before Application.setMainWindow() has been called. Would it be a Vaadin bug?
+            return super.getWindow(name);
+        }
+
+        // Is that an existing application level window? (the usual case: one hash lookup)
+        long now = System.currentTimeMillis();
+        NavigableAppLevelWindow navigableAppLevelWindow = windowRegistry.get(name, now);
+        boolean rebuilt = false;
+        if (navigableAppLevelWindow != null && navigableAppLevelWindow.isCompacted()) {  // First request after a compact deserialization.
+            navigableAppLevelWindow = rebuildCompactedWindow(navigableAppLevelWindow, now);
+            rebuilt = true;
+        } else if (navigableAppLevelWindow != null && navigableAppLevelWindow.isHibernated()) {  // The user comes back to a window whose page has been released.
+            currentNavigableAppLevelWindow.set(navigableAppLevelWindow);  // The navigation needs it.
+            PageHibernator pageHibernator = getWebApplication().getNavigatorConfig().getPageHibernator();
+            if (pageHibernator != null) {
+                pageHibernator.wakeUp(navigableAppLevelWindow);  // Measures it.
+            } else {  // Disabled since.
+                navigableAppLevelWindow.wakeUp();
+            }
+            rebuilt = true;
+        } else if (navigableAppLevelWindow == null) {
+            if (! windowRegistry.isAppLevelWindowName(name)) {
+                return super.getWindow(name);  // Floating window (or noise: already happened during debugging with Vaadin 6.0 or 6.1 (don't remember)).
+            }
+
+            // New case where we create one instance of the main window per browser window/tab that the user opens in the same HttpSession (= in the same Application instance).
+            ///// If the name is like MainWindowName_01234567890 (where the number is random), then it is a request for a new instance of main window.
+            ///// It may also be a tab whose window has been evicted by the WindowRegistry: we build it again, on the page it was displaying.
+            rebuilt = windowRegistry.isEvicted(name);
+            String evictedFragment = windowRegistry.getEvictedFragment(name);
+            navigableAppLevelWindow = this.createNewNavigableAppLevelWindow(name); // we could leave the name null and it would be set to a random number "012345679", but the form "AppLevelWindow_0123456789" is probably clearer when debugging.
+            addWindow(navigableAppLevelWindow);
+            windowRegistry.register(navigableAppLevelWindow, now);  // May evict the least recently used window.
+            currentNavigableAppLevelWindow.set(navigableAppLevelWindow);
+            if (rebuilt) {
+                navigableAppLevelWindow.getNavigator().restoreFragment(evictedFragment);
+            }
+        }
+        windowRegistry.evictIdleWindows(now, name);
+
+        currentNavigableAppLevelWindow.set(navigableAppLevelWindow);
+
+        // SEE: http://vaadin.com/forum/-/message_boards/message/57240
+        //   Probably to be removed with Vaadin 7 and the notion of application level window.
+        if (! rebuilt && "".equals(getVeryInitialUriFragment())) { // This case is different from null. If "", then it's for the home page.
+            if (navigableAppLevelWindow.getPage() == null) {  // screen not decided yet
+                navigableAppLevelWindow.getNavigator().initializeHomePageAsFristPage();  // Then it should be the home page (we expect no #pageName uri in the current URL).
+            }
+        }
+
+        return navigableAppLevelWindow;
+    }
+
+    /** Rebuilds the primary main window if it has been compacted (see NavigatorConfig.setCompactSerialization()). */
+    @Override
+    public Window getMainWindow() {
+        Window mainWindow = super.getMainWindow();
+        if (! rebuildingWindow && mainWindow instanceof NavigableAppLevelWindow && ((NavigableAppLevelWindow) mainWindow).isCompacted() && isRunning()) {
+            return rebuildCompactedWindow((NavigableAppLevelWindow) mainWindow, System.currentTimeMillis());
+        }
+        return mainWindow;
+    }
+
+    /** Replaces the stand-in of a window serialized in compact mode by a complete window, showing the same page (see NavigableAppLevelWindow.restoreFrom()). */
+    private NavigableAppLevelWindow rebuildCompactedWindow(NavigableAppLevelWindow compacted, long now) {
+        rebuildingWindow = true;
+        try {
+            boolean isMainWindow = super.getMainWindow() == compacted;
+            if (communicationManager != null) {
+                // The paintable maps of the terminal have been serialized with the components of the original window (whose parents now lead to the stand-in):
+                // they are forgotten, the client gets the components of the new window. Only the stand-in itself keeps its former id.
+                communicationManager.makeAllPaintablesDirty(compacted);
+            }
+            super.removeWindow(compacted);  // Not this.removeWindow(): the registry entry is replaced below.
+            NavigableAppLevelWindow window = createNewNavigableAppLevelWindow(compacted.getName());
+            if (isMainWindow) {
+                setMainWindow(window);
+            } else {
+                addWindow(window);
+            }
+            windowRegistry.register(window, now);
+            NavigableAppLevelWindow previousCurrent = currentNavigableAppLevelWindow.get();
+            currentNavigableAppLevelWindow.set(window);  // The navigation needs it.
+            try {
+                window.restoreFrom(compacted);
+            } finally {
+                currentNavigableAppLevelWindow.set(previousCurrent);  // getWindow() sets it anyway.
+            }
+            return window;
+        } finally {
+            rebuildingWindow = false;
+        }
+    }
+
+    /** The session ends: the pages of its windows are disposed (see PageLifecycle),
+     * and it is not analyzed anymore by the SessionFootprintAnalyzer (nor swept by the PageHibernator). */
+    @Override
+    public void close() {
+        if (getWebApplication() != null) {
+            NavigatorConfig navigatorConfig = getWebApplication().getNavigatorConfig();
+            navigatorConfig.getSessionFootprintAnalyzer().untrack(this);
+            if (navigatorConfig.getPageHibernator() != null) {
+                navigatorConfig.getPageHibernator().untrack(this);
+            }
+            disposePages();
+        }
+        super.close();
+    }
+
+    /** May be called out of any request (session expiration): locks the application as Vaadin does for a request. */
+    private void disposePages() {
+        synchronized (this) {
+            if (windowRegistry == null) {
+                return;
+            }
+            boolean currentWasNull = false;  // The pages may need getCurrent() in onDispose().
+            if (getCurrent() == null) {
+                currentApplication.set(this);
+                currentWasNull = true;
+            }
+            try {
+                for (NavigableAppLevelWindow window : windowRegistry.getWindows()) {
+                    window.disposePages();
+                }
+            } finally {
+                if (currentWasNull) {
+                    currentApplication.remove();
+                }
+            }
+        }
+    }
+
+    /** Releases the pages of the windows not used since idleSince (see NavigableAppLevelWindow.hibernate()). Returns the amount of windows hibernated now.
+     * Called by the PageHibernator, out of any request: locks the application as Vaadin does for a request. */
+    public int hibernateIdleWindows(long idleSince) {
+        synchronized (this) {
+            if (! isRunning() || windowRegistry == null) {
+                return 0;
+            }
+            boolean currentWasNull = false;  // The pages may need getCurrent() when they are detached.
+            if (getCurrent() == null) {
+                currentApplication.set(this);
+                currentWasNull = true;
+            }
+            try {
+                int count = 0;
+                for (NavigableAppLevelWindow window : windowRegistry.getWindowsIdleSince(idleSince)) {
+                    if (window.hibernate()) {
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                if (currentWasNull) {
+                    currentApplication.remove();
+                }
+            }
+        }
+    }
+
+    /** Amount of windows of this session whose page is currently released (see hibernateIdleWindows()). */
+    public int getHibernatedWindowCount() {
+        synchronized (this) {
+            if (windowRegistry == null) {
+                return 0;
+            }
+            int count = 0;
+            for (NavigableAppLevelWindow window : windowRegistry.getWindows()) {
+                if (window.isHibernated()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /** Also forgets the window in the WindowRegistry, if it's an application level window. */
+    @Override
+    public void removeWindow(Window window) {
+        boolean wasRebuilding = rebuildingWindow;
+        rebuildingWindow = true;  // Application.removeWindow() calls getMainWindow(): a stand-in (compacted main window) is removed, not rebuilt.
+        try {
+            super.removeWindow(window);
+        } finally {
+            rebuildingWindow = wasRebuilding;
+        }
+        if (windowRegistry != null && window.getName() != null) {
+            windowRegistry.unregister(window.getName());
+        }
+    }
+
+    /** The application level windows (one per browser tab) of this session. Null before init(). */
+    public WindowRegistry getWindowRegistry() {
+        return windowRegistry;
+    }
+
+    /**
+     * @return the current application instance
+     */
+    public static NavigableApplication getCurrent() {
+        return currentApplication.get();
+    }
+
+    /**
+     * @return the current application level Window instance
+     */
+    public static NavigableAppLevelWindow getCurrentNavigableAppLevelWindow() {
+        return currentNavigableAppLevelWindow.get();
+    }
+
+    public WebApplication getWebApplication() {
+        if (webApplication == null) {  // Deserialized session (replication, passivation).
+            webApplication = WebApplication.getCurrent();
+        }
+        return webApplication;
+    }
+
+    /** Called by NavigableApplicationServlet when Vaadin creates the terminal of this session. */
+    void setCommunicationManager(AbstractCommunicationManager communicationManager) {
+        this.communicationManager = communicationManager;
+    }
+
+    /** What the Prefetcher (if any) did for this session. */
+    public Prefetcher.SessionState getPrefetchState() {
+        return prefetchState;
+    }
+
+    /** Memory budget of the page caches of the windows of this session (see @CachedPage). */
+    public PageCacheBudget getPageCacheBudget() {
+        if (pageCacheBudget == null) {
+            pageCacheBudget = new PageCacheBudget(getWebApplication().getNavigatorConfig().getPageCacheBudgetKb());
+        }
+        return pageCacheBudget;
+    }
+
+
+
+    public static String getVeryInitialUriFragment() {
+        return veryInitialUriFragment.get();
+    }
+    
+    /**
+     * TransactionListener
+     */
+    @Override
+    public void transactionStart(Application application, Object transactionData) {
+        if (this != application) { // It does not concern us.
+            return;
+        } 
+    
+        if (getCurrent() == null) {
+            currentApplication.set(this);
+        }
+        
+        // SEE: http://vaadin.com/forum/-/message_boards/message/57240
+        //   Probably to be removed with Vaadin 7 when the uri mechanism will be more deeply integrated in the core of Vaadin.
+        // This tries to detect if it's an initial request (HomeScreen should be rendered) or not.
+        // If we don't do that, the HomeScreen is redisplayed before every page when we use a direct url (or a link).
+        // Better solution should come with Vaadin 7.
+        HttpServletRequest request = (HttpServletRequest) transactionData;
+        veryInitialUriFragment.set(request.getParameter("fr"));  // Could be null.
+    }
+
+    @Override
+    public void transactionEnd(Application application, Object transactionData) {
+        if (this != application) { // It does not concern us.
+            return;
+        } 
+
+        currentApplication.remove();
+        currentNavigableAppLevelWindow.remove();
+        veryInitialUriFragment.remove();
+    }
+
+    
+
+
 }
\ No newline at end of file
@@ -1,163 +1,486 @@
-package org.vaadin.navigator7;
-
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
-import org.vaadin.navigator7.interceptor.Interceptor;
-
-import com.vaadin.ui.Component;
-
-/** Contains the list of classes used as pages in NavigableApplication NavigableAppLevelWindows.
- * Can tell a page class from page name in uri and vis versa.
- * 
- * @author John Rizzo - BlackBeltFactory.com
- */
-public class NavigatorConfig implements Serializable {
-    
-    // The key is lowercase. For example, with the value AuctionEditorPage.class, we have the key "auctioneditor" in this map. The goal is to be key insesitive when accepting incoming uris. 
-    private HashMap<String, Class<? extends Component>> uriToClass = new HashMap<String, Class<? extends Component>>();
-
-    // The value is CamelCase. For example, with the key AuctionEditorPage.class, we have the value "AuctionEditor" in this map. The goal is to produce easy to read CamelCase uris.
-    private HashMap<Class<? extends Component>, String> classToUri = new HashMap<Class<? extends Component>, String>();
-
-    private Class<? extends Component> homePageClass;  // Class used for uri with no page name (as, for example just "http://domain.com/").
-    
-    protected List<Interceptor> interceptorList = new ArrayList<Interceptor>();
-    
-    // Pages for which Google bots should navigate through. Adds a ! in URIs.
-    private Set<Class<? extends Component>> crawlablePages = new HashSet<Class<? extends Component>>();
-    
-    /** Scans the pages annotated with @Page in the classpath, for the sub-package of the package given as parameter */
-    public void registerPages(String packageName) {
-        // TODO: do some scanning of @Page annotated classes and add them to the navigator.
-        // See http://stackoverflow.com/questions/259140/scanning-java-annotations-at-runtime
-        // It depends on what system Vaadin 7 will use to autodetect annotations.
-        // Question asked there: http://vaadin.com/forum/-/message_boards/message/152638
-        throw new UnsupportedOperationException("This feature has not been implemented yet. Use the other registerPages method, taking an array of classes as parameter.");
-    }
-    
-    /** The first page of this array is (by default) the home page */
-    public void registerPages(Class[] pageClasses) {
-        if (pageClasses.length == 0) {
-            throw new IllegalArgumentException("Your array of classes is empty and it should at least contain one page");
-        }
-        
-        for (Class clazz : pageClasses) {
-            if (! Component.class.isAssignableFrom(clazz)) {  // In other words, does pageClass extend Component?
-                throw new IllegalArgumentException("Given classes should extend Component. One of the classes does not: "+clazz);
-            }
-            Class<? extends Component> pageClass = (Class<? extends Component>)clazz;
-
-            
-            addPageClass(pageClass);
-        }
-
-        setHomePageClass(pageClasses[0]);  // By default. setHomePage can explicitely be called to specify another class.
-    }
-
-    public String computePageName(Class<? extends Component> pageClass) { 
-        // Discover the name through the @Page annotation.
-        String pageName;
-        Page pageAnnotation = pageClass.getAnnotation(Page.class);
-
-        if (pageAnnotation == null) {  // Class not annotated => default name.
-            pageName = computePageNameFromClassName(pageClass.getSimpleName());
-
-        } else { // Class annotated
-            if (pageAnnotation.uriName() != null && ! "".equals(pageAnnotation.uriName().trim())) {
-                pageName = pageAnnotation.uriName();
-            } else {  // No name given in the annotation => use default.
-                pageName = computePageNameFromClassName(pageClass.getSimpleName());
-            }
-        }
-        return pageName;
-    }
-
-    public boolean computeIsCrawlable(Class<? extends Component> pageClass) {
-        Page pageAnnotation = pageClass.getAnnotation(Page.class);
-        return (pageAnnotation != null && pageAnnotation.crawlable());
-    }
-    
-    public void addPageClass(Class<? extends Component> pageClass) {
-        if (computeIsCrawlable(pageClass)) {
-            crawlablePages.add(pageClass);
-        }
-
-        String pageName = computePageName(pageClass);
-        
-        // Add the page in maps.
-        String lowerCasePageName = pageName.toLowerCase();
-        if (uriToClass.containsKey(lowerCasePageName)) {
-            throw new IllegalArgumentException("Adding a page with a name that has already been added in the configuration: ["+lowerCasePageName+"]");
-        }
-        uriToClass.put(lowerCasePageName, pageClass); // lowercase here (see comment on Map definition)
-
-        if (classToUri.containsKey(pageClass)) {
-            throw new IllegalArgumentException("Adding a page with a class that has already been added in the configuration: ["+pageClass+"]");
-        }
-        classToUri.put(pageClass, pageName);  // Uppercase here (see comment on Map definition)
-    }
-
-    
-    
-    public Class<? extends Component> getHomePageClass() {
-        return homePageClass;
-    }
-
-    public void setHomePageClass(Class<? extends Component> hpClassParam) {
-        this.homePageClass = hpClassParam;
-    }
-    
-    
-    /** Removes an optional "Page" postfix from the end of the given String.
-     * If the given class name is "MyGreatPage", then the result will be "MyGreat".
-     * If the given class name is "Hello", then the result will be "Hello".
-     */
-    public String computePageNameFromClassName(String simpleName) {
-        if (simpleName.endsWith("Page")) {
-            simpleName = simpleName.substring(0, simpleName.length()-4); // Remove the word "Page".
-        }
-
-        return simpleName;
-    }
-
-    public Collection<Class<? extends Component>> getPagesClass() {
-        return classToUri.keySet();
-    }
-
-    public Class<? extends Component> getPageClass(String pageName) {
-        return uriToClass.get(pageName.toLowerCase());
-    }
-
-    public String getPageName(Class<? extends Component> pageClass) {
-        String result = classToUri.get(pageClass);
-        // Defensive coding
-        if (result == null) {  // Not found.
-            throw new IllegalArgumentException("Bug: a given page class would have not a name? " +
-            		"The caller probably does not expect that." +
-            		" You probably did not include that page in your configuration. " +
-            		" You can include it by calling the registerPage() method in your descendant of WebApplication." +
-            		" Page class = "+ pageClass);
-        }
-        return result;
-    }
-
-
-    public List<Interceptor> getInterceptorList() {
-        return interceptorList;
-    }
-
-    public boolean isPageCrawlable(Class<? extends Component> pageClass) {
-        return crawlablePages.contains(pageClass);
-    }
-    
-    
-
-
-
-}
+package org.vaadin.navigator7;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.vaadin.navigator7.apt.PageIndexProcessor;
+import org.vaadin.navigator7.interceptor.Interceptor;
+import org.vaadin.navigator7.interceptor.InterceptorPipeline;
+import org.vaadin.navigator7.metrics.NavigationMetrics;
+import org.vaadin.navigator7.metrics.NavigationPhase;
+import org.vaadin.navigator7.metrics.PageLeakDetector;
+import org.vaadin.navigator7.metrics.SessionFootprintAnalyzer;
+import org.vaadin.navigator7.uri.Route;
+import org.vaadin.navigator7.window.PageHibernator;
+
+import com.vaadin.ui.Component;
+
+/** Contains the list of classes used as pages in NavigableApplication NavigableAppLevelWindows.
+ * Can tell a page class from page name in uri and vis versa.
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ */
+public class NavigatorConfig implements Serializable {
+    
+    // The registered pages, with their name and flags. Replaced by a new table each time a page is added.
+    // Names are CamelCase (as "AuctionEditor" for AuctionEditorPage.class), to produce easy to read uris, but matched case insensitively when accepting incoming uris.
+    private volatile RouteTable routeTable = RouteTable.EMPTY;
+
+    private Class<? extends Component> homePageClass;  // Class used for uri with no page name (as, for example just "http://domain.com/").
+    
+    protected List<Interceptor> interceptorList = new InterceptorList();
+
+    // Interceptors to call for each page, compiled from interceptorList (see getInterceptorPipeline()). Index = page id. Emptied when interceptorList changes or a page is added.
+    private volatile AtomicReferenceArray<InterceptorPipeline> interceptorPipelines = new AtomicReferenceArray<InterceptorPipeline>(0);
+    // Same, for the classes that are not registered pages (an interceptor may navigate to any class).
+    private ConcurrentHashMap<Class<? extends Component>, InterceptorPipeline> unregisteredPipelines = new ConcurrentHashMap<Class<? extends Component>, InterceptorPipeline>();
+    // interceptorList (and its modification count) when the pipelines above have been emptied.
+    private List<Interceptor> compiledInterceptorList = interceptorList;
+    private int compiledInterceptorListModCount;
+    
+    private int pageCacheBudgetKb = 4096;      // Per session.
+    private int pageCacheMaxPagesPerWindow = 8;
+    private int maxAppLevelWindowsPerSession = 8;                     // Browser tabs with a live window (see WindowRegistry).
+    private long appLevelWindowIdleTimeoutMillis = 20 * 60 * 1000L;
+    private boolean compactSerialization = false;
+    private List<PageEvictionListener> pageEvictionListeners = new ArrayList<PageEvictionListener>();
+
+    private PageFactory pageFactory = new DefaultPageFactory();
+    private PageConstructionStats pageConstructionStats = new PageConstructionStats();
+
+    private transient NavigationMetrics navigationMetrics = new NavigationMetrics();
+    private transient SessionFootprintAnalyzer sessionFootprintAnalyzer = new SessionFootprintAnalyzer();
+    private transient PageLeakDetector pageLeakDetector = new PageLeakDetector();
+
+    private transient Prefetcher prefetcher;  // null = no prefetch (default).
+    private transient PageHibernator pageHibernator;  // null = no hibernation (default).
+    
+    /** Registers the pages annotated with @Page of that package and its sub-packages.
+     * They are listed at compile time by PageIndexProcessor (see PageIndex). The jars and directories without index (compiled without the processor)
+     * are scanned by PageScanner: only their @Page classes are loaded.
+     * "" (the default package) registers the pages of the whole classpath: all the indexes, but only the directories are scanned (not the jars).
+     * The classes are sorted by name: if no home page has been set yet, the first one becomes the home page (call setHomePageClass() to choose it). */
+    public void registerPages(String packageName) {
+        ClassLoader classLoader = getClassLoader();
+        TreeMap<String, PageIndex.Entry> pages = new TreeMap<String, PageIndex.Entry>();  // Key = class name. Value = null for scanned pages.
+        for (PageIndex.Entry entry : PageIndex.load(classLoader)) {
+            if (entry.isInPackage(packageName)) {
+                pages.put(entry.getClassName(), entry);
+            }
+        }
+        PageScanner scanner = new PageScanner(classLoader, true);
+        scanner.scan(packageName);
+        for (String className : scanner.getPageClassNames()) {
+            if (! pages.containsKey(className)) {
+                pages.put(className, null);
+            }
+        }
+        if (pages.isEmpty()) {
+            throw new IllegalArgumentException("No @Page class found for package [" + packageName + "] in the classpath." +
+                    (scanner.getUnsupportedRoots().isEmpty() ? "" : " These locations could not be scanned: " + scanner.getUnsupportedRoots() +
+                            ". Compile your pages with the annotation processor " + PageIndexProcessor.class.getName() + ".") +
+                    " You can also use the other registerPages method, taking an array of classes as parameter.");
+        }
+
+        for (Map.Entry<String, PageIndex.Entry> page : pages.entrySet()) {
+            Class<? extends Component> pageClass = loadPageClass(page.getKey(), classLoader);
+            PageIndex.Entry entry = page.getValue();
+            if (entry == null) {  // Scanned.
+                addPageClass(pageClass);
+            } else {  // From the index: no need to read the annotation.
+                String pageName = "".equals(entry.getUriName()) ? computePageNameFromClassName(pageClass.getSimpleName()) : entry.getUriName();
+                addPageClass(pageClass, pageName, entry.isCrawlable());
+            }
+        }
+
+        if (homePageClass == null) {
+            setHomePageClass(loadPageClass(pages.firstKey(), classLoader));
+        }
+    }
+
+    private ClassLoader getClassLoader() {
+        ClassLoader result = Thread.currentThread().getContextClassLoader();  // The one of the web application, in a servlet container.
+        return result != null ? result : NavigatorConfig.class.getClassLoader();
+    }
+
+    private Class<? extends Component> loadPageClass(String className, ClassLoader classLoader) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Page class [" + className + "] cannot be loaded. If it is listed in a " + PageIndex.RESOURCE_NAME + " file, is the index out of date?", e);
+        }
+        if (! Component.class.isAssignableFrom(clazz)) {
+            throw new IllegalArgumentException("Classes annotated with @Page should extend Component. This one does not: " + clazz);
+        }
+        return clazz.asSubclass(Component.class);
+    }
+    
+    /** The first page of this array is (by default) the home page */
+    public void registerPages(Class[] pageClasses) {
+        if (pageClasses.length == 0) {
+            throw new IllegalArgumentException("Your array of classes is empty and it should at least contain one page");
+        }
+        
+        for (Class clazz : pageClasses) {
+            if (! Component.class.isAssignableFrom(clazz)) {  // In other words, does pageClass extend Component?
+                throw new IllegalArgumentException("Given classes should extend Component. One of the classes does not: "+clazz);
+            }
+            Class<? extends Component> pageClass = (Class<? extends Component>)clazz;
+
+            
+            addPageClass(pageClass);
+        }
+
+        setHomePageClass(pageClasses[0]);  // By default. setHomePage can explicitely be called to specify another class.
+    }
+
+    public String computePageName(Class<? extends Component> pageClass) { 
+        // Discover the name through the @Page annotation.
+        String pageName;
+        Page pageAnnotation = pageClass.getAnnotation(Page.class);
+
+        if (pageAnnotation == null) {  // Class not annotated => default name.
+            pageName = computePageNameFromClassName(pageClass.getSimpleName());
+
+        } else { // Class annotated
+            if (pageAnnotation.uriName() != null && ! "".equals(pageAnnotation.uriName().trim())) {
+                pageName = pageAnnotation.uriName();
+            } else {  // No name given in the annotation => use default.
+                pageName = computePageNameFromClassName(pageClass.getSimpleName());
+            }
+        }
+        return pageName;
+    }
+
+    public boolean computeIsCrawlable(Class<? extends Component> pageClass) {
+        Page pageAnnotation = pageClass.getAnnotation(Page.class);
+        return (pageAnnotation != null && pageAnnotation.crawlable());
+    }
+    
+    /** Returns the estimated size of the page instances if the page is annotated with @CachedPage, or 0 if not. */
+    public int computeCachedPageSizeKb(Class<? extends Component> pageClass) {
+        CachedPage cachedPageAnnotation = pageClass.getAnnotation(CachedPage.class);
+        return cachedPageAnnotation == null ? 0 : Math.max(1, cachedPageAnnotation.sizeKb());
+    }
+    
+    public void addPageClass(Class<? extends Component> pageClass) {
+        addPageClass(pageClass, computePageName(pageClass), computeIsCrawlable(pageClass));
+    }
+
+    /** @param pageName and crawlable as computed by computePageName() and computeIsCrawlable(), or as found in the PageIndex. */
+    protected void addPageClass(Class<? extends Component> pageClass, String pageName, boolean crawlable) {
+        // Throws if the name or the class is already registered, if the route conflicts with the route of another page, or if a route starts with the name of another page.
+        routeTable = routeTable.with(pageClass, pageName, crawlable, computeCachedPageSizeKb(pageClass), computeRoute(pageClass));
+        interceptorPipelines = new AtomicReferenceArray<InterceptorPipeline>(routeTable.size());  // Page ids are dense: one more slot.
+
+        pageFactory.preparePage(pageClass);
+    }
+
+    
+    
+    public Class<? extends Component> getHomePageClass() {
+        return homePageClass;
+    }
+
+    public void setHomePageClass(Class<? extends Component> hpClassParam) {
+        this.homePageClass = hpClassParam;
+    }
+    
+    
+    /** Removes an optional "Page" postfix from the end of the given String.
+     * If the given class name is "MyGreatPage", then the result will be "MyGreat".
+     * If the given class name is "Hello", then the result will be "Hello".
+     */
+    public String computePageNameFromClassName(String simpleName) {
+        if (simpleName.endsWith("Page")) {
+            simpleName = simpleName.substring(0, simpleName.length()-4); // Remove the word "Page".
+        }
+
+        return simpleName;
+    }
+
+    public Collection<Class<? extends Component>> getPagesClass() {
+        return routeTable.getPageClasses();
+    }
+
+    /** The registered pages (frozen: a new table is made when a page is registered). */
+    public RouteTable getRouteTable() {
+        return routeTable;
+    }
+
+    /** Returns the dense id of the page (see RouteTable), or -1 if the class is not registered. */
+    public int getPageId(Class<? extends Component> pageClass) {
+        return routeTable.getPageId(pageClass);
+    }
+
+    /** Case insensitive. Returns null if no page has that name. */
+    public Class<? extends Component> getPageClass(String pageName) {
+        return getPageClass(pageName, 0, pageName.length());
+    }
+
+    /** Same as getPageClass(String), with the page name being the characters of s from start (inclusive) to end (exclusive). */
+    public Class<? extends Component> getPageClass(CharSequence s, int start, int end) {
+        RouteTable table = routeTable;
+        int pageId = table.getPageId(s, start, end);
+        return pageId < 0 ? null : table.getPageClass(pageId);
+    }
+
+    public String getPageName(Class<? extends Component> pageClass) {
+        RouteTable table = routeTable;
+        int pageId = table.getPageId(pageClass);
+        // Defensive coding
+        if (pageId < 0) {  // Not found.
+            throw new IllegalArgumentException("Bug: a given page class would have not a name? " +
+            		"The caller probably does not expect that." +
+            		" You probably did not include that page in your configuration. " +
+            		" You can include it by calling the registerPage() method in your descendant of WebApplication." +
+            		" Page class = "+ pageClass);
+        }
+        return table.getPageName(pageId);
+    }
+
+
+    /** The list may be changed (typically at startup): the interceptor pipelines are compiled again at the next navigation. */
+    public List<Interceptor> getInterceptorList() {
+        return interceptorList;
+    }
+
+    /** Adds the interceptor at the end of the chain. Typically called at startup (from your WebApplication constructor). */
+    public void addInterceptor(Interceptor interceptor) {
+        interceptorList.add(interceptor);
+    }
+
+    /** Returns the interceptors to call when navigating to that page class.
+     * Compiled the first time for each page class (see compileInterceptorPipelines() to do it at startup). */
+    public InterceptorPipeline getInterceptorPipeline(Class<? extends Component> pageClass) {
+        if (interceptorListChanged()) {
+            resetInterceptorPipelines();
+        }
+        AtomicReferenceArray<InterceptorPipeline> pipelines = interceptorPipelines;
+        int pageId = routeTable.getPageId(pageClass);
+        InterceptorPipeline pipeline = pageId >= 0 && pageId < pipelines.length() ? pipelines.get(pageId) : unregisteredPipelines.get(pageClass);
+        if (pipeline == null) {
+            pipeline = InterceptorPipeline.compile(pageClass, interceptorList);
+            // If another thread did the same in the mean time, no problem: both are equal.
+            if (pageId >= 0 && pageId < pipelines.length()) {
+                pipelines.set(pageId, pipeline);
+            } else {
+                unregisteredPipelines.put(pageClass, pipeline);
+            }
+        }
+        return pipeline;
+    }
+
+    /** true if interceptorList has been changed (or replaced by a descendant) since the pipelines have been emptied.
+     * A descendant replacing interceptorList by another kind of list should call resetInterceptorPipelines() after each change. */
+    private boolean interceptorListChanged() {
+        List<Interceptor> list = interceptorList;
+        return list != compiledInterceptorList
+            || (list instanceof InterceptorList && ((InterceptorList)list).getModCount() != compiledInterceptorListModCount);
+    }
+
+    /** Drops the compiled interceptor pipelines: they will be compiled again from interceptorList. */
+    protected synchronized void resetInterceptorPipelines() {
+        List<Interceptor> list = interceptorList;
+        compiledInterceptorList = list;
+        compiledInterceptorListModCount = list instanceof InterceptorList ? ((InterceptorList)list).getModCount() : 0;
+        interceptorPipelines = new AtomicReferenceArray<InterceptorPipeline>(routeTable.size());
+        unregisteredPipelines.clear();
+    }
+
+    /** Compiles the interceptor pipelines of all the registered pages, so the first visitors don't pay for it.
+     * Called by WebApplication.init(). */
+    public void compileInterceptorPipelines() {
+        for (Class<? extends Component> pageClass : routeTable.getPageClasses()) {
+            getInterceptorPipeline(pageClass);
+        }
+    }
+
+    /** Returns the route of that page, or null if the page has no route (or is not registered). */
+    public Route getRoute(Class<? extends Component> pageClass) {
+        RouteTable table = routeTable;
+        int pageId = table.getPageId(pageClass);
+        return pageId < 0 ? null : table.getRoute(pageId);
+    }
+
+    /** Pages for which Google bots should navigate through. Adds a ! in URIs. */
+    public boolean isPageCrawlable(Class<? extends Component> pageClass) {
+        RouteTable table = routeTable;
+        int pageId = table.getPageId(pageClass);
+        return pageId >= 0 && table.isCrawlable(pageId);
+    }
+
+    /** Returns the route of the page (@Page(route="product/{id:long}/reviews")), or null if it has none.
+     * @throws IllegalArgumentException if the pattern is invalid. */
+    public Route computeRoute(Class<? extends Component> pageClass) {
+        Page pageAnnotation = pageClass.getAnnotation(Page.class);
+        if (pageAnnotation == null || pageAnnotation.route().length() == 0) {
+            return null;
+        }
+        try {
+            return Route.parse(pageAnnotation.route());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid @Page route on class [" + pageClass.getName() + "]: " + e.getMessage(), e);
+        }
+    }
+
+    /** Returns the estimated size of the instances of that page if they should be kept in the page cache of the windows (@CachedPage), or 0 if not. */
+    public int getCachedPageSizeKb(Class<? extends Component> pageClass) {
+        RouteTable table = routeTable;
+        int pageId = table.getPageId(pageClass);
+        return pageId < 0 ? 0 : table.getCachedPageSizeKb(pageId);
+    }
+
+    /** Creates a new instance of the page with the PageFactory, and measures the time it takes. */
+    public Component createPage(Class<? extends Component> pageClass) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Component page = pageFactory.createPage(pageClass);
+            failed = false;
+            return page;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            pageConstructionStats.record(routeTable.getPageId(pageClass), pageClass, nanos, failed);
+            navigationMetrics.recordNanos(NavigationPhase.CONSTRUCTION, pageClass, nanos);
+        }
+    }
+
+    public PageFactory getPageFactory() {
+        return pageFactory;
+    }
+
+    /** Replaces the DefaultPageFactory (typically by one delegating to your dependency injection container).
+     * Call it at startup, from your WebApplication constructor. The pages already registered are prepared again with the new factory. */
+    public void setPageFactory(PageFactory pageFactory) {
+        if (pageFactory == null) {
+            throw new IllegalArgumentException("pageFactory should not be null");
+        }
+        for (Class<? extends Component> pageClass : routeTable.getPageClasses()) {
+            pageFactory.preparePage(pageClass);
+        }
+        this.pageFactory = pageFactory;
+    }
+
+    /** Construction times per page class, as measured by createPage(). */
+    public PageConstructionStats getPageConstructionStats() {
+        return pageConstructionStats;
+    }
+
+    /** Latency histograms of the navigation steps (published over JMX by WebApplication.init()). */
+    public NavigationMetrics getNavigationMetrics() {
+        return navigationMetrics;
+    }
+
+    /** Estimates the memory of the live sessions, per window and per page class (on demand, or through JMX). */
+    public SessionFootprintAnalyzer getSessionFootprintAnalyzer() {
+        return sessionFootprintAnalyzer;
+    }
+
+    /** Watches the disposed pages (see PageLifecycle), and finds the ones still referenced by the interceptors or the WebApplication (on demand, or through JMX). */
+    public PageLeakDetector getPageLeakDetector() {
+        return pageLeakDetector;
+    }
+
+    /** Returns null if prefetching is disabled (default). */
+    public Prefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /** Enables the speculative prefetch of the links of the placed pages (null to disable it). */
+    public void setPrefetcher(Prefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    /** Returns null if page hibernation is disabled (default). */
+    public PageHibernator getPageHibernator() {
+        return pageHibernator;
+    }
+
+    /** Enables the release of the pages of idle windows (null to disable it). Applies to the sessions created afterwards: call it at startup. */
+    public void setPageHibernator(PageHibernator pageHibernator) {
+        this.pageHibernator = pageHibernator;
+    }
+
+    public int getPageCacheBudgetKb() {
+        return pageCacheBudgetKb;
+    }
+
+    /** Maximum estimated memory (sum of the CachedPage.sizeKb()) of the cached pages of one session (all windows included).
+     * Applies to the sessions created afterwards: call it at startup. */
+    public void setPageCacheBudgetKb(int pageCacheBudgetKb) {
+        this.pageCacheBudgetKb = pageCacheBudgetKb;
+    }
+
+    public int getPageCacheMaxPagesPerWindow() {
+        return pageCacheMaxPagesPerWindow;
+    }
+
+    /** Maximum amount of cached pages per window (0 disables the page cache). Applies to the windows created afterwards: call it at startup. */
+    public void setPageCacheMaxPagesPerWindow(int pageCacheMaxPagesPerWindow) {
+        this.pageCacheMaxPagesPerWindow = pageCacheMaxPagesPerWindow;
+    }
+
+    public int getMaxAppLevelWindowsPerSession() {
+        return maxAppLevelWindowsPerSession;
+    }
+
+    /** Maximum amount of live NavigableAppLevelWindows (browser tabs) per session, main window included (0 = no limit).
+     * Beyond that, the least recently used window is evicted (see WindowRegistry). Applies to the sessions created afterwards: call it at startup. */
+    public void setMaxAppLevelWindowsPerSession(int maxAppLevelWindowsPerSession) {
+        this.maxAppLevelWindowsPerSession = maxAppLevelWindowsPerSession;
+    }
+
+    public long getAppLevelWindowIdleTimeoutMillis() {
+        return appLevelWindowIdleTimeoutMillis;
+    }
+
+    /** The windows (browser tabs) not used for that time are evicted (0 = never). The primary main window is never evicted.
+     * Applies to the sessions created afterwards: call it at startup. */
+    public void setAppLevelWindowIdleTimeoutMillis(long appLevelWindowIdleTimeoutMillis) {
+        this.appLevelWindowIdleTimeoutMillis = appLevelWindowIdleTimeoutMillis;
+    }
+
+    public boolean isCompactSerialization() {
+        return compactSerialization;
+    }
+
+    /** true to serialize the windows (session replication, passivation) as their navigation state only: page id, fragment and PageState.
+     * Their components are rebuilt (by navigating to the fragment) when the session is used again. See NavigableAppLevelWindow.writeReplace().
+     * It does not cover the terminal: Vaadin's CommunicationManager (in the WebApplicationContext, the session attribute) keeps the components painted
+     * in the browser (the displayed page and the template of each window) in its paintable maps, and they are serialized from there.
+     * What is saved is the rest: mainly the page caches (@CachedPage). The rebuilt window makes the terminal forget these stale components
+     * (if the terminal has been created by a NavigableApplicationServlet). */
+    public void setCompactSerialization(boolean compactSerialization) {
+        this.compactSerialization = compactSerialization;
+    }
+
+    public void addPageEvictionListener(PageEvictionListener listener) {
+        pageEvictionListeners.add(listener);
+    }
+
+    public List<PageEvictionListener> getPageEvictionListeners() {
+        return pageEvictionListeners;
+    }
+    
+    
+    /** The list of interceptors, counting its changes (ArrayList.modCount) to tell when the pipelines must be compiled again. */
+    private static class InterceptorList extends ArrayList<Interceptor> {
+        @Override
+        public Interceptor set(int index, Interceptor interceptor) {
+            modCount++;  // ArrayList does not count the replacements.
+            return super.set(index, interceptor);
+        }
+
+        int getModCount() {
+            return modCount;
+        }
+    }
+}
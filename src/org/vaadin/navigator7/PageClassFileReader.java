@@ -0,0 +1,170 @@
+package org.vaadin.navigator7;
+
+import java.nio.ByteBuffer;
+
+/** Tells whether a class file is a concrete class annotated with @Page, without loading it (used by PageScanner).
+ * 
+ * Parses the constant pool, skips the fields and methods, and looks for @Page in the RuntimeVisibleAnnotations attribute of the class.
+ * Most classes are rejected before the fields: when the descriptor of @Page is not in their constant pool.
+ * 
+ * See the class file format: http://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html
+ */
+class PageClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String PAGE_DESCRIPTOR = "L" + Page.class.getName().replace('.', '/') + ";";
+    private static final byte[] PAGE_DESCRIPTOR_BYTES = PAGE_DESCRIPTOR.getBytes();  // ASCII.
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes();
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_MODULE = 0x8000;
+
+    // Constant pool tags.
+    private static final int UTF8 = 1, INTEGER = 3, FLOAT = 4, LONG = 5, DOUBLE = 6, CLASS = 7, STRING = 8,
+            FIELD_REF = 9, METHOD_REF = 10, INTERFACE_METHOD_REF = 11, NAME_AND_TYPE = 12,
+            METHOD_HANDLE = 15, METHOD_TYPE = 16, DYNAMIC = 17, INVOKE_DYNAMIC = 18, MODULE = 19, PACKAGE = 20;
+
+
+    /** @param classFile from its position to its limit. Its position is changed. */
+    static boolean isPage(ByteBuffer classFile) {
+        ByteBuffer in = classFile.slice();  // Position 0 = start of the class file, whatever the buffer given (mapped zip, ...).
+        if (in.remaining() < 10 || in.getInt() != MAGIC) {
+            return false;
+        }
+        in.getInt();  // minor_version, major_version
+
+        //// Constant pool: we keep the offsets of the UTF8 entries, and look for the descriptor of @Page.
+        int constantPoolCount = in.getShort() & 0xffff;
+        int[] utf8Offsets = new int[constantPoolCount];  // 0 if the entry is not an UTF8.
+        int pageDescriptorIndex = -1;
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.get() & 0xff;
+            switch (tag) {
+            case UTF8:
+                int length = in.getShort() & 0xffff;
+                utf8Offsets[i] = in.position() - 2;
+                if (pageDescriptorIndex < 0 && equals(in, in.position(), length, PAGE_DESCRIPTOR_BYTES)) {
+                    pageDescriptorIndex = i;
+                }
+                in.position(in.position() + length);
+                break;
+            case CLASS: case STRING: case METHOD_TYPE: case MODULE: case PACKAGE:
+                in.position(in.position() + 2);
+                break;
+            case METHOD_HANDLE:
+                in.position(in.position() + 3);
+                break;
+            case INTEGER: case FLOAT: case FIELD_REF: case METHOD_REF: case INTERFACE_METHOD_REF: case NAME_AND_TYPE: case DYNAMIC: case INVOKE_DYNAMIC:
+                in.position(in.position() + 4);
+                break;
+            case LONG: case DOUBLE:
+                in.position(in.position() + 8);
+                i++;  // Takes two entries.
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid class file: unknown constant pool tag " + tag);
+            }
+        }
+        if (pageDescriptorIndex < 0) {
+            return false;  // Fast path: the vast majority of the classes.
+        }
+
+        int accessFlags = in.getShort() & 0xffff;
+        if ((accessFlags & (ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION | ACC_MODULE)) != 0) {
+            return false;
+        }
+        in.position(in.position() + 4);  // this_class, super_class
+        int interfaceCount = in.getShort() & 0xffff;
+        in.position(in.position() + 2 * interfaceCount);
+        skipMembers(in);  // Fields
+        skipMembers(in);  // Methods
+
+        //// Class attributes
+        int attributeCount = in.getShort() & 0xffff;
+        for (int i = 0; i < attributeCount; i++) {
+            int nameIndex = in.getShort() & 0xffff;
+            int length = in.getInt();
+            int end = in.position() + length;
+            if (isUtf8(in, utf8Offsets, nameIndex, RUNTIME_VISIBLE_ANNOTATIONS)) {
+                int annotationCount = in.getShort() & 0xffff;
+                for (int a = 0; a < annotationCount; a++) {
+                    if ((in.getShort(in.position()) & 0xffff) == pageDescriptorIndex) {
+                        return true;
+                    }
+                    skipAnnotation(in);
+                }
+            }
+            in.position(end);
+        }
+        return false;
+    }
+
+    private static void skipMembers(ByteBuffer in) {
+        int count = in.getShort() & 0xffff;
+        for (int i = 0; i < count; i++) {
+            in.position(in.position() + 6);  // access_flags, name_index, descriptor_index
+            skipAttributes(in);
+        }
+    }
+
+    private static void skipAttributes(ByteBuffer in) {
+        int count = in.getShort() & 0xffff;
+        for (int i = 0; i < count; i++) {
+            in.position(in.position() + 2);  // attribute_name_index
+            int length = in.getInt();
+            in.position(in.position() + length);
+        }
+    }
+
+    private static void skipAnnotation(ByteBuffer in) {
+        in.position(in.position() + 2);  // type_index
+        int pairCount = in.getShort() & 0xffff;
+        for (int i = 0; i < pairCount; i++) {
+            in.position(in.position() + 2);  // element_name_index
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(ByteBuffer in) {
+        int tag = in.get() & 0xff;
+        switch (tag) {
+        case 'e':  // Enum: type_name_index, const_name_index
+            in.position(in.position() + 4);
+            break;
+        case '@':
+            skipAnnotation(in);
+            break;
+        case '[':
+            int count = in.getShort() & 0xffff;
+            for (int i = 0; i < count; i++) {
+                skipElementValue(in);
+            }
+            break;
+        default:  // B C D F I J S Z s c: const_value_index or class_info_index
+            in.position(in.position() + 2);
+        }
+    }
+
+    private static boolean isUtf8(ByteBuffer in, int[] utf8Offsets, int index, byte[] expected) {
+        if (index <= 0 || index >= utf8Offsets.length || utf8Offsets[index] == 0) {
+            return false;
+        }
+        int offset = utf8Offsets[index];
+        int length = in.getShort(offset) & 0xffff;
+        return equals(in, offset + 2, length, expected);
+    }
+
+    private static boolean equals(ByteBuffer in, int offset, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (in.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
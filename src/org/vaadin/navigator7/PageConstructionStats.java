@@ -0,0 +1,136 @@
+package org.vaadin.navigator7;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.vaadin.ui.Component;
+
+/** Time spent in the PageFactory, per page class (see NavigatorConfig.getPageConstructionStats()).
+ * Tells which pages are worth a @CachedPage or a lighter constructor.
+ * 
+ * Thread safe.
+ */
+public class PageConstructionStats implements Serializable {
+
+    // All the counters (used for the reports).
+    private final ConcurrentHashMap<Class<? extends Component>, Counter> counters = new ConcurrentHashMap<Class<? extends Component>, Counter>();
+    // Same counters, index = page id (see RouteTable), for the registered pages. Grown when a bigger page id comes.
+    private volatile AtomicReferenceArray<Counter> countersById = new AtomicReferenceArray<Counter>(0);
+
+
+    public void record(Class<? extends Component> pageClass, long nanos, boolean failed) {
+        record(-1, pageClass, nanos, failed);
+    }
+
+    /** @param pageId the id of pageClass in the RouteTable, or -1 if it is not registered (the counter is then found through a map). */
+    public void record(int pageId, Class<? extends Component> pageClass, long nanos, boolean failed) {
+        AtomicReferenceArray<Counter> byId = countersById;
+        Counter counter = pageId >= 0 && pageId < byId.length() ? byId.get(pageId) : null;
+        if (counter == null) {
+            counter = getOrCreate(pageClass);
+            if (pageId >= 0) {
+                setById(pageId, counter);
+            }
+        }
+        counter.record(nanos, failed);
+    }
+
+    private Counter getOrCreate(Class<? extends Component> pageClass) {
+        Counter counter = counters.get(pageClass);
+        if (counter == null) {
+            Counter newCounter = new Counter();
+            counter = counters.putIfAbsent(pageClass, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    private synchronized void setById(int pageId, Counter counter) {
+        AtomicReferenceArray<Counter> byId = countersById;
+        if (pageId >= byId.length()) {  // Pages have been registered since the array was made.
+            AtomicReferenceArray<Counter> bigger = new AtomicReferenceArray<Counter>(pageId + 1);
+            for (int i = 0; i < byId.length(); i++) {
+                bigger.set(i, byId.get(i));
+            }
+            countersById = bigger;
+            byId = bigger;
+        }
+        byId.set(pageId, counter);
+    }
+
+    /** Returns null if that page class has never been constructed. */
+    public Counter get(Class<? extends Component> pageClass) {
+        return counters.get(pageClass);
+    }
+
+    public Map<Class<? extends Component>, Counter> getAll() {
+        return Collections.<Class<? extends Component>, Counter>unmodifiableMap(counters);
+    }
+
+    public synchronized void reset() {
+        counters.clear();
+        countersById = new AtomicReferenceArray<Counter>(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PageConstructionStats[");
+        for (Map.Entry<Class<? extends Component>, Counter> entry : counters.entrySet()) {
+            sb.append("\n  ").append(entry.getKey().getSimpleName()).append(": ").append(entry.getValue());
+        }
+        return sb.append("]").toString();
+    }
+
+
+    /** Construction times of one page class. */
+    public static final class Counter implements Serializable {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean failed) {
+            count.incrementAndGet();
+            if (failed) {
+                failureCount.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && ! maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getFailureCount() {
+            return failureCount.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getAverageNanos() {
+            long c = count.get();
+            return c == 0 ? 0 : totalNanos.get() / c;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() + ", failures=" + getFailureCount() + ", avg=" + getAverageNanos() / 1000 + "us, max=" + getMaxNanos() / 1000 + "us";
+        }
+    }
+}
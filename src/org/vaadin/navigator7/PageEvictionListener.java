@@ -0,0 +1,12 @@
+package org.vaadin.navigator7;
+
+import com.vaadin.ui.Component;
+
+/** Warned when a @CachedPage instance is removed from the page cache without being shown again (cache full, session budget exceeded, window closed).
+ * Implement it in your page class to release resources held by the page,
+ * or register an implementation with NavigatorConfig.addPageEvictionListener() to be warned for all the pages (for statistics, for example).
+ */
+public interface PageEvictionListener {
+    /** @param params the (canonical) params the page was displayed with. */
+    public void pageEvicted(Component page, String params);
+}
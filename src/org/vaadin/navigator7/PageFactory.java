@@ -0,0 +1,36 @@
+package org.vaadin.navigator7;
+
+import com.vaadin.ui.Component;
+
+/** Creates the page instances when the user navigates to a page (called by PageInvocation.getPageInstance()).
+ * 
+ * DefaultPageFactory calls the no-arg constructor of the page class.
+ * Plug your own implementation with NavigatorConfig.setPageFactory() if your pages come from a dependency injection container, as:
+ * <pre>
+ * public class SpringPageFactory implements PageFactory {
+ *     ApplicationContext applicationContext;  // Page beans with scope "prototype".
+ *     ...
+ *     public void preparePage(Class&lt;? extends Component&gt; pageClass) {
+ *         if (applicationContext.getBeanNamesForType(pageClass).length == 0) throw new IllegalArgumentException("No bean for page " + pageClass);
+ *     }
+ *     public Component createPage(Class&lt;? extends Component&gt; pageClass) {
+ *         return applicationContext.getBean(pageClass);
+ *     }
+ * }
+ * </pre>
+ * 
+ * Shared by all the sessions: implementations must be thread safe.
+ * The construction time is measured per page class by NavigatorConfig.createPage() (see PageConstructionStats), whatever the implementation.
+ */
+public interface PageFactory {
+
+    /** Called once per page class, when the page is registered in the NavigatorConfig (at startup).
+     * Do the expensive job (reflection, lookups) here, so createPage() is a direct call.
+     * Pages that cannot be created by this factory (ExceptionPage, for example, that has no no-arg constructor) should not make this method fail:
+     * createPage() will fail if it's called for them. */
+    public void preparePage(Class<? extends Component> pageClass);
+
+    /** Returns a new instance of the page. Called for every navigation to a page (except if the instance is reused).
+     * @throws RuntimeException if the page cannot be instantiated, or if its constructor fails. */
+    public Component createPage(Class<? extends Component> pageClass);
+}
@@ -0,0 +1,115 @@
+package org.vaadin.navigator7;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/** Reads the @Page classes listed at compile time by PageIndexProcessor, in the META-INF/navigator7/pages.idx resources of the classpath
+ * (one per jar or classes directory compiled with the processor).
+ * 
+ * Used by NavigatorConfig.registerPages(String packageName): the classes are known without scanning the classpath, and only the pages are loaded.
+ * 
+ * Format of the file: UTF-8, one page per line, as "className TAB uriName TAB crawlable" (uriName is empty when the @Page annotation does not specify one).
+ * Lines starting with # are comments.
+ */
+public class PageIndex {
+
+    public static final String RESOURCE_NAME = "META-INF/navigator7/pages.idx";
+
+    /** One line of the index. */
+    public static class Entry {
+        private final String className;
+        private final String uriName;  // "" if not specified by @Page.
+        private final boolean crawlable;
+
+        public Entry(String className, String uriName, boolean crawlable) {
+            this.className = className;
+            this.uriName = uriName;
+            this.crawlable = crawlable;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /** The value of @Page.uriName(), or "" if the page uses the default name. */
+        public String getUriName() {
+            return uriName;
+        }
+
+        public boolean isCrawlable() {
+            return crawlable;
+        }
+
+        /** True if the class is in the package or one of its sub-packages.
+         * "" is the default package: every class is in it or in one of its sub-packages. */
+        public boolean isInPackage(String packageName) {
+            return packageName.length() == 0 || className.startsWith(packageName + ".");
+        }
+
+        /** The line of this entry in the index file (without line separator). */
+        public String format() {
+            return className + "\t" + uriName + "\t" + crawlable;
+        }
+
+        /** @return null for comments and blank lines. */
+        public static Entry parse(String line) {
+            if (line.trim().length() == 0 || line.startsWith("#")) {
+                return null;
+            }
+            String[] columns = line.split("\t", -1);
+            if (columns.length != 3) {
+                throw new IllegalArgumentException("Invalid line in the page index " + RESOURCE_NAME + ": [" + line + "]." +
+                		" Expected: className TAB uriName TAB crawlable");
+            }
+            return new Entry(columns[0].trim(), columns[1].trim(), Boolean.parseBoolean(columns[2].trim()));
+        }
+
+        @Override
+        public String toString() {
+            return format();
+        }
+    }
+
+
+    /** Returns the entries of all the index files visible by that class loader (empty if no jar has been compiled with PageIndexProcessor). */
+    public static List<Entry> load(ClassLoader classLoader) {
+        List<Entry> result = new ArrayList<Entry>();
+        Enumeration<URL> urls;
+        try {
+            urls = classLoader.getResources(RESOURCE_NAME);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot list the " + RESOURCE_NAME + " resources of the classpath", e);
+        }
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            try {
+                result.addAll(read(url));
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot read the page index " + url, e);
+            }
+        }
+        return result;
+    }
+
+    private static List<Entry> read(URL url) throws IOException {
+        List<Entry> result = new ArrayList<Entry>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.parse(line);
+                if (entry != null) {
+                    result.add(entry);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+}
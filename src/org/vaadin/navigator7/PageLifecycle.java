@@ -0,0 +1,22 @@
+package org.vaadin.navigator7;
+
+/** Implemented by pages that hold resources to release when they are not displayed anymore:
+ * listeners registered on global services (as an interceptor), containers on open cursors, timers...
+ * Without it, such a page (with all its components) stays reachable until the session dies, or forever if a global object references it.
+ * 
+ * Called by the NavigableAppLevelWindow, within the request (synchronized on the Application):
+ * - onLeave(): another page replaces this one in the window. A @CachedPage may be displayed again later (from the page cache):
+ *   release only what is needed while the page is displayed.
+ * - onDispose(): this instance will never be displayed again. Called once (after onLeave() if the page was displayed), when the page is:
+ *   replaced and not cached; evicted from the page cache (see PageEvictionListener); released by the PageHibernator;
+ *   or when its window is closed (removed from the Application, evicted by the WindowRegistry), or the session ends.
+ * 
+ * The disposed pages are then watched by the PageLeakDetector (see NavigatorConfig.getPageLeakDetector()).
+ */
+public interface PageLifecycle {
+    /** The page is not displayed anymore (but may be displayed again if it's kept in the page cache). */
+    public void onLeave();
+
+    /** The page will never be displayed again: release everything it holds. */
+    public void onDispose();
+}
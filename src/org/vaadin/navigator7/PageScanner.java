@@ -0,0 +1,359 @@
+package org.vaadin.navigator7;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/** Finds the @Page classes of a package in the classpath without loading any class: the class files are parsed (see PageClassFileReader).
+ * Fallback of NavigatorConfig.registerPages(String packageName) for the jars and directories that have no PageIndex
+ * (typically third party jars not compiled with PageIndexProcessor).
+ * 
+ * The roots (jars and directories containing the package) are scanned in parallel, in a ForkJoinPool (directories are split per sub-directory).
+ * Jars are memory-mapped and their zip central directory is read directly: only the entries of the package are inflated.
+ * Only the "file:" and "jar:file:" URLs are supported: the roots with other protocols (as JBoss' "vfs:") are reported by getUnsupportedRoots().
+ * 
+ * Used once at startup: not meant to be kept.
+ */
+public class PageScanner {
+
+    private final ClassLoader classLoader;
+    private final boolean skipIndexedRoots;
+    private final SortedSet<String> pageClassNames = new TreeSet<String>();
+    private final List<URL> unsupportedRoots = new ArrayList<URL>();
+    private int scannedClassCount;
+
+
+    /** @param skipIndexedRoots true to ignore the jars and directories that contain a PageIndex (their pages are already known). */
+    public PageScanner(ClassLoader classLoader, boolean skipIndexedRoots) {
+        this.classLoader = classLoader;
+        this.skipIndexedRoots = skipIndexedRoots;
+    }
+
+    /** Scans that package and its sub-packages. Can be called several times (for several packages): the results are cumulated. */
+    public void scan(String packageName) {
+        String packagePath = packageName.replace('.', '/');
+        Set<URL> roots = new LinkedHashSet<URL>();  // The same jar can be listed twice by a class loader hierarchy.
+        try {
+            Enumeration<URL> urls = classLoader.getResources(packagePath);
+            while (urls.hasMoreElements()) {
+                roots.add(urls.nextElement());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot list the classpath roots of package " + packageName, e);
+        }
+
+        ConcurrentLinkedQueue<String> found = new ConcurrentLinkedQueue<String>();
+        ConcurrentLinkedQueue<Integer> counts = new ConcurrentLinkedQueue<Integer>();
+        List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+        for (URL root : roots) {
+            RecursiveAction task = createTask(root, packagePath, found, counts);
+            if (task == null) {
+                unsupportedRoots.add(root);
+            } else if (task != SKIPPED) {
+                tasks.add(task);
+            }
+        }
+
+        if (! tasks.isEmpty()) {
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                for (RecursiveAction task : tasks) {
+                    pool.execute(task);
+                }
+                for (RecursiveAction task : tasks) {
+                    task.join();  // Rethrows the exception of the task, if any.
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        pageClassNames.addAll(found);
+        for (Integer count : counts) {
+            scannedClassCount += count;
+        }
+    }
+
+    /** Binary names of the @Page classes found (concrete classes only), sorted. */
+    public SortedSet<String> getPageClassNames() {
+        return Collections.unmodifiableSortedSet(pageClassNames);
+    }
+
+    /** Roots of the scanned packages that could not be read, because of their URL protocol. */
+    public List<URL> getUnsupportedRoots() {
+        return Collections.unmodifiableList(unsupportedRoots);
+    }
+
+    /** Amount of class files parsed. */
+    public int getScannedClassCount() {
+        return scannedClassCount;
+    }
+
+
+    private static final RecursiveAction SKIPPED = new RecursiveAction() {
+        @Override  protected void compute() {
+        }
+    };
+
+    /** @return null if the root is not supported, SKIPPED if it has a PageIndex to use instead. */
+    private RecursiveAction createTask(URL root, String packagePath, ConcurrentLinkedQueue<String> found, ConcurrentLinkedQueue<Integer> counts) {
+        if ("file".equals(root.getProtocol())) {  // Directory: file:/.../WEB-INF/classes/org/example/pages
+            File directory = toFile(root);
+            String rootPath = directory.getPath().replace(File.separatorChar, '/');
+            File baseDirectory = new File(rootPath.substring(0, rootPath.length() - packagePath.length()));
+            if (skipIndexedRoots && new File(baseDirectory, PageIndex.RESOURCE_NAME).isFile()) {
+                return SKIPPED;
+            }
+            return new DirectoryTask(directory, packagePath.replace('/', '.'), found, counts);
+
+        } else if ("jar".equals(root.getProtocol())) {  // Jar: jar:file:/.../WEB-INF/lib/lib.jar!/org/example/pages
+            String path = root.getPath();
+            int separator = path.indexOf("!/");
+            if (! path.startsWith("file:") || separator < 0) {
+                return null;  // Nested jar (Spring Boot) or other exotic container.
+            }
+            try {
+                File jarFile = toFile(new URL(path.substring(0, separator)));
+                return new JarTask(jarFile, packagePath.length() == 0 ? "" : packagePath + "/", skipIndexedRoots, found, counts);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {  // Not encoded (spaces, ...), as some class loaders produce.
+            try {
+                return new File(URLDecoder.decode(url.getPath(), "UTF-8"));
+            } catch (UnsupportedEncodingException e2) {
+                throw new RuntimeException(e2);  // Cannot happen: UTF-8 is always supported.
+            }
+        }
+    }
+
+
+    /** Scans the class files of a directory, and forks a task per sub-directory. */
+    private static class DirectoryTask extends RecursiveAction {
+        private final File directory;
+        private final String packageName;
+        private final ConcurrentLinkedQueue<String> found;
+        private final ConcurrentLinkedQueue<Integer> counts;
+
+        DirectoryTask(File directory, String packageName, ConcurrentLinkedQueue<String> found, ConcurrentLinkedQueue<Integer> counts) {
+            this.directory = directory;
+            this.packageName = packageName;
+            this.found = found;
+            this.counts = counts;
+        }
+
+        @Override
+        protected void compute() {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            List<DirectoryTask> subTasks = new ArrayList<DirectoryTask>();
+            int count = 0;
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isDirectory()) {
+                    subTasks.add(new DirectoryTask(file, qualify(name), found, counts));
+                } else if (name.endsWith(".class")) {
+                    count++;
+                    if (PageClassFileReader.isPage(read(file))) {
+                        found.add(qualify(name.substring(0, name.length() - ".class".length())));
+                    }
+                }
+            }
+            counts.add(count);
+            invokeAll(subTasks);
+        }
+
+        private String qualify(String name) {
+            return packageName.length() == 0 ? name : packageName + "." + name;  // "": the default package.
+        }
+
+        private static ByteBuffer read(File file) {
+            try {
+                FileInputStream in = new FileInputStream(file);
+                try {
+                    FileChannel channel = in.getChannel();
+                    ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // Loop until the whole file is read.
+                    }
+                    buffer.flip();
+                    return buffer;
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot read class file " + file, e);
+            }
+        }
+    }
+
+
+    /** Scans the class files of one jar, reading its zip central directory through a memory mapping. */
+    private static class JarTask extends RecursiveAction {
+        private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+        private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+        private static final int LOCAL_FILE_HEADER = 0x04034b50;
+        private static final int STORED = 0;
+        private static final int DEFLATED = 8;
+
+        private final File jarFile;
+        private final String packagePrefix;  // "org/example/pages/"
+        private final boolean skipIfIndexed;
+        private final ConcurrentLinkedQueue<String> found;
+        private final ConcurrentLinkedQueue<Integer> counts;
+
+        JarTask(File jarFile, String packagePrefix, boolean skipIfIndexed, ConcurrentLinkedQueue<String> found, ConcurrentLinkedQueue<Integer> counts) {
+            this.jarFile = jarFile;
+            this.packagePrefix = packagePrefix;
+            this.skipIfIndexed = skipIfIndexed;
+            this.found = found;
+            this.counts = counts;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                FileInputStream in = new FileInputStream(jarFile);
+                try {
+                    FileChannel channel = in.getChannel();
+                    MappedByteBuffer zip = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());  // Unmapped by the GC.
+                    zip.order(ByteOrder.LITTLE_ENDIAN);
+                    scan(zip);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot read jar " + jarFile, e);
+            } catch (DataFormatException e) {
+                throw new RuntimeException("Corrupted jar " + jarFile, e);
+            }
+        }
+
+        private void scan(ByteBuffer zip) throws IOException, DataFormatException {
+            int eocd = findEndOfCentralDirectory(zip);
+            int entryCount = zip.getShort(eocd + 10) & 0xffff;
+            long centralDirectoryOffset = zip.getInt(eocd + 16) & 0xffffffffL;
+            if (centralDirectoryOffset == 0xffffffffL || entryCount == 0xffff) {
+                throw new IOException("Zip64 jars are not supported");
+            }
+
+            List<String> classNames = new ArrayList<String>();
+            List<Integer> entryOffsets = new ArrayList<Integer>();
+            int position = (int) centralDirectoryOffset;
+            for (int i = 0; i < entryCount; i++) {
+                if (zip.getInt(position) != CENTRAL_DIRECTORY_ENTRY) {
+                    throw new IOException("Invalid central directory entry at offset " + position);
+                }
+                int nameLength = zip.getShort(position + 28) & 0xffff;
+                int extraLength = zip.getShort(position + 30) & 0xffff;
+                int commentLength = zip.getShort(position + 32) & 0xffff;
+                String name = readName(zip, position + 46, nameLength);
+                if (skipIfIndexed && name.equals(PageIndex.RESOURCE_NAME)) {
+                    return;  // This jar has been compiled with PageIndexProcessor: its pages are in the index.
+                }
+                if (name.startsWith(packagePrefix) && name.endsWith(".class")) {
+                    classNames.add(name);
+                    entryOffsets.add(position);
+                }
+                position += 46 + nameLength + extraLength + commentLength;
+            }
+
+            Inflater inflater = new Inflater(true);  // Raw deflate: no zlib header in zip entries.
+            try {
+                for (int i = 0; i < classNames.size(); i++) {
+                    if (PageClassFileReader.isPage(readEntry(zip, entryOffsets.get(i), inflater))) {
+                        String name = classNames.get(i);
+                        found.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+            counts.add(classNames.size());
+        }
+
+        private ByteBuffer readEntry(ByteBuffer zip, int centralEntry, Inflater inflater) throws IOException, DataFormatException {
+            int method = zip.getShort(centralEntry + 10) & 0xffff;
+            int compressedSize = zip.getInt(centralEntry + 20);
+            int uncompressedSize = zip.getInt(centralEntry + 24);
+            int localHeader = zip.getInt(centralEntry + 42);
+            if (zip.getInt(localHeader) != LOCAL_FILE_HEADER) {
+                throw new IOException("Invalid local file header at offset " + localHeader);
+            }
+            int dataStart = localHeader + 30 + (zip.getShort(localHeader + 26) & 0xffff) + (zip.getShort(localHeader + 28) & 0xffff);
+
+            ByteBuffer data = zip.duplicate();
+            data.position(dataStart);
+            data.limit(dataStart + compressedSize);
+            if (method == STORED) {
+                return data.slice();
+            } else if (method != DEFLATED) {
+                throw new IOException("Unsupported zip compression method " + method);
+            }
+            byte[] input = new byte[compressedSize];
+            data.get(input);
+            byte[] output = new byte[uncompressedSize];
+            inflater.reset();
+            inflater.setInput(input);
+            int length = 0;
+            while (length < uncompressedSize && ! inflater.finished()) {
+                int inflated = inflater.inflate(output, length, uncompressedSize - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated entry at offset " + localHeader);
+                }
+                length += inflated;
+            }
+            return ByteBuffer.wrap(output, 0, length);
+        }
+
+        /** The record is at the end of the file, followed by a comment of up to 64KB. */
+        private int findEndOfCentralDirectory(ByteBuffer zip) throws IOException {
+            int last = zip.limit() - 22;
+            int first = Math.max(0, last - 0xffff);
+            for (int position = last; position >= first; position--) {
+                if (zip.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+                    return position;
+                }
+            }
+            throw new IOException("Not a zip file (no end of central directory record)");
+        }
+
+        private static String readName(ByteBuffer zip, int position, int length) throws UnsupportedEncodingException {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = zip.get(position + i);
+            }
+            return new String(bytes, "UTF-8");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.vaadin.navigator7;
+
+import java.io.Serializable;
+
+/** Implemented by pages that hold state beyond their URI params (as a half filled form, or a selected tab), to keep it through a compact serialization.
+ * 
+ * With NavigatorConfig.setCompactSerialization(true), a serialized NavigableAppLevelWindow keeps only its navigation state (page id, fragment,
+ * and what the current page returns from saveState()). The components are rebuilt when the session is used again, by navigating to the fragment
+ * (interceptors, @Param injection...). Then restoreState() is called on the new page instance, with what saveState() returned.
+ * Pages that do not implement this interface are rebuilt from their fragment only.
+ */
+public interface PageState {
+    /** Returns what the page needs to be shown again as it is now, beyond its URI params. Null if nothing.
+     * Keep it small: it's replicated with the session. Don't return components. */
+    public Serializable saveState();
+
+    /** Called on the rebuilt page instance (after navigation to the same fragment), with what saveState() returned. */
+    public void restoreState(Serializable state);
+}
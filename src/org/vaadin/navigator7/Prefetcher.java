@@ -0,0 +1,285 @@
+package org.vaadin.navigator7;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.vaadin.navigator7.uri.ParamInjector;
+import org.vaadin.navigator7.uri.ResolvedFragment;
+import org.vaadin.navigator7.uri.UriAnalyzer;
+
+import com.vaadin.terminal.ExternalResource;
+import com.vaadin.terminal.Resource;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.ComponentContainer;
+import com.vaadin.ui.Link;
+
+/** Prepares, in the background, the navigations that the user will probably do next, while they read the page.
+ * 
+ * When a page is placed (Navigator.placePage()), the first PageLinks/ParamPageLinks of the page (in the order of the component tree) are taken as the likely next pages.
+ * For each of them, a background thread:
+ * - resolves the fragment (page class and parsed params are then in the FragmentCache of the UriAnalyzer);
+ * - loads the entities referenced by the params, for the entity classes having an EntityCache (see EntityUriAnalyzer.enableCache()).
+ *   A prefetch never leads a single flight (see EntityUriAnalyzer.preloadEntities()): the request threads don't wait for it.
+ * When the user clicks one of these links, Navigator.fragmentChanged() finds everything warm.
+ * 
+ * Budgets:
+ * - global: amount of threads and of waiting prefetches (the extra ones are dropped);
+ * - per session: amount of prefetches in progress for one session (a session cannot monopolize the threads);
+ * - per page: amount of links considered.
+ * 
+ * Check getHitRate() to see if it pays off in your application: a prefetch is useless if the user does not follow the link.
+ * 
+ * Disabled by default. Enable it with NavigatorConfig.setPrefetcher(new Prefetcher(...)) in your WebApplication constructor.
+ * Your EntityUriAnalyzer.findEntities() will be called from the prefetch threads (no Vaadin request, no HttpSession):
+ * it must not depend on thread bound resources of the web request (as an "open session in view" EntityManager).
+ * 
+ * Thread safe.
+ */
+public class Prefetcher {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxPendingPerSession;
+    private final int maxLinksPerPage;
+
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();  // Dropped because of a budget.
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong preloadedEntityCount = new AtomicLong();
+    private final AtomicLong navigationCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+
+
+    /**
+     * @param threads amount of background threads (for all the sessions).
+     * @param maxQueued amount of prefetches waiting for a thread (for all the sessions). The extra ones are dropped.
+     * @param maxPendingPerSession amount of prefetches waiting or in progress for one session.
+     * @param maxLinksPerPage amount of links of a page that are prefetched (the first ones).
+     */
+    public Prefetcher(int threads, int maxQueued, int maxPendingPerSession, int maxLinksPerPage) {
+        this.maxPendingPerSession = maxPendingPerSession;
+        this.maxLinksPerPage = maxLinksPerPage;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, maxQueued)), new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger();
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "navigator7-prefetch-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);  // The requests of the users come first.
+                        return thread;
+                    }
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Called by the Navigator (in the request thread) when the page has been placed.
+     * Collects the links of the page and schedules their prefetch. */
+    public void prefetch(SessionState session, Component page) {
+        List<String> fragments = collectLinkFragments(page, maxLinksPerPage);
+        for (String fragment : fragments) {
+            if (session.isPrefetched(fragment)) {
+                continue;  // Recently done for that session.
+            }
+            if (! session.tryAcquire(maxPendingPerSession)) {
+                rejectedCount.incrementAndGet();
+                return;
+            }
+            try {
+                executor.execute(new PrefetchTask(session, fragment));
+            } catch (RejectedExecutionException e) {  // Global budget exceeded (or shut down).
+                session.release();
+                rejectedCount.incrementAndGet();
+                return;
+            }
+            session.remember(fragment);
+            scheduledCount.incrementAndGet();
+        }
+    }
+
+    /** Called by the Navigator when the URI fragment changes, to compute the hit rate. */
+    public void recordNavigation(SessionState session, String fragment) {
+        navigationCount.incrementAndGet();
+        if (fragment != null && session.forget(fragment)) {
+            hitCount.incrementAndGet();
+        }
+    }
+
+    /** Does the job for one fragment, in a background thread. Override it to warm other things (as the data of the page). */
+    protected void prefetchFragment(String fragment) {
+        UriAnalyzer uriAnalyzer = WebApplication.getCurrent().getUriAnalyzer();
+        ResolvedFragment resolved = uriAnalyzer.resolveFragment(fragment);
+        if (resolved.getProblem() == null && resolved.getPageClass() != null) {
+            preloadedEntityCount.addAndGet(ParamInjector.preloadEntities(resolved.getPageClass(), resolved.getParsedParams()));
+        }
+    }
+
+    /** Returns the fragments (without "#") of the first links to pages found in the component tree (depth first). */
+    protected List<String> collectLinkFragments(Component page, int max) {
+        Set<String> result = new LinkedHashSet<String>();
+        collectLinkFragments(page, max, result);
+        return new ArrayList<String>(result);
+    }
+
+    private void collectLinkFragments(Component component, int max, Set<String> result) {
+        if (result.size() >= max) {
+            return;
+        }
+        if (component instanceof Link) {
+            Resource resource = ((Link)component).getResource();
+            if (resource instanceof PageResource) {
+                String url;
+                try {
+                    url = ((ExternalResource)resource).getURL();
+                } catch (RuntimeException e) {  // Link in an inconsistent state (params not set yet?). It will fail when rendered, not our business.
+                    return;
+                }
+                if (url != null) {
+                    result.add(url.startsWith("#") ? url.substring(1) : url);
+                }
+            }
+        } else if (component instanceof ComponentContainer) {
+            for (Iterator<Component> it = ((ComponentContainer)component).getComponentIterator(); it.hasNext() && result.size() < max; ) {
+                collectLinkFragments(it.next(), max, result);
+            }
+        }
+    }
+
+    /** Stops the threads (when the web application stops). */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    /** Prefetches dropped because of the global or session budget. */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getPreloadedEntityCount() {
+        return preloadedEntityCount.get();
+    }
+
+    /** Amount of navigations (fragment changes) seen. */
+    public long getNavigationCount() {
+        return navigationCount.get();
+    }
+
+    /** Amount of navigations to a fragment that had been prefetched for that session. */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /** Part of the prefetches that have been followed by the user (0..1). Low values mean wasted work. */
+    public double getHitRate() {
+        long scheduled = scheduledCount.get();
+        return scheduled == 0 ? 0 : (double) hitCount.get() / scheduled;
+    }
+
+    /** Part of the navigations that had been prefetched (0..1). */
+    public double getCoverage() {
+        long navigations = navigationCount.get();
+        return navigations == 0 ? 0 : (double) hitCount.get() / navigations;
+    }
+
+    /** Amount of prefetches waiting for a thread. */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public String toString() {
+        return "Prefetcher[scheduled=" + getScheduledCount() + ", rejected=" + getRejectedCount() + ", failed=" + getFailedCount()
+                + ", entities=" + getPreloadedEntityCount() + ", navigations=" + getNavigationCount() + ", hits=" + getHitCount()
+                + ", hitRate=" + Math.round(getHitRate() * 100) + "%]";
+    }
+
+
+    private class PrefetchTask implements Runnable {
+        private final SessionState session;
+        private final String fragment;
+
+        PrefetchTask(SessionState session, String fragment) {
+            this.session = session;
+            this.fragment = fragment;
+        }
+
+        @Override
+        public void run() {
+            try {
+                prefetchFragment(fragment);
+            } catch (RuntimeException e) {  // Nobody waits for the result: the real navigation will show the problem, if any.
+                failedCount.incrementAndGet();
+            } finally {
+                session.release();
+            }
+        }
+    }
+
+
+    /** Prefetch state of one session (see NavigableApplication.getPrefetchState()): prefetches in progress, and fragments recently prefetched. */
+    public static class SessionState implements Serializable {
+        private static final int MAX_REMEMBERED = 32;
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Map<String, Boolean> prefetched = new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_REMEMBERED;
+            }
+        };
+
+        boolean tryAcquire(int max) {
+            while (true) {
+                int current = pending.get();
+                if (current >= max) {
+                    return false;
+                }
+                if (pending.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            pending.decrementAndGet();
+        }
+
+        synchronized boolean isPrefetched(String fragment) {
+            return prefetched.containsKey(fragment);
+        }
+
+        synchronized void remember(String fragment) {
+            prefetched.put(fragment, Boolean.TRUE);
+        }
+
+        /** Returns true if the fragment had been prefetched. */
+        synchronized boolean forget(String fragment) {
+            return prefetched.remove(fragment) != null;
+        }
+
+        public int getPendingCount() {
+            return pending.get();
+        }
+    }
+}
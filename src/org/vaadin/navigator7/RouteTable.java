@@ -0,0 +1,217 @@
+package org.vaadin.navigator7;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.vaadin.navigator7.uri.Route;
+import org.vaadin.navigator7.uri.RouteMatch;
+import org.vaadin.navigator7.uri.RouteTrie;
+
+import com.vaadin.ui.Component;
+
+/** The registered pages of a NavigatorConfig, frozen: immutable, and replaced by a new table (with()) when a page is registered (at startup).
+ * 
+ * Each page has a dense id (0, 1, 2, ... in registration order): per-page data is kept in arrays indexed by that id, instead of Class keyed maps.
+ * Page names are matched case insensitively (as "auctioneditor" for "AuctionEditor"), by hashing the characters directly:
+ * a lookup allocates nothing (no toLowerCase()), and can be done on a part of the fragment (getPageId(CharSequence, int, int)).
+ * Page classes are found by identity hashing: the hash tables are not serialized, they are built again by readResolve() (the identity hashes differ in another JVM).
+ * The routes of the pages (@Page(route="product/{id:long}/reviews")) are compiled in a RouteTrie, rebuilt with the table.
+ * 
+ * Thread safe (immutable).
+ */
+public final class RouteTable implements Serializable {
+
+    public static final RouteTable EMPTY = new RouteTable(noPageClasses(), new String[0], new boolean[0], new int[0], new Route[0]);
+
+    // Index = page id.
+    private final Class<? extends Component>[] pageClasses;
+    private final String[] pageNames;         // CamelCase, as given (see NavigatorConfig.computePageName()).
+    private final boolean[] crawlable;
+    private final int[] cachedPageSizeKb;     // 0 if the page is not a @CachedPage.
+    private final Route[] routes;             // Null if the page has no route.
+    private final transient RouteTrie routeTrie;
+
+    // Open addressing hash tables (linear probing). Value = page id + 1, 0 = empty slot. Size = power of 2, at least twice the amount of pages.
+    private final transient int[] nameSlots;
+    private final transient int[] classSlots;
+    private final transient int mask;
+
+
+    private RouteTable(Class<? extends Component>[] pageClasses, String[] pageNames, boolean[] crawlable, int[] cachedPageSizeKb, Route[] routes) {
+        this.pageClasses = pageClasses;
+        this.pageNames = pageNames;
+        this.crawlable = crawlable;
+        this.cachedPageSizeKb = cachedPageSizeKb;
+        this.routes = routes;
+        this.routeTrie = new RouteTrie(routes, pageClasses);  // Throws if two routes conflict.
+
+        int capacity = 2;
+        while (capacity < pageClasses.length * 2) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        nameSlots = new int[capacity];
+        classSlots = new int[capacity];
+        for (int id = 0; id < pageClasses.length; id++) {
+            String name = pageNames[id];
+            int slot = hashIgnoreCase(name, 0, name.length()) & mask;
+            while (nameSlots[slot] != 0) {
+                if (equalsIgnoreCase(pageNames[nameSlots[slot] - 1], name, 0, name.length())) {
+                    throw new IllegalArgumentException("Adding a page with a name that has already been added in the configuration: ["+name+"]");
+                }
+                slot = (slot + 1) & mask;
+            }
+            nameSlots[slot] = id + 1;
+
+            slot = System.identityHashCode(pageClasses[id]) & mask;
+            while (classSlots[slot] != 0) {
+                if (pageClasses[classSlots[slot] - 1] == pageClasses[id]) {
+                    throw new IllegalArgumentException("Adding a page with a class that has already been added in the configuration: ["+pageClasses[id]+"]");
+                }
+                slot = (slot + 1) & mask;
+            }
+            classSlots[slot] = id + 1;
+        }
+
+        // Routes are matched before page names (see UriAnalyzer.computeResolvedFragment()): a route starting with the name of another page would hide that page.
+        for (int id = 0; id < routes.length; id++) {
+            if (routes[id] != null) {
+                int namedPageId = getPageId(routes[id].getLiteral(0));
+                if (namedPageId >= 0 && namedPageId != id) {
+                    throw new IllegalArgumentException("The route [" + routes[id].getPattern() + "] of the page [" + pageClasses[id].getName()
+                            + "] starts with the name of the page [" + pageClasses[namedPageId].getName() + "], that it would hide. Rename one of them.");
+                }
+            }
+        }
+    }
+
+    /** A deserialized table has no hash table (see the transient fields): the table is built again from the pages. */
+    private Object readResolve() {
+        return new RouteTable(pageClasses, pageNames, crawlable, cachedPageSizeKb, routes);
+    }
+
+    /** Typed empty array (an array of a generic type cannot be created). */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Component>[] noPageClasses() {
+        return (Class<? extends Component>[]) new Class<?>[0];
+    }
+
+    /** Returns a new table, with one more page (whose id is the size of this table).
+     * @param route null if the page has no route.
+     * @throws IllegalArgumentException if the name (case insensitive) or the class is already in this table, if the route conflicts with the route of another page,
+     * or if a route starts with the name of another page (case insensitive). */
+    public RouteTable with(Class<? extends Component> pageClass, String pageName, boolean isCrawlable, int pageCachedSizeKb, Route route) {
+        int n = pageClasses.length;
+        Class<? extends Component>[] newClasses = Arrays.copyOf(pageClasses, n + 1);
+        String[] newNames = Arrays.copyOf(pageNames, n + 1);
+        boolean[] newCrawlable = Arrays.copyOf(crawlable, n + 1);
+        int[] newCachedPageSizeKb = Arrays.copyOf(cachedPageSizeKb, n + 1);
+        newClasses[n] = pageClass;
+        newNames[n] = pageName;
+        newCrawlable[n] = isCrawlable;
+        newCachedPageSizeKb[n] = pageCachedSizeKb;
+        Route[] newRoutes = Arrays.copyOf(routes, n + 1);
+        newRoutes[n] = route;
+        return new RouteTable(newClasses, newNames, newCrawlable, newCachedPageSizeKb, newRoutes);
+    }
+
+
+    /** Amount of pages (the ids go from 0 to size() - 1). */
+    public int size() {
+        return pageClasses.length;
+    }
+
+    /** Returns the id of the page with that name (case insensitive), or -1 if none. */
+    public int getPageId(CharSequence pageName) {
+        return getPageId(pageName, 0, pageName.length());
+    }
+
+    /** Same as getPageId(CharSequence), for the characters of s from start (inclusive) to end (exclusive). */
+    public int getPageId(CharSequence s, int start, int end) {
+        int slot = hashIgnoreCase(s, start, end) & mask;
+        int entry;
+        while ((entry = nameSlots[slot]) != 0) {
+            if (equalsIgnoreCase(pageNames[entry - 1], s, start, end)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Returns the id of that page class, or -1 if it is not registered. */
+    public int getPageId(Class<?> pageClass) {
+        int slot = System.identityHashCode(pageClass) & mask;
+        int entry;
+        while ((entry = classSlots[slot]) != 0) {
+            if (pageClasses[entry - 1] == pageClass) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public Class<? extends Component> getPageClass(int pageId) {
+        return pageClasses[pageId];
+    }
+
+    public String getPageName(int pageId) {
+        return pageNames[pageId];
+    }
+
+    public boolean isCrawlable(int pageId) {
+        return crawlable[pageId];
+    }
+
+    /** 0 if the page is not a @CachedPage. */
+    public int getCachedPageSizeKb(int pageId) {
+        return cachedPageSizeKb[pageId];
+    }
+
+    /** Null if the page has no route. */
+    public Route getRoute(int pageId) {
+        return routes[pageId];
+    }
+
+    /** Returns the match of the longest route at the beginning of the fragment (from start, as 1 to skip a "!"), or null if no route matches. */
+    public RouteMatch matchRoute(String fragment, int start) {
+        return routeTrie.match(fragment, start);
+    }
+
+    /** The page classes, in id order. */
+    public List<Class<? extends Component>> getPageClasses() {
+        return Collections.unmodifiableList(Arrays.asList(pageClasses));
+    }
+
+    @Override
+    public String toString() {
+        return "RouteTable" + Arrays.toString(pageNames);
+    }
+
+
+    /** Same hash for "AuctionEditor" and "auctioneditor". */
+    private static int hashIgnoreCase(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h ^ (h >>> 16);  // The low bits are used as slot index.
+    }
+
+    private static boolean equalsIgnoreCase(String name, CharSequence s, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c1 = name.charAt(i);
+            char c2 = s.charAt(start + i);
+            if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package org.vaadin.navigator7.apt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.vaadin.navigator7.Page;
+import org.vaadin.navigator7.PageIndex;
+import org.vaadin.navigator7.uri.Route;
+
+/** Writes the index of the @Page classes of the compiled sources into META-INF/navigator7/pages.idx (see PageIndex),
+ * so NavigatorConfig.registerPages(String packageName) finds the pages without scanning the classpath at startup.
+ * 
+ * Registered in META-INF/services/javax.annotation.processing.Processor: javac runs it automatically when navigator7's jar is on the classpath
+ * (add it as annotation processor in the settings of your IDE if it does not).
+ * 
+ * Also reports as compilation errors the @Page classes that cannot be pages (not a Component, abstract, not a class).
+ * 
+ * With incremental compilation (IDEs), only the changed sources are given to the processor:
+ * the entries of the previous index are kept as long as their class still exists and is still annotated.
+ * The processor supports all the annotations, so it also runs when no compiled source has a @Page anymore
+ * (as when the @Page of the only changed class has just been removed): else the index would keep that class.
+ * A class file left in the output directory by the build tool after its source has been deleted keeps its entry.
+ */
+public class PageIndexProcessor extends AbstractProcessor {
+
+    private static final String COMPONENT_CLASS = "com.vaadin.ui.Component";
+
+    // Key = class name. Sorted, so the file does not change from one build to the other.
+    private TreeMap<String, PageIndex.Entry> entries = new TreeMap<String, PageIndex.Entry>();
+    private boolean hasPreviousIndex;
+
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton("*");  // Not only @Page: see the class comment.
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            readPreviousIndex();
+            if (! entries.isEmpty() || hasPreviousIndex) {  // No index for the projects without pages.
+                writeIndex();
+            }
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Page.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@Page can only be applied to classes");
+                continue;
+            }
+            TypeElement typeElement = (TypeElement) element;
+            if (typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(element, "A @Page class cannot be abstract: " + typeElement.getQualifiedName());
+                continue;
+            }
+            TypeElement componentElement = processingEnv.getElementUtils().getTypeElement(COMPONENT_CLASS);
+            if (componentElement != null) {  // null if Vaadin is not on the compilation classpath: we cannot check.
+                TypeMirror componentType = processingEnv.getTypeUtils().erasure(componentElement.asType());
+                if (! processingEnv.getTypeUtils().isAssignable(typeElement.asType(), componentType)) {
+                    error(element, "A @Page class should extend " + COMPONENT_CLASS + ": " + typeElement.getQualifiedName());
+                    continue;
+                }
+            }
+
+            Page page = typeElement.getAnnotation(Page.class);
+            if (page.route().length() > 0) {
+                try {
+                    Route.parse(page.route());  // Else NavigatorConfig would throw at startup.
+                } catch (IllegalArgumentException e) {
+                    error(element, e.getMessage());
+                    continue;
+                }
+            }
+            String className = processingEnv.getElementUtils().getBinaryName(typeElement).toString();  // Binary name, as Class.forName() expects it for nested classes.
+            entries.put(className, new PageIndex.Entry(className, page.uriName().trim(), page.crawlable()));
+        }
+        return false;  // Other processors may be interested in @Page too.
+    }
+
+    /** Keeps the entries of the previous build that are still valid (incremental compilation). */
+    private void readPreviousIndex() {
+        BufferedReader reader = null;
+        try {
+            FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", PageIndex.RESOURCE_NAME);
+            reader = new BufferedReader(previous.openReader(true));
+            hasPreviousIndex = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                PageIndex.Entry entry = PageIndex.Entry.parse(line);
+                if (entry == null || entries.containsKey(entry.getClassName())) {
+                    continue;  // Comment, or a class compiled in this build (its current annotation wins).
+                }
+                TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(entry.getClassName().replace('$', '.'));
+                if (typeElement != null && typeElement.getAnnotation(Page.class) != null) {
+                    entries.put(entry.getClassName(), entry);
+                }
+            }
+        } catch (IOException e) {
+            // No previous index (full build): nothing to keep.
+        } catch (IllegalArgumentException e) {
+            // Corrupted previous index: we rebuild it from the compiled sources only.
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Ignoring the previous " + PageIndex.RESOURCE_NAME + ": " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try { reader.close(); } catch (IOException e) { /* Nothing more to do. */ }
+            }
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", PageIndex.RESOURCE_NAME);
+            Writer writer = file.openWriter();
+            try {
+                writer.write("# @Page classes, generated by " + getClass().getName() + ". Do not edit.\n");
+                for (PageIndex.Entry entry : entries.values()) {
+                    writer.write(entry.format());
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + PageIndex.RESOURCE_NAME + ": " + e);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
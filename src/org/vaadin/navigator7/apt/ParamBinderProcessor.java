@@ -0,0 +1,319 @@
+package org.vaadin.navigator7.apt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import org.vaadin.navigator7.Page;
+import org.vaadin.navigator7.uri.Param;
+
+/** Generates a ParamBinder for each concrete class having @Param fields (its own or inherited), named "&lt;class name&gt;$ParamBinder".
+ * The binder reads and writes the fields directly, and converts the basic types (String, primitives and their wrappers) with inlined code:
+ * ParamInjector does not use reflection anymore for these classes.
+ * 
+ * The @Param definitions that ParamBinding would only report at runtime (when a link is built) are reported as compilation errors:
+ * two fields with the same position, position holes, two named fields with the same name.
+ * 
+ * No binder is generated (and the fields keep being accessed through MethodHandles) if one of the fields cannot be accessed from the package of the class:
+ * private fields, or non public fields of an ancestor in another package. A note tells it in the compiler output.
+ * 
+ * Registered in META-INF/services/javax.annotation.processing.Processor, as PageIndexProcessor.
+ */
+public class ParamBinderProcessor extends AbstractProcessor {
+
+    private static final String BINDER_SUFFIX = "$ParamBinder";
+    private static final String URI_PACKAGE = "org.vaadin.navigator7.uri.";
+
+    private Set<String> generated = new HashSet<String>();  // Class names already processed (a class can be found in several rounds).
+
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> result = new HashSet<String>();
+        result.add(Param.class.getName());
+        result.add(Page.class.getName());  // For the pages that only inherit @Param fields.
+        return result;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> classes = new LinkedHashSet<TypeElement>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Param.class)) {
+            if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement) {
+                classes.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(Page.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                classes.add((TypeElement) element);
+            }
+        }
+
+        for (TypeElement typeElement : classes) {
+            if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)
+                    || ! generated.add(typeElement.getQualifiedName().toString())) {
+                continue;  // Only concrete classes are bound (the binder is looked up with the class of the instance).
+            }
+            List<VariableElement> fields = findParamFields(typeElement);
+            if (fields.isEmpty() || ! validate(typeElement, fields)) {
+                continue;
+            }
+            String inaccessible = findInaccessibleField(typeElement, fields);
+            if (inaccessible != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "No ParamBinder generated for " + typeElement.getQualifiedName() + ": " + inaccessible + ". Its @Param fields are accessed by reflection.", typeElement);
+                continue;
+            }
+            generateBinder(typeElement, fields);
+        }
+        return false;  // Other processors (as PageIndexProcessor) are interested in @Page too.
+    }
+
+    /** The @Param fields of the class, then of its ancestors (as ParamBinding). */
+    private List<VariableElement> findParamFields(TypeElement typeElement) {
+        List<VariableElement> result = new ArrayList<VariableElement>();
+        TypeElement current = typeElement;
+        while (current != null && ! current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (Element member : current.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.FIELD && member.getAnnotation(Param.class) != null) {
+                    result.add((VariableElement) member);
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return result;
+    }
+
+    /** Reports the position and name conflicts as compilation errors (same rules as ParamBinding). Returns false if there is an error. */
+    private boolean validate(TypeElement typeElement, List<VariableElement> fields) {
+        boolean valid = true;
+        Map<Integer, VariableElement> byPosition = new HashMap<Integer, VariableElement>();
+        Map<String, VariableElement> byName = new HashMap<String, VariableElement>();
+        int maxPos = -1;
+        for (VariableElement field : fields) {
+            Param param = field.getAnnotation(Param.class);
+            if (param.pos() > -1) {
+                VariableElement previous = byPosition.get(param.pos());
+                if (previous != null) {
+                    error(typeElement, field, "In class " + typeElement.getQualifiedName() + ", two fields annotated with @Param have the same position (@Param(pos=" + param.pos() + ")): "
+                            + describe(previous) + " and " + describe(field) + ". Please change the position of one of them.");
+                    valid = false;
+                } else {
+                    byPosition.put(param.pos(), field);
+                }
+                maxPos = Math.max(maxPos, param.pos());
+            } else {
+                String name = param.name().equals("") ? field.getSimpleName().toString() : param.name();
+                VariableElement previous = byName.get(name);
+                if (previous != null) {
+                    error(typeElement, field, "In class " + typeElement.getQualifiedName() + ", two named fields (non positional) annotated with @Param have the same name (" + name + "): "
+                            + describe(previous) + " and " + describe(field) + ". Did you forget to specify a position @Param(pos=...) on one of them?");
+                    valid = false;
+                } else {
+                    byName.put(name, field);
+                }
+            }
+        }
+        for (int pos = 1; pos <= maxPos; pos++) {
+            if (byPosition.containsKey(pos) && ! byPosition.containsKey(pos - 1)) {
+                error(typeElement, byPosition.get(pos), "In class " + typeElement.getQualifiedName() + ", the field " + describe(byPosition.get(pos)) + " is annotated @Param(pos=" + pos + "), "
+                        + "but no other field is annotated with @Param(pos=" + (pos - 1) + "). These kind of position holes are forbidden.");
+                valid = false;
+                break;  // One hole reported is enough.
+            }
+        }
+        return valid;
+    }
+
+    /** Returns why the generated binder could not access a field, or null if all are accessible. */
+    private String findInaccessibleField(TypeElement typeElement, List<VariableElement> fields) {
+        for (Element e = typeElement; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE) || ((TypeElement) e).getNestingKind() == NestingKind.LOCAL
+                    || ((TypeElement) e).getNestingKind() == NestingKind.ANONYMOUS) {
+                return "the class is private or local";
+            }
+        }
+        PackageElement pagePackage = processingEnv.getElementUtils().getPackageOf(typeElement);
+        for (VariableElement field : fields) {
+            Set<Modifier> modifiers = field.getModifiers();
+            TypeElement declaringClass = (TypeElement) field.getEnclosingElement();
+            boolean samePackage = processingEnv.getElementUtils().getPackageOf(declaringClass).equals(pagePackage);
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return "field " + describe(field) + " is private";
+            } else if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+                return "field " + describe(field) + " is final or static";
+            } else if (! samePackage && ! (modifiers.contains(Modifier.PUBLIC) && declaringClass.getModifiers().contains(Modifier.PUBLIC))) {
+                return "field " + describe(field) + " is not public, and declared in another package";
+            }
+        }
+        return null;
+    }
+
+    private void generateBinder(TypeElement typeElement, List<VariableElement> fields) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        String binderSimpleName = binaryName.substring(packageName.length() == 0 ? 0 : packageName.length() + 1) + BINDER_SUFFIX;
+        String targetType = erasure(typeElement.asType());
+
+        try {
+            PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(binaryName + BINDER_SUFFIX, typeElement).openWriter());
+            try {
+                if (packageName.length() > 0) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+                out.println("/** Generated by " + getClass().getName() + " for " + targetType + ". Do not edit. */");
+                out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+                out.println("public final class " + binderSimpleName + " implements " + URI_PACKAGE + "ParamBinder {");
+                out.println();
+                out.println("    private static final String[] FIELDS = {");
+                for (VariableElement field : fields) {
+                    out.println("        \"" + processingEnv.getElementUtils().getBinaryName((TypeElement) field.getEnclosingElement()) + "#" + field.getSimpleName() + "\",");
+                }
+                out.println("    };");
+                out.println();
+                out.println("    public String[] getFields() {");
+                out.println("        return FIELDS.clone();");
+                out.println("    }");
+                out.println();
+
+                //// get()
+                out.println("    public Object get(Object target, int index) {");
+                out.println("        " + targetType + " t = (" + targetType + ") target;");
+                out.println("        switch (index) {");
+                for (int i = 0; i < fields.size(); i++) {
+                    out.println("        case " + i + ": return " + access(typeElement, fields.get(i)) + ";");
+                }
+                out.println("        default: throw new IndexOutOfBoundsException(\"No @Param field at index \" + index);");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+
+                //// set()
+                out.println("    public void set(Object target, int index, Object value) {");
+                out.println("        " + targetType + " t = (" + targetType + ") target;");
+                out.println("        switch (index) {");
+                for (int i = 0; i < fields.size(); i++) {
+                    VariableElement field = fields.get(i);
+                    out.println("        case " + i + ": " + access(typeElement, field) + " = (" + boxedType(field.asType()) + ") value; return;");
+                }
+                out.println("        default: throw new IndexOutOfBoundsException(\"No @Param field at index \" + index);");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+
+                //// assign()
+                out.println("    public String assign(Object target, int index, String valueStr) {");
+                out.println("        " + targetType + " t = (" + targetType + ") target;");
+                out.println("        switch (index) {");
+                for (int i = 0; i < fields.size(); i++) {
+                    String conversion = conversion(access(typeElement, fields.get(i)), fields.get(i));
+                    if (conversion != null) {
+                        out.println("        case " + i + ": {");
+                        out.print(conversion);
+                        out.println("            return null;");
+                        out.println("        }");
+                    }
+                }
+                out.println("        default: throw new IllegalArgumentException(\"No @Param field of a basic type at index \" + index);");
+                out.println("        }");
+                out.println("    }");
+                out.println("}");
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot generate " + binaryName + BINDER_SUFFIX + ": " + e, typeElement);
+        }
+    }
+
+    /** The expression to read/write the field from the variable t (cast to the declaring class, in case a subclass hides the field). */
+    private String access(TypeElement typeElement, VariableElement field) {
+        TypeElement declaringClass = (TypeElement) field.getEnclosingElement();
+        if (declaringClass.equals(typeElement)) {
+            return "t." + field.getSimpleName();
+        }
+        return "((" + erasure(declaringClass.asType()) + ") t)." + field.getSimpleName();
+    }
+
+    /** Inlined conversion of valueStr into the field, for basic types (same rules as the BasicConverters of ParamConverters). Null for the other types. */
+    private String conversion(String fieldAccess, VariableElement field) {
+        String type = boxedType(field.asType());
+        String invalid = "return " + URI_PACKAGE + "ParamConverters.invalidNumberProblem(valueStr, \"" + field.getSimpleName() + "\");";
+        String isLong = "if (! " + URI_PACKAGE + "ParsedFragment.isLong(valueStr, 0, valueStr.length())) " + invalid;
+        String parseLong = URI_PACKAGE + "ParsedFragment.parseLong(valueStr, 0, valueStr.length())";
+        String indent = "            ";
+        if (type.equals("java.lang.String")) {
+            return indent + fieldAccess + " = valueStr;\n";
+        } else if (type.equals("java.lang.Long")) {
+            return indent + isLong + "\n"
+                 + indent + fieldAccess + " = " + parseLong + ";\n";
+        } else if (type.equals("java.lang.Integer") || type.equals("java.lang.Short") || type.equals("java.lang.Byte")) {
+            String primitive = type.equals("java.lang.Integer") ? "int" : type.substring("java.lang.".length()).toLowerCase();
+            return indent + isLong + "\n"
+                 + indent + "long value = " + parseLong + ";\n"
+                 + indent + "if (value < " + type + ".MIN_VALUE || value > " + type + ".MAX_VALUE) " + invalid + "\n"
+                 + indent + fieldAccess + " = (" + primitive + ") value;\n";
+        } else if (type.equals("java.lang.Double") || type.equals("java.lang.Float")) {
+            String parse = type.equals("java.lang.Double") ? "Double.parseDouble(valueStr)" : "Float.parseFloat(valueStr)";
+            return indent + "try {\n"
+                 + indent + "    " + fieldAccess + " = " + parse + ";\n"
+                 + indent + "} catch (NumberFormatException e) {\n"
+                 + indent + "    " + invalid + "\n"
+                 + indent + "}\n";
+        } else if (type.equals("java.lang.Boolean")) {
+            return indent + fieldAccess + " = Boolean.parseBoolean(valueStr);  // Never fails: anything else than \"true\" is false.\n";
+        }
+        return null;
+    }
+
+    /** Type to cast an Object into, to assign the field: the wrapper for primitives, the erasure for the other types. */
+    private String boxedType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return erasure(type);
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String describe(VariableElement field) {
+        return ((TypeElement) field.getEnclosingElement()).getQualifiedName() + "." + field.getSimpleName();
+    }
+
+    /** Reports the error on the field if it is declared in the class being processed, else on the class. */
+    private void error(TypeElement typeElement, VariableElement field, String message) {
+        Element element = field.getEnclosingElement().equals(typeElement) ? field : typeElement;
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
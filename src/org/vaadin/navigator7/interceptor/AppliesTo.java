@@ -0,0 +1,28 @@
+package org.vaadin.navigator7.interceptor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** Applied to an Interceptor class to restrict the pages it is called for.
+ * The interceptor is only put in the pipeline of the pages that extend/implement one of the given types,
+ * or that are annotated with one of the given annotation types. For other pages, it's not called at all.
+ *
+ * <pre>
+ * &#64;AppliesTo(ParamChangeListener.class)
+ * public class MyInterceptor implements Interceptor { ... }
+ *
+ * &#64;AppliesTo(Secured.class)   // Secured being an annotation that you put on some of your page classes.
+ * public class SecurityInterceptor implements Interceptor { ... }
+ * </pre>
+ *
+ * Implement ConditionalInterceptor instead if the condition cannot be expressed that way.
+ * Interceptors with none of both are called for every page.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface AppliesTo {
+    /** Super-types (classes or interfaces) or annotation types of the pages the interceptor applies to. */
+    Class<?>[] value();
+}
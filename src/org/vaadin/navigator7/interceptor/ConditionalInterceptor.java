@@ -0,0 +1,15 @@
+package org.vaadin.navigator7.interceptor;
+
+import com.vaadin.ui.Component;
+
+/** Interceptor that tells for which pages it should be called.
+ * appliesTo() is called once per page class, when the interceptor pipeline of that page is compiled (see NavigatorConfig.getInterceptorPipeline()),
+ * not at every navigation. It must only depend on the page class.
+ *
+ * See also the @AppliesTo annotation, for the simple cases.
+ */
+public interface ConditionalInterceptor extends Interceptor {
+
+    /** Returns false if this interceptor has nothing to do for that page class (it will be skipped entirely). */
+    public boolean appliesTo(Class<? extends Component> pageClass);
+}
@@ -0,0 +1,109 @@
+package org.vaadin.navigator7.interceptor;
+
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import com.vaadin.ui.Component;
+
+/** The interceptors to go through for one page class, in the order they have been registered.
+ * Compiled once per page class by NavigatorConfig (from its interceptor list), and then shared by all the PageInvocations for that page.
+ * The interceptors that don't apply to the page (see ConditionalInterceptor and @AppliesTo) are left out.
+ *
+ * Immutable.
+ */
+public final class InterceptorPipeline implements Serializable {
+
+    private final Class<? extends Component> pageClass;
+    private final Interceptor[] interceptors;
+    private final int[] positions;  // positions[i] = index of interceptors[i] in the (global) interceptor list.
+
+    private InterceptorPipeline(Class<? extends Component> pageClass, Interceptor[] interceptors, int[] positions) {
+        this.pageClass = pageClass;
+        this.interceptors = interceptors;
+        this.positions = positions;
+    }
+
+    /** @param interceptorList all the registered interceptors, in the order they should be called. */
+    public static InterceptorPipeline compile(Class<? extends Component> pageClass, List<Interceptor> interceptorList) {
+        Interceptor[] interceptors = new Interceptor[interceptorList.size()];
+        int[] positions = new int[interceptorList.size()];
+        int count = 0;
+        for (int i = 0; i < interceptorList.size(); i++) {
+            Interceptor interceptor = interceptorList.get(i);
+            if (appliesTo(interceptor, pageClass)) {
+                interceptors[count] = interceptor;
+                positions[count] = i;
+                count++;
+            }
+        }
+        if (count < interceptors.length) {
+            Interceptor[] trimmedInterceptors = new Interceptor[count];
+            System.arraycopy(interceptors, 0, trimmedInterceptors, 0, count);
+            int[] trimmedPositions = new int[count];
+            System.arraycopy(positions, 0, trimmedPositions, 0, count);
+            interceptors = trimmedInterceptors;
+            positions = trimmedPositions;
+        }
+        return new InterceptorPipeline(pageClass, interceptors, positions);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static boolean appliesTo(Interceptor interceptor, Class<? extends Component> pageClass) {
+        if (interceptor instanceof ConditionalInterceptor
+                && ! ((ConditionalInterceptor)interceptor).appliesTo(pageClass)) {
+            return false;
+        }
+        AppliesTo appliesTo = interceptor.getClass().getAnnotation(AppliesTo.class);
+        if (appliesTo != null) {
+            for (Class<?> type : appliesTo.value()) {
+                if (type.isAnnotation()) {
+                    if (pageClass.isAnnotationPresent((Class<? extends Annotation>)type)) {
+                        return true;
+                    }
+                } else if (type.isAssignableFrom(pageClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public Class<? extends Component> getPageClass() {
+        return pageClass;
+    }
+
+    public int size() {
+        return interceptors.length;
+    }
+
+    public Interceptor get(int index) {
+        return interceptors[index];
+    }
+
+    /** Index (in this pipeline) of the first interceptor coming after the given position in the global interceptor list.
+     * Used when an interceptor changes the page class in the middle of the chain: the chain continues with the pipeline of the new page.
+     * @param position index in the global interceptor list, -1 for "before the first one". */
+    public int indexAfterPosition(int position) {
+        int index = 0;
+        while (index < positions.length && positions[index] <= position) {
+            index++;
+        }
+        return index;
+    }
+
+    /** Index in the global interceptor list of the interceptor at the given index in this pipeline (-1 if index is -1). */
+    public int getPosition(int index) {
+        return index < 0 ? -1 : positions[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("InterceptorPipeline[").append(pageClass.getName()).append(":");
+        for (Interceptor interceptor : interceptors) {
+            sb.append(" ").append(interceptor.getClass().getSimpleName());
+        }
+        return sb.append("]").toString();
+    }
+}
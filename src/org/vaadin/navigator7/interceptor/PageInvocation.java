@@ -1,146 +1,269 @@
-package org.vaadin.navigator7.interceptor;
-
-import java.util.List;
-
-import org.vaadin.navigator7.Navigator;
-import org.vaadin.navigator7.WebApplication;
-
-import com.vaadin.ui.Component;
-import com.vaadin.ui.AbstractSelect.NewItemHandler;
-
-/** Context of execution for the interceptors chain, then for the page.
- * In your interceptor, you typically do something, then call pageInvocation.invoke(), then maybe something else.
- * You may also choose to change the destination page (PageInvocation.setPageClass()) or params.
- * From your interceptor, you are not obliged to call invoke. If you have a good reason not to move to the target page, you may, for example, display a notification, and just don't call invoke (stay on the current page).
- * 
- * @author John Rizzo - BlackBeltFactory.com
- *
- */
-public class PageInvocation {
-    
-    protected int currentInterceptorIndex = -1;  // When invoke is called for the first time, it's not from within an, interceptor (=> there is no current interceptor yet).
-    protected Navigator navigator;
-    protected Class<? extends Component> pageClass;
-    protected String params;
-    protected Component pageInstance;
-    protected boolean pagePlaced;  // true when the page has been placed (no interceptor interrupted the call chain).
-    protected boolean isInstanceNew = true;  // Is it a new page instance that PageInvocation instantiated (new) or a reused page ?
-    
-    /** true => we'll set the URI (with the page name and params) when invoking the page.
-     * When the page change results from an URI change event, we don't want to rechange the URI.
-     * If an interceptor decides to change the pageClass and/or params, it may change needToChangeUri to true to have a correct URI in the browser.
-     */
-    protected boolean needToChangeUri; 
-    
-    
-    
-    public PageInvocation(Navigator navigator,
-            Class<? extends Component> pageClass, String params,
-            boolean needToChangeUri) {
-        super();
-        this.navigator = navigator;
-        this.pageClass = pageClass;
-        this.params = params;
-        this.needToChangeUri = needToChangeUri;
-    }
-
-
-    public PageInvocation(Navigator navigator2, Component page, String params2,
-            boolean needToChangeUri2) {
-        this(navigator2, page.getClass(), params2, needToChangeUri2);
-        pageInstance = page;
-        isInstanceNew = false;
-    }
-
-
-    /** Invokes the next step in processing this PageInvocation
-     * Call it if you want to go further to navigating to the page (eventually through next interceptors) */
-    public void invoke() {
-        // Selects next Interceptor
-        List<Interceptor> interceptors = WebApplication.getCurrent().getNavigatorConfig().getInterceptorList();
-        if (currentInterceptorIndex+1 < interceptors.size()) {  // There is one more interceptor to go through.
-            currentInterceptorIndex++;
-            Interceptor nextInterceptor = interceptors.get(currentInterceptorIndex);
-            nextInterceptor.intercept(this);
-        } else {  // No more interceptor: go to the page.
-            navigator.placePage(getPageInstance(), params, needToChangeUri);
-            pagePlaced = true;
-        }
-    }
-
-    
-    /** In case an exception is fired by the page when it's instantiated or when parameters are initialized,
-     * we display the stack trace.
-     * This method is typically called by interceptors.
-     * TODO: We should provide a mechanism (override a method in another class) to enable developers to do anything else (as displaying the stack trace only if logged user is admin, for example). A good candiate would be NavigableAppLevelWindow
-     */
-    public void placeExceptionPage(Exception exception) {
-        navigator.placePage(new ExceptionPage(exception, pageClass, params), params, needToChangeUri);
-    }
-    
-    
-    /** Returns the page instance after having instantiated it.
-     * Your interceptor should not call this method if not needed.
-     * The latest the page is instantiated, the less it will be instantiated uselessly (if an interceptor decides to stop the navigation chain). 
-     * 
-     */
-    public synchronized Component getPageInstance() {
-        if (pageInstance == null) {
-            try {
-                // instantiate page like: auctionPage = new AuctionPage();
-                pageInstance = (Component) pageClass.newInstance();
-                isInstanceNew = true;
-            } catch (Exception e) {
-                RuntimeException e2 = new RuntimeException("Problem while instantiating page class ["+pageClass+"]. Probably bug. Does your page class have a no-arg constructor?", e);
-                placeExceptionPage(e2);
-                throw e2;
-            }
-        }
-        return pageInstance;
-    }
-
-    
-    public Class<? extends Component> getPageClass() {
-        return pageClass;
-    }
-
-    /** An interceptor may change the destination page (set an error page, for example) */
-    public void setPageClass(Class<? extends Component> pageClass) {
-        this.pageClass = pageClass;
-    }
-
-    public String getParams() {
-        return params;
-    }
-
-    /** An interceptor may change the params that will be used to instantiate the page */
-    public void setParams(String params) {
-        this.params = params;
-    }
-
-    public Navigator getNavigator() {
-        return navigator;
-    }
-
-    public boolean isNeedToChangeUri() {
-        return needToChangeUri;
-    }
-
-    public void setNeedToChangeUri(boolean needToChangeUri) {
-        this.needToChangeUri = needToChangeUri;
-    }
-
-
-    public boolean isPagePlaced() {
-        return pagePlaced;
-    }
-
-
-    public boolean isInstanceNew() {
-        return isInstanceNew;
-    }
-
-
-
-
-}
+package org.vaadin.navigator7.interceptor;
+
+import org.vaadin.navigator7.Navigator;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.Navigator.NavigationEvent;
+import org.vaadin.navigator7.metrics.NavigationMetrics;
+import org.vaadin.navigator7.metrics.NavigationPhase;
+import org.vaadin.navigator7.uri.ParsedFragment;
+import org.vaadin.navigator7.window.NavigableAppLevelWindow;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.AbstractSelect.NewItemHandler;
+
+/** Context of execution for the interceptors chain, then for the page.
+ * In your interceptor, you typically do something, then call pageInvocation.invoke(), then maybe something else.
+ * You may also choose to change the destination page (PageInvocation.setPageClass()) or params.
+ * From your interceptor, you are not obliged to call invoke. If you have a good reason not to move to the target page, you may, for example, display a notification, and just don't call invoke (stay on the current page).
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ *
+ */
+public class PageInvocation {
+    
+    protected int currentInterceptorIndex = -1;  // When invoke is called for the first time, it's not from within an, interceptor (=> there is no current interceptor yet). Index in pipeline.
+    protected InterceptorPipeline pipeline;  // Interceptors applying to pageClass, resolved once (see NavigatorConfig.getInterceptorPipeline()).
+    protected Navigator navigator;
+    protected Class<? extends Component> pageClass;
+    protected String params;
+    protected ParsedFragment parsedParams;  // params, analyzed once for all the interceptors (lazily, see getParsedParams()).
+    protected Component pageInstance;
+    protected boolean pagePlaced;  // true when the page has been placed (no interceptor interrupted the call chain).
+    protected boolean isInstanceNew = true;  // Is it a new page instance that PageInvocation instantiated (new) or a reused page ?
+    protected String cachedPageParams;  // Canonical params under which pageInstance has been taken from the page cache. null if it does not come from the cache, or once it is being placed.
+    protected NavigationEvent navigationEvent;  // Shared by the interceptors notifying listeners (lazily, see getNavigationEvent()).
+    private long innerNanos;  // Time spent in invoke() by the current interceptor, to be deduced from its own time (see NavigationPhase.INTERCEPTOR).
+    private int invokeDepth;  // Nested invoke() calls currently running (0 once the chain has returned, placed or stopped).
+    
+    /** true => we'll set the URI (with the page name and params) when invoking the page.
+     * When the page change results from an URI change event, we don't want to rechange the URI.
+     * If an interceptor decides to change the pageClass and/or params, it may change needToChangeUri to true to have a correct URI in the browser.
+     */
+    protected boolean needToChangeUri; 
+    
+    
+    
+    public PageInvocation(Navigator navigator,
+            Class<? extends Component> pageClass, String params,
+            boolean needToChangeUri) {
+        super();
+        this.navigator = navigator;
+        this.pageClass = pageClass;
+        this.params = params;
+        this.needToChangeUri = needToChangeUri;
+        this.pipeline = WebApplication.getCurrent().getNavigatorConfig().getInterceptorPipeline(pageClass);
+    }
+
+
+    public PageInvocation(Navigator navigator2, Component page, String params2,
+            boolean needToChangeUri2) {
+        this(navigator2, page.getClass(), params2, needToChangeUri2);
+        pageInstance = page;
+        isInstanceNew = false;
+    }
+
+    /** Idem, with params that have already been parsed (typically coming from the UriAnalyzer FragmentCache).
+     * @param parsedParams must be the result of the parsing of params (or null, in which case params will be parsed lazily if needed). */
+    public PageInvocation(Navigator navigator, Class<? extends Component> pageClass, String params, ParsedFragment parsedParams,
+            boolean needToChangeUri) {
+        this(navigator, pageClass, params, needToChangeUri);
+        this.parsedParams = parsedParams;
+    }
+
+    public PageInvocation(Navigator navigator, Component page, String params, ParsedFragment parsedParams,
+            boolean needToChangeUri) {
+        this(navigator, page, params, needToChangeUri);
+        this.parsedParams = parsedParams;
+    }
+
+
+    /** Invokes the next step in processing this PageInvocation
+     * Call it if you want to go further to navigating to the page (eventually through next interceptors) */
+    public void invoke() {
+        NavigationMetrics metrics = WebApplication.getCurrent().getNavigatorConfig().getNavigationMetrics();
+        long start = metrics.start();
+        invokeDepth++;
+        try {
+            invokeNext(metrics);
+        } finally {
+            invokeDepth--;
+            if (start != NavigationMetrics.NOT_STARTED) {
+                innerNanos += System.nanoTime() - start;  // Not the own time of the calling interceptor.
+            }
+            if (invokeDepth == 0 && ! pagePlaced) {  // An interceptor stopped the chain (or suspended it, as NavigationWarningInterceptor does).
+                returnCachedPage();
+            }
+        }
+    }
+
+    private void invokeNext(NavigationMetrics metrics) {
+        // Selects next Interceptor (the ones that don't apply to the page are not in the pipeline).
+        if (currentInterceptorIndex+1 < pipeline.size()) {  // There is one more interceptor to go through.
+            currentInterceptorIndex++;
+            Interceptor nextInterceptor = pipeline.get(currentInterceptorIndex);
+            long outerInnerNanos = innerNanos;
+            innerNanos = 0;
+            long start = metrics.start();
+            try {
+                nextInterceptor.intercept(this);
+            } finally {
+                if (start != NavigationMetrics.NOT_STARTED) {
+                    metrics.recordNanos(NavigationPhase.INTERCEPTOR, nextInterceptor.getClass(), System.nanoTime() - start - innerNanos);
+                }
+                innerNanos = outerInnerNanos;
+            }
+        } else {  // No more interceptor: go to the page.
+            Component page = getPageInstance();
+            cachedPageParams = null;  // From now on, the window is responsible for the page (even if placing it fails).
+            navigator.placePage(page, params, getParsedParams(), needToChangeUri);
+            pagePlaced = true;
+        }
+    }
+
+    
+    /** In case an exception is fired by the page when it's instantiated or when parameters are initialized,
+     * we display the stack trace.
+     * This method is typically called by interceptors.
+     * TODO: We should provide a mechanism (override a method in another class) to enable developers to do anything else (as displaying the stack trace only if logged user is admin, for example). A good candiate would be NavigableAppLevelWindow
+     */
+    public void placeExceptionPage(Exception exception) {
+        navigator.placePage(new ExceptionPage(exception, pageClass, params), params, needToChangeUri);
+    }
+    
+    
+    /** Returns the page instance after having instantiated it.
+     * Your interceptor should not call this method if not needed.
+     * The latest the page is instantiated, the less it will be instantiated uselessly (if an interceptor decides to stop the navigation chain). 
+     * 
+     */
+    public Component getPageInstance() {  // Not synchronized: a PageInvocation is used by one thread only (within the Vaadin request of its Application).
+        if (pageInstance == null) {
+            pageInstance = takeCachedPage();  // Sets cachedPageParams if found.
+            if (pageInstance != null) {  // Reused instance (typically after a browser back): the interceptors see it as for a params change.
+                isInstanceNew = false;
+                return pageInstance;
+            }
+            try {
+                // instantiate page like: auctionPage = new AuctionPage(); (see PageFactory).
+                pageInstance = WebApplication.getCurrent().getNavigatorConfig().createPage(pageClass);
+                isInstanceNew = true;
+            } catch (RuntimeException e) {
+                RuntimeException e2 = new RuntimeException("Problem while instantiating page class ["+pageClass+"]: " + e.getMessage(), e);
+                placeExceptionPage(e2);
+                throw e2;
+            }
+        }
+        return pageInstance;
+    }
+
+    /** Returns the instance kept in the page cache of the window for the page class and params (see @CachedPage), or null. */
+    protected Component takeCachedPage() {
+        WebApplication webApp = WebApplication.getCurrent();
+        if (webApp.getNavigatorConfig().getCachedPageSizeKb(pageClass) == 0) {
+            return null;
+        }
+        NavigableAppLevelWindow window = navigator.getNavigableAppLevelWindow();
+        if (window == null) {
+            return null;
+        }
+        String canonicalParams = webApp.getUriAnalyzer().canonicalizeParams(getParsedParams());
+        Component page = window.getPageCache().take(pageClass, canonicalParams);
+        if (page != null) {
+            cachedPageParams = canonicalParams;
+        }
+        return page;
+    }
+
+    /** Puts the page taken from the page cache back in it, when the chain stops before placing it.
+     * Else the page would be neither displayed nor disposed (see PageLifecycle), and its share of the PageCacheBudget would be lost.
+     * If the chain is continued later (after a NavigationWarner dialog box, for example), the page is taken from the cache again,
+     * or instantiated again if it has been evicted meanwhile. */
+    protected void returnCachedPage() {
+        if (cachedPageParams == null) {
+            return;
+        }
+        Component page = pageInstance;
+        String canonicalParams = cachedPageParams;
+        pageInstance = null;
+        cachedPageParams = null;
+        isInstanceNew = true;
+        int sizeKb = WebApplication.getCurrent().getNavigatorConfig().getCachedPageSizeKb(page.getClass());
+        navigator.getNavigableAppLevelWindow().getPageCache().put(page, canonicalParams, sizeKb);
+    }
+
+    
+    public Class<? extends Component> getPageClass() {
+        return pageClass;
+    }
+
+    /** An interceptor may change the destination page (set an error page, for example).
+     * The chain continues with the interceptors (registered after the current one) that apply to the new page. */
+    public void setPageClass(Class<? extends Component> pageClass) {
+        if (pageClass != this.pageClass) {
+            InterceptorPipeline newPipeline = WebApplication.getCurrent().getNavigatorConfig().getInterceptorPipeline(pageClass);
+            currentInterceptorIndex = newPipeline.indexAfterPosition(pipeline.getPosition(currentInterceptorIndex)) - 1;
+            pipeline = newPipeline;
+            navigationEvent = null;
+        }
+        this.pageClass = pageClass;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    /** An interceptor may change the params that will be used to instantiate the page */
+    public void setParams(String params) {
+        this.params = params;
+        this.parsedParams = null;  // Will be parsed again if needed.
+        this.navigationEvent = null;
+    }
+
+    /** The params, parsed once per navigation (and shared by all the interceptors and the page).
+     * Returns null if there is no param. */
+    public ParsedFragment getParsedParams() {
+        if (parsedParams == null && params != null) {
+            parsedParams = WebApplication.getCurrent().getUriAnalyzer().parseFragment(params);
+        }
+        return parsedParams;
+    }
+
+    /** The event to give to the listeners once the page has been placed. Created once per navigation, and shared by all the interceptors. */
+    public NavigationEvent getNavigationEvent() {
+        if (navigationEvent == null) {
+            navigationEvent = new NavigationEvent(navigator, WebApplication.getCurrent().getUriAnalyzer(),
+                    pageClass, getParsedParams());
+        }
+        return navigationEvent;
+    }
+
+    public InterceptorPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public Navigator getNavigator() {
+        return navigator;
+    }
+
+    public boolean isNeedToChangeUri() {
+        return needToChangeUri;
+    }
+
+    public void setNeedToChangeUri(boolean needToChangeUri) {
+        this.needToChangeUri = needToChangeUri;
+    }
+
+
+    public boolean isPagePlaced() {
+        return pagePlaced;
+    }
+
+
+    public boolean isInstanceNew() {
+        return isInstanceNew;
+    }
+
+
+
+
+}
@@ -0,0 +1,127 @@
+package org.vaadin.navigator7.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Sum of the SessionFootprints of the live sessions, per page class. Produced by SessionFootprintAnalyzer.analyzeAll().
+ * Immutable once built. */
+public class FootprintReport {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    private final int sessionCount;
+    private final int windowCount;
+    private final long totalBytes;
+    private final long maxSessionBytes;
+    private final long templateBytes;
+    private final List<PageFootprint> pages;  // Heaviest first (total bytes).
+    private final long analysisMillis;
+    private final long timestamp = System.currentTimeMillis();
+
+
+    FootprintReport(List<SessionFootprint> sessions, long analysisMillis) {
+        Map<String, PageFootprint> pagesByName = new HashMap<String, PageFootprint>();
+        int windows = 0;
+        long total = 0;
+        long max = 0;
+        long template = 0;
+        for (SessionFootprint session : sessions) {
+            long sessionBytes = session.getTotalBytes();
+            total += sessionBytes;
+            max = Math.max(max, sessionBytes);
+            windows += session.getWindows().size();
+            for (SessionFootprint.WindowFootprint window : session.getWindows()) {
+                template += window.getTemplateBytes();
+            }
+            for (PageFootprint page : session.getPages()) {
+                PageFootprint sum = pagesByName.get(page.getPageClassName());
+                if (sum == null) {
+                    sum = new PageFootprint(page.getPageClassName());
+                    pagesByName.put(page.getPageClassName(), sum);
+                }
+                sum.add(page);
+            }
+        }
+        List<PageFootprint> sorted = new ArrayList<PageFootprint>(pagesByName.values());
+        Collections.sort(sorted, new Comparator<PageFootprint>() {
+            @Override
+            public int compare(PageFootprint p1, PageFootprint p2) {
+                return p1.getTotalBytes() < p2.getTotalBytes() ? 1 : p1.getTotalBytes() > p2.getTotalBytes() ? -1 : 0;
+            }
+        });
+
+        this.sessionCount = sessions.size();
+        this.windowCount = windows;
+        this.totalBytes = total;
+        this.maxSessionBytes = max;
+        this.templateBytes = template;
+        this.pages = Collections.unmodifiableList(sorted);
+        this.analysisMillis = analysisMillis;
+    }
+
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getAverageSessionBytes() {
+        return sessionCount == 0 ? 0 : totalBytes / sessionCount;
+    }
+
+    public long getMaxSessionBytes() {
+        return maxSessionBytes;
+    }
+
+    /** Bytes of the window templates (header, menu, footer...) of all the sessions. */
+    public long getTemplateBytes() {
+        return templateBytes;
+    }
+
+    /** How many sessions as the average one fit in 1GB (0 if no session has been analyzed). */
+    public long getSessionsPerGb() {
+        long average = getAverageSessionBytes();
+        return average == 0 ? 0 : GB / average;
+    }
+
+    /** Per page class, heaviest first (total bytes over all the sessions). */
+    public List<PageFootprint> getPages() {
+        return pages;
+    }
+
+    /** Time taken by the analysis (the sessions are locked one after the other, during their walk). */
+    public long getAnalysisMillis() {
+        return analysisMillis;
+    }
+
+    /** When the analysis has been done (System.currentTimeMillis()). */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Session footprint: ").append(sessionCount).append(" sessions, ").append(windowCount).append(" windows, total ")
+          .append(totalBytes / 1024).append("KB, avg/session ").append(getAverageSessionBytes() / 1024).append("KB, max/session ")
+          .append(maxSessionBytes / 1024).append("KB, sessions/GB ").append(getSessionsPerGb()).append(", templates ")
+          .append(templateBytes / 1024).append("KB (analyzed in ").append(analysisMillis).append("ms)\n");
+        sb.append(String.format("%-60s %9s %12s %10s %10s %12s%n", "page class", "instances", "total KB", "avg KB", "max KB", "components"));
+        for (PageFootprint page : pages) {
+            sb.append(String.format("%-60s %9d %12d %10d %10d %12d%n", page.getPageClassName(), page.getInstanceCount(), page.getTotalBytes() / 1024,
+                    page.getAverageBytes() / 1024, page.getMaxBytes() / 1024, page.getAverageComponentCount()));
+        }
+        return sb.toString();
+    }
+}
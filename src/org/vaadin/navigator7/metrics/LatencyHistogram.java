@@ -0,0 +1,127 @@
+package org.vaadin.navigator7.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Histogram of durations (in nanoseconds), recorded without lock (in the spirit of HdrHistogram, much simpler).
+ * 
+ * Values below 16ns are counted exactly. Above, each power of two is split into 8 linear sub-buckets:
+ * a percentile is precise within 1/16 (~6%) of its value, whatever the magnitude (1 micro-second or 10 seconds).
+ * That's 488 counters (4KB) per histogram.
+ * 
+ * record() is a couple of atomic increments. Reading the percentiles walks the counters, while recording may go on:
+ * the result is then approximate (as any concurrent snapshot), which is fine for monitoring.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;       // 8 sub-buckets per power of two.
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;             // Values below 16 have their own bucket.
+    private static final int LINEAR_LIMIT_BITS = 4;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - LINEAR_LIMIT_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+
+    public void record(long nanos) {
+        if (nanos < 0) {  // nanoTime() is not guaranteed monotonic on every platform.
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && ! maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);  // >= 4
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_LIMIT_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Lowest value counted in that bucket. */
+    static long bucketLowerBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_LIMIT_BITS;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+
+    /** Middle of the bucket: the value reported for all the durations counted in it. */
+    static long bucketMiddle(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_LIMIT_BITS;
+        return bucketLowerBound(index) + (1L << (exponent - SUB_BUCKET_BITS - 1));
+    }
+
+    /** @param percentile between 0 and 100 (as 50 or 99.9). Returns 0 if nothing has been recorded. */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketMiddle(i), getMaxNanos());  // The max is exact, never report more.
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long c = count.get();
+        return c == 0 ? 0 : totalNanos.get() / c;
+    }
+
+    /** Forgets everything recorded so far (recordings made during the reset may be partly lost). */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50=" + getPercentileNanos(50) / 1000 + "us, p99=" + getPercentileNanos(99) / 1000
+                + "us, max=" + getMaxNanos() / 1000 + "us";
+    }
+}
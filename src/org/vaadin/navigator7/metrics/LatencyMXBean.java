@@ -0,0 +1,15 @@
+package org.vaadin.navigator7.metrics;
+
+/** JMX view of one LatencyHistogram (one phase of the navigation, for one page or interceptor class).
+ * Registered by NavigationMetrics as "org.vaadin.navigator7:type=NavigationLatency,phase=...,name=..." */
+public interface LatencyMXBean {
+    public String getPhase();
+    public String getName();
+    public long getCount();
+    public long getP50Micros();
+    public long getP90Micros();
+    public long getP99Micros();
+    public long getMaxMicros();
+    public long getMeanMicros();
+    public void reset();
+}
@@ -0,0 +1,213 @@
+package org.vaadin.navigator7.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/** Latency histograms of the navigation steps (see NavigationPhase), per page class or per interceptor class.
+ * One instance per web application (see NavigatorConfig.getNavigationMetrics()).
+ * 
+ * Recording is lock free (see LatencyHistogram). It can be switched off (setEnabled(false)): the cost is then a volatile read per step.
+ * 
+ * The histograms are published as JMX MXBeans once registerMBeans() has been called (by WebApplication.init() in a servlet container):
+ * "org.vaadin.navigator7:type=NavigationLatency,app=...,phase=...,name=..." with counts, p50/p90/p99, max and mean in micro-seconds,
+ * plus "org.vaadin.navigator7:type=NavigationMetrics,app=..." to switch the recording on/off.
+ * 
+ * Usage:
+ * <pre>
+ *   long start = metrics.start();
+ *   ... the step ...
+ *   metrics.record(NavigationPhase.XXX, pageClass, start);
+ * </pre>
+ * 
+ * Thread safe.
+ */
+public class NavigationMetrics implements NavigationMetricsMXBean {
+
+    public static final String JMX_DOMAIN = "org.vaadin.navigator7";
+
+    /** Returned by start() when recording is disabled. */
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private static final Logger LOGGER = Logger.getLogger(NavigationMetrics.class.getName());
+
+    private volatile boolean enabled = true;
+
+    // Index = NavigationPhase.ordinal()
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final ConcurrentHashMap<Class<?>, LatencyHistogram>[] histograms = new ConcurrentHashMap[NavigationPhase.values().length];
+
+    // JMX (null until registerMBeans()).
+    private MBeanServer mBeanServer;
+    private String applicationName;
+    private final List<ObjectName> registeredNames = new ArrayList<ObjectName>();
+
+
+    public NavigationMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new ConcurrentHashMap<Class<?>, LatencyHistogram>();
+        }
+    }
+
+    /** Returns the start time of a step to measure, or NOT_STARTED if recording is disabled. */
+    public long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /** Records the time elapsed since start (as returned by start()). Does nothing if start is NOT_STARTED. */
+    public void record(NavigationPhase phase, Class<?> clazz, long start) {
+        if (start != NOT_STARTED && enabled) {
+            getOrCreateHistogram(phase, clazz).record(System.nanoTime() - start);
+        }
+    }
+
+    /** Records a duration measured by the caller. */
+    public void recordNanos(NavigationPhase phase, Class<?> clazz, long nanos) {
+        if (enabled) {
+            getOrCreateHistogram(phase, clazz).record(nanos);
+        }
+    }
+
+    /** Returns null if nothing has been recorded for that phase and class. */
+    public LatencyHistogram getHistogram(NavigationPhase phase, Class<?> clazz) {
+        return histograms[phase.ordinal()].get(clazz);
+    }
+
+    /** Key = page class or interceptor class. */
+    public Map<Class<?>, LatencyHistogram> getHistograms(NavigationPhase phase) {
+        return Collections.unmodifiableMap(histograms[phase.ordinal()]);
+    }
+
+    private LatencyHistogram getOrCreateHistogram(NavigationPhase phase, Class<?> clazz) {
+        ConcurrentHashMap<Class<?>, LatencyHistogram> map = histograms[phase.ordinal()];
+        LatencyHistogram histogram = map.get(clazz);
+        if (histogram == null) {
+            // Rare (once per phase and class): under the lock of registerMBeans(), else it could register the new histogram too, between the put and registerMBean().
+            synchronized (this) {
+                LatencyHistogram newHistogram = new LatencyHistogram();
+                histogram = map.putIfAbsent(clazz, newHistogram);
+                if (histogram == null) {
+                    histogram = newHistogram;
+                    registerMBean(phase, clazz, histogram);
+                }
+            }
+        }
+        return histogram;
+    }
+
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getHistogramCount() {
+        int result = 0;
+        for (ConcurrentHashMap<Class<?>, LatencyHistogram> map : histograms) {
+            result += map.size();
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (ConcurrentHashMap<Class<?>, LatencyHistogram> map : histograms) {
+            for (LatencyHistogram histogram : map.values()) {
+                histogram.reset();
+            }
+        }
+    }
+
+
+    ////////////////////////////////////////////////// JMX
+
+    /** Publishes this switch and the histograms (the existing ones and the ones to come) in the given MBeanServer.
+     * @param applicationName distinguishes the web applications of the same JVM (typically the context path). */
+    public synchronized void registerMBeans(MBeanServer server, String applicationName) {
+        unregisterMBeans();
+        this.mBeanServer = server;
+        this.applicationName = (applicationName == null || applicationName.length() == 0) ? "ROOT" : applicationName;
+        register(this, JMX_DOMAIN + ":type=NavigationMetrics,app=" + ObjectName.quote(this.applicationName));
+        for (NavigationPhase phase : NavigationPhase.values()) {
+            for (Map.Entry<Class<?>, LatencyHistogram> entry : histograms[phase.ordinal()].entrySet()) {
+                registerMBean(phase, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /** Removes the MBeans (when the web application stops, else the class loader would leak). */
+    public synchronized void unregisterMBeans() {
+        if (mBeanServer == null) {
+            return;
+        }
+        for (ObjectName name : registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(name);
+            } catch (JMException e) {
+                // Already gone: nothing to do.
+            }
+        }
+        registeredNames.clear();
+        mBeanServer = null;
+    }
+
+    private synchronized void registerMBean(NavigationPhase phase, Class<?> clazz, LatencyHistogram histogram) {
+        if (mBeanServer == null) {
+            return;
+        }
+        register(new Latency(phase, clazz, histogram), JMX_DOMAIN + ":type=NavigationLatency,app=" + ObjectName.quote(applicationName)
+                + ",phase=" + phase + ",name=" + ObjectName.quote(clazz.getName()));
+    }
+
+    /** A failure is logged only: registering a histogram happens while recording, in the navigation of a user. */
+    private void register(Object mBean, String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {  // Left by a previous deployment of the same application.
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(mBean, objectName);
+            registeredNames.add(objectName);
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Cannot register MBean " + name, e);
+        }
+    }
+
+
+    /** MXBean of one histogram. */
+    private static class Latency implements LatencyMXBean {
+        private final NavigationPhase phase;
+        private final Class<?> clazz;
+        private final LatencyHistogram histogram;
+
+        Latency(NavigationPhase phase, Class<?> clazz, LatencyHistogram histogram) {
+            this.phase = phase;
+            this.clazz = clazz;
+            this.histogram = histogram;
+        }
+
+        @Override public String getPhase()      { return phase.name(); }
+        @Override public String getName()       { return clazz.getName(); }
+        @Override public long getCount()        { return histogram.getCount(); }
+        @Override public long getP50Micros()    { return histogram.getPercentileNanos(50) / 1000; }
+        @Override public long getP90Micros()    { return histogram.getPercentileNanos(90) / 1000; }
+        @Override public long getP99Micros()    { return histogram.getPercentileNanos(99) / 1000; }
+        @Override public long getMaxMicros()    { return histogram.getMaxNanos() / 1000; }
+        @Override public long getMeanMicros()   { return histogram.getMeanNanos() / 1000; }
+        @Override public void reset()           { histogram.reset(); }
+    }
+}
@@ -0,0 +1,11 @@
+package org.vaadin.navigator7.metrics;
+
+/** JMX switch of the navigation metrics.
+ * Registered by NavigationMetrics as "org.vaadin.navigator7:type=NavigationMetrics" */
+public interface NavigationMetricsMXBean {
+    public boolean isEnabled();
+    /** false stops all the recording (the histograms keep what they have). */
+    public void setEnabled(boolean enabled);
+    public int getHistogramCount();
+    public void reset();
+}
@@ -0,0 +1,19 @@
+package org.vaadin.navigator7.metrics;
+
+/** Steps of a navigation measured by NavigationMetrics. */
+public enum NavigationPhase {
+    /** Navigator.fragmentChanged(): URI fragment resolved into page class and params (FragmentCache included). Per target page class. */
+    FRAGMENT,
+    /** Whole interceptor chain, from Navigator.invokeInterceptors() until the page is placed (and the listeners notified). Per page class. */
+    NAVIGATION,
+    /** Own time of each interceptor (the time spent in the next steps, through PageInvocation.invoke(), is not counted). Per interceptor class. */
+    INTERCEPTOR,
+    /** Loading of the entities referenced by the params (one batch per navigation). Per page class. */
+    ENTITIES,
+    /** PageFactory.createPage(). Per page class. */
+    CONSTRUCTION,
+    /** ParamChangeListener.paramChanged(). Per page class. */
+    PARAM_CHANGED,
+    /** NavigableAppLevelWindow.changePage() (the page is put in the window). Per page class. */
+    CHANGE_PAGE
+}
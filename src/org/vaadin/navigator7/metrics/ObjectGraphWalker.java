@@ -0,0 +1,228 @@
+package org.vaadin.navigator7.metrics;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpSession;
+
+/** Estimates the memory retained by an object graph (as a page and its components), by walking the references from a root.
+ * 
+ * Each object is counted once: the visited set (identity based) is given by the caller and may be shared between several walks.
+ * The first walk that reaches an object "claims" it: walk the pages first, then their window, and the window only counts what the pages did not.
+ * Objects put in the visited set before the first walk (addBoundary()) are never crossed nor counted (as the WebApplication, shared by the sessions).
+ * The stops of a walk are not crossed by that walk only (as the parent of a page, counted later with the window).
+ * Classes, class loaders, threads, enums and reflection objects are never walked (shared by all the sessions),
+ * nor weak/soft references (they don't retain their referent), nor the objects of the servlet container (HttpSession, ServletContext...: they lead to all the sessions).
+ * 
+ * Shallow sizes come from the Instrumentation if one is given (from a java agent), else they are estimated from the fields
+ * for a 64 bits JVM with compressed references (12 bytes headers, 4 bytes references, 8 bytes alignment).
+ * The fields of the JDK classes may not be readable (modules of Java 9+): collections and maps are then walked through their public API.
+ * 
+ * Not thread safe (one instance per analysis). Walk an object graph only while nobody modifies it (synchronized on the Application for a session).
+ */
+public class ObjectGraphWalker {
+
+    private static final int HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int ALIGNMENT = 8;
+
+    /** Layouts are computed once per class, for all the analyses. */
+    private static final ConcurrentHashMap<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<Class<?>, ClassLayout>();
+
+    private final Instrumentation instrumentation;  // Null if not available.
+    private final IdentityHashMap<Object, Boolean> visited;
+    private final ArrayDeque<Object> stack = new ArrayDeque<Object>();
+    private final IdentityHashMap<Object, Boolean> stops = new IdentityHashMap<Object, Boolean>();
+
+    // Result of the last walk.
+    private long bytes;
+    private int objectCount;
+    private int componentCount;
+
+
+    /** @param visited objects already counted (or boundaries). Completed by each walk.
+     * @param instrumentation null to estimate the sizes from the fields. */
+    public ObjectGraphWalker(IdentityHashMap<Object, Boolean> visited, Instrumentation instrumentation) {
+        this.visited = visited;
+        this.instrumentation = instrumentation;
+    }
+
+    /** Marks an object that should never be counted nor crossed. */
+    public void addBoundary(Object boundary) {
+        if (boundary != null) {
+            visited.put(boundary, Boolean.TRUE);
+        }
+    }
+
+    /** Walks the objects reachable from root that no previous walk has counted, without crossing the stops.
+     * Returns the estimated bytes (also given by getBytes()). */
+    public long walk(Object root, Object... walkStops) {
+        stops.clear();
+        for (Object stop : walkStops) {
+            if (stop != null && stop != root) {
+                stops.put(stop, Boolean.TRUE);
+            }
+        }
+        bytes = 0;
+        objectCount = 0;
+        componentCount = 0;
+        push(root);
+        while (! stack.isEmpty()) {
+            Object o = stack.pop();
+            Class<?> clazz = o.getClass();
+            objectCount++;
+            if (o instanceof com.vaadin.ui.Component) {
+                componentCount++;
+            }
+
+            if (clazz.isArray()) {
+                int length = Array.getLength(o);
+                bytes += instrumentation != null ? instrumentation.getObjectSize(o) : align(ARRAY_HEADER_BYTES + (long) length * sizeOf(clazz.getComponentType()));
+                if (! clazz.getComponentType().isPrimitive()) {
+                    Object[] array = (Object[]) o;
+                    for (Object element : array) {
+                        push(element);
+                    }
+                }
+                continue;
+            }
+
+            ClassLayout layout = layoutOf(clazz);
+            bytes += instrumentation != null ? instrumentation.getObjectSize(o) : layout.shallowBytes;
+            if (layout.readable) {
+                for (Field field : layout.referenceFields) {
+                    try {
+                        push(field.get(o));
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException("Bug: field " + field + " should be accessible", e);  // setAccessible succeeded in layoutOf().
+                    }
+                }
+            } else if (o instanceof String) {  // String.value, unreadable on Java 9+.
+                bytes += align(ARRAY_HEADER_BYTES + 2L * ((String) o).length());  // Its internal array (char[] before Java 9).
+            } else if (o instanceof Collection) {  // As ArrayList.elementData, unreadable on Java 9+.
+                for (Object element : ((Collection<?>) o).toArray()) {
+                    push(element);
+                }
+                bytes += align(ARRAY_HEADER_BYTES + (long) ((Collection<?>) o).size() * REFERENCE_BYTES);  // The internal array (or nodes, roughly).
+            } else if (o instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet()) {
+                    push(entry.getKey());
+                    push(entry.getValue());
+                }
+                bytes += align(ARRAY_HEADER_BYTES + (long) ((Map<?, ?>) o).size() * (REFERENCE_BYTES + 32));  // Table + entries, roughly.
+            }
+        }
+        return bytes;
+    }
+
+    private void push(Object o) {
+        if (o == null || visited.containsKey(o) || stops.containsKey(o) || isShared(o)) {
+            return;
+        }
+        visited.put(o, Boolean.TRUE);
+        stack.push(o);
+    }
+
+    /** Objects shared by all the sessions, that no session retains (and references that retain nothing). */
+    private static boolean isShared(Object o) {
+        return o instanceof Class || o instanceof ClassLoader || o instanceof Thread || o instanceof Enum
+            || o instanceof java.lang.reflect.Member || o instanceof java.lang.invoke.MethodHandle || o instanceof java.lang.ref.Reference
+            || o instanceof HttpSession || o instanceof ServletContext || o instanceof ServletRequest || o instanceof ServletResponse
+            || o instanceof ServletConfig || o instanceof Servlet;
+    }
+
+
+    /** Bytes of the last walk. */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /** Amount of objects counted by the last walk. */
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    /** Amount of Vaadin Components counted by the last walk. */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+
+    private static ClassLayout layoutOf(Class<?> clazz) {
+        ClassLayout layout = LAYOUTS.get(clazz);
+        if (layout == null) {
+            layout = new ClassLayout(clazz);
+            LAYOUTS.put(clazz, layout);  // Another thread may have done the same in the mean time: no problem, both are equal.
+        }
+        return layout;
+    }
+
+    private static int sizeOf(Class<?> type) {
+        if (! type.isPrimitive()) {
+            return REFERENCE_BYTES;
+        } else if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else {
+            return 1;  // byte, boolean
+        }
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+
+    /** Shallow size and reference fields of a class (superclasses included). */
+    private static final class ClassLayout {
+        final long shallowBytes;
+        final Field[] referenceFields;
+        final boolean readable;  // false if a field cannot be made accessible (JDK internals on Java 9+).
+
+        ClassLayout(Class<?> clazz) {
+            long size = HEADER_BYTES;
+            List<Field> references = new ArrayList<Field>();
+            boolean accessible = true;
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    size += sizeOf(field.getType());
+                    if (! field.getType().isPrimitive()) {
+                        references.add(field);
+                    }
+                }
+            }
+            for (Field field : references) {
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {  // InaccessibleObjectException (Java 9+), or SecurityException.
+                    accessible = false;
+                    break;
+                }
+            }
+            this.shallowBytes = align(size);
+            this.referenceFields = references.toArray(new Field[references.size()]);
+            this.readable = accessible;
+        }
+    }
+}
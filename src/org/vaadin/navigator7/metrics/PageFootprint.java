@@ -0,0 +1,78 @@
+package org.vaadin.navigator7.metrics;
+
+import java.beans.ConstructorProperties;
+
+/** Memory retained by the instances of one page class (displayed or in a page cache), in one session or summed over sessions.
+ * See SessionFootprintAnalyzer. Exported as is through JMX (SessionFootprintMXBean.getPages()). */
+public class PageFootprint {
+
+    private final String pageClassName;
+    private int instanceCount;
+    private long totalBytes;
+    private long maxBytes;        // Of one instance.
+    private long componentCount;
+
+    @ConstructorProperties({"pageClassName", "instanceCount", "totalBytes", "maxBytes", "componentCount"})
+    public PageFootprint(String pageClassName, int instanceCount, long totalBytes, long maxBytes, long componentCount) {
+        this.pageClassName = pageClassName;
+        this.instanceCount = instanceCount;
+        this.totalBytes = totalBytes;
+        this.maxBytes = maxBytes;
+        this.componentCount = componentCount;
+    }
+
+    PageFootprint(String pageClassName) {
+        this(pageClassName, 0, 0, 0, 0);
+    }
+
+    /** Adds one page instance. */
+    void add(long bytes, int components) {
+        instanceCount++;
+        totalBytes += bytes;
+        maxBytes = Math.max(maxBytes, bytes);
+        componentCount += components;
+    }
+
+    /** Adds the instances of another footprint of the same page class (of another session). */
+    void add(PageFootprint other) {
+        instanceCount += other.instanceCount;
+        totalBytes += other.totalBytes;
+        maxBytes = Math.max(maxBytes, other.maxBytes);
+        componentCount += other.componentCount;
+    }
+
+    public String getPageClassName() {
+        return pageClassName;
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getAverageBytes() {
+        return instanceCount == 0 ? 0 : totalBytes / instanceCount;
+    }
+
+    public long getComponentCount() {
+        return componentCount;
+    }
+
+    /** Average amount of components per instance. */
+    public long getAverageComponentCount() {
+        return instanceCount == 0 ? 0 : componentCount / instanceCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PageFootprint[" + pageClassName + ", instances=" + instanceCount + ", total=" + totalBytes / 1024 + "KB, avg=" + getAverageBytes() / 1024
+            + "KB, max=" + maxBytes / 1024 + "KB, components/instance=" + getAverageComponentCount() + "]";
+    }
+}
@@ -0,0 +1,36 @@
+package org.vaadin.navigator7.metrics;
+
+import java.beans.ConstructorProperties;
+
+/** A disposed page (see PageLifecycle) still reachable from an object shared by all the sessions. See PageLeakDetector.
+ * Exported as is through JMX (PageLeakDetectorMXBean.getLeaks()). */
+public class PageLeak {
+
+    private final String pageClassName;
+    private final String heldBy;                // The shared object through which the page is reachable (as "interceptor example.MyInterceptor").
+    private final long millisSinceDisposal;
+
+    @ConstructorProperties({"pageClassName", "heldBy", "millisSinceDisposal"})
+    public PageLeak(String pageClassName, String heldBy, long millisSinceDisposal) {
+        this.pageClassName = pageClassName;
+        this.heldBy = heldBy;
+        this.millisSinceDisposal = millisSinceDisposal;
+    }
+
+    public String getPageClassName() {
+        return pageClassName;
+    }
+
+    public String getHeldBy() {
+        return heldBy;
+    }
+
+    public long getMillisSinceDisposal() {
+        return millisSinceDisposal;
+    }
+
+    @Override
+    public String toString() {
+        return "PageLeak[" + pageClassName + " held by " + heldBy + ", disposed " + millisSinceDisposal / 1000 + "s ago]";
+    }
+}
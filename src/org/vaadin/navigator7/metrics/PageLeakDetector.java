@@ -0,0 +1,210 @@
+package org.vaadin.navigator7.metrics;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.vaadin.navigator7.NavigatorConfig;
+import org.vaadin.navigator7.PageEvictionListener;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.interceptor.Interceptor;
+
+import com.vaadin.ui.Component;
+
+/** Finds the disposed pages (see PageLifecycle) that cannot be garbage collected because an object shared by all the sessions still references them.
+ * The classic case: a page (or its window) registers an inner class as listener of a global interceptor, and never removes it
+ * (see the comment in the example's MyAppLevelWindow). The page, its window and all their components then live as long as the web application.
+ *
+ * The NavigableAppLevelWindows call watch() for each disposed page: it only keeps a weak reference (the last MAX_WATCHED pages).
+ * check() walks the objects reachable from each interceptor, each PageEvictionListener, the NavigatorConfig, then the WebApplication itself
+ * (its UriAnalyzer and your own fields), and reports the watched pages it meets, with the shared object holding them.
+ * The services that reference the sessions weakly (SessionFootprintAnalyzer, PageHibernator, this detector) are not walked.
+ *
+ * The walk costs (it visits every object reachable from the interceptors): run it on demand, from the JMX operation check() or from your own admin page.
+ *
+ * Thread safe.
+ */
+public class PageLeakDetector implements PageLeakDetectorMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(PageLeakDetector.class.getName());
+
+    /** Beyond that, the eldest disposed pages are not watched anymore. */
+    private static final int MAX_WATCHED = 1024;
+
+    private final LinkedHashSet<WatchedPage> watched = new LinkedHashSet<WatchedPage>();  // Eldest first. Guarded by this.
+    private final ReferenceQueue<Component> collected = new ReferenceQueue<Component>();
+    private long disposedCount;  // Guarded by this.
+    private volatile List<PageLeak> lastLeaks = Collections.emptyList();
+    private volatile long checkMillis;
+
+    // JMX (null until registerMBean()).
+    private MBeanServer mBeanServer;
+    private ObjectName objectName;
+    private volatile WebApplication webApplication;  // Checked by the JMX operation (called by a JMX thread, where WebApplication.getCurrent() cannot tell which one).
+
+
+    /** Called when a page has been disposed (see PageLifecycle). Cheap: keeps a weak reference. */
+    public synchronized void watch(Component page) {
+        purgeCollected();
+        watched.add(new WatchedPage(page, collected));
+        disposedCount++;
+        if (watched.size() > MAX_WATCHED) {
+            Iterator<WatchedPage> eldest = watched.iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /** Forgets the pages that the garbage collector has taken (they did not leak). */
+    private void purgeCollected() {
+        for (Object reference = collected.poll(); reference != null; reference = collected.poll()) {
+            watched.remove(reference);
+        }
+    }
+
+    /** Looks for the watched pages reachable from the objects shared by the sessions of that web application. The result is kept for the JMX attributes. */
+    public List<PageLeak> check(WebApplication webApplication) {
+        long start = System.currentTimeMillis();
+        Map<Component, WatchedPage> alivePages = new IdentityHashMap<Component, WatchedPage>();  // Strong references, for the time of the check only.
+        synchronized (this) {
+            purgeCollected();
+            for (WatchedPage watchedPage : watched) {
+                Component page = watchedPage.get();
+                if (page != null) {
+                    alivePages.put(page, watchedPage);
+                }
+            }
+        }
+
+        NavigatorConfig navigatorConfig = webApplication.getNavigatorConfig();
+        Map<Object, String> roots = new LinkedHashMap<Object, String>();  // Shared object -> description.
+        for (Interceptor interceptor : navigatorConfig.getInterceptorList()) {
+            roots.put(interceptor, "interceptor " + interceptor.getClass().getName());
+        }
+        for (PageEvictionListener listener : navigatorConfig.getPageEvictionListeners()) {
+            roots.put(listener, "PageEvictionListener " + listener.getClass().getName());
+        }
+        roots.put(navigatorConfig, "NavigatorConfig");
+        roots.put(webApplication, "WebApplication " + webApplication.getClass().getName());
+        Object[] allRoots = roots.keySet().toArray();  // A walk does not cross the other roots: the leak is reported with the root really holding it
+                                                        // (else an interceptor referencing the WebApplication would reach all the others).
+
+        List<PageLeak> leaks = new ArrayList<PageLeak>();
+        for (Map.Entry<Object, String> root : roots.entrySet()) {
+            if (alivePages.isEmpty()) {
+                break;
+            }
+            IdentityHashMap<Object, Boolean> reached = new IdentityHashMap<Object, Boolean>();
+            ObjectGraphWalker walker = new ObjectGraphWalker(reached, null);
+            walker.addBoundary(this);  // Our weak references would not retain anything anyway.
+            walker.addBoundary(navigatorConfig.getSessionFootprintAnalyzer());
+            walker.addBoundary(navigatorConfig.getPageHibernator());
+            walker.walk(root.getKey(), allRoots);
+            for (Iterator<Map.Entry<Component, WatchedPage>> it = alivePages.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Component, WatchedPage> alive = it.next();
+                if (reached.containsKey(alive.getKey())) {
+                    leaks.add(new PageLeak(alive.getKey().getClass().getName(), root.getValue(), start - alive.getValue().disposalTime));
+                    it.remove();  // Reported once.
+                }
+            }
+        }
+        lastLeaks = Collections.unmodifiableList(leaks);
+        checkMillis = System.currentTimeMillis() - start;
+        return lastLeaks;
+    }
+
+    /** The leaks found by the last check (empty if none yet). */
+    public List<PageLeak> getLastLeaks() {
+        return lastLeaks;
+    }
+
+
+    ////////////////////////////////////////////////// MXBean
+
+    @Override public synchronized long getDisposedCount()  { return disposedCount; }
+    @Override public int getLeakCount()                     { return lastLeaks.size(); }
+    @Override public List<PageLeak> getLeaks()              { return lastLeaks; }
+    @Override public long getCheckMillis()                  { return checkMillis; }
+
+    @Override
+    public synchronized int getWatchedCount() {
+        purgeCollected();
+        return watched.size();
+    }
+
+    /** JMX operation: checks the web application given to registerMBean(). */
+    @Override
+    public String check() {
+        WebApplication application = webApplication;
+        if (application == null) {
+            throw new IllegalStateException("PageLeakDetector not registered (see registerMBean()), or already unregistered");
+        }
+        List<PageLeak> leaks = check(application);
+        StringBuilder result = new StringBuilder(leaks.size() + " leaked pages (" + checkMillis + "ms)");
+        for (PageLeak leak : leaks) {
+            result.append("\n  ").append(leak);
+        }
+        return result.toString();
+    }
+
+
+    ////////////////////////////////////////////////// JMX
+
+    /** Publishes this detector in the given MBeanServer, for the checks of that web application. A failure to register is logged only.
+     * @param applicationName distinguishes the web applications of the same JVM (typically the context path). */
+    public synchronized void registerMBean(MBeanServer server, String applicationName, WebApplication webApplication) {
+        unregisterMBean();
+        this.webApplication = webApplication;
+        String name = NavigationMetrics.JMX_DOMAIN + ":type=PageLeakDetector,app="
+            + ObjectName.quote((applicationName == null || applicationName.length() == 0) ? "ROOT" : applicationName);
+        try {
+            ObjectName newName = new ObjectName(name);
+            if (server.isRegistered(newName)) {  // Left by a previous deployment of the same application.
+                server.unregisterMBean(newName);
+            }
+            server.registerMBean(this, newName);
+            mBeanServer = server;
+            objectName = newName;
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Cannot register MBean " + name, e);
+        }
+    }
+
+    /** Removes the MBean (when the web application stops, else the class loader would leak). */
+    public synchronized void unregisterMBean() {
+        webApplication = null;
+        if (mBeanServer == null) {
+            return;
+        }
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Already gone: nothing to do.
+        }
+        mBeanServer = null;
+        objectName = null;
+    }
+
+
+    /** Identity equality (as any WeakReference): can be removed from the set when the queue gives it back. */
+    private static class WatchedPage extends WeakReference<Component> {
+        final long disposalTime = System.currentTimeMillis();
+
+        WatchedPage(Component page, ReferenceQueue<Component> queue) {
+            super(page, queue);
+        }
+    }
+}
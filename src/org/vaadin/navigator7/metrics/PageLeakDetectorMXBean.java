@@ -0,0 +1,17 @@
+package org.vaadin.navigator7.metrics;
+
+import java.util.List;
+
+/** JMX view of the PageLeakDetector.
+ * Registered by WebApplication.init() as "org.vaadin.navigator7:type=PageLeakDetector,app=..."
+ * The leaks are the ones found by the last check: call check() to refresh them. */
+public interface PageLeakDetectorMXBean {
+    public long getDisposedCount();
+    /** Disposed pages not garbage collected yet (among the last ones watched). */
+    public int getWatchedCount();
+    public int getLeakCount();
+    public List<PageLeak> getLeaks();
+    public long getCheckMillis();
+    /** Looks for the disposed pages reachable from the shared objects now, and returns the leaks as text. */
+    public String check();
+}
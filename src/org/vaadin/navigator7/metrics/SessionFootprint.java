@@ -0,0 +1,109 @@
+package org.vaadin.navigator7.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Estimated memory of one session (NavigableApplication), per window and per page class. Produced by SessionFootprintAnalyzer.analyze(). */
+public class SessionFootprint {
+
+    private final List<WindowFootprint> windows = new ArrayList<WindowFootprint>();
+    private final Map<String, PageFootprint> pages = new LinkedHashMap<String, PageFootprint>();  // Key = page class name.
+    private long otherBytes;  // Reachable from the Application, but not from its windows (session level data).
+
+
+    void addWindow(WindowFootprint window) {
+        windows.add(window);
+    }
+
+    void addPage(Class<?> pageClass, long bytes, int components) {
+        PageFootprint page = pages.get(pageClass.getName());
+        if (page == null) {
+            page = new PageFootprint(pageClass.getName());
+            pages.put(pageClass.getName(), page);
+        }
+        page.add(bytes, components);
+    }
+
+    void setOtherBytes(long otherBytes) {
+        this.otherBytes = otherBytes;
+    }
+
+
+    public List<WindowFootprint> getWindows() {
+        return Collections.unmodifiableList(windows);
+    }
+
+    public Collection<PageFootprint> getPages() {
+        return Collections.unmodifiableCollection(pages.values());
+    }
+
+    /** Bytes of the session data that is not in a window (the Application fields, as the user, ...). */
+    public long getOtherBytes() {
+        return otherBytes;
+    }
+
+    /** Windows (pages included) plus other bytes. */
+    public long getTotalBytes() {
+        long total = otherBytes;
+        for (WindowFootprint window : windows) {
+            total += window.getTotalBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SessionFootprint[total=").append(getTotalBytes() / 1024).append("KB, other=").append(otherBytes / 1024).append("KB");
+        for (WindowFootprint window : windows) {
+            sb.append("\n  ").append(window);
+        }
+        for (PageFootprint page : pages.values()) {
+            sb.append("\n  ").append(page);
+        }
+        return sb.append("]").toString();
+    }
+
+
+    /** One NavigableAppLevelWindow: its template (header, menu, footer...) and its pages (the displayed one and the cached ones). */
+    public static class WindowFootprint {
+        private final String name;
+        private final String pageClassName;  // Displayed page. Null if none.
+        private final long pageBytes;
+        private final long cachedPagesBytes;
+        private final int cachedPageCount;
+        private final long templateBytes;
+        private final int componentCount;
+
+        WindowFootprint(String name, String pageClassName, long pageBytes, long cachedPagesBytes, int cachedPageCount, long templateBytes, int componentCount) {
+            this.name = name;
+            this.pageClassName = pageClassName;
+            this.pageBytes = pageBytes;
+            this.cachedPagesBytes = cachedPagesBytes;
+            this.cachedPageCount = cachedPageCount;
+            this.templateBytes = templateBytes;
+            this.componentCount = componentCount;
+        }
+
+        public String getName()             { return name; }
+        public String getPageClassName()    { return pageClassName; }
+        public long getPageBytes()          { return pageBytes; }
+        public long getCachedPagesBytes()   { return cachedPagesBytes; }
+        public int getCachedPageCount()     { return cachedPageCount; }
+        public long getTemplateBytes()      { return templateBytes; }
+        public int getComponentCount()      { return componentCount; }
+
+        public long getTotalBytes() {
+            return pageBytes + cachedPagesBytes + templateBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Window[" + name + ", total=" + getTotalBytes() / 1024 + "KB, page=" + pageClassName + " " + pageBytes / 1024 + "KB, cached="
+                + cachedPageCount + " " + cachedPagesBytes / 1024 + "KB, template=" + templateBytes / 1024 + "KB, components=" + componentCount + "]";
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.vaadin.navigator7.metrics;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.vaadin.navigator7.NavigableApplication;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.window.NavigableAppLevelWindow;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Window;
+
+/** Finds the pages that make the sessions heavy: estimates the memory retained by the windows and the pages of the live sessions (see ObjectGraphWalker).
+ * One instance per web application (see NavigatorConfig.getSessionFootprintAnalyzer()). The sessions register themselves (NavigableApplication.init()),
+ * and are weakly referenced: an expired session disappears even if close() has not been called.
+ * 
+ * In each session, each object is counted once, in that order:
+ * 1. the pages of each window: the displayed page and the pages of its PageCache (per page class);
+ * 2. the rest of each window (its template: header, menu, footer...);
+ * 3. the rest of the Application (session level data, as the current user).
+ * The WebApplication, its NavigatorConfig and its UriAnalyzer are shared by the sessions and never counted.
+ * Nor is the ApplicationContext of the session (Vaadin's WebApplicationContext): through its HttpSession, it leads to the container and to the other sessions.
+ * 
+ * The analysis walks every object of every session: it costs (a few ms per session), and locks each session (synchronized on the Application,
+ * as Vaadin does for a request) while it is walked. Run it on demand: from the JMX operation analyze(), or from your own admin page.
+ * The attributes of the MXBean ("org.vaadin.navigator7:type=SessionFootprint,app=...") are the ones of the last analysis.
+ * 
+ * Thread safe.
+ */
+public class SessionFootprintAnalyzer implements SessionFootprintMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionFootprintAnalyzer.class.getName());
+
+    private final Map<NavigableApplication, Boolean> sessions = Collections.synchronizedMap(new WeakHashMap<NavigableApplication, Boolean>());
+    private volatile Instrumentation instrumentation;
+    private volatile FootprintReport lastReport = new FootprintReport(Collections.<SessionFootprint>emptyList(), 0);
+
+    // JMX (null until registerMBean()).
+    private MBeanServer mBeanServer;
+    private ObjectName objectName;
+
+
+    /** Called by NavigableApplication.init(). */
+    public void track(NavigableApplication application) {
+        sessions.put(application, Boolean.TRUE);
+    }
+
+    /** Called by NavigableApplication.close(). */
+    public void untrack(NavigableApplication application) {
+        sessions.remove(application);
+    }
+
+    /** Gives exact shallow sizes (from a java agent's premain()), instead of estimating them from the fields. Null to estimate again. */
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+
+    /** Estimates the memory of one session. Locks the application during the walk. */
+    public SessionFootprint analyze(NavigableApplication application) {
+        synchronized (application) {  // As the Vaadin terminal does: no request modifies the components during the walk.
+            SessionFootprint result = new SessionFootprint();
+            ObjectGraphWalker walker = new ObjectGraphWalker(new IdentityHashMap<Object, Boolean>(), instrumentation);
+            WebApplication webApplication = application.getWebApplication();
+            if (webApplication != null) {
+                walker.addBoundary(webApplication);
+                walker.addBoundary(webApplication.getNavigatorConfig());
+                walker.addBoundary(webApplication.getUriAnalyzer());
+            }
+            walker.addBoundary(application.getContext());
+
+            List<NavigableAppLevelWindow> windows = new ArrayList<NavigableAppLevelWindow>();
+            for (Window window : application.getWindows()) {
+                if (window instanceof NavigableAppLevelWindow) {
+                    windows.add((NavigableAppLevelWindow) window);
+                }
+            }
+
+            // Walks may not go from a window to the others (through the Application).
+            Object[] allWindowsStops = new Object[windows.size() + 2];
+            allWindowsStops[0] = application;
+            for (int i = 0; i < windows.size(); i++) {
+                allWindowsStops[i + 1] = windows.get(i);
+            }
+
+            // 1. Pages.
+            long[] pageBytes = new long[windows.size()];
+            long[] cachedBytes = new long[windows.size()];
+            int[] componentCounts = new int[windows.size()];
+            for (int i = 0; i < windows.size(); i++) {
+                NavigableAppLevelWindow window = windows.get(i);
+                Component page = window.getPage();
+                if (page != null) {
+                    allWindowsStops[allWindowsStops.length - 1] = page.getParent();  // The page container belongs to the template.
+                    pageBytes[i] = walker.walk(page, allWindowsStops);
+                    componentCounts[i] += walker.getComponentCount();
+                    result.addPage(page.getClass(), pageBytes[i], walker.getComponentCount());
+                }
+                allWindowsStops[allWindowsStops.length - 1] = null;
+                for (Component cachedPage : window.getCachedPages()) {
+                    long bytes = walker.walk(cachedPage, allWindowsStops);
+                    cachedBytes[i] += bytes;
+                    componentCounts[i] += walker.getComponentCount();
+                    result.addPage(cachedPage.getClass(), bytes, walker.getComponentCount());
+                }
+            }
+
+            // 2. Templates.
+            for (int i = 0; i < windows.size(); i++) {
+                NavigableAppLevelWindow window = windows.get(i);
+                long templateBytes = walker.walk(window, allWindowsStops);
+                componentCounts[i] += walker.getComponentCount();
+                result.addWindow(new SessionFootprint.WindowFootprint(window.getName(), window.getPage() == null ? null : window.getPage().getClass().getName(),
+                        pageBytes[i], cachedBytes[i], window.getCachedPages().size(), templateBytes, componentCounts[i]));
+            }
+
+            // 3. Session level data.
+            result.setOtherBytes(walker.walk(application));
+            return result;
+        }
+    }
+
+    /** Analyzes all the live sessions (one after the other) and keeps the result for the JMX attributes. */
+    public FootprintReport analyzeAll() {
+        List<NavigableApplication> applications;
+        synchronized (sessions) {
+            applications = new ArrayList<NavigableApplication>(sessions.keySet());
+        }
+        long start = System.currentTimeMillis();
+        List<SessionFootprint> footprints = new ArrayList<SessionFootprint>(applications.size());
+        for (NavigableApplication application : applications) {
+            if (application.isRunning()) {
+                footprints.add(analyze(application));
+            }
+        }
+        FootprintReport report = new FootprintReport(footprints, System.currentTimeMillis() - start);
+        lastReport = report;
+        return report;
+    }
+
+    /** The result of the last analyzeAll() (empty if none yet). */
+    public FootprintReport getLastReport() {
+        return lastReport;
+    }
+
+
+    ////////////////////////////////////////////////// MXBean
+
+    @Override public int getTrackedSessionCount()       { return sessions.size(); }
+    @Override public int getSessionCount()              { return lastReport.getSessionCount(); }
+    @Override public int getWindowCount()               { return lastReport.getWindowCount(); }
+    @Override public long getTotalBytes()               { return lastReport.getTotalBytes(); }
+    @Override public long getAverageSessionBytes()      { return lastReport.getAverageSessionBytes(); }
+    @Override public long getMaxSessionBytes()          { return lastReport.getMaxSessionBytes(); }
+    @Override public long getSessionsPerGb()            { return lastReport.getSessionsPerGb(); }
+    @Override public long getTemplateBytes()            { return lastReport.getTemplateBytes(); }
+    @Override public List<PageFootprint> getPages()     { return lastReport.getPages(); }
+    @Override public long getAnalysisMillis()           { return lastReport.getAnalysisMillis(); }
+    @Override public long getTimestamp()                { return lastReport.getTimestamp(); }
+
+    @Override
+    public String analyze() {
+        return analyzeAll().toString();
+    }
+
+
+    ////////////////////////////////////////////////// JMX
+
+    /** Publishes this analyzer in the given MBeanServer.
+     * A failure is logged only: the analysis does not need JMX.
+     * @param applicationName distinguishes the web applications of the same JVM (typically the context path). */
+    public synchronized void registerMBean(MBeanServer server, String applicationName) {
+        unregisterMBean();
+        String name = NavigationMetrics.JMX_DOMAIN + ":type=SessionFootprint,app="
+            + ObjectName.quote((applicationName == null || applicationName.length() == 0) ? "ROOT" : applicationName);
+        try {
+            ObjectName newName = new ObjectName(name);
+            if (server.isRegistered(newName)) {  // Left by a previous deployment of the same application.
+                server.unregisterMBean(newName);
+            }
+            server.registerMBean(this, newName);
+            mBeanServer = server;
+            objectName = newName;
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Cannot register MBean " + name, e);
+        }
+    }
+
+    /** Removes the MBean (when the web application stops, else the class loader would leak). */
+    public synchronized void unregisterMBean() {
+        if (mBeanServer == null) {
+            return;
+        }
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Already gone: nothing to do.
+        }
+        mBeanServer = null;
+        objectName = null;
+    }
+}
@@ -0,0 +1,23 @@
+package org.vaadin.navigator7.metrics;
+
+import java.util.List;
+
+/** JMX view of the last FootprintReport of the live sessions.
+ * Registered by SessionFootprintAnalyzer as "org.vaadin.navigator7:type=SessionFootprint,app=..."
+ * The attributes are the ones of the last analysis: call analyze() to refresh them (it walks all the sessions: not for every minute). */
+public interface SessionFootprintMXBean {
+    public int getTrackedSessionCount();
+    public int getSessionCount();
+    public int getWindowCount();
+    public long getTotalBytes();
+    public long getAverageSessionBytes();
+    public long getMaxSessionBytes();
+    public long getSessionsPerGb();
+    public long getTemplateBytes();
+    /** Heaviest first. */
+    public List<PageFootprint> getPages();
+    public long getAnalysisMillis();
+    public long getTimestamp();
+    /** Analyzes the live sessions now, and returns the report as text. */
+    public String analyze();
+}
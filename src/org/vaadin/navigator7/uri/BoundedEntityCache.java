@@ -0,0 +1,182 @@
+package org.vaadin.navigator7.uri;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** EntityCache with a maximum size and a time to live, for the entities of one class.
+ *
+ * Pks that are canonical long numbers (as "34", not "034") are kept in a primitive long keyed table,
+ * the others (as "black-belt") in an LRU LinkedHashMap. The size bound applies to both together.
+ * Misses are cached too (negative caching), with their own (usually shorter) time to live: bots probing random ids
+ * don't reach the DB more than once per id and per negativeTtl.
+ *
+ * Thread safe (synchronized: the critical sections are short, the DB access is done outside).
+ */
+public class BoundedEntityCache implements EntityCache {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxSize;
+
+    private final LongKeyedTable longEntries;
+    private final LinkedHashMap<String, StringEntry> stringEntries = new LinkedHashMap<String, StringEntry>(16, 0.75f, true);  // Access order => LRU.
+
+    private long hitCount;
+    private long negativeHitCount;
+    private long missCount;
+    private long evictionCount;
+
+
+    /** Misses are cached as long as the entities. */
+    public BoundedEntityCache(long ttl, TimeUnit unit, int maxSize) {
+        this(ttl, ttl, unit, maxSize);
+    }
+
+    /** @param negativeTtl time to live of the misses (pks not found in the DB). 0 to disable negative caching. */
+    public BoundedEntityCache(long ttl, long negativeTtl, TimeUnit unit, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize should be positive: " + maxSize);
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+        this.maxSize = maxSize;
+        this.longEntries = new LongKeyedTable(maxSize);
+    }
+
+
+    @Override
+    public synchronized Object get(String pk) {
+        long now = System.nanoTime();
+        Object result;
+        if (isCanonicalLong(pk)) {
+            result = longEntries.get(ParsedFragment.parseLong(pk, 0, pk.length()), now);
+        } else {
+            StringEntry entry = stringEntries.get(pk);
+            if (entry != null && entry.expiry - now <= 0) {  // Expired
+                stringEntries.remove(pk);
+                entry = null;
+            }
+            result = entry == null ? null : entry.value;
+        }
+
+        if (result == null) {
+            missCount++;
+        } else {
+            hitCount++;
+            if (result == NOT_FOUND) {
+                negativeHitCount++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void put(String pk, Object entity) {
+        long ttl = entity == null ? negativeTtlNanos : ttlNanos;
+        if (ttl <= 0) {
+            return;  // Negative caching disabled.
+        }
+        Object value = entity == null ? NOT_FOUND : entity;
+        long expiry = System.nanoTime() + ttl;
+        if (isCanonicalLong(pk)) {
+            long key = ParsedFragment.parseLong(pk, 0, pk.length());
+            if (!longEntries.containsKey(key) && longEntries.size() + stringEntries.size() >= maxSize && !stringEntries.isEmpty()) {
+                evictOneString();  // Keep the total under maxSize (a replacement does not change it).
+            }
+            if (longEntries.put(key, value, expiry)) {
+                evictionCount++;
+            }
+        } else {
+            if (!stringEntries.containsKey(pk) && longEntries.size() + stringEntries.size() >= maxSize) {
+                if (stringEntries.isEmpty()) {
+                    return;  // Full of long pks. Rare case (mixed pk kinds for one class): we don't cache.
+                }
+                evictOneString();
+            }
+            stringEntries.put(pk, new StringEntry(value, expiry));
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String pk) {
+        if (isCanonicalLong(pk)) {
+            longEntries.remove(ParsedFragment.parseLong(pk, 0, pk.length()));
+        } else {
+            stringEntries.remove(pk);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        longEntries.clear();
+        stringEntries.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return longEntries.size() + stringEntries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public synchronized long getNegativeHitCount() {
+        return negativeHitCount;
+    }
+
+    @Override
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BoundedEntityCache[size=" + size() + "/" + maxSize + ", hits=" + hitCount + " (negative=" + negativeHitCount
+                + "), misses=" + missCount + ", evictions=" + evictionCount + "]";
+    }
+
+
+    private void evictOneString() {
+        Map.Entry<String, StringEntry> eldest = stringEntries.entrySet().iterator().next();
+        stringEntries.remove(eldest.getKey());
+        evictionCount++;
+    }
+
+    /** true for "34" or "-5", false for "034", "+34", "-0" or "abc" (which may well be different pks for findEntity). */
+    static boolean isCanonicalLong(String pk) {
+        int length = pk.length();
+        if (!ParsedFragment.isLong(pk, 0, length)) {
+            return false;
+        }
+        char first = pk.charAt(0);
+        if (first == '+') {
+            return false;
+        }
+        int firstDigit = first == '-' ? 1 : 0;
+        return pk.charAt(firstDigit) != '0' || (length == 1);  // "0" is canonical, "00" and "-0" are not.
+    }
+
+
+    private static final class StringEntry {
+        final Object value;
+        final long expiry;
+
+        StringEntry(Object value, long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+}
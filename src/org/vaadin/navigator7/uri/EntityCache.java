@@ -0,0 +1,47 @@
+package org.vaadin.navigator7.uri;
+
+/** Cache of the entities of one entity class, in front of EntityUriAnalyzer.findEntity()/findEntities().
+ * Keys are the pks as found in the URIs (the pk given to findEntity()).
+ *
+ * Enable it per entity class from your EntityUriAnalyzer descendant (see EntityUriAnalyzer.enableCache()).
+ * BoundedEntityCache is the implementation provided. Implement this interface if you prefer to delegate to your own cache (EhCache, ...).
+ *
+ * The cache is shared by all the sessions: implementations must be thread safe.
+ * Keep in mind that the same entity instance is given to all the sessions (detached from any JPA EntityManager).
+ */
+public interface EntityCache {
+
+    /** Returned by get() for a pk that is known not to exist in the DB (negative caching). */
+    public static final Object NOT_FOUND = new Object() {
+        @Override
+        public String toString() {
+            return "EntityCache.NOT_FOUND";
+        }
+    };
+
+    /** Returns the cached entity, NOT_FOUND if the pk is known as missing, or null if the cache knows nothing (valid) about that pk. */
+    public Object get(String pk);
+
+    /** @param entity null if findEntity() found nothing for that pk. */
+    public void put(String pk, Object entity);
+
+    /** Forgets that pk (call it when the entity is changed or removed). */
+    public void invalidate(String pk);
+
+    /** Forgets everything. */
+    public void clear();
+
+    /** Amount of entries (including the NOT_FOUND ones). */
+    public int size();
+
+    public long getHitCount();
+
+    /** Hits that returned NOT_FOUND. Included in getHitCount(). */
+    public long getNegativeHitCount();
+
+    public long getMissCount();
+
+    /** Entries removed because the cache was full (expired entries are not counted). */
+    public long getEvictionCount();
+
+}
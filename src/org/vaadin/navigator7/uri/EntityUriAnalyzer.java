@@ -1,165 +1,546 @@
-package org.vaadin.navigator7.uri;
-
-
-
-
-
-
-/** convenient methods to get (i.e. JPA) Entities from values (primary keys) in the URIs.
- * Pages can directly turn URI parameters into entities loaded from your DB. 
- * 
- * This class suppose that your primary keys are Long (or long).
- * It's probably the case if you use surrogate keys with JPA.
- * Else, you may have to write more specific methods in your descendant UriAnalyzer class (probably inspired from the methods here).
- * 
- * @author John Rizzo - BlackBeltFactory.com
- *
- * @param <E> A common ancestor class for all your entities. Could be Identifiable or BaseEntity if you have such a class. At worst, it is Object. Define this parameter in the class definition of your descendant of EntityUriAnalyzer.
- */
-public abstract class EntityUriAnalyzer<E> extends ParamUriAnalyzer {
-
-    final public static String MAINID = "id";
-
-    /** Override this method to define how to access your DB.
-     * It's probably as simple as: return entityManager.find(entityClass, pk);
-     * What depends much on your application is how you get a valid instance from your entityManager.
-     * If you use JPA static utility methods, it's easy.
-     * If you use Spring, you have 2 options:
-     * - Make your descendent of EntityUriAnalyzer a Spring bean (with the @Component annotation)
-     *   and define a @PersistenceContext EntityManager em attribute (or an @Autowired generic dao). 
-     *   To make it work, you probably need to activate compile time weaving on your class, and annotate it @Configurable.  
-     * - Use the WebApplicationContext.getBean() method to get a reference to your generic dao.
-     *   The problem is to get this Spring WebApplicationContext.
-     *   It's easy if you have the ServletContext: WebApplicationContextUtils.getRequiredWebApplicationContext(servletContext)
-     *   but then the problem is to have the ServletContext.
-     *   A way to have it is ... to put it in a ThreadLocal from a Filter or from a Vaadin TransactionListener.
-     *   
-     * Note that this EntityUriAnalyzer is not bound to JPA/Hibernate. It could work with JDBC or anything else.
-     * ... as long as you have a generic way to return an entity object from it's id and class. 
-     * 
-     * @param pk Primary key of the entity. Convert this string in whatever JPA needs (as a Long) in the overriding method. It should be the same as the value returned by your getEntityFragmentValue() method returns. 
-     * @return returns null if no data found for that pk.
-     */
-    public abstract E findEntity(Class<? extends E> entityClass, String pk);
-
-
-    /** Override this method to tell how to convert an entity into a String that we can put in a URI.
-     * You probably return the primary key of your entity (the field with @Id if you use JPA/Hibernate)
-     * 
-     * Your implementation could be simple as:
-     * return entity.getId();
-     * 
-     * In this example, your base entity type <E> has a getId() method.
-     * 
-     * @param entity
-     * @return return what you expect to get as pk parameter in your findEntity method.
-     */
-    public abstract String getEntityFragmentValue(E entity);
-
-    
-    /** Don't use this. It's an ugly trick for framework's internal needs */
-    public String getObjectEntityFragmentValue(Object o) {
-        return getEntityFragmentValue((E)o);
-    }
-
-    
-    public E getEntity(String params, String key, Class<? extends E> entityClass) {
-        E entity = null;
-        String id = getString(params, key); 
-        if (id != null) { 
-            entity = findEntity(entityClass, id);
-        }
-        return entity;
-    }
-
-    
-    
-    public E getMandatoryEntity(String params, String key, Class<? extends E> entityClass) {
-        if ( null != getMandatoryString(params, key)) {  // Notification displayed if missing parameter. 
-            return getEntity(params, key, entityClass);  // Maybe null, but a notification will have been displayed in case of something is strange.
-        } else { // We have no id.
-            return null;
-        } 
-    }
-
-    
-    public E getEntity(String params, int position, Class<? extends E> entityClass) {
-        E entity = null;
-        String id = getString(params, position); 
-        if (id != null) { 
-            entity = findEntity(entityClass, id);
-        }
-        return entity;
-    }
-
-    public E getMandatoryEntity(String params, int position, Class<? extends E> entityClass) {
-        if ( null != getMandatoryString(params, position)) {  // Notification displayed if missing parameter. 
-            return getEntity(params, position, entityClass);  // Maybe null, but a notification will have been displayed in case of something is strange.
-        } else { // We have no id.
-            return null;
-        } 
-    }
-
-    
-    
-    /** Returns the (non fully qualified) class name.
-     * If entityClass = Auction.class, then the expected parameter name is "Auction".
-     * i.e. "Foo=123/Auction=abc".
-     * 
-     * Override this method if you'd like another names from classes. For example, you may prefer "AuctionId" (simple class name + "Id").
-     * 
-     * @param entityClass
-     * @return
-     */
-    protected String getEnityParamName(Class<? extends E> entityClass) {
-        return entityClass.getSimpleName();
-    }
-
-    /** Override me to something like:
-     *     @Override
-    public Object convertSpecialType(Class<?> type, String valueStr, String fragment) {
-        Object result = super.convertSpecialType(type, valueStr, fragment);
-        if (result != null) {
-            return result;
-        }
-        
-        // Convertion of Language enum.
-        if (Language.class.isAssignableFrom(type)) {
-            Language language;
-            try{
-                language = Language.valueOf(valueStr);
-            } catch (Exception e) {
-                reportProblemWithFragment("Provided language code "+valueStr+" is no valid language code", fragment);
-                return null;
-            }
-            return language;
-        }
-        
-        // Cannot convert...
-        return null;
-    }
-
-     */
-    @Override
-    public Object convertSpecialType(Class<?> type, String valueStr, String fragment) {
-
-        // Check if type is a subtype of E
-        Class<E> eeeClass = null;
-        try {
-            eeeClass = (Class<E>)type;
-        } catch (Exception e) {
-            // It's not an entity eeeClass is still null;
-            // We do nothing, it's noraml.
-        }
-        
-        // Try to convert with findEntity.
-        Object result = null;
-        if (eeeClass != null) {
-            result = findEntity(eeeClass, valueStr);
-        }
-        
-        // Maybe result is still null => descendent may try further to convert.
-        return result;
-    }
-    
-}
+package org.vaadin.navigator7.uri;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+
+/** convenient methods to get (i.e. JPA) Entities from values (primary keys) in the URIs.
+ * Pages can directly turn URI parameters into entities loaded from your DB. 
+ * 
+ * This class suppose that your primary keys are Long (or long).
+ * It's probably the case if you use surrogate keys with JPA.
+ * Else, you may have to write more specific methods in your descendant UriAnalyzer class (probably inspired from the methods here).
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ *
+ * @param <E> A common ancestor class for all your entities. Could be Identifiable or BaseEntity if you have such a class. At worst, it is Object. Define this parameter in the class definition of your descendant of EntityUriAnalyzer.
+ */
+public abstract class EntityUriAnalyzer<E> extends ParamUriAnalyzer {
+
+    final public static String MAINID = "id";
+
+    /** Class given as <E> by the descendant (i.e. BaseEntity for MyUriAnalyzer extends EntityUriAnalyzer<BaseEntity>). Object if not found. */
+    private final Class<?> entityBaseClass = findEntityBaseClass();
+
+    /** Caches of the entity classes for which the descendant has called enableCache(). Exact classes (no sub-class lookup). */
+    private final Map<Class<?>, EntityCache> entityCaches = new ConcurrentHashMap<Class<?>, EntityCache>();
+
+    /** Loads in progress, for the entity classes for which the descendant has called enableSingleFlight() (with their max wait time in nanoseconds). */
+    private final SingleFlight<EntityKey, Object> singleFlight = new SingleFlight<EntityKey, Object>();
+    private final Map<Class<?>, Long> singleFlightMaxWaits = new ConcurrentHashMap<Class<?>, Long>();
+
+    /** Override this method to define how to access your DB.
+     * It's probably as simple as: return entityManager.find(entityClass, pk);
+     * What depends much on your application is how you get a valid instance from your entityManager.
+     * If you use JPA static utility methods, it's easy.
+     * If you use Spring, you have 2 options:
+     * - Make your descendent of EntityUriAnalyzer a Spring bean (with the @Component annotation)
+     *   and define a @PersistenceContext EntityManager em attribute (or an @Autowired generic dao). 
+     *   To make it work, you probably need to activate compile time weaving on your class, and annotate it @Configurable.  
+     * - Use the WebApplicationContext.getBean() method to get a reference to your generic dao.
+     *   The problem is to get this Spring WebApplicationContext.
+     *   It's easy if you have the ServletContext: WebApplicationContextUtils.getRequiredWebApplicationContext(servletContext)
+     *   but then the problem is to have the ServletContext.
+     *   A way to have it is ... to put it in a ThreadLocal from a Filter or from a Vaadin TransactionListener.
+     *   
+     * Note that this EntityUriAnalyzer is not bound to JPA/Hibernate. It could work with JDBC or anything else.
+     * ... as long as you have a generic way to return an entity object from it's id and class. 
+     * 
+     * @param pk Primary key of the entity. Convert this string in whatever JPA needs (as a Long) in the overriding method. It should be the same as the value returned by your getEntityFragmentValue() method returns. 
+     * @return returns null if no data found for that pk.
+     */
+    public abstract E findEntity(Class<? extends E> entityClass, String pk);
+
+
+    /** Batch version of findEntity(), called by ParamInjector with all the entity keys of a navigation
+     * (i.e. a page with a Product and a Company @Param field), before it injects any field.
+     * Override it to load all the keys of an entity class in one query, as: 
+     *    select p from Product p where p.id in (:keys)
+     * 
+     * This default implementation calls findEntity() for each key.
+     * 
+     * @param keysByClass pks (as given to findEntity) to load, per entity class. 
+     * @return the found entities, per class then per pk. A pk not found is simply absent from the result.
+     */
+    public Map<Class<? extends E>, Map<String, E>> findEntities(Map<Class<? extends E>, Collection<String>> keysByClass) {
+        Map<Class<? extends E>, Map<String, E>> result = new HashMap<Class<? extends E>, Map<String, E>>();
+        for (Map.Entry<Class<? extends E>, Collection<String>> entry : keysByClass.entrySet()) {
+            Map<String, E> entities = new LinkedHashMap<String, E>();
+            for (String pk : entry.getValue()) {
+                E entity = findEntity(entry.getKey(), pk);
+                if (entity != null) {
+                    entities.put(pk, entity);
+                }
+            }
+            result.put(entry.getKey(), entities);
+        }
+        return result;
+    }
+
+    
+    //////////////////////////////// Entity cache and single flight ////////////////////////////////
+
+    /** Returns the entity, from the cache if enabled for that class (see enableCache()), else from findEntity()
+     * (sharing the load of concurrent threads asking for the same entity if enableSingleFlight() has been called for that class).
+     * This is what Navigator7 calls (getEntity(), @Param fields,...). */
+    public E loadEntity(Class<? extends E> entityClass, String pk) {
+        EntityCache cache = entityCaches.get(entityClass);
+        if (cache != null) {
+            Object cached = cache.get(pk);
+            if (cached == EntityCache.NOT_FOUND) {
+                return null;
+            } else if (cached != null) {
+                return entityClass.cast(cached);
+            }
+        }
+
+        Long maxWaitNanos = singleFlightMaxWaits.get(entityClass);
+        if (maxWaitNanos == null) {
+            return findAndCacheEntity(entityClass, pk, cache);
+        }
+        SingleFlight<EntityKey, Object>.Flight flight = singleFlight.join(new EntityKey(entityClass, pk));
+        if (flight.isLeader()) {
+            E entity;
+            try {
+                entity = findAndCacheEntity(entityClass, pk, cache);  // Cached before the flight ends => the next threads will find it in the cache.
+            } catch (RuntimeException e) {
+                flight.fail(e);
+                throw e;
+            } catch (Error e) {
+                flight.fail(e);
+                throw e;
+            }
+            flight.complete(entity);
+            return entity;
+        } else if (flight.await(maxWaitNanos)) {
+            return entityClass.cast(flight.getValue());
+        } else {  // The other thread takes too much time. We don't block the session longer: we load it ourselves.
+            return findAndCacheEntity(entityClass, pk, cache);
+        }
+    }
+
+    private E findAndCacheEntity(Class<? extends E> entityClass, String pk, EntityCache cache) {
+        E entity = findEntity(entityClass, pk);
+        if (cache != null) {
+            cache.put(pk, entity);  // Null => negative caching.
+        }
+        return entity;
+    }
+
+    
+    /** Batch version of loadEntity(): the entities found in the caches, and the ones being loaded by another thread, are not given to findEntities(). */
+    public Map<Class<? extends E>, Map<String, E>> loadEntities(Map<Class<? extends E>, Collection<String>> keysByClass) {
+        if (entityCaches.isEmpty() && singleFlightMaxWaits.isEmpty()) {
+            return findEntities(keysByClass);
+        }
+        Map<Class<? extends E>, Map<String, E>> result = new HashMap<Class<? extends E>, Map<String, E>>();
+        Map<Class<? extends E>, Collection<String>> keysToLoad = new LinkedHashMap<Class<? extends E>, Collection<String>>();
+        List<SingleFlight<EntityKey, Object>.Flight> ledFlights = new ArrayList<SingleFlight<EntityKey, Object>.Flight>();
+        List<SingleFlight<EntityKey, Object>.Flight> followedFlights = new ArrayList<SingleFlight<EntityKey, Object>.Flight>();
+        List<Class<? extends E>> followedClasses = new ArrayList<Class<? extends E>>();
+
+        //// 1. Cache, then single flight.
+        for (Map.Entry<Class<? extends E>, Collection<String>> entry : keysByClass.entrySet()) {
+            Class<? extends E> entityClass = entry.getKey();
+            EntityCache cache = entityCaches.get(entityClass);
+            boolean singleFlightEnabled = singleFlightMaxWaits.containsKey(entityClass);
+            Map<String, E> entities = new LinkedHashMap<String, E>();
+            result.put(entityClass, entities);
+            for (String pk : entry.getValue()) {
+                if (cache != null) {
+                    Object cached = cache.get(pk);
+                    if (cached == EntityCache.NOT_FOUND) {
+                        continue;
+                    } else if (cached != null) {
+                        entities.put(pk, entityClass.cast(cached));
+                        continue;
+                    }
+                }
+                if (singleFlightEnabled) {
+                    SingleFlight<EntityKey, Object>.Flight flight = singleFlight.join(new EntityKey(entityClass, pk));
+                    if (!flight.isLeader()) {  // Another thread is loading it.
+                        followedFlights.add(flight);
+                        followedClasses.add(entityClass);
+                        continue;
+                    }
+                    ledFlights.add(flight);
+                }
+                Collection<String> keys = keysToLoad.get(entityClass);
+                if (keys == null) {
+                    keys = new ArrayList<String>();
+                    keysToLoad.put(entityClass, keys);
+                }
+                keys.add(pk);
+            }
+        }
+
+        //// 2. Load what remains, in one call.
+        if (!keysToLoad.isEmpty()) {
+            int completed = 0;  // The led flights before that index are completed. The others must be failed, else their followers would wait until maxWait.
+            try {
+                Map<Class<? extends E>, Map<String, E>> found = findEntities(keysToLoad);
+                for (Map.Entry<Class<? extends E>, Collection<String>> entry : keysToLoad.entrySet()) {
+                    Map<String, E> foundOfClass = found == null ? null : found.get(entry.getKey());
+                    Map<String, E> entities = result.get(entry.getKey());
+                    EntityCache cache = entityCaches.get(entry.getKey());
+                    for (String pk : entry.getValue()) {
+                        E entity = foundOfClass == null ? null : foundOfClass.get(pk);
+                        if (entity != null) {
+                            entities.put(pk, entity);
+                        }
+                        if (cache != null) {
+                            cache.put(pk, entity);  // Null => negative caching.
+                        }
+                    }
+                }
+                for (; completed < ledFlights.size(); completed++) {  // After the cache puts.
+                    SingleFlight<EntityKey, Object>.Flight flight = ledFlights.get(completed);
+                    EntityKey key = flight.getKey();
+                    flight.complete(result.get(key.entityClass).get(key.pk));
+                }
+            } catch (RuntimeException e) {
+                failFlights(ledFlights.subList(completed, ledFlights.size()), e);
+                throw e;
+            } catch (Error e) {
+                failFlights(ledFlights.subList(completed, ledFlights.size()), e);
+                throw e;
+            }
+        }
+
+        //// 3. Results of the other threads.
+        for (int i = 0; i < followedFlights.size(); i++) {
+            SingleFlight<EntityKey, Object>.Flight flight = followedFlights.get(i);
+            Class<? extends E> entityClass = followedClasses.get(i);
+            String pk = flight.getKey().pk;
+            E entity;
+            if (flight.await(singleFlightMaxWaits.get(entityClass))) {
+                entity = entityClass.cast(flight.getValue());
+            } else {  // Too long: we load it ourselves.
+                entity = findAndCacheEntity(entityClass, pk, entityCaches.get(entityClass));
+            }
+            if (entity != null) {
+                result.get(entityClass).put(pk, entity);
+            }
+        }
+        return result;
+    }
+
+    /** Puts in the caches the entities not cached yet, for the upcoming navigations (see Prefetcher). Nothing is returned.
+     * Only the entity classes having a cache are loaded. The keys being loaded by another thread are skipped.
+     * Does not join the single flights: a background thread must never be the leader that request threads wait for
+     * (it has no request bound resources, and its failure would be thrown into their navigations).
+     * @return the amount of pks given to findEntities(). */
+    public int preloadEntities(Map<Class<? extends E>, Collection<String>> keysByClass) {
+        Map<Class<? extends E>, Collection<String>> keysToLoad = new LinkedHashMap<Class<? extends E>, Collection<String>>();
+        int count = 0;
+        for (Map.Entry<Class<? extends E>, Collection<String>> entry : keysByClass.entrySet()) {
+            Class<? extends E> entityClass = entry.getKey();
+            EntityCache cache = entityCaches.get(entityClass);
+            if (cache == null) {
+                continue;
+            }
+            Collection<String> keys = new ArrayList<String>();
+            for (String pk : entry.getValue()) {
+                if (cache.get(pk) == null && ! singleFlight.isInFlight(new EntityKey(entityClass, pk))) {
+                    keys.add(pk);
+                }
+            }
+            if (! keys.isEmpty()) {
+                keysToLoad.put(entityClass, keys);
+                count += keys.size();
+            }
+        }
+        if (keysToLoad.isEmpty()) {
+            return 0;
+        }
+        Map<Class<? extends E>, Map<String, E>> found = findEntities(keysToLoad);
+        for (Map.Entry<Class<? extends E>, Collection<String>> entry : keysToLoad.entrySet()) {
+            Map<String, E> foundOfClass = found == null ? null : found.get(entry.getKey());
+            EntityCache cache = entityCaches.get(entry.getKey());
+            for (String pk : entry.getValue()) {
+                cache.put(pk, foundOfClass == null ? null : foundOfClass.get(pk));  // Null => negative caching.
+            }
+        }
+        return count;
+    }
+
+    private void failFlights(List<SingleFlight<EntityKey, Object>.Flight> flights, Throwable t) {
+        for (SingleFlight<EntityKey, Object>.Flight flight : flights) {
+            flight.fail(t);
+        }
+    }
+
+    
+    /** Concurrent calls to findEntity() (or findEntities()) for the same entity class and pk will share one load.
+     * The other threads wait at most maxWait for the result, then load the entity themselves.
+     * Only for entities that may be shared between sessions (as for enableCache()). */
+    protected void enableSingleFlight(Class<? extends E> entityClass, long maxWait, TimeUnit unit) {
+        singleFlightMaxWaits.put(entityClass, unit.toNanos(maxWait));
+    }
+
+    /** Metrics on the loads collapsed by enableSingleFlight(). */
+    public SingleFlight<?, ?> getSingleFlight() {
+        return singleFlight;
+    }
+
+
+    /** Caches the entities of that class (opt-in). Call it from the constructor of your descendant, as:
+     *    enableCache(Product.class, 5, TimeUnit.MINUTES, 10000);
+     * Only for entities that may be shared between sessions (read-mostly, as a product catalog).
+     * Don't forget to call invalidateEntity() when you change one of them. 
+     * @param ttl time to live of the found entities, and of the misses (pks not found). */
+    protected void enableCache(Class<? extends E> entityClass, long ttl, TimeUnit unit, int maxSize) {
+        enableCache(entityClass, new BoundedEntityCache(ttl, unit, maxSize));
+    }
+
+    /** @param negativeTtl time to live of the misses (pks not found). 0 disables the caching of misses. */
+    protected void enableCache(Class<? extends E> entityClass, long ttl, long negativeTtl, TimeUnit unit, int maxSize) {
+        enableCache(entityClass, new BoundedEntityCache(ttl, negativeTtl, unit, maxSize));
+    }
+
+    /** To plug your own EntityCache implementation. */
+    protected void enableCache(Class<? extends E> entityClass, EntityCache cache) {
+        entityCaches.put(entityClass, cache);
+    }
+
+    /** Returns the cache of that entity class (i.e. for its statistics), null if caching is not enabled for that class. */
+    public EntityCache getEntityCache(Class<? extends E> entityClass) {
+        return entityCaches.get(entityClass);
+    }
+
+    /** Call it when the entity is updated or deleted. */
+    public void invalidateEntity(Class<? extends E> entityClass, String pk) {
+        EntityCache cache = entityCaches.get(entityClass);
+        if (cache != null) {
+            cache.invalidate(pk);
+        }
+    }
+
+    /** Call it when the entity is updated or deleted. */
+    public void invalidateEntity(E entity) {
+        Class<?> clazz = entity.getClass();
+        while (clazz != null) {  // The entity may be an instance of a sub-class (i.e. a Hibernate proxy) of the cached class.
+            EntityCache cache = entityCaches.get(clazz);
+            if (cache != null) {
+                cache.invalidate(getEntityFragmentValue(entity));
+                return;
+            }
+            clazz = clazz.getSuperclass();
+        }
+    }
+
+    /** Empties the cache of that entity class (i.e. after a bulk update). */
+    public void invalidateEntities(Class<? extends E> entityClass) {
+        EntityCache cache = entityCaches.get(entityClass);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    public void clearEntityCaches() {
+        for (EntityCache cache : entityCaches.values()) {
+            cache.clear();
+        }
+    }
+
+    
+    /** true if fields of that type should be loaded with findEntity/findEntities.
+     * By default, true for the sub-classes of <E>, as defined in the descendant class declaration (MyUriAnalyzer extends EntityUriAnalyzer<BaseEntity>).
+     * If <E> cannot be found (or is Object), false: then the @Param fields are loaded one by one through convertSpecialType() as before. */
+    public boolean isEntityClass(Class<?> type) {
+        return entityBaseClass != Object.class && entityBaseClass.isAssignableFrom(type) && !type.isEnum();
+    }
+
+    private Class<?> findEntityBaseClass() {
+        Class<?> clazz = getClass();
+        while (clazz.getSuperclass() != EntityUriAnalyzer.class) {
+            clazz = clazz.getSuperclass();
+        }
+        Type superType = clazz.getGenericSuperclass();
+        if (superType instanceof ParameterizedType) {
+            Type e = ((ParameterizedType)superType).getActualTypeArguments()[0];
+            if (e instanceof Class) {
+                return (Class<?>)e;
+            } else if (e instanceof ParameterizedType && ((ParameterizedType)e).getRawType() instanceof Class) {
+                return (Class<?>)((ParameterizedType)e).getRawType();
+            }
+        }
+        return Object.class;  // Raw type, or type variable (as in MyGenericAnalyzer<X> extends EntityUriAnalyzer<X>).
+    }
+
+
+    /** Override this method to tell how to convert an entity into a String that we can put in a URI.
+     * You probably return the primary key of your entity (the field with @Id if you use JPA/Hibernate)
+     * 
+     * Your implementation could be simple as:
+     * return entity.getId();
+     * 
+     * In this example, your base entity type <E> has a getId() method.
+     * 
+     * @param entity
+     * @return return what you expect to get as pk parameter in your findEntity method.
+     */
+    public abstract String getEntityFragmentValue(E entity);
+
+    
+    /** Don't use this. It's an ugly trick for framework's internal needs */
+    public String getObjectEntityFragmentValue(Object o) {
+        return getEntityFragmentValue((E)o);
+    }
+
+    
+    public E getEntity(String params, String key, Class<? extends E> entityClass) {
+        return getEntity(parseFragment(params), key, entityClass);
+    }
+
+    public E getEntity(ParsedFragment params, String key, Class<? extends E> entityClass) {
+        E entity = null;
+        String id = getString(params, key); 
+        if (id != null) { 
+            entity = loadEntity(entityClass, id);
+        }
+        return entity;
+    }
+
+    
+    
+    public E getMandatoryEntity(String params, String key, Class<? extends E> entityClass) {
+        return getMandatoryEntity(parseFragment(params), key, entityClass);
+    }
+
+    public E getMandatoryEntity(ParsedFragment params, String key, Class<? extends E> entityClass) {
+        if ( null != getMandatoryString(params, key)) {  // Notification displayed if missing parameter. 
+            return getEntity(params, key, entityClass);  // Maybe null, but a notification will have been displayed in case of something is strange.
+        } else { // We have no id.
+            return null;
+        } 
+    }
+
+    
+    public E getEntity(String params, int position, Class<? extends E> entityClass) {
+        return getEntity(parseFragment(params), position, entityClass);
+    }
+
+    public E getEntity(ParsedFragment params, int position, Class<? extends E> entityClass) {
+        E entity = null;
+        String id = getString(params, position); 
+        if (id != null) { 
+            entity = loadEntity(entityClass, id);
+        }
+        return entity;
+    }
+
+    public E getMandatoryEntity(String params, int position, Class<? extends E> entityClass) {
+        return getMandatoryEntity(parseFragment(params), position, entityClass);
+    }
+
+    public E getMandatoryEntity(ParsedFragment params, int position, Class<? extends E> entityClass) {
+        if ( null != getMandatoryString(params, position)) {  // Notification displayed if missing parameter. 
+            return getEntity(params, position, entityClass);  // Maybe null, but a notification will have been displayed in case of something is strange.
+        } else { // We have no id.
+            return null;
+        } 
+    }
+
+    
+    
+    /** Returns the (non fully qualified) class name.
+     * If entityClass = Auction.class, then the expected parameter name is "Auction".
+     * i.e. "Foo=123/Auction=abc".
+     * 
+     * Override this method if you'd like another names from classes. For example, you may prefer "AuctionId" (simple class name + "Id").
+     * 
+     * @param entityClass
+     * @return
+     */
+    protected String getEnityParamName(Class<? extends E> entityClass) {
+        return entityClass.getSimpleName();
+    }
+
+    /** Override me to something like (for a type without ParamConverter: an enum as Language below has one, register your own ParamConverter to replace it):
+     *     @Override
+    public Object convertSpecialType(Class<?> type, String valueStr, String fragment) {
+        Object result = super.convertSpecialType(type, valueStr, fragment);
+        if (result != null) {
+            return result;
+        }
+        
+        // Convertion of Language enum.
+        if (Language.class.isAssignableFrom(type)) {
+            Language language;
+            try{
+                language = Language.valueOf(valueStr);
+            } catch (Exception e) {
+                reportProblemWithFragment("Provided language code "+valueStr+" is no valid language code", fragment);
+                return null;
+            }
+            return language;
+        }
+        
+        // Cannot convert...
+        return null;
+    }
+
+     */
+    @Override
+    public Object convertSpecialType(Class<?> type, String valueStr, String fragment) {
+
+        // Check if type is a subtype of E
+        Class<E> eeeClass = null;
+        try {
+            eeeClass = (Class<E>)type;
+        } catch (Exception e) {
+            // It's not an entity eeeClass is still null;
+            // We do nothing, it's noraml.
+        }
+        
+        // Try to convert with findEntity.
+        Object result = null;
+        if (eeeClass != null) {
+            result = loadEntity(eeeClass, valueStr);
+        }
+        
+        // Maybe result is still null => descendent may try further to convert.
+        return result;
+    }
+    
+    
+    /** Key of an entity in the SingleFlight. */
+    private static final class EntityKey {
+        final Class<?> entityClass;
+        final String pk;
+
+        EntityKey(Class<?> entityClass, String pk) {
+            this.entityClass = entityClass;
+            this.pk = pk;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EntityKey)) {
+                return false;
+            }
+            EntityKey other = (EntityKey)o;
+            return entityClass == other.entityClass && pk.equals(other.pk);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * entityClass.hashCode() + pk.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return entityClass.getSimpleName() + "#" + pk;
+        }
+    }
+}
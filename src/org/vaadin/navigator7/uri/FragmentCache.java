@@ -0,0 +1,140 @@
+package org.vaadin.navigator7.uri;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Bounded LRU cache of ResolvedFragment, keyed by the raw URI fragment (as "!ProductA/34").
+ *
+ * Campaign traffic typically makes thousands of sessions arrive on the same handful of fragments.
+ * The UriAnalyzer instance is shared by all the sessions (all the NavigableApplication instances) of the web application,
+ * and so is its FragmentCache: it's thread safe.
+ *
+ * The entries are spread over segments (each one being a small LRU LinkedHashMap with its own lock), to limit the contention.
+ * The LRU order is maintained per segment, which is a good enough approximation of a global LRU.
+ */
+public class FragmentCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+
+    public FragmentCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /** @param maxSize maximum amount of fragments kept in the cache (approximately, it's rounded to a multiple of the amount of segments). */
+    public FragmentCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize should be positive: " + maxSize);
+        }
+        int segmentCount = 1;
+        while (segmentCount < 16 && segmentCount * 16 < maxSize) {  // At least 16 entries per segment.
+            segmentCount <<= 1;
+        }
+        int segmentSize = (maxSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.maxSize = segmentSize * segmentCount;
+    }
+
+
+    /** Returns null if the fragment is not in the cache. */
+    public ResolvedFragment get(String fragment) {
+        Segment segment = segmentFor(fragment);
+        ResolvedFragment result;
+        synchronized (segment) {
+            result = segment.get(fragment);  // Moves the entry at the end of the LRU list.
+        }
+        if (result == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    public void put(String fragment, ResolvedFragment resolvedFragment) {
+        Segment segment = segmentFor(fragment);
+        synchronized (segment) {
+            segment.put(fragment, resolvedFragment);
+        }
+    }
+
+    /** Empties the cache. Call it if you change the NavigatorConfig (i.e. register pages) after the first navigation. */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FragmentCache[size=" + size() + "/" + maxSize + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "]";
+    }
+
+
+    private Segment segmentFor(String fragment) {
+        int h = fragment.hashCode();
+        h ^= (h >>> 16);  // Spread the high bits, in case there are few segments.
+        return segments[h & segmentMask];
+    }
+
+
+    private class Segment extends LinkedHashMap<String, ResolvedFragment> {
+        private final int segmentMaxSize;
+
+        Segment(int segmentMaxSize) {
+            super(16, 0.75f, true);  // Access order => LRU.
+            this.segmentMaxSize = segmentMaxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ResolvedFragment> eldest) {
+            if (size() > segmentMaxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.vaadin.navigator7.uri;
+
+/** Builds a fragment (as "#!ProductA/34/AAAA/namedValue=CCCC") in a single StringBuilder:
+ * the anchor, the crawlable marker, the page name, then the positional and named params.
+ *
+ * Links are rendered by the hundreds, and building them with successive String concatenations (one per parameter)
+ * copied the beginning of the fragment again and again. Here the only String allocated is the result.
+ *
+ * Get one with UriAnalyzer.newFragmentWriter() (it knows the separators):
+ * <pre>
+ *   FragmentWriter writer = uriAnalyzer.newFragmentWriter();
+ *   writer.anchor().page("ProductA", true).positional("34");
+ *   return writer.toString();
+ * </pre>
+ * A new (small) writer is created for each fragment: no ThreadLocal, which would pin the class loader of the web application
+ * on the threads of the container after a redeployment.
+ * Not thread safe (it's never shared between threads).
+ */
+public final class FragmentWriter {
+
+    private final StringBuilder builder = new StringBuilder(64);
+    private final String paramsSeparator;
+    private final String valueSeparator;
+    private int paramsStart;       // Index in builder where the params begin (once paramWritten).
+    private boolean paramWritten;  // true when at least one (non empty) param has been written.
+    private String pendingParamsPrefix;  // Written just before the first param: "/" between the page name and the params. Null if none.
+
+
+    /** Called by UriAnalyzer.newFragmentWriter(). */
+    FragmentWriter(String paramsSeparator, String valueSeparator) {
+        this.paramsSeparator = paramsSeparator;
+        this.valueSeparator = valueSeparator;
+    }
+
+
+    /** Appends "#" */
+    public FragmentWriter anchor() {
+        builder.append('#');
+        return this;
+    }
+
+    /** Appends the page name (with the "!" prefix if crawlable) and prepares the "/" separating it from the params (written only if there are params).
+     * @param pageName null for the home page (we don't tell its name in the URI). */
+    public FragmentWriter page(String pageName, boolean crawlable) {
+        if (pageName != null) {
+            if (crawlable) {
+                builder.append('!');
+            }
+            builder.append(pageName);
+        }
+        pendingParamsPrefix = "/";  // Always a "/" after the page name, whatever the paramsSeparator (see UriAnalyzer.extractPageNameAndParamsFromFragment()).
+        return this;
+    }
+
+    /** Appends a positional param value. As ParamUriAnalyzer.addFragment() did, an empty value as first param adds nothing. */
+    public FragmentWriter positional(String value) {
+        if (paramWritten) {
+            builder.append(paramsSeparator);
+        } else if (value.length() == 0) {
+            return this;
+        } else {
+            startParams();
+        }
+        builder.append(value);
+        return this;
+    }
+
+    /** Appends name=value */
+    public FragmentWriter named(String name, String value) {
+        if (paramWritten) {
+            builder.append(paramsSeparator);
+        } else {
+            startParams();
+        }
+        builder.append(name).append(valueSeparator).append(value);
+        return this;
+    }
+
+    /** Appends already formatted params (as "34/AAAA"). Null or "" adds nothing. */
+    public FragmentWriter params(String params) {
+        if (params == null || params.length() == 0) {
+            return this;
+        }
+        if (paramWritten) {
+            builder.append(paramsSeparator);
+        } else {
+            startParams();
+        }
+        builder.append(params);
+        return this;
+    }
+
+    private void startParams() {
+        if (pendingParamsPrefix != null) {
+            builder.append(pendingParamsPrefix);
+            pendingParamsPrefix = null;
+        }
+        paramsStart = builder.length();
+        paramWritten = true;
+    }
+
+
+    /** true if at least one param has been written. */
+    public boolean hasParams() {
+        return paramWritten;
+    }
+
+    /** The params part only (as "34/AAAA/namedValue=CCCC"), or null if there is no param. */
+    public String paramsToString() {
+        return paramWritten ? builder.substring(paramsStart) : null;
+    }
+
+    /** The whole fragment. */
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
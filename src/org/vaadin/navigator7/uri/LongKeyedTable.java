@@ -0,0 +1,139 @@
+package org.vaadin.navigator7.uri;
+
+import java.util.Arrays;
+
+/** Open addressing hash table of long keys, with an expiry time per entry. Used by BoundedEntityCache for the (usual) Long pks,
+ * to avoid a Long and a map entry object per cached entity.
+ *
+ * Linear probing, with backward shift deletion (no tombstone). When full, the entry under a hand going round the slots is evicted.
+ * The slots are in hash order: the victim is an arbitrary entry, not the oldest one (no LRU, which would cost a link per entry).
+ * The time to live bounds how long an entry stays anyway.
+ *
+ * Not thread safe: BoundedEntityCache synchronizes.
+ */
+final class LongKeyedTable {
+
+    private final long[] keys;
+    private final Object[] values;  // null = free slot.
+    private final long[] expiries;  // System.nanoTime() based.
+    private final int mask;
+    private final int maxSize;
+    private int size;
+    private int clockHand;
+
+    LongKeyedTable(int maxSize) {
+        int capacity = 2;
+        while (capacity < maxSize * 2) {  // Load factor <= 0.5
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.expiries = new long[capacity];
+        this.mask = capacity - 1;
+        this.maxSize = maxSize;
+    }
+
+    /** Returns null if not found or expired (in which case the entry is removed). */
+    Object get(long key, long now) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        if (expiries[index] - now <= 0) {
+            removeAt(index);
+            return null;
+        }
+        return values[index];
+    }
+
+    /** @return true if another entry has been evicted to make room. */
+    boolean put(long key, Object value, long expiry) {
+        int index = indexOf(key);
+        if (index >= 0) {  // Replace
+            values[index] = value;
+            expiries[index] = expiry;
+            return false;
+        }
+        boolean evicted = false;
+        if (size >= maxSize) {
+            evictOne();
+            evicted = true;
+        }
+        int i = slot(key);
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        expiries[i] = expiry;
+        size++;
+        return evicted;
+    }
+
+    boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    void remove(long key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;  // Fibonacci hashing: ids are often sequential.
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int indexOf(long key) {
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void evictOne() {
+        while (values[clockHand] == null) {
+            clockHand = (clockHand + 1) & mask;
+        }
+        removeAt(clockHand);
+    }
+
+    /** Removes the entry at index, and shifts back the following entries of the probe sequence (so that they stay reachable). */
+    private void removeAt(int index) {
+        int free = index;
+        int i = index;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) {
+                break;
+            }
+            int ideal = slot(keys[i]);
+            // The entry at i may move to free if its ideal slot is not cyclically in ]free, i].
+            boolean idealInRange = free <= i ? (free < ideal && ideal <= i) : (free < ideal || ideal <= i);
+            if (!idealInRange) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                expiries[free] = expiries[i];
+                free = i;
+            }
+        }
+        values[free] = null;
+        size--;
+    }
+}
@@ -0,0 +1,29 @@
+package org.vaadin.navigator7.uri;
+
+/** Reflection free access to the @Param fields of one class, generated at compile time by ParamBinderProcessor as a class named "&lt;class name&gt;$ParamBinder"
+ * (as ProductPage$ParamBinder for ProductPage), in the package of the annotated class.
+ * 
+ * ParamBinding finds it when it compiles the binding of the class. Then ParamSlot reads and writes the fields through it,
+ * and ParamInjector converts the Strings of the basic types (String, primitives and their wrappers) with assign().
+ * Without generated binder (class compiled without the processor, private fields, ...), the fields are accessed through MethodHandles.
+ * 
+ * Implementations are stateless, and shared by all the threads.
+ */
+public interface ParamBinder {
+
+    /** The @Param fields handled by this binder, as "declaringClassBinaryName#fieldName". The index of a field in this array is the index given to the other methods.
+     * ParamBinding ignores the binder if these fields do not match the @Param fields found by reflection (binder generated from an older version of the class). */
+    public String[] getFields();
+
+    /** Reads the field (primitives are boxed). */
+    public Object get(Object target, int index);
+
+    /** Writes the field (value is unboxed for primitive fields). */
+    public void set(Object target, int index, Object value);
+
+    /** Converts valueStr and assigns it to the field, for the fields of a basic type (String, primitives and their wrappers).
+     * Same rules and messages as the BasicConverters of ParamConverters.
+     * @return null if success, or the problem to report to the user (as an invalid number).
+     * @throws IllegalArgumentException if the field is not of a basic type. */
+    public String assign(Object target, int index, String valueStr);
+}
@@ -0,0 +1,516 @@
+package org.vaadin.navigator7.uri;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Compiled view of the @Param annotated fields of a class (typically a page class).
+ *
+ * Scanning the class hierarchy, reading the annotations and making the fields accessible is done once per class,
+ * the first time the class is used by ParamInjector. The result is immutable and shared by all the threads (and all the sessions).
+ * It contains the positional slots (sorted by position), the named slots (in field declaration order) with their precomputed names,
+ * accessors to read and write the fields without going through java.lang.reflect on every navigation
+ * (the ParamBinder generated by ParamBinderProcessor if the class has one, else MethodHandles), and the ParamConverter of each field.
+ *
+ * Configuration problems (as two fields with the same position) are detected here, but they are only reported (thrown)
+ * when a fragment is built (as before), because a page may very well be displayed with an inconsistent definition.
+ */
+public final class ParamBinding {
+
+    private static final ClassValue<ParamBinding> BINDINGS = new ClassValue<ParamBinding>() {
+        @Override
+        protected ParamBinding computeValue(Class<?> type) {
+            return new ParamBinding(type);
+        }
+    };
+
+    /** Returns the (cached) binding of the given class. Never null, but maybe empty if the class has no @Param field. */
+    public static ParamBinding of(Class<?> annotatedClass) {
+        return BINDINGS.get(annotatedClass);
+    }
+
+
+    private final Class<?> annotatedClass;
+    private final ParamSlot[] slots;       // All the @Param fields, subclass fields first (same order as the old findAnnotatedFields()).
+    private final ParamSlot[] posSlots;    // Index = position. May contain null values (holes) if the @Param(pos=...) definitions have holes.
+    private final int posSlotCount;        // Amount of non null entries in posSlots.
+    private final ParamSlot[] namedSlots;  // Non positional slots, in field declaration order.
+    private final Map<String, ParamSlot> namedSlotMap;
+    private final ParamBinder binder;      // Null if the class has no (valid) generated ParamBinder.
+
+    // Configuration problems detected at compile time of the binding. Null if no problem.
+    private final String duplicatePositionProblem;
+    private final String positionHoleProblem;
+    private final String duplicateNameProblem;
+
+
+    private ParamBinding(Class<?> annotatedClass) {
+        this.annotatedClass = annotatedClass;
+
+        List<Field> fieldList = new ArrayList<Field>();
+        Class<?> clazz = annotatedClass;
+        while (clazz != null && !clazz.equals(Object.class)) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getAnnotation(Param.class) != null) {
+                    fieldList.add(field);
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+
+        int[] binderIndexes = new int[fieldList.size()];
+        binder = findBinder(annotatedClass, fieldList, binderIndexes);
+        slots = new ParamSlot[fieldList.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Field field = fieldList.get(i);
+            slots[i] = new ParamSlot(field, field.getAnnotation(Param.class), binder, binderIndexes[i]);
+        }
+
+        ////// Positional slots (and eventual duplicates/holes)
+        int maxPos = -1;
+        for (ParamSlot slot : slots) {
+            maxPos = Math.max(maxPos, slot.pos);
+        }
+        posSlots = new ParamSlot[maxPos + 1];
+        String dupPosProblem = null;
+        int count = 0;
+        for (ParamSlot slot : slots) {
+            if (slot.isPositional()) {
+                if (posSlots[slot.pos] != null) {  // Ooops, there is already a field for that position.
+                    if (dupPosProblem == null) {
+                        dupPosProblem = "In class "+annotatedClass+", two fields annotated with @Param have the same position (@Param(pos=X))" +
+                                posSlots[slot.pos].field + " and " + slot.field + ". " +
+                                "Please change the position of one of them.";
+                    }
+                } else {
+                    posSlots[slot.pos] = slot;
+                    count++;
+                }
+            }
+        }
+        posSlotCount = count;
+        duplicatePositionProblem = dupPosProblem;
+
+        String holeProblem = null;
+        for (int pos = 1; pos < posSlots.length && holeProblem == null; pos++) {
+            if (posSlots[pos] != null && posSlots[pos-1] == null) {
+                holeProblem = "In class "+annotatedClass+", the field "+posSlots[pos].field+" is annotated @Param(pos="+pos+"), " +
+                        "but no other field is annotated with @Param(pos="+(pos-1)+"). " +
+                        "These kind of position holes are forbidden.";
+            }
+        }
+        positionHoleProblem = holeProblem;
+
+        ////// Named slots (and eventual name duplicates)
+        List<ParamSlot> namedList = new ArrayList<ParamSlot>();
+        Map<String, ParamSlot> namedMap = new HashMap<String, ParamSlot>();
+        String dupNameProblem = null;
+        for (ParamSlot slot : slots) {
+            if (!slot.isPositional()) {
+                ParamSlot previous = namedMap.get(slot.name);
+                if (previous != null) {
+                    if (dupNameProblem == null) {
+                        dupNameProblem = "In class "+annotatedClass+", two named fields (non positional) annotated with @Param " +
+                                "have the same name (" +slot.name+ "): " +
+                                previous.field + " and " + slot.field + ". " +
+                                "Did you forget to specify a position @Param(pos=...) on one of them?";
+                    }
+                } else {
+                    namedMap.put(slot.name, slot);
+                    namedList.add(slot);
+                }
+            }
+        }
+        namedSlots = namedList.toArray(new ParamSlot[namedList.size()]);
+        namedSlotMap = Collections.unmodifiableMap(namedMap);
+        duplicateNameProblem = dupNameProblem;
+    }
+
+
+    /** Returns the generated "&lt;class name&gt;$ParamBinder" of that class, if it exists and matches the fields, else null.
+     * @param binderIndexes filled with the index in the binder of each field. */
+    private static ParamBinder findBinder(Class<?> annotatedClass, List<Field> fields, int[] binderIndexes) {
+        if (fields.isEmpty()) {
+            return null;
+        }
+        Class<?> binderClass;
+        try {
+            binderClass = Class.forName(annotatedClass.getName() + "$ParamBinder", true, annotatedClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;  // Not compiled with ParamBinderProcessor (or no binder could be generated for that class).
+        }
+        if (!ParamBinder.class.isAssignableFrom(binderClass)) {
+            return null;
+        }
+        ParamBinder result;
+        try {
+            result = (ParamBinder) binderClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot instantiate the generated " + binderClass + ". Compile your classes again.", e);
+        }
+
+        List<String> binderFields = Arrays.asList(result.getFields());
+        if (binderFields.size() != fields.size()) {
+            return null;  // Stale binder (the class has been compiled without the processor since the binder was generated).
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            binderIndexes[i] = binderFields.indexOf(field.getDeclaringClass().getName() + "#" + field.getName());
+            if (binderIndexes[i] < 0) {
+                return null;  // Stale binder.
+            }
+        }
+        return result;
+    }
+
+
+    public Class<?> getAnnotatedClass() {
+        return annotatedClass;
+    }
+
+    /** The binder generated by ParamBinderProcessor for this class, or null if the fields are accessed through MethodHandles. */
+    public ParamBinder getBinder() {
+        return binder;
+    }
+
+    /** true if the class has no @Param field at all */
+    public boolean isEmpty() {
+        return slots.length == 0;
+    }
+
+    /** All the slots, in the order of the former ParamInjector.findAnnotatedFields(): fields of the class first, then fields of its ancestors. */
+    public ParamSlot[] getSlots() {
+        return slots.clone();
+    }
+
+    /** Amount of slots (all kinds). */
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    public ParamSlot getSlot(int index) {
+        return slots[index];
+    }
+
+    /** Returns the slot of the field at the given position, or null if no field has that position. */
+    public ParamSlot getPositionalSlot(int pos) {
+        return pos < posSlots.length ? posSlots[pos] : null;
+    }
+
+    /** Amount of positional fields. */
+    public int getPositionalSlotCount() {
+        return posSlotCount;
+    }
+
+    /** Highest position + 1 (0 if there is no positional field). Greater than getPositionalSlotCount() if there are holes. */
+    public int getPositionalSlotLength() {
+        return posSlots.length;
+    }
+
+    public ParamSlot[] getNamedSlots() {
+        return namedSlots.clone();
+    }
+
+    public int getNamedSlotCount() {
+        return namedSlots.length;
+    }
+
+    public ParamSlot getNamedSlot(int index) {
+        return namedSlots[index];
+    }
+
+    /** Returns the named slot for that name, or null if none. */
+    public ParamSlot getNamedSlot(String name) {
+        return namedSlotMap.get(name);
+    }
+
+    /** Returns the slot of the given field, or null if that field is not a @Param field of this class (or its ancestors). */
+    public ParamSlot getSlot(Field field) {
+        for (ParamSlot slot : slots) {
+            if (slot.field.equals(field)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+
+    /** Throws if two positional fields have the same position. */
+    public void checkNoDuplicatePosition() {
+        if (duplicatePositionProblem != null) {
+            throw new RuntimeException(duplicatePositionProblem);
+        }
+    }
+
+    /** Throws if there is a hole in the @Param(pos=...) definitions. */
+    public void checkNoPositionHole() {
+        if (positionHoleProblem != null) {
+            throw new RuntimeException(positionHoleProblem);
+        }
+    }
+
+    /** Throws if two named fields have the same name. */
+    public void checkNoDuplicateName() {
+        if (duplicateNameProblem != null) {
+            throw new RuntimeException(duplicateNameProblem);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParamBinding[" + annotatedClass.getName() + ", " + slots.length + " slot(s)]";
+    }
+
+
+
+    /** One @Param annotated field, with everything we need to know about it precomputed. */
+    public static final class ParamSlot {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        final Field field;
+        final Class<?> type;
+        final Class<?> wrapperType;  // Integer.class if type is int.class. Same as type if type is not primitive.
+        final boolean basicType;     // Primitive, wrapper or String: converted with a simple toString().
+        final String name;
+        final int pos;          // -1 for named slots.
+        final boolean required;
+        final ParamBinder binder;   // Generated accessors. Null if the MethodHandles below are used instead.
+        final int binderIndex;
+        final MethodHandle getter;  // (Object)Object. Null if binder is not null.
+        final MethodHandle setter;  // (Object,Object)void. Null if binder is not null.
+        final MethodHandle primitiveSetter;  // (Object,<primitive>)void, as (Object,long)void for a long field. Null if the field is no primitive. Also used with a binder (it would box the value).
+
+        // Converter of the field, resolved lazily (and again if ParamConverters.register() has been called since). Null if none (i.e. entity).
+        private volatile ParamConverter<?> converter;
+        private volatile int converterVersion = -1;
+
+        ParamSlot(Field field, Param paramAnnotation, ParamBinder binder, int binderIndex) {
+            this.field = field;
+            this.type = field.getType();
+            this.wrapperType = wrap(type);
+            this.basicType = type.isPrimitive() || type == String.class || unwrap(type) != type;
+            this.pos = paramAnnotation.pos();
+            this.required = paramAnnotation.required();
+            this.name = paramAnnotation.name().equals("") ? field.getName()  // There is no explicit name in the annotation => let's take the name of the field.
+                                                          : paramAnnotation.name();
+            this.binder = binder;
+            this.binderIndex = binderIndex;
+            if (binder != null && ! type.isPrimitive()) {  // Direct field access, generated at compile time.
+                this.getter = null;
+                this.setter = null;
+                this.primitiveSetter = null;
+                return;
+            }
+            field.setAccessible(true);  // Enable access to private fields (once for all).
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle rawSetter = lookup.unreflectSetter(field);
+                this.getter = binder != null ? null : lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                this.setter = binder != null ? null : rawSetter.asType(SETTER_TYPE);
+                this.primitiveSetter = type.isPrimitive() ? rawSetter.asType(MethodType.methodType(void.class, Object.class, type)) : null;
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Cannot access the @Param field " + field, e);
+            }
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        /** The generated binder giving access to this field (see ParamBinding.getBinder()), or null. */
+        public ParamBinder getBinder() {
+            return binder;
+        }
+
+        /** Index of this field in getBinder(). */
+        public int getBinderIndex() {
+            return binderIndex;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /** The name of the parameter in the URI (for named parameters), or the name of the field (for positional ones, where it's not used in the URI). */
+        public String getName() {
+            return name;
+        }
+
+        /** -1 if the slot is a named slot. */
+        public int getPos() {
+            return pos;
+        }
+
+        public boolean isPositional() {
+            return pos > -1;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+
+        public boolean isPrimitive() {
+            return type.isPrimitive();
+        }
+
+        /** true for primitives, their wrappers and String. */
+        public boolean isBasicType() {
+            return basicType;
+        }
+
+        /** true if a value of type valueClass could be assigned to this field (including boxed values for primitive fields). */
+        public boolean isCompatible(Class<?> valueClass) {
+            return type.isAssignableFrom(valueClass) || wrapperType == valueClass;
+        }
+
+        /** Reads the field (primitives are boxed). */
+        public Object get(Object target) {
+            if (binder != null) {
+                return binder.get(target, binderIndex);
+            }
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException("Cannot get field '"+field+"' value. At this level it's not a simple conversion problem, it's a bug (impossible case?)", t);
+            }
+        }
+
+        /** Writes the field (value is unboxed for primitive fields). */
+        public void set(Object target, Object value) {
+            if (binder != null) {
+                binder.set(target, binderIndex, value);
+                return;
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException("Cannot assign value '"+value+"' into field "+ field + ". At this level it's not a simple conversion problem, it's a bug (impossible case?)", t);
+            }
+        }
+
+        /** Writes a long field, without boxing (through a MethodHandle, even if the class has a binder). */
+        public void setLong(Object target, long value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        /** Writes an int field, without boxing. */
+        public void setInt(Object target, int value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        public void setShort(Object target, short value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        public void setByte(Object target, byte value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        public void setDouble(Object target, double value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        public void setFloat(Object target, float value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        public void setBoolean(Object target, boolean value) {
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw setProblem(value, t);
+            }
+        }
+
+        private RuntimeException setProblem(Object value, Throwable t) {
+            if (t instanceof RuntimeException) {
+                return (RuntimeException) t;
+            }
+            return new RuntimeException("Cannot assign value '"+value+"' into field "+ field + ". At this level it's not a simple conversion problem, it's a bug (impossible case?)", t);
+        }
+
+        /** The converter of this field (from ParamConverters), or null if the type has none (it's probably an entity). */
+        @SuppressWarnings("unchecked")
+        public ParamConverter<Object> getConverter() {
+            int version = ParamConverters.getVersion();
+            if (converterVersion != version) {  // First use, or new converters registered since.
+                converter = ParamConverters.find(type);
+                converterVersion = version;  // Written after converter (both volatile) => a reader seeing the version sees the converter.
+            }
+            return (ParamConverter<Object>) converter;
+        }
+
+        /** Assigns null to the field, except for primitives (left untouched). */
+        public void clear(Object target) {
+            if (!type.isPrimitive()) {
+                set(target, null);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return field.toString();
+        }
+
+        private static Class<?> wrap(Class<?> c) {
+            if (!c.isPrimitive())    return c;
+            if (c == int.class)      return Integer.class;
+            if (c == long.class)     return Long.class;
+            if (c == boolean.class)  return Boolean.class;
+            if (c == double.class)   return Double.class;
+            if (c == float.class)    return Float.class;
+            if (c == short.class)    return Short.class;
+            if (c == byte.class)     return Byte.class;
+            if (c == char.class)     return Character.class;
+            return Void.class;
+        }
+
+        private static Class<?> unwrap(Class<?> c) {
+            if (c == Integer.class)    return int.class;
+            if (c == Long.class)       return long.class;
+            if (c == Boolean.class)    return boolean.class;
+            if (c == Double.class)     return double.class;
+            if (c == Float.class)      return float.class;
+            if (c == Short.class)      return short.class;
+            if (c == Byte.class)       return byte.class;
+            if (c == Character.class)  return char.class;
+            return c;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.vaadin.navigator7.uri;
+
+/** Converts the value of a @Param field from/to the String found in the URI.
+ *
+ * Register yours (dates, UUIDs, your own value types) in ParamConverters, typically in the constructor of your WebApplication:
+ * <pre>
+ *    ParamConverters.register(UUID.class, new ParamConverter&lt;UUID&gt;() {
+ *        public UUID fromString(String valueStr) {
+ *            return UUID.fromString(valueStr);
+ *        }
+ *    });
+ * </pre>
+ * The converter of a field is looked up once (per field), not on every navigation.
+ * Converters are shared by all the sessions (and threads) => they must be stateless (or thread safe).
+ *
+ * Don't confuse with TypeConvertor, that a page implements to convert its own special fields.
+ */
+public abstract class ParamConverter<T> {
+
+    /** @param valueStr never null.
+     * @return null if you cannot convert (the user will be notified of an invalid URL).
+     * @throws IllegalArgumentException (as NumberFormatException) if valueStr is invalid. The user will be notified of an invalid URL. */
+    public abstract T fromString(String valueStr);
+
+    /** Converts a (non null) value of the field for the URI. Override it if T.toString() is not the reverse of fromString(). */
+    public String toString(T value) {
+        return value.toString();
+    }
+
+}
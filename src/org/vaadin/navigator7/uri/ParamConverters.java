@@ -0,0 +1,287 @@
+package org.vaadin.navigator7.uri;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.vaadin.navigator7.uri.ParamBinding.ParamSlot;
+
+/** Registry of the ParamConverter, by field type.
+ *
+ * It contains the converters of the basic types (String, primitives and their wrappers) which assign primitive fields without boxing,
+ * and the converters that you register for your own types. Enums are converted through a lookup table built once per enum type.
+ * Types without converter (typically entities) are converted by TypeConvertor (the page) and ParamUriAnalyzer.convertSpecialType().
+ *
+ * Order of conversion of a non basic field: the page (TypeConvertor), then the converter (registered, or the enum table), then ParamUriAnalyzer.convertSpecialType().
+ * Before the registry, enums went through ParamUriAnalyzer.convertSpecialType() before Enum.valueOf(): an analyzer converting an enum itself
+ * is not called anymore for it. Register a ParamConverter for that enum instead (it is found before the enum table).
+ * The analyzer comes last so that an EntityUriAnalyzer does not look for an entity (findEntity()) for every value having a converter.
+ *
+ * As ParamBinding, the registry is JVM wide (shared by all the web applications loaded by the same class loader).
+ * Each @Param field resolves its converter the first time it's used, and again only if register() is called after that.
+ */
+public final class ParamConverters {
+
+    private static final Map<Class<?>, ParamConverter<?>> converters = new ConcurrentHashMap<Class<?>, ParamConverter<?>>();
+    private static volatile int version;  // Incremented by register(), to make the slots resolve their converter again.
+
+    static {
+        converters.put(String.class, new StringConverter());
+        converters.put(int.class, new IntConverter());
+        converters.put(Integer.class, converters.get(int.class));
+        converters.put(long.class, new LongConverter());
+        converters.put(Long.class, converters.get(long.class));
+        converters.put(short.class, new ShortConverter());
+        converters.put(Short.class, converters.get(short.class));
+        converters.put(byte.class, new ByteConverter());
+        converters.put(Byte.class, converters.get(byte.class));
+        converters.put(double.class, new DoubleConverter());
+        converters.put(Double.class, converters.get(double.class));
+        converters.put(float.class, new FloatConverter());
+        converters.put(Float.class, converters.get(float.class));
+        converters.put(boolean.class, new BooleanConverter());
+        converters.put(Boolean.class, converters.get(boolean.class));
+    }
+
+    private ParamConverters() {
+    }
+
+
+    /** Registers (or replaces) the converter of the given type.
+     * It is also used for the sub-types of type (if they have no converter of their own). */
+    public static synchronized <T> void register(Class<T> type, ParamConverter<T> converter) {
+        if (type.isPrimitive() || converters.get(type) instanceof BasicConverter) {
+            throw new IllegalArgumentException("The conversion of " + type + " is built in Navigator7 and cannot be replaced.");
+        }
+        converters.put(type, converter);
+        version++;
+    }
+
+    /** Returns the converter for the given field type, or null if there is none (then the type is probably an entity). */
+    public static ParamConverter<?> find(Class<?> type) {
+        ParamConverter<?> result = converters.get(type);
+        if (result != null) {
+            return result;
+        }
+        if (type.isEnum()) {
+            return EnumConverter.of(type);
+        }
+        // Converter registered for an ancestor (or interface) of type?
+        for (Map.Entry<Class<?>, ParamConverter<?>> entry : converters.entrySet()) {
+            if (!(entry.getValue() instanceof BasicConverter) && entry.getKey().isAssignableFrom(type)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    static int getVersion() {
+        return version;
+    }
+
+
+    /** Message for numbers that cannot be parsed (same as before the registry). */
+    static String invalidNumberProblem(String valueStr, ParamSlot slot) {
+        return invalidNumberProblem(valueStr, slot.getField().getName());
+    }
+
+    /** Same as invalidNumberProblem(String, ParamSlot), for the code generated by ParamBinderProcessor. */
+    public static String invalidNumberProblem(String valueStr, String fieldName) {
+        return "The value '"+valueStr+"' in URL is expected to be a number, but it seems not to be a valid number. (field " +fieldName+")";
+    }
+
+
+
+    ////////////////////////////////// Built-in converters //////////////////////////////////
+
+    /** Converter of a basic type (primitive, wrapper or String), that also assigns the field itself (without boxing for primitive fields). */
+    static abstract class BasicConverter<T> extends ParamConverter<T> {
+        /** Converts valueStr and assigns it to the field of the slot. Returns null if success, or the problem to report to the user. */
+        abstract String assign(Object target, ParamSlot slot, String valueStr);
+    }
+
+    static final class StringConverter extends BasicConverter<String> {
+        @Override
+        public String fromString(String valueStr) {
+            return valueStr;
+        }
+        @Override
+        String assign(Object target, ParamSlot slot, String valueStr) {
+            slot.set(target, valueStr);
+            return null;
+        }
+    }
+
+    /** Base for integer types: parsed without exception (and without boxing) as a long, then range checked. */
+    static abstract class IntegralConverter<T> extends BasicConverter<T> {
+        private final long min;
+        private final long max;
+
+        IntegralConverter(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        boolean isValid(String valueStr) {
+            if (!ParsedFragment.isLong(valueStr, 0, valueStr.length())) {
+                return false;
+            }
+            long value = ParsedFragment.parseLong(valueStr, 0, valueStr.length());
+            return value >= min && value <= max;
+        }
+
+        long parse(String valueStr) {
+            if (!isValid(valueStr)) {
+                throw new NumberFormatException("For input string: \"" + valueStr + "\"");
+            }
+            return ParsedFragment.parseLong(valueStr, 0, valueStr.length());
+        }
+
+        @Override
+        String assign(Object target, ParamSlot slot, String valueStr) {
+            if (!isValid(valueStr)) {
+                return invalidNumberProblem(valueStr, slot);
+            }
+            long value = ParsedFragment.parseLong(valueStr, 0, valueStr.length());
+            if (slot.isPrimitive()) {
+                assignPrimitive(target, slot, value);
+            } else {
+                slot.set(target, box(value));
+            }
+            return null;
+        }
+
+        abstract void assignPrimitive(Object target, ParamSlot slot, long value);
+        abstract T box(long value);
+    }
+
+    static final class LongConverter extends IntegralConverter<Long> {
+        LongConverter() { super(Long.MIN_VALUE, Long.MAX_VALUE); }
+        @Override public Long fromString(String valueStr) { return parse(valueStr); }
+        @Override void assignPrimitive(Object target, ParamSlot slot, long value) { slot.setLong(target, value); }
+        @Override Long box(long value) { return value; }
+    }
+
+    static final class IntConverter extends IntegralConverter<Integer> {
+        IntConverter() { super(Integer.MIN_VALUE, Integer.MAX_VALUE); }
+        @Override public Integer fromString(String valueStr) { return (int) parse(valueStr); }
+        @Override void assignPrimitive(Object target, ParamSlot slot, long value) { slot.setInt(target, (int) value); }
+        @Override Integer box(long value) { return (int) value; }
+    }
+
+    static final class ShortConverter extends IntegralConverter<Short> {
+        ShortConverter() { super(Short.MIN_VALUE, Short.MAX_VALUE); }
+        @Override public Short fromString(String valueStr) { return (short) parse(valueStr); }
+        @Override void assignPrimitive(Object target, ParamSlot slot, long value) { slot.setShort(target, (short) value); }
+        @Override Short box(long value) { return (short) value; }
+    }
+
+    static final class ByteConverter extends IntegralConverter<Byte> {
+        ByteConverter() { super(Byte.MIN_VALUE, Byte.MAX_VALUE); }
+        @Override public Byte fromString(String valueStr) { return (byte) parse(valueStr); }
+        @Override void assignPrimitive(Object target, ParamSlot slot, long value) { slot.setByte(target, (byte) value); }
+        @Override Byte box(long value) { return (byte) value; }
+    }
+
+    static final class DoubleConverter extends BasicConverter<Double> {
+        @Override
+        public Double fromString(String valueStr) {
+            return Double.valueOf(valueStr);
+        }
+        @Override
+        String assign(Object target, ParamSlot slot, String valueStr) {
+            double value;
+            try {
+                value = Double.parseDouble(valueStr);
+            } catch (NumberFormatException e) {
+                return invalidNumberProblem(valueStr, slot);
+            }
+            if (slot.isPrimitive()) {
+                slot.setDouble(target, value);
+            } else {
+                slot.set(target, value);
+            }
+            return null;
+        }
+    }
+
+    static final class FloatConverter extends BasicConverter<Float> {
+        @Override
+        public Float fromString(String valueStr) {
+            return Float.valueOf(valueStr);
+        }
+        @Override
+        String assign(Object target, ParamSlot slot, String valueStr) {
+            float value;
+            try {
+                value = Float.parseFloat(valueStr);
+            } catch (NumberFormatException e) {
+                return invalidNumberProblem(valueStr, slot);
+            }
+            if (slot.isPrimitive()) {
+                slot.setFloat(target, value);
+            } else {
+                slot.set(target, value);
+            }
+            return null;
+        }
+    }
+
+    static final class BooleanConverter extends BasicConverter<Boolean> {
+        @Override
+        public Boolean fromString(String valueStr) {
+            return Boolean.valueOf(valueStr);
+        }
+        @Override
+        String assign(Object target, ParamSlot slot, String valueStr) {
+            boolean value = Boolean.parseBoolean(valueStr);  // Never fails: anything else than "true" is false.
+            if (slot.isPrimitive()) {
+                slot.setBoolean(target, value);
+            } else {
+                slot.set(target, value);
+            }
+            return null;
+        }
+    }
+
+
+    /** Converts enums by name, through a table built once per enum type (instead of Enum.valueOf() and its exception when the name is invalid). */
+    static final class EnumConverter<E extends Enum<E>> extends ParamConverter<E> {
+
+        private static final ClassValue<EnumConverter<?>> ENUM_CONVERTERS = new ClassValue<EnumConverter<?>>() {
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            @Override
+            protected EnumConverter<?> computeValue(Class<?> type) {
+                return new EnumConverter(type);
+            }
+        };
+
+        static EnumConverter<?> of(Class<?> enumType) {
+            return ENUM_CONVERTERS.get(enumType);
+        }
+
+
+        private final Map<String, E> constants;
+
+        private EnumConverter(Class<E> enumType) {
+            E[] values = enumType.getEnumConstants();
+            Map<String, E> map = new HashMap<String, E>(values.length * 2);
+            for (E value : values) {
+                map.put(value.name(), value);
+            }
+            this.constants = map;
+        }
+
+        /** Returns null if there is no constant with that name. */
+        @Override
+        public E fromString(String valueStr) {
+            return constants.get(valueStr);
+        }
+
+        /** The name, as expected by fromString() (toString() may be overridden by the enum). */
+        @Override
+        public String toString(E value) {
+            return value.name();
+        }
+    }
+}
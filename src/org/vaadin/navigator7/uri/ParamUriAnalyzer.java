@@ -1,284 +1,367 @@
-package org.vaadin.navigator7.uri;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import org.vaadin.navigator7.NavigableApplication;
-
-import com.vaadin.ui.Component;
-import com.vaadin.ui.Window;
-
-/**
- * by default, parameters are separated by "/", and values are separated from keys by "=".
- *   e.g.: "userId=222/subject=Hello/How-Are-You".
- *         The last parameter "How-Are-You" has no key (name), but only a value.
- * You may change the separators through the properties paramSeparator and valueSeparator.
- *   For example, you may prefer "&" to separate parameters: "userId=222&subject=Hello&How-Are-You" 
- * 
- * 
- * Some parameters are position based. 
- *   e.g.: "1234/ABCD/5678" we have 3 parameters.
- *         Param at position 0 is "1234".
- *         Param at position 5 is null.
- *         
- * Some parameters are key based.
- *   e.g.: "id=987/k=abc", we have 2 parameters.
- *         The name of the first is "id" and its avlue is "978".
- *         The value of the parameter "z" is null.
- *         
- * Mixes are possible.
- *   e.g.: "246/AAA/userId=0231"
- *         The value of the parameter "userId" is "0231".
- *         The value at position 1 is "AAA".
- * 
- * Detected problem during parameters analysis are reported to the end user through the reportProblemWithFragment() method.
- * 
- * @author John Rizzo - BlackBeltFactory.com
- *
- */
-public class ParamUriAnalyzer extends UriAnalyzer {
-
-    protected String paramsSeparator = "/";   // e.g.: param1=value/param2=222/param3=ABC   Could be "&" also (change the value in the constructor of your descendant).
-    protected String valueSeparator = "=";    // e.g.: id=123  (key is id, value is 123)
-
-    
-    /** Return the amount of params */
-    public int countParams(String fragment) {
-        return fragment.split(paramsSeparator).length;
-    }
-    
-    /**  Returns the value of the parameter of the given key. Returns null if parameter not found.
-     * 
-     *   if fragment is "auctionid=123/brol=abc";
-     *    if key is auctionid, it returns "123"
-     *    if key is hello, it returns null
-     */
-    public String getString(String fragment, String key) {
-        String[] pairs = fragment.split(paramsSeparator);
-        for (String pair : pairs) {
-            String[] keyValue = pair.split(valueSeparator);
-            if (keyValue.length == 2 && keyValue[0].equals(key)) {
-                return keyValue[1];
-            }
-        }
-        return null;
-    }
-
-    /** Idem getString, and shows a message to the end-user if parameter is missing */
-    public String getMandatoryString(String fragment, String key) {
-        String result = getString(fragment, key);
-        if (result == null) {
-            reportProblemWithFragment("Parameter '"+key+"' not found in URL, while it is mandatory.", fragment);
-        }
-        return result;
-    }
-    
-
-    /**  Returns the value of the parameter at the given position. Returns null if parameter not found.
-     * Positions start counting at 0 (1st parameter is position 0).
-     * 
-     *   if fragment is "123/abc";
-     *    if key is auctionid, it returns "123"
-     *    if key is hello, it returns null
-     */
-    public String getString(String fragment, int position) {
-        if (fragment == null) {return null;}  // Not found...
-        String[] pairs = fragment.split(paramsSeparator);
-        if (pairs.length > position) {  // Ok, found.
-            return pairs[position];
-        } else { // Not so many parameters
-            return null;
-        }
-    }
-
-    /** Idem getString, and shows a message to the end-user if parameter is missing */
-    public String getMandatoryString(String fragment, int position) {
-        String result = getString(fragment, position);
-        if (result == null) {
-            reportProblemWithFragment("Parameter n°"+position+" not found in URL, while it is mandatory.", fragment);
-        }
-        return result;
-    }
-
-    
-    /** Returns a parameter which is supposed to be a long (a String in the uri converted into a long).
-     * This is typically the surrogate PK of a DB record (entity). 
-     * 
-     * Returns null if not found (no id specified in url, or invalid url)
-     * if fragment is "auctionid=123/brol=abc";
-     *    if paramName is auctionid, it returns 123
-     *    if paramName is hello, it returns null
-     *    if paramName is brol, it returns null (because it's not a number) and displays an error message to the user.
-     * if fragment is null, returns null */
-    public Long getLong(String fragment, String paramName) {
-        String value = getString(fragment, paramName);
-        if (value == null) {  // Not found
-            return null;
-        }
-        try {
-            Long result;
-            result = Long.parseLong(value);
-            return result;
-        } catch(Exception e) {
-            // parameter found, but it's not a number.
-            reportProblemWithFragment("Invalid parameter '"+paramName+"' in URL which is expected to be a number.", fragment);
-            return null;
-        }
-    }
-
-    /** Idem getLong, and shows a message to the end-user if parameter is missing */
-    public Long getMandatoryLong(String fragment, String key) {
-        Long result = getLong(fragment, key);
-        if (result == null) {
-            reportProblemWithFragment("Parameter '"+key+"' not found in URL, while it is mandatory.", fragment);
-        }
-        return result;
-    }
-
-    
-    /** Returns a parameter which is supposed to be a long (a String in the uri converted into a long).
-     * This is typically the surrogate PK of a DB record (entity). 
-     * 
-     * Returns null if not found (no id specified in url, or invalid url)
-     * if fragment is "auctionid=123/brol=abc";
-     *    if paramName is auctionid, it returns 123
-     *    if paramName is hello, it returns null
-     *    if paramName is brol, it returns null (because it's not a number) and displays an error message to the user.
-     * if fragment is null, returns null */
-    public Long getLong(String fragment, int position) {
-        String value = getString(fragment, position);
-        if (value == null) {  // Not found
-            return null;
-        }
-        try {
-            Long result;
-            result = Long.parseLong(value);
-            return result;
-        } catch(Exception e) {
-            // parameter found, but it's not a number.
-            reportProblemWithFragment("Invalid parameter '"+value+"' at position '"+position+"' in URL which is expected to be a number.", fragment);
-            return null;
-        }
-    }
-
-    /** Idem getLong, and shows a message to the end-user if parameter is missing */
-    public Long getMandatoryLong(String fragment, int position) {
-        Long result = getLong(fragment, position);
-        if (result == null) {
-            reportProblemWithFragment("Parameter n°"+position+"' not found in URL, while it is mandatory.", fragment);
-        }
-        return result;
-    }
-
-    
-    
-    
-
-    /** Easy method to build a fragment from key/values
-     * The result will probably be given as parameter to Navigator.setUriParams() by the page.
-     */
-    public String getFragment(String paramName, String paramValue) {
-        return (paramName  != null ? paramName  + valueSeparator + paramValue  : "");
-    }    
-
-    /** Easy method to build a fragment from key/values
-     * The result will probably be given as parameter to Navigator.setUriParams() by the page.
-     */
-    public String getFragment(String paramName, String paramValue, String paramName2, String paramValue2) {
-        return (paramName  != null ?                   paramName  + valueSeparator + paramValue  : "")
-             + (paramName2 != null ? paramsSeparator + paramName2 + valueSeparator + paramValue2 : "");
-    }
-
-    /** Easy method to build a fragment from key/values
-     * The result will probably be given as parameter to Navigator.setUriParams() by the page.
-     */
-    public String getFragment(String paramName, String paramValue, String paramName2, String paramValue2, String paramName3, String paramValue3) {
-        return (paramName  != null ?                   paramName  + valueSeparator + paramValue  : "")
-             + (paramName2 != null ? paramsSeparator + paramName2 + valueSeparator + paramValue2 : "")
-             + (paramName3 != null ? paramsSeparator + paramName3 + valueSeparator + paramValue3 : "");
-    }   
-    
-    public String getFragment(Class<? extends Component> pageClass, Object ... posParams) {
-        return ParamInjector.generateFragment(pageClass, posParams, null);   
-    }
-    
-    
-    /** Easy method to add a named parameter to an existing fragment
-     */
-    public String addFragment(String fragment, String paramName, String paramValue) {
-        String start;
-        if (fragment != null && !"".equals(fragment)) {  // There are previous values already.
-            start = fragment + paramsSeparator;   // We separate from the previous value with a "/"
-        } else {
-            start = "";
-        }
-        return start + paramName  + valueSeparator + paramValue;  // "..../name=value"
-    }    
-
-    /** Easy method to add a positional parameter to an existing fragment
-     */
-    public String addFragment(String fragment, String paramValue) {
-        String start;
-        if (fragment != null && !"".equals(fragment)) {  // There are previous values already.
-            start = fragment + paramsSeparator;   // We separate from the previous value with a "/"
-        } else {
-            start = "";
-        }
-        return start + paramValue;  // "..../value"
-    }    
-
-
-    
-
-
-
-    
-    
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    
-    /**  Utility String extraction method.
-     *   if fragment is "javacorefundamentals&brol=abc";
-     *   javacorefundamentals is returned
-     */
-    public List<String> extractNonPairStringFromUriFragment(String fragment) {
-        String[] pairs = fragment.split(paramsSeparator);
-        List<String> result = new ArrayList<String>();
-        for (String pair : pairs) {
-            if(!pair.contains(valueSeparator)){
-                result.add(pair);
-            }
-        }
-        return result;
-    }
-    
-
-    
-    /**
-     * Shows a notification to the user when he has set an illegal URI in the browser (invalid link or url hacking).
-     * This is convenient, to free the page from the responsibility of handling these low level fragment strings problems.
-     *
-     * Override this method to do another action.
-     * 
-     * @param problemDescription is not i18n, sorry. This framework should be enhanced if someone needs to support that.
-     */
-    public void reportProblemWithFragment(String problemDescription, String fragment) {
-        Window currentWindow = NavigableApplication.getCurrentNavigableAppLevelWindow();
-        currentWindow.showNotification(problemDescription + "<br/>", fragment, Window.Notification.TYPE_HUMANIZED_MESSAGE);
-    }
-
-    /** Perform last chance convertion
-     * Override me for application-wide convertion, as for example, a Lanugage enum (FR, EN,...) to be converted from String "FR" to the language enum value Language.FR
-     * If you need it for only one page, make your page implement TypeConvertor.
-     * The other direction of the convertion (object to string) is done with Object.toString().
-     * 
-     * @param fragment should be useless. May be used to display a complete error message. */
-    public Object convertSpecialType(Class<?> type, String valueStr, String fragment) {
-        reportProblemWithFragment("Invalid parameter value "+valueStr, fragment);
-        return null;  // Convertion failed, by default. Your method would probably try to actually convert first.
-    }
-    
-}
+package org.vaadin.navigator7.uri;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.vaadin.navigator7.NavigableApplication;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Window;
+
+/**
+ * by default, parameters are separated by "/", and values are separated from keys by "=".
+ *   e.g.: "userId=222/subject=Hello/How-Are-You".
+ *         The last parameter "How-Are-You" has no key (name), but only a value.
+ * You may change the separators through the properties paramSeparator and valueSeparator.
+ *   For example, you may prefer "&" to separate parameters: "userId=222&subject=Hello&How-Are-You" 
+ * 
+ * 
+ * Some parameters are position based. 
+ *   e.g.: "1234/ABCD/5678" we have 3 parameters.
+ *         Param at position 0 is "1234".
+ *         Param at position 5 is null.
+ *         
+ * Some parameters are key based.
+ *   e.g.: "id=987/k=abc", we have 2 parameters.
+ *         The name of the first is "id" and its avlue is "978".
+ *         The value of the parameter "z" is null.
+ *         
+ * Mixes are possible.
+ *   e.g.: "246/AAA/userId=0231"
+ *         The value of the parameter "userId" is "0231".
+ *         The value at position 1 is "AAA".
+ * 
+ * Detected problem during parameters analysis are reported to the end user through the reportProblemWithFragment() method.
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ *
+ */
+public class ParamUriAnalyzer extends UriAnalyzer {
+
+    protected String paramsSeparator = "/";   // e.g.: param1=value/param2=222/param3=ABC   Could be "&" also (change the value in the constructor of your descendant).
+    protected String valueSeparator = "=";    // e.g.: id=123  (key is id, value is 123)
+
+    
+    /** Analyzes the fragment once (as "123/abc/userId=222"), for all the subsequent lookups (getString(), getLong(),...)
+     * Returns null if fragment is null. */
+    public ParsedFragment parseFragment(String fragment) {
+        if (fragment == null) {
+            return null;
+        }
+        return ParsedFragment.parse(fragment, paramsSeparator, valueSeparator);
+    }
+
+    @Override
+    public FragmentWriter newFragmentWriter() {
+        return new FragmentWriter(paramsSeparator, valueSeparator);
+    }
+    
+    /** The parsed params are stored in the FragmentCache with the page class. */
+    @Override
+    protected ParsedFragment parseParams(String params) {
+        return parseFragment(params);
+    }
+    
+    /** Returns the params in a form where equivalent params give equal Strings (for the page cache keys, for example):
+     * trailing separators removed, and the named params at the end ("34/b=2/a=1/") sorted ("34/a=1/b=2").
+     * Named params mixed with positional ones are left in their order (it matters for positional lookups).
+     * The values captured by a route come first, as "{id=34}" (the route of a page gives them in a fixed order).
+     * Returns "" if there is no param. */
+    public String canonicalizeParams(ParsedFragment params) {
+        if (params == null || (params.size() == 0 && params.getCaptureCount() == 0)) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(params.getFragment().length());
+        for (int i = 0; i < params.getCaptureCount(); i++) {
+            sb.append('{').append(params.getCaptureName(i)).append('=').append(params.getCaptureValue(i)).append('}');
+        }
+        int size = params.size();
+        int firstPair = size;
+        for (int i = 0; i < size; i++) {
+            if (! params.isNonPair(i, valueSeparator)) {
+                firstPair = i;
+                break;
+            }
+        }
+        String[] segments = new String[size];
+        boolean sortable = true;
+        for (int i = 0; i < size; i++) {
+            segments[i] = params.getString(i);
+            if (i > firstPair && params.isNonPair(i, valueSeparator)) {
+                sortable = false;  // Positional value after a named one.
+            }
+        }
+        if (sortable && size - firstPair > 1) {
+            Arrays.sort(segments, firstPair, size);
+        }
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(paramsSeparator);
+            }
+            sb.append(segments[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Return the amount of params */
+    public int countParams(String fragment) {
+        return parseFragment(fragment).size();
+    }
+    
+    /**  Returns the value of the parameter of the given key. Returns null if parameter not found.
+     * 
+     *   if fragment is "auctionid=123/brol=abc";
+     *    if key is auctionid, it returns "123"
+     *    if key is hello, it returns null
+     */
+    public String getString(String fragment, String key) {
+        return getString(parseFragment(fragment), key);
+    }
+
+    /** Idem getString(String, String), on an already parsed fragment. */
+    public String getString(ParsedFragment fragment, String key) {
+        if (fragment == null) {return null;}  // Not found...
+        return fragment.getString(key);
+    }
+
+    /** Idem getString, and shows a message to the end-user if parameter is missing */
+    public String getMandatoryString(String fragment, String key) {
+        return getMandatoryString(parseFragment(fragment), key);
+    }
+    
+    public String getMandatoryString(ParsedFragment fragment, String key) {
+        String result = getString(fragment, key);
+        if (result == null) {
+            reportProblemWithFragment("Parameter '"+key+"' not found in URL, while it is mandatory.", toString(fragment));
+        }
+        return result;
+    }
+    
+
+    /**  Returns the value of the parameter at the given position. Returns null if parameter not found.
+     * Positions start counting at 0 (1st parameter is position 0).
+     * 
+     *   if fragment is "123/abc";
+     *    if key is auctionid, it returns "123"
+     *    if key is hello, it returns null
+     */
+    public String getString(String fragment, int position) {
+        return getString(parseFragment(fragment), position);
+    }
+
+    /** Idem getString(String, int), on an already parsed fragment. */
+    public String getString(ParsedFragment fragment, int position) {
+        if (fragment == null) {return null;}  // Not found...
+        return fragment.getString(position);
+    }
+
+    /** Idem getString, and shows a message to the end-user if parameter is missing */
+    public String getMandatoryString(String fragment, int position) {
+        return getMandatoryString(parseFragment(fragment), position);
+    }
+
+    public String getMandatoryString(ParsedFragment fragment, int position) {
+        String result = getString(fragment, position);
+        if (result == null) {
+            reportProblemWithFragment("Parameter n°"+position+" not found in URL, while it is mandatory.", toString(fragment));
+        }
+        return result;
+    }
+
+    
+    /** Returns a parameter which is supposed to be a long (a String in the uri converted into a long).
+     * This is typically the surrogate PK of a DB record (entity). 
+     * 
+     * Returns null if not found (no id specified in url, or invalid url)
+     * if fragment is "auctionid=123/brol=abc";
+     *    if paramName is auctionid, it returns 123
+     *    if paramName is hello, it returns null
+     *    if paramName is brol, it returns null (because it's not a number) and displays an error message to the user.
+     * if fragment is null, returns null */
+    public Long getLong(String fragment, String paramName) {
+        return getLong(parseFragment(fragment), paramName);
+    }
+
+    /** Idem getLong(String, String), on an already parsed fragment. The number is parsed from the fragment chars (no substring). */
+    public Long getLong(ParsedFragment fragment, String paramName) {
+        if (fragment == null || !fragment.containsName(paramName)) {  // Not found
+            return null;
+        }
+        if (!fragment.isLong(paramName)) {
+            // parameter found, but it's not a number.
+            reportProblemWithFragment("Invalid parameter '"+paramName+"' in URL which is expected to be a number.", fragment.getFragment());
+            return null;
+        }
+        return fragment.getLongValue(paramName);
+    }
+
+    /** Idem getLong, and shows a message to the end-user if parameter is missing */
+    public Long getMandatoryLong(String fragment, String key) {
+        return getMandatoryLong(parseFragment(fragment), key);
+    }
+
+    public Long getMandatoryLong(ParsedFragment fragment, String key) {
+        Long result = getLong(fragment, key);
+        if (result == null) {
+            reportProblemWithFragment("Parameter '"+key+"' not found in URL, while it is mandatory.", toString(fragment));
+        }
+        return result;
+    }
+
+    
+    /** Returns a parameter which is supposed to be a long (a String in the uri converted into a long).
+     * This is typically the surrogate PK of a DB record (entity). 
+     * 
+     * Returns null if not found (no id specified in url, or invalid url)
+     * if fragment is "auctionid=123/brol=abc";
+     *    if paramName is auctionid, it returns 123
+     *    if paramName is hello, it returns null
+     *    if paramName is brol, it returns null (because it's not a number) and displays an error message to the user.
+     * if fragment is null, returns null */
+    public Long getLong(String fragment, int position) {
+        return getLong(parseFragment(fragment), position);
+    }
+
+    /** Idem getLong(String, int), on an already parsed fragment. The number is parsed from the fragment chars (no substring). */
+    public Long getLong(ParsedFragment fragment, int position) {
+        if (fragment == null || position >= fragment.size()) {  // Not found
+            return null;
+        }
+        if (!fragment.isLong(position)) {
+            // parameter found, but it's not a number.
+            reportProblemWithFragment("Invalid parameter '"+fragment.getString(position)+"' at position '"+position+"' in URL which is expected to be a number.", fragment.getFragment());
+            return null;
+        }
+        return fragment.getLongValue(position);
+    }
+
+    /** Idem getLong, and shows a message to the end-user if parameter is missing */
+    public Long getMandatoryLong(String fragment, int position) {
+        return getMandatoryLong(parseFragment(fragment), position);
+    }
+
+    public Long getMandatoryLong(ParsedFragment fragment, int position) {
+        Long result = getLong(fragment, position);
+        if (result == null) {
+            reportProblemWithFragment("Parameter n°"+position+"' not found in URL, while it is mandatory.", toString(fragment));
+        }
+        return result;
+    }
+
+    private static String toString(ParsedFragment fragment) {
+        return fragment == null ? null : fragment.getFragment();
+    }
+    
+    
+    
+
+    /** Easy method to build a fragment from key/values
+     * The result will probably be given as parameter to Navigator.setUriParams() by the page.
+     */
+    public String getFragment(String paramName, String paramValue) {
+        return (paramName  != null ? paramName  + valueSeparator + paramValue  : "");
+    }    
+
+    /** Easy method to build a fragment from key/values
+     * The result will probably be given as parameter to Navigator.setUriParams() by the page.
+     */
+    public String getFragment(String paramName, String paramValue, String paramName2, String paramValue2) {
+        return (paramName  != null ?                   paramName  + valueSeparator + paramValue  : "")
+             + (paramName2 != null ? paramsSeparator + paramName2 + valueSeparator + paramValue2 : "");
+    }
+
+    /** Easy method to build a fragment from key/values
+     * The result will probably be given as parameter to Navigator.setUriParams() by the page.
+     */
+    public String getFragment(String paramName, String paramValue, String paramName2, String paramValue2, String paramName3, String paramValue3) {
+        return (paramName  != null ?                   paramName  + valueSeparator + paramValue  : "")
+             + (paramName2 != null ? paramsSeparator + paramName2 + valueSeparator + paramValue2 : "")
+             + (paramName3 != null ? paramsSeparator + paramName3 + valueSeparator + paramValue3 : "");
+    }   
+    
+    public String getFragment(Class<? extends Component> pageClass, Object ... posParams) {
+        return ParamInjector.generateFragment(pageClass, posParams, null);   
+    }
+    
+    
+    /** Easy method to add a named parameter to an existing fragment
+     */
+    public String addFragment(String fragment, String paramName, String paramValue) {
+        String start;
+        if (fragment != null && !"".equals(fragment)) {  // There are previous values already.
+            start = fragment + paramsSeparator;   // We separate from the previous value with a "/"
+        } else {
+            start = "";
+        }
+        return start + paramName  + valueSeparator + paramValue;  // "..../name=value"
+    }    
+
+    /** Easy method to add a positional parameter to an existing fragment
+     */
+    public String addFragment(String fragment, String paramValue) {
+        String start;
+        if (fragment != null && !"".equals(fragment)) {  // There are previous values already.
+            start = fragment + paramsSeparator;   // We separate from the previous value with a "/"
+        } else {
+            start = "";
+        }
+        return start + paramValue;  // "..../value"
+    }    
+
+
+    
+
+
+
+    
+    
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    
+    /**  Utility String extraction method.
+     *   if fragment is "javacorefundamentals&brol=abc";
+     *   javacorefundamentals is returned
+     */
+    public List<String> extractNonPairStringFromUriFragment(String fragment) {
+        ParsedFragment parsedFragment = parseFragment(fragment);
+        List<String> result = new ArrayList<String>();
+        for (int pos = 0; pos < parsedFragment.size(); pos++) {
+            if (parsedFragment.isNonPair(pos, valueSeparator)) {
+                result.add(parsedFragment.getString(pos));
+            }
+        }
+        return result;
+    }
+    
+
+    
+    /**
+     * Shows a notification to the user when he has set an illegal URI in the browser (invalid link or url hacking).
+     * This is convenient, to free the page from the responsibility of handling these low level fragment strings problems.
+     *
+     * Override this method to do another action.
+     * 
+     * @param problemDescription is not i18n, sorry. This framework should be enhanced if someone needs to support that.
+     */
+    public void reportProblemWithFragment(String problemDescription, String fragment) {
+        Window currentWindow = NavigableApplication.getCurrentNavigableAppLevelWindow();
+        currentWindow.showNotification(problemDescription + "<br/>", fragment, Window.Notification.TYPE_HUMANIZED_MESSAGE);
+    }
+
+    /** Perform last chance convertion
+     * Override me for application-wide convertion of a type that has no ParamConverter (see ParamConverters for the order).
+     * Enums are converted before (by their name): to convert a Language enum (FR, EN,...) your way, register a ParamConverter for Language.
+     * If you need it for only one page, make your page implement TypeConvertor.
+     * The other direction of the convertion (object to string) is done with Object.toString().
+     * 
+     * @param fragment should be useless. May be used to display a complete error message. */
+    public Object convertSpecialType(Class<?> type, String valueStr, String fragment) {
+        reportProblemWithFragment("Invalid parameter value "+valueStr, fragment);
+        return null;  // Convertion failed, by default. Your method would probably try to actually convert first.
+    }
+    
+}
@@ -0,0 +1,380 @@
+package org.vaadin.navigator7.uri;
+
+import java.io.Serializable;
+
+/** Parameters part of an URI fragment (as "34/AAAA/namedValue=CCCC"), analyzed in a single pass.
+ *
+ * ParamUriAnalyzer.parseFragment() builds one instance per navigation. All the lookups (by position or by name)
+ * are then done on the offsets computed here, instead of splitting the fragment again for each parameter.
+ *
+ * The rules are the same as the String.split() based implementation that ParamUriAnalyzer used to have:
+ * - segments are separated by the paramsSeparator, trailing empty segments are ignored ("a/b//" has 2 segments, "a//b" has 3);
+ * - a segment is a named parameter if it is made of exactly one name and one (non empty) value, as "userId=123".
+ *   "a=b=c" and "userId=" are no named parameters (but they are still positional ones).
+ *
+ * Instances are immutable and can be shared between threads (and sessions).
+ *
+ * @See ParamUriAnalyzer for the description of the fragment format.
+ */
+public final class ParsedFragment implements Serializable {
+
+    private final String fragment;
+    private final int size;             // Amount of segments (positional parameters).
+    private final int[] segmentStarts;  // Index = position. Offsets in fragment. Arrays may be longer than size.
+    private final int[] segmentEnds;    // Exclusive.
+
+    // Named segments (the small name -> segment index).
+    private final int namedCount;
+    private final int[] nameHashes;     // Same hash as String.hashCode() of the name, to compare without allocating the name.
+    private final int[] namedSegments;  // Index of the segment in segmentStarts/segmentEnds.
+    private final int[] nameEnds;       // Exclusive. The name starts at the segment start.
+    private final int[] valueStarts;    // The value ends at the end of the segment, or before trailing valueSeparators ("a=b=" is "a" -> "b", as String.split did)
+    private final int[] valueEnds;
+
+    // Lazily extracted Strings. Racy but harmless (Strings are immutable, we may just extract twice).
+    private final String[] segmentStrings;
+    private final String[] valueStrings;
+
+    // Values captured by a route (see Route), seen as named parameters (before the ones of the fragment). Null if none.
+    private final String[] captureNames;
+    private final String[] captureValues;
+
+
+    /** Does the job. Use ParamUriAnalyzer.parseFragment() instead of calling this directly, it knows the separators. */
+    public static ParsedFragment parse(String fragment, String paramsSeparator, String valueSeparator) {
+        if (fragment == null) {
+            throw new IllegalArgumentException("fragment should not be null");
+        }
+        if (paramsSeparator.length() == 0 || valueSeparator.length() == 0) {
+            throw new IllegalArgumentException("Separators should not be empty");
+        }
+        return new ParsedFragment(fragment, paramsSeparator, valueSeparator);
+    }
+
+
+    private ParsedFragment(String fragment, String paramsSeparator, String valueSeparator) {
+        this.fragment = fragment;
+        int length = fragment.length();
+        int sepLength = paramsSeparator.length();
+        int valueSepLength = valueSeparator.length();
+
+        // Arrays grow if needed. A fragment has rarely more than a handful of parameters.
+        int capacity = 8;
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+        int[] hashes = new int[capacity];
+        int[] named = new int[capacity];
+        int[] nEnds = new int[capacity];
+        int[] vStarts = new int[capacity];
+        int[] vEnds = new int[capacity];
+        int count = 0;
+        int nCount = 0;
+        int nonEmptyCount = 0;  // Trailing empty segments are dropped (as String.split does).
+
+        int segmentStart = 0;
+        boolean last = false;
+        while (!last) {
+            int end = fragment.indexOf(paramsSeparator, segmentStart);
+            if (end < 0) {
+                end = length;
+                last = true;
+            }
+            if (count == capacity) {
+                capacity *= 2;
+                starts = grow(starts, capacity);   ends = grow(ends, capacity);
+                hashes = grow(hashes, capacity);   named = grow(named, capacity);
+                nEnds = grow(nEnds, capacity);     vStarts = grow(vStarts, capacity);
+                vEnds = grow(vEnds, capacity);
+            }
+            starts[count] = segmentStart;
+            ends[count] = end;
+
+            // name=value ?
+            int hash = 0;
+            int eq = -1;
+            for (int c = segmentStart; c < end; c++) {
+                if (fragment.startsWith(valueSeparator, c)) {
+                    eq = c;
+                    break;
+                }
+                hash = 31 * hash + fragment.charAt(c);  // Same as String.hashCode() of the name.
+            }
+            if (eq >= 0) {
+                int vStart = eq + valueSepLength;
+                int vEnd = end;
+                while (vEnd - valueSepLength >= vStart && fragment.startsWith(valueSeparator, vEnd - valueSepLength)) {
+                    vEnd -= valueSepLength;  // "a=b==" -> value "b".
+                }
+                if (vEnd > vStart && indexOf(fragment, valueSeparator, vStart, vEnd) < 0) {  // Exactly one name and one value.
+                    hashes[nCount] = hash;
+                    named[nCount] = count;
+                    nEnds[nCount] = eq;
+                    vStarts[nCount] = vStart;
+                    vEnds[nCount] = vEnd;
+                    nCount++;
+                }
+            }
+
+            count++;
+            if (end > segmentStart) {
+                nonEmptyCount = count;
+            }
+            segmentStart = end + sepLength;
+        }
+
+        // "" (no separator at all) is one empty segment. "/" or "//" are no segment at all.
+        this.size = count == 1 ? 1 : nonEmptyCount;
+        this.segmentStarts = starts;
+        this.segmentEnds = ends;
+        this.namedCount = nCount;
+        this.nameHashes = hashes;
+        this.namedSegments = named;
+        this.nameEnds = nEnds;
+        this.valueStarts = vStarts;
+        this.valueEnds = vEnds;
+        this.segmentStrings = new String[size];
+        this.valueStrings = new String[nCount];
+        this.captureNames = null;
+        this.captureValues = null;
+    }
+
+    /** Same parameters as base (none if null), plus the captures. */
+    private ParsedFragment(ParsedFragment base, String[] captureNames, String[] captureValues) {
+        if (base != null) {
+            this.fragment = base.fragment;
+            this.size = base.size;
+            this.segmentStarts = base.segmentStarts;
+            this.segmentEnds = base.segmentEnds;
+            this.namedCount = base.namedCount;
+            this.nameHashes = base.nameHashes;
+            this.namedSegments = base.namedSegments;
+            this.nameEnds = base.nameEnds;
+            this.valueStarts = base.valueStarts;
+            this.valueEnds = base.valueEnds;
+            this.segmentStrings = base.segmentStrings;
+            this.valueStrings = base.valueStrings;
+        } else {
+            int[] empty = new int[0];
+            this.fragment = "";
+            this.size = 0;
+            this.segmentStarts = this.segmentEnds = empty;
+            this.namedCount = 0;
+            this.nameHashes = this.namedSegments = this.nameEnds = this.valueStarts = this.valueEnds = empty;
+            this.segmentStrings = this.valueStrings = new String[0];
+        }
+        this.captureNames = captureNames;
+        this.captureValues = captureValues;
+    }
+
+    /** Adds the values captured by a route ("product/{id:long}/reviews") to the parameters that follow the route in the fragment (null if none).
+     * The captures are seen as named parameters, and win over named parameters of the fragment with the same name. */
+    public static ParsedFragment withCaptures(ParsedFragment params, String[] captureNames, String[] captureValues) {
+        if (captureNames.length == 0 && params != null) {
+            return params;
+        }
+        return new ParsedFragment(params, captureNames, captureValues);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] result = new int[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+
+    /** The fragment that has been parsed (as given). */
+    public String getFragment() {
+        return fragment;
+    }
+
+    /** Amount of (positional) parameters. Named parameters are counted too (they also have a position). */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the parameter at the given position (first = 0), including the name if it is a named parameter. Null if not found. */
+    public String getString(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        String result = segmentStrings[position];
+        if (result == null) {
+            result = fragment.substring(segmentStarts[position], segmentEnds[position]);
+            segmentStrings[position] = result;
+        }
+        return result;
+    }
+
+    /** Returns the value of the parameter with the given name. Null if not found. */
+    public String getString(String name) {
+        int capture = indexOfCapture(name);
+        if (capture >= 0) {
+            return captureValues[capture];
+        }
+        int index = indexOfName(name);
+        if (index < 0) {
+            return null;
+        }
+        String result = valueStrings[index];
+        if (result == null) {
+            result = fragment.substring(valueStarts[index], valueEnds[index]);
+            valueStrings[index] = result;
+        }
+        return result;
+    }
+
+    /** true if the segment at that position contains no valueSeparator, as "javacorefundamentals" (and not "brol=abc") */
+    public boolean isNonPair(int position, String valueSeparator) {
+        return indexOf(fragment, valueSeparator, segmentStarts[position], segmentEnds[position]) < 0;
+    }
+
+    /** true if there is a named parameter with that name. */
+    public boolean containsName(String name) {
+        return indexOfCapture(name) >= 0 || indexOfName(name) >= 0;
+    }
+
+    /** true if there is a parameter at that position and it is a valid long number. */
+    public boolean isLong(int position) {
+        return position >= 0 && position < size
+            && isLong(fragment, segmentStarts[position], segmentEnds[position]);
+    }
+
+    /** Call isLong(position) before. */
+    public long getLongValue(int position) {
+        return parseLong(fragment, segmentStarts[position], segmentEnds[position]);
+    }
+
+    /** true if there is a parameter with that name and its value is a valid long number. */
+    public boolean isLong(String name) {
+        int capture = indexOfCapture(name);
+        if (capture >= 0) {
+            return isLong(captureValues[capture], 0, captureValues[capture].length());
+        }
+        int index = indexOfName(name);
+        return index >= 0 && isLong(fragment, valueStarts[index], valueEnds[index]);
+    }
+
+    /** Call isLong(name) before. */
+    public long getLongValue(String name) {
+        int capture = indexOfCapture(name);
+        if (capture >= 0) {
+            return parseLong(captureValues[capture], 0, captureValues[capture].length());
+        }
+        int index = indexOfName(name);
+        return parseLong(fragment, valueStarts[index], valueEnds[index]);
+    }
+
+    /** Amount of values captured by a route (see withCaptures()). 0 if none. */
+    public int getCaptureCount() {
+        return captureNames == null ? 0 : captureNames.length;
+    }
+
+    /** Name of the capture at that index (in the order of the route). */
+    public String getCaptureName(int index) {
+        return captureNames[index];
+    }
+
+    /** Value (as in the URI) of the capture at that index (in the order of the route). */
+    public String getCaptureValue(int index) {
+        return captureValues[index];
+    }
+
+
+    @Override
+    public String toString() {
+        if (captureNames == null) {
+            return fragment;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < captureNames.length; i++) {
+            sb.append('{').append(captureNames[i]).append('=').append(captureValues[i]).append('}');
+        }
+        return sb.append(fragment).toString();
+    }
+
+
+    /** Index in the capture arrays, -1 if not found. */
+    private int indexOfCapture(String name) {
+        if (captureNames != null) {
+            for (int i = 0; i < captureNames.length; i++) {
+                if (captureNames[i].equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+
+    /** Index in the named arrays, -1 if not found. The first parameter with that name wins. */
+    private int indexOfName(String name) {
+        int hash = name.hashCode();
+        int nameLength = name.length();
+        for (int i = 0; i < namedCount; i++) {
+            int start = segmentStarts[namedSegments[i]];
+            if (nameHashes[i] == hash && nameEnds[i] - start == nameLength
+                    && fragment.regionMatches(start, name, 0, nameLength)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    private static int indexOf(String s, String searched, int from, int to) {
+        int index = s.indexOf(searched, from);
+        return (index >= 0 && index + searched.length() <= to) ? index : -1;
+    }
+
+
+    /////////////////////////////// Number parsing on char ranges (no substring, no exception) ///////////////////////////////
+
+    /** Same rules as Long.parseLong() (optional sign, then decimal digits, no overflow), restricted to ASCII digits. */
+    public static boolean isLong(CharSequence s, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        boolean negative = false;
+        int i = start;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) {
+                return false;  // Just a sign.
+            }
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;  // Accumulated negatively (as Long.parseLong does), to reach Long.MIN_VALUE.
+        for (; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        return true;
+    }
+
+    /** Call isLong() before: no validation done here. */
+    public static long parseLong(CharSequence s, int start, int end) {
+        boolean negative = false;
+        int i = start;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            result = result * 10 - (s.charAt(i) - '0');
+        }
+        return negative ? result : -result;
+    }
+
+}
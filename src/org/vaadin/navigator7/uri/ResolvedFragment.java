@@ -0,0 +1,62 @@
+package org.vaadin.navigator7.uri;
+
+import java.io.Serializable;
+
+import com.vaadin.ui.Component;
+
+/** Result of the analysis of a whole URI fragment (as "!ProductA/34/namedValue=CCCC"): the page class and its parameters.
+ * Produced by UriAnalyzer.resolveFragment(), and shared between sessions through the FragmentCache => immutable.
+ */
+public final class ResolvedFragment implements Serializable {
+
+    private final Class<? extends Component> pageClass;
+    private final String params;
+    private final ParsedFragment parsedParams;
+    private final String problem;
+    private final RouteMatch routeMatch;
+
+    /**
+     * @param pageClass the page to display (the home page if the fragment contains no (valid) page name).
+     * @param params the params part of the fragment (as "34/namedValue=CCCC"). Maybe null.
+     * @param parsedParams params, parsed. Null if no param, or if the UriAnalyzer does not parse params.
+     * @param problem message to show to the user (i.e. invalid page name), null if no problem. */
+    public ResolvedFragment(Class<? extends Component> pageClass, String params, ParsedFragment parsedParams, String problem) {
+        this(pageClass, params, parsedParams, problem, null);
+    }
+
+    /** @param routeMatch non null if the fragment has been matched by the route of the page (then params are the params after the route). */
+    public ResolvedFragment(Class<? extends Component> pageClass, String params, ParsedFragment parsedParams, String problem, RouteMatch routeMatch) {
+        this.pageClass = pageClass;
+        this.params = params;
+        this.parsedParams = parsedParams;
+        this.problem = problem;
+        this.routeMatch = routeMatch;
+    }
+
+    public Class<? extends Component> getPageClass() {
+        return pageClass;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    public ParsedFragment getParsedParams() {
+        return parsedParams;
+    }
+
+    /** Non null if the fragment contained an unknown page name. The Navigator shows it to the user (for each navigation to that fragment, even if it comes from the cache). */
+    public String getProblem() {
+        return problem;
+    }
+
+    /** The route that matched the fragment, with the typed captured values (as getCapture("id") -> 34L). Null if the page has been found by its name. */
+    public RouteMatch getRouteMatch() {
+        return routeMatch;
+    }
+
+    @Override
+    public String toString() {
+        return "ResolvedFragment[" + pageClass + ", " + params + (problem != null ? ", " + problem : "") + (routeMatch != null ? ", " + routeMatch.getRoute() : "") + "]";
+    }
+}
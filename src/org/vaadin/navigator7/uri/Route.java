@@ -0,0 +1,186 @@
+package org.vaadin.navigator7.uri;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** A path pattern declared with @Page(route="product/{id:long}/reviews"), compiled.
+ * 
+ * Segments are separated by "/". A segment is either a literal (matched case insensitively, as page names) or a capture "{name}" / "{name:type}".
+ * Types: string (default), long, int. The first segment must be a literal.
+ * After the route, the fragment may contain the usual params of the page: "product/34/reviews/page=2" has the param "page=2".
+ * 
+ * The captures are given to the page as named params: @Param(name="id") long productId is injected with 34.
+ * 
+ * Immutable.
+ */
+public final class Route implements Serializable {
+
+    /** Type of a capture. */
+    public static enum CaptureType {
+        // Order = matching priority when several captures are possible at the same place in the RouteTrie (the most specific first).
+        INT, LONG, STRING;
+
+        /** true if the characters of s from start to end are a valid value for this type (never for an empty segment). */
+        public boolean accepts(CharSequence s, int start, int end) {
+            if (end <= start) {
+                return false;
+            }
+            switch (this) {
+            case INT:
+                if (!ParsedFragment.isLong(s, start, end)) {
+                    return false;
+                }
+                long value = ParsedFragment.parseLong(s, start, end);
+                return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+            case LONG:
+                return ParsedFragment.isLong(s, start, end);
+            default:
+                return true;
+            }
+        }
+
+        /** Converts a value accepted by accepts(). */
+        public Object convert(String value) {
+            switch (this) {
+            case INT:   return (int) ParsedFragment.parseLong(value, 0, value.length());
+            case LONG:  return ParsedFragment.parseLong(value, 0, value.length());
+            default:    return value;
+            }
+        }
+    }
+
+
+    private final String pattern;
+    private final String[] literals;         // Index = segment. Null for captures.
+    private final String[] captureNames;     // Index = segment. Null for literals.
+    private final CaptureType[] captureTypes;
+    private final int captureCount;
+
+
+    /** @throws IllegalArgumentException if the pattern is not valid. */
+    public static Route parse(String pattern) {
+        return new Route(pattern);
+    }
+
+    private Route(String pattern) {
+        this.pattern = pattern;
+        String[] segments = pattern.split("/", -1);
+        literals = new String[segments.length];
+        captureNames = new String[segments.length];
+        captureTypes = new CaptureType[segments.length];
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.length() == 0) {
+                throw new IllegalArgumentException("Invalid route [" + pattern + "]: empty segment.");
+            }
+            if (segment.startsWith("{")) {
+                if (i == 0) {
+                    throw new IllegalArgumentException("Invalid route [" + pattern + "]: the first segment must be a literal (as \"product\"), not a capture.");
+                }
+                if (!segment.endsWith("}")) {
+                    throw new IllegalArgumentException("Invalid route [" + pattern + "]: capture [" + segment + "] should end with '}'.");
+                }
+                String capture = segment.substring(1, segment.length() - 1);
+                int colon = capture.indexOf(':');
+                String name = colon < 0 ? capture : capture.substring(0, colon);
+                String type = colon < 0 ? "string" : capture.substring(colon + 1);
+                if (name.length() == 0) {
+                    throw new IllegalArgumentException("Invalid route [" + pattern + "]: capture [" + segment + "] has no name.");
+                }
+                if (names.contains(name)) {
+                    throw new IllegalArgumentException("Invalid route [" + pattern + "]: two captures are named [" + name + "].");
+                }
+                try {
+                    captureTypes[i] = CaptureType.valueOf(type.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid route [" + pattern + "]: unknown type [" + type + "] for capture [" + name + "]. Use string, long or int.");
+                }
+                captureNames[i] = name;
+                names.add(name);
+            } else {
+                if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0 || segment.indexOf('=') >= 0) {
+                    throw new IllegalArgumentException("Invalid route [" + pattern + "]: literal segment [" + segment + "] cannot contain '{', '}' or '='.");
+                }
+                literals[i] = segment;
+            }
+        }
+        captureCount = names.size();
+    }
+
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /** Amount of segments (literals and captures). */
+    public int getSegmentCount() {
+        return literals.length;
+    }
+
+    /** The literal of that segment, or null if it is a capture. */
+    public String getLiteral(int segment) {
+        return literals[segment];
+    }
+
+    /** The name of the capture of that segment, or null if it is a literal. */
+    public String getCaptureName(int segment) {
+        return captureNames[segment];
+    }
+
+    public CaptureType getCaptureType(int segment) {
+        return captureTypes[segment];
+    }
+
+    public int getCaptureCount() {
+        return captureCount;
+    }
+
+    public boolean hasCapture(String name) {
+        for (String captureName : captureNames) {
+            if (name.equals(captureName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** true if namedParams gives a (non null) value for each capture, so the route can be written by write(). */
+    public boolean canWrite(Map<String, ?> namedParams) {
+        for (String captureName : captureNames) {
+            if (captureName != null && (namedParams == null || namedParams.get(captureName) == null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Writes the route, with the captures taken from namedParams (call canWrite() before), as "product/34/reviews".
+     * @throws RuntimeException if a value does not fit the type of its capture. */
+    public String write(Map<String, ?> namedParams) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 16);
+        for (int i = 0; i < literals.length; i++) {
+            if (i > 0) {
+                sb.append('/');
+            }
+            if (literals[i] != null) {
+                sb.append(literals[i]);
+            } else {
+                String value = namedParams.get(captureNames[i]).toString();
+                if (!captureTypes[i].accepts(value, 0, value.length()) || value.indexOf('/') >= 0) {
+                    throw new RuntimeException("Value '" + value + "' given for capture '" + captureNames[i] + "' does not match the route [" + pattern + "]."
+                            + " It's probably a bug in your code (when creating a link to that page?).");
+                }
+                sb.append(value);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,83 @@
+package org.vaadin.navigator7.uri;
+
+import java.io.Serializable;
+
+import com.vaadin.ui.Component;
+
+/** Result of RouteTrie.match(): the page whose route matches a fragment, the values captured by the route and the remaining params.
+ * For "product/34/reviews/page=2" and the route "product/{id:long}/reviews": capture id = 34L (typed), params = "page=2".
+ * 
+ * Immutable (cached with the ResolvedFragment).
+ */
+public final class RouteMatch implements Serializable {
+
+    private final Class<? extends Component> pageClass;
+    private final Route route;
+    private final String[] captureNames;
+    private final String[] captureStrings;
+    private final Object[] captureValues;  // Typed (Long for {x:long}, ...).
+    private final String params;           // After the route. Null if none.
+
+    RouteMatch(Class<? extends Component> pageClass, Route route, String[] captureNames, String[] captureStrings, Object[] captureValues, String params) {
+        this.pageClass = pageClass;
+        this.route = route;
+        this.captureNames = captureNames;
+        this.captureStrings = captureStrings;
+        this.captureValues = captureValues;
+        this.params = params;
+    }
+
+    public Class<? extends Component> getPageClass() {
+        return pageClass;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    /** The params after the route (as "page=2"), or null. */
+    public String getParams() {
+        return params;
+    }
+
+    public int getCaptureCount() {
+        return captureNames.length;
+    }
+
+    public String getCaptureName(int index) {
+        return captureNames[index];
+    }
+
+    /** The captured value, as found in the fragment. */
+    public String getCaptureString(int index) {
+        return captureStrings[index];
+    }
+
+    /** The value of the capture with that name, converted to the type of the capture (Long, Integer or String). Null if the route has no such capture. */
+    public Object getCapture(String name) {
+        for (int i = 0; i < captureNames.length; i++) {
+            if (captureNames[i].equals(name)) {
+                return captureValues[i];
+            }
+        }
+        return null;
+    }
+
+    /** Names and values of the captures as strings, for ParsedFragment.withCaptures(). */
+    String[] getCaptureNames() {
+        return captureNames;
+    }
+
+    String[] getCaptureStrings() {
+        return captureStrings;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RouteMatch[").append(pageClass.getSimpleName()).append(", ").append(route);
+        for (int i = 0; i < captureNames.length; i++) {
+            sb.append(", ").append(captureNames[i]).append('=').append(captureValues[i]);
+        }
+        return sb.append(params != null ? ", params=" + params : "").append("]").toString();
+    }
+}
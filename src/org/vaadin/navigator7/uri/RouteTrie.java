@@ -0,0 +1,172 @@
+package org.vaadin.navigator7.uri;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.vaadin.ui.Component;
+
+/** The routes of the registered pages (see Route), compiled in a trie of segments: a fragment is matched in one walk,
+ * whatever the amount of routes, instead of trying each pattern one after the other.
+ * 
+ * At each segment, the literal children are tried first (case insensitively), then the captures from the most specific type to the least (int, long, string).
+ * The walk backtracks if a branch does not lead to a complete route, and the longest route wins:
+ * with "product/{id:long}" and "product/{id:long}/reviews", "product/34/reviews" goes to the second one and "product/34/photos" to the first one (with the param "photos").
+ * 
+ * Built by RouteTable when pages are registered. Immutable (thread safe).
+ */
+public final class RouteTrie implements Serializable {
+
+    private static final Route.CaptureType[] CAPTURE_TYPES = Route.CaptureType.values();  // values() clones the array at each call.
+
+    public static final RouteTrie EMPTY = new RouteTrie(new Route[0], noPageClasses());
+
+    private final Node root = new Node();
+    private final Route[] routes;  // Index = page id, null if the page has no route.
+    private final Class<? extends Component>[] pageClasses;
+    private final int maxDepth;
+
+
+    /** @param routes index = page id (null if the page has no route).
+     * @throws IllegalArgumentException if two routes match the same fragments. */
+    public RouteTrie(Route[] routes, Class<? extends Component>[] pageClasses) {
+        this.routes = routes;
+        this.pageClasses = pageClasses;
+        int depth = 0;
+        for (int id = 0; id < routes.length; id++) {
+            Route route = routes[id];
+            if (route == null) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < route.getSegmentCount(); i++) {
+                node = route.getLiteral(i) != null ? node.literalChild(route.getLiteral(i)) : node.captureChild(route.getCaptureType(i));
+            }
+            if (node.pageId >= 0) {
+                throw new IllegalArgumentException("Route [" + route + "] of page [" + pageClasses[id].getName() + "] matches the same fragments as the route ["
+                        + routes[node.pageId] + "] of page [" + pageClasses[node.pageId].getName() + "].");
+            }
+            node.pageId = id;
+            depth = Math.max(depth, route.getSegmentCount());
+        }
+        this.maxDepth = depth;
+    }
+
+    /** Typed empty array (an array of a generic type cannot be created). */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Component>[] noPageClasses() {
+        return (Class<? extends Component>[]) new Class<?>[0];
+    }
+
+
+    /** true if no page has a route (matching can be skipped). */
+    public boolean isEmpty() {
+        return maxDepth == 0;
+    }
+
+    /** Returns the match of the longest route at the beginning of the fragment (from start, as 1 to skip a "!"), or null if no route matches. */
+    public RouteMatch match(String fragment, int start) {
+        if (maxDepth == 0 || fragment == null || start >= fragment.length()) {
+            return null;
+        }
+        int[] segmentStarts = new int[maxDepth];
+        int[] segmentEnds = new int[maxDepth];
+        int pageId = match(root, fragment, start, 0, segmentStarts, segmentEnds);
+        if (pageId < 0) {
+            return null;
+        }
+
+        Route route = routes[pageId];
+        int segmentCount = route.getSegmentCount();
+        String[] names = new String[route.getCaptureCount()];
+        String[] strings = new String[names.length];
+        Object[] values = new Object[names.length];
+        int c = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            if (route.getCaptureName(i) != null) {
+                names[c] = route.getCaptureName(i);
+                strings[c] = fragment.substring(segmentStarts[i], segmentEnds[i]);
+                values[c] = route.getCaptureType(i).convert(strings[c]);
+                c++;
+            }
+        }
+        int paramsStart = segmentEnds[segmentCount - 1] + 1;
+        String params = paramsStart < fragment.length() ? fragment.substring(paramsStart) : null;
+        return new RouteMatch(pageClasses[pageId], route, names, strings, values, params);
+    }
+
+    /** Depth first walk. Returns the page id of the matched route (the positions of its segments are in segmentStarts/Ends), or -1. */
+    private int match(Node node, String fragment, int pos, int depth, int[] segmentStarts, int[] segmentEnds) {
+        int length = fragment.length();
+        if (pos < length && depth < maxDepth) {
+            int end = fragment.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            segmentStarts[depth] = pos;
+            segmentEnds[depth] = end;
+            for (int i = 0; i < node.literalCount; i++) {
+                String literal = node.literals[i];
+                if (literal.length() == end - pos && fragment.regionMatches(true, pos, literal, 0, literal.length())) {
+                    int result = match(node.literalChildren[i], fragment, end + 1, depth + 1, segmentStarts, segmentEnds);
+                    if (result >= 0) {
+                        return result;
+                    }
+                    break;  // Literals are unique (case insensitive) in a node.
+                }
+            }
+            for (int t = 0; t < node.captureChildren.length; t++) {
+                Node child = node.captureChildren[t];
+                if (child != null && CAPTURE_TYPES[t].accepts(fragment, pos, end)) {
+                    // Positions of the deeper levels may have been overwritten by a failed branch: set ours again.
+                    segmentStarts[depth] = pos;
+                    segmentEnds[depth] = end;
+                    int result = match(child, fragment, end + 1, depth + 1, segmentStarts, segmentEnds);
+                    if (result >= 0) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return node.pageId;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RouteTrie[");
+        for (Route route : routes) {
+            if (route != null) {
+                sb.append(sb.length() > 10 ? ", " : "").append(route);
+            }
+        }
+        return sb.append("]").toString();
+    }
+
+
+    private static final class Node implements Serializable {
+        String[] literals = new String[0];
+        Node[] literalChildren = new Node[0];
+        int literalCount;
+        final Node[] captureChildren = new Node[CAPTURE_TYPES.length];  // Index = CaptureType.ordinal() = matching priority.
+        int pageId = -1;  // The page whose route ends here.
+
+        Node literalChild(String literal) {
+            for (int i = 0; i < literalCount; i++) {
+                if (literals[i].equalsIgnoreCase(literal)) {
+                    return literalChildren[i];
+                }
+            }
+            literals = Arrays.copyOf(literals, literalCount + 1);
+            literalChildren = Arrays.copyOf(literalChildren, literalCount + 1);
+            literals[literalCount] = literal;
+            literalChildren[literalCount] = new Node();
+            return literalChildren[literalCount++];
+        }
+
+        Node captureChild(Route.CaptureType type) {
+            if (captureChildren[type.ordinal()] == null) {
+                captureChildren[type.ordinal()] = new Node();
+            }
+            return captureChildren[type.ordinal()];
+        }
+    }
+}
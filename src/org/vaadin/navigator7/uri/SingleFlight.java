@@ -0,0 +1,170 @@
+package org.vaadin.navigator7.uri;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Collapses concurrent loads of the same key into one: the first thread asking for a key (the leader) loads it,
+ * the threads asking for the same key in the mean time (the followers) wait for its result (or its exception).
+ *
+ * Used by EntityUriAnalyzer when a newsletter makes many sessions ask for the same entity within a few milliseconds.
+ * Nothing is kept once the load is finished: it's not a cache (see EntityCache for that).
+ *
+ * Usage:
+ * <pre>
+ *   SingleFlight&lt;K,V&gt;.Flight flight = singleFlight.join(key);
+ *   if (flight.isLeader()) {
+ *       try {
+ *           V value = load(key);
+ *           flight.complete(value);
+ *           return value;
+ *       } catch (RuntimeException e) {
+ *           flight.fail(e);
+ *           throw e;
+ *       }
+ *   } else if (flight.await(maxWaitNanos)) {
+ *       return flight.getValue();  // Throws the leader's exception if it failed.
+ *   } else {
+ *       // Timeout: load it ourselves, or give up.
+ *   }
+ * </pre>
+ * Thread safe.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Load> loads = new ConcurrentHashMap<K, Load>();
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong collapsedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+
+    /** Joins the load in progress for that key as a follower, or starts a new one as its leader (see Flight.isLeader()). */
+    public Flight join(K key) {
+        Load load = new Load(key);
+        Load existing = loads.putIfAbsent(key, load);
+        if (existing == null) {
+            loadCount.incrementAndGet();
+            return new Flight(load, true);
+        }
+        return new Flight(existing, false);
+    }
+
+    /** true if a thread is loading that key right now. */
+    public boolean isInFlight(K key) {
+        return loads.containsKey(key);
+    }
+
+    /** Amount of keys being loaded right now. */
+    public int getInFlightCount() {
+        return loads.size();
+    }
+
+    /** Amount of actual loads (by leaders). */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /** Amount of calls that got the result of another thread's load instead of loading themselves. */
+    public long getCollapsedCount() {
+        return collapsedCount.get();
+    }
+
+    /** Amount of followers that stopped waiting because the leader was too long. */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight[inFlight=" + getInFlightCount() + ", loads=" + getLoadCount() + ", collapsed=" + getCollapsedCount()
+                + ", timeouts=" + getTimeoutCount() + "]";
+    }
+
+
+    /** The part of one caller in a load: the leader does the load, the followers wait for its result.
+     * Given by join() to each caller (the leadership does not depend on the thread: the leader may complete it from another thread). */
+    public final class Flight {
+        private final Load load;
+        private final boolean leader;
+
+        private Flight(Load load, boolean leader) {
+            this.load = load;
+            this.leader = leader;
+        }
+
+        public K getKey() {
+            return load.key;
+        }
+
+        /** true if this caller started the load: it has to do it, then call complete() or fail(). */
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /** Called by the leader. Wakes the followers up. */
+        public void complete(V value) {
+            checkLeader();
+            load.value = value;
+            finish();
+        }
+
+        /** Called by the leader if the load failed: the followers get the same exception. */
+        public void fail(Throwable failure) {
+            checkLeader();
+            load.failure = failure;
+            finish();
+        }
+
+        private void checkLeader() {
+            if (! leader) {
+                throw new IllegalStateException("Only the leader of the load of " + load.key + " may end it");
+            }
+        }
+
+        private void finish() {
+            loads.remove(load.key, load);  // The next call for that key will load again (or find it in a cache).
+            load.done.countDown();
+        }
+
+        /** Called by the followers. Returns false if the leader did not finish within maxWaitNanos, or if the thread has been interrupted while waiting. */
+        public boolean await(long maxWaitNanos) {
+            try {
+                if (load.done.await(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                    collapsedCount.incrementAndGet();
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();  // We give up waiting, and let the caller know the thread has been interrupted.
+            }
+            timeoutCount.incrementAndGet();
+            return false;
+        }
+
+        /** The result of the leader (call it after await() returned true). Throws the exception of the leader if it failed. */
+        public V getValue() {
+            Throwable t = load.failure;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else if (t != null) {
+                throw new RuntimeException("Concurrent load of " + load.key + " failed", t);
+            }
+            return load.value;
+        }
+    }
+
+    /** One load in progress, shared by its leader and followers. */
+    private final class Load {
+        private final K key;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile V value;
+        private volatile Throwable failure;
+
+        private Load(K key) {
+            this.key = key;
+        }
+    }
+}
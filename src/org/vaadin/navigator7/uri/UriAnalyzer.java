@@ -1,85 +1,175 @@
-package org.vaadin.navigator7.uri;
-
-import org.vaadin.navigator7.NavigatorConfig;
-import org.vaadin.navigator7.WebApplication;
-
-import com.vaadin.ui.Component;
-
-/**
- * This level of class is able to separate the page name from parameters.
- * It is needed by the Navigator class.
- * 
- * But it provides no manipulation of the parameters. This could be the propose of your class extending this (if the way that my descendent handles parameters does not suit you).
- * 
- * This class (and it's descendants) is stateless, and we share the instance for all the navigators instances of an application.
- * Override the NavigableApplication.createNewUriAnalyzer() method to make the system use your class.
- * 
- * @author John Rizzo - BlackBeltFactory.com
- */
-public class UriAnalyzer {
-
-    
-    /** 
-     * uri has the form of: "user/userid=555", e.g. from this url: "http://domain.com/appName/#user/userid=555"
-     * We extract the first part, before the 1st "/" ("user"), and we select a new center component based on that.
-     * 
-     * Returns an array of 2 strings. The 1st is the screen name ("user"), the second is the rest of the string ("userid=555")
-     * If there are no params, the second element of the array is an empty string.
-     *
-     */
-    public String[] extractPageNameAndParamsFromFragment(String fragment) {
-        if (fragment == null || fragment.trim().equals("")) {
-            return new String[] {null, null};
-        }
-
-        String[] fragmentParts = fragment.split("/", 2);  // Max in 2 parts. We split "user/userid=555/big=true" into "user" and "userid=555/big=true". Separating parameters from each other is not our problem here.
-        if (fragmentParts.length == 1) {
-            fragmentParts = new String[] { fragmentParts[0], null };
-        }
-        
-        // We remove the eventual "!" from page name (added for crawlable pages).
-        if (fragmentParts[0].startsWith("!")) {
-            fragmentParts[0] = fragmentParts[0].substring(1);
-        }
-        
-        return fragmentParts;
-    }
-    
-    
-    /** Creates a string for the URI. e.g. "Auction/1234".  In the browser it will be "http://domain.com/MyApplication/#Auction/1234".
-     * 
-     * @param params may be null if no param.
-     * @param withAnchor true means you want a # in front of the result (as "#Auction/1234"  */
-    public String buildFragmentFromPageAndParameters(Class<? extends Component> pageClass, String params, boolean withAnchor) {
-        if ("".equals(params)) {
-            params = null;  // One case for both.
-        }
-        
-        WebApplication webApp = WebApplication.getCurrent();
-        
-        String pageName;
-        boolean isCrawlable;
-        Class<? extends Component> homePageClass;
-
-        NavigatorConfig navigatorConfig = webApp.getNavigatorConfig();
-        homePageClass = navigatorConfig.getHomePageClass();
-
-        pageName = navigatorConfig.getPageName(pageClass);
-        isCrawlable = navigatorConfig.isPageCrawlable(pageClass);
-        
-        if (isCrawlable) {
-            pageName = "!" + pageName;
-        }
-
-        String paramsFragment = (params==null ? ""   // Don't show the "/" in case there is no param. 
-                                 : "/"+params);
-        
-        String anchor = withAnchor ? "#" : "";
-        
-        String result = pageClass == homePageClass ?
-                   anchor +           paramsFragment   // For the home page we don't tell the page name. But want # also for the home page because: see http://vaadin.com/forum/-/message_boards/message/69700
-                : (anchor + pageName + paramsFragment); // Normal case
-        return result;
-    }
-    
+package org.vaadin.navigator7.uri;
+
+import org.vaadin.navigator7.NavigatorConfig;
+import org.vaadin.navigator7.WebApplication;
+
+import com.vaadin.ui.Component;
+
+/**
+ * This level of class is able to separate the page name from parameters.
+ * It is needed by the Navigator class.
+ * 
+ * But it provides no manipulation of the parameters. This could be the propose of your class extending this (if the way that my descendent handles parameters does not suit you).
+ * 
+ * This class (and it's descendants) is stateless (except the thread safe FragmentCache), and we share the instance for all the navigators instances of an application.
+ * Override the NavigableApplication.createNewUriAnalyzer() method to make the system use your class.
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ */
+public class UriAnalyzer {
+
+    /** Shared by all the sessions. Null means no cache. */
+    protected FragmentCache fragmentCache = new FragmentCache();
+
+    
+    /** Returns the page class and the params of the given fragment (as "!ProductA/34").
+     * The result comes from the FragmentCache if that fragment has already been resolved (for any user).
+     * Fragments with a problem (unknown page name: bots, url hacking) are not cached: they would evict the real ones. */
+    public ResolvedFragment resolveFragment(String fragment) {
+        if (fragment == null || fragmentCache == null) {
+            return computeResolvedFragment(fragment);
+        }
+        ResolvedFragment result = fragmentCache.get(fragment);
+        if (result == null) {
+            result = computeResolvedFragment(fragment);
+            if (result.getProblem() == null) {
+                fragmentCache.put(fragment, result);  // Another thread may have done the same in the mean time: no problem, both results are equal.
+            }
+        }
+        return result;
+    }
+    
+    
+    /** Does the job of resolveFragment(), without cache.
+     * The routes of the pages (@Page(route="product/{id:long}/reviews")) are tried first, then the page names. */
+    protected ResolvedFragment computeResolvedFragment(String fragment) {
+        if (fragment != null) {
+            RouteMatch match = WebApplication.getCurrent().getNavigatorConfig().getRouteTable().matchRoute(fragment, fragment.startsWith("!") ? 1 : 0);
+            if (match != null) {
+                // The captures are given as named params (for @Param(name="id")).
+                ParsedFragment parsedParams = ParsedFragment.withCaptures(parseParams(match.getParams()), match.getCaptureNames(), match.getCaptureStrings());
+                return new ResolvedFragment(match.getPageClass(), match.getParams(), parsedParams, null, match);
+            }
+        }
+
+        // Get the pageName and params from the URI
+        String[] names = extractPageNameAndParamsFromFragment(fragment);
+        String pageName = names[0];
+        String params = names[1];
+        String problem = null;
+
+        // Get the page class from the page name.
+        NavigatorConfig navigatorConfig = WebApplication.getCurrent().getNavigatorConfig();
+        Class<? extends Component> pageClass;
+        if (pageName == null || "".equals(pageName.trim())) {
+            pageClass = navigatorConfig.getHomePageClass();
+        } else {
+            // Do we know that name (that URI) ?
+            pageClass = navigatorConfig.getPageClass(pageName);
+            if (pageClass == null) {  // Page does not exist in our config (url hacking?)
+                if (! fragment.startsWith("/")) {
+                    problem = "No page with name '" + pageName+"'.";
+                    params = fragment; // Let's give the full fragment to the home page, maybe it will find something useful in it.
+                } else { 
+                    // It starts with "/" and means there is no page name on purpose because it's the home page.
+                    // i.e. http://mycompany.com/#/param1/param2     In that case param1 is no page name but a parameter of the home page.
+                    // => we display no error message
+
+                    // What we believed to be the page name is probably part of the parameters for the home page.
+                    params = fragment.substring(1);  // i.e.  "param1/param2"
+                }
+                
+                pageClass = navigatorConfig.getHomePageClass();
+            }
+        }
+        
+        return new ResolvedFragment(pageClass, params, parseParams(params), problem);
+    }
+    
+    
+    /** Descendants that know the format of the params may parse them here, to have the result cached with the page class.
+     * Returns null at this level (we provide no manipulation of the parameters). */
+    protected ParsedFragment parseParams(String params) {
+        return null;
+    }
+    
+    
+    public FragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+
+    /** Replace the cache (i.e. with a bigger one), or set null to disable caching. */
+    public void setFragmentCache(FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    
+    /** 
+     * uri has the form of: "user/userid=555", e.g. from this url: "http://domain.com/appName/#user/userid=555"
+     * We extract the first part, before the 1st "/" ("user"), and we select a new center component based on that.
+     * 
+     * Returns an array of 2 strings. The 1st is the screen name ("user"), the second is the rest of the string ("userid=555")
+     * If there are no params, the second element of the array is an empty string.
+     *
+     */
+    public String[] extractPageNameAndParamsFromFragment(String fragment) {
+        if (fragment == null || fragment.trim().equals("")) {
+            return new String[] {null, null};
+        }
+
+        String[] fragmentParts = fragment.split("/", 2);  // Max in 2 parts. We split "user/userid=555/big=true" into "user" and "userid=555/big=true". Separating parameters from each other is not our problem here.
+        if (fragmentParts.length == 1) {
+            fragmentParts = new String[] { fragmentParts[0], null };
+        }
+        
+        // We remove the eventual "!" from page name (added for crawlable pages).
+        if (fragmentParts[0].startsWith("!")) {
+            fragmentParts[0] = fragmentParts[0].substring(1);
+        }
+        
+        return fragmentParts;
+    }
+    
+    
+    /** Creates a string for the URI. e.g. "Auction/1234".  In the browser it will be "http://domain.com/MyApplication/#Auction/1234".
+     * 
+     * @param params may be null if no param.
+     * @param withAnchor true means you want a # in front of the result (as "#Auction/1234"  */
+    public String buildFragmentFromPageAndParameters(Class<? extends Component> pageClass, String params, boolean withAnchor) {
+        FragmentWriter writer = newFragmentWriter();
+        writePage(writer, pageClass, withAnchor);
+        writer.params(params);  // Null or "": one case for both. We don't show the "/" in case there is no param.
+        return writer.toString();
+    }
+    
+    
+    /** Writes the beginning of the fragment in the writer: the # (if withAnchor), then the "!" (if crawlable) and the page name.
+     * For the home page we don't tell the page name. But want # also for the home page because: see http://vaadin.com/forum/-/message_boards/message/69700 */
+    public void writePage(FragmentWriter writer, Class<? extends Component> pageClass, boolean withAnchor) {
+        NavigatorConfig navigatorConfig = WebApplication.getCurrent().getNavigatorConfig();
+        if (withAnchor) {
+            writer.anchor();
+        }
+        if (pageClass == navigatorConfig.getHomePageClass()) {
+            writer.page(null, false);
+        } else {  // Normal case
+            writer.page(navigatorConfig.getPageName(pageClass), navigatorConfig.isPageCrawlable(pageClass));
+        }
+    }
+    
+    
+    /** Same as writePage(), but with the route of the page, filled with the captured values (as "product/34/reviews", see Route.write()), instead of the page name. */
+    public void writeRoute(FragmentWriter writer, Class<? extends Component> pageClass, String routePath, boolean withAnchor) {
+        if (withAnchor) {
+            writer.anchor();
+        }
+        writer.page(routePath, WebApplication.getCurrent().getNavigatorConfig().isPageCrawlable(pageClass));
+    }
+    
+    
+    /** Returns a new FragmentWriter, with the separators of this analyzer. */
+    public FragmentWriter newFragmentWriter() {
+        return new FragmentWriter("/", "=");  // This class does not manipulate parameters, the separators are the ones of ParamUriAnalyzer by default.
+    }
+    
 }
\ No newline at end of file
@@ -1,14 +1,14 @@
-package org.vaadin.navigator7.window;
-
-import com.vaadin.Application;
-import com.vaadin.ui.Window;
-
-/** Just a Window, nothing special. Just to have strong typing in the framework classes, 
- * and be more clear when we have application level windows (which do not exist in the Vaadin 6 API)
- * Note that this AppLevelWindow is not bound to the Navigator things (contrary to its descendant NavigableAppLevelWindow).
- * 
- * @author John Rizzo - BlackBeltFactory.com
- */
-public class AppLevelWindow extends Window {
-    
-}
+package org.vaadin.navigator7.window;
+
+import com.vaadin.Application;
+import com.vaadin.ui.Window;
+
+/** Just a Window, nothing special. Just to have strong typing in the framework classes, 
+ * and be more clear when we have application level windows (which do not exist in the Vaadin 6 API)
+ * Note that this AppLevelWindow is not bound to the Navigator things (contrary to its descendant NavigableAppLevelWindow).
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ */
+public class AppLevelWindow extends Window {
+    
+}
@@ -1,93 +1,312 @@
-package org.vaadin.navigator7.window;
-
-import org.vaadin.navigator7.NavigableApplication;
-import org.vaadin.navigator7.Navigator;
-import org.vaadin.navigator7.WebApplication;
-
-import com.vaadin.ui.Component;
-import com.vaadin.ui.ComponentContainer;
-import com.vaadin.ui.CssLayout;
-import com.vaadin.ui.Layout;
-
-/** AppLevelWindow that owns a Navigator and a Page.
- * The Navigator changes the current page of this Window when appropriate.
- * 
- * @author John Rizzo - BlackBeltFactory.com
- *
- */
-public abstract class NavigableAppLevelWindow extends AppLevelWindow {
-
-    protected Navigator navigator;
-    
-    protected Component page;  // Current page being displayed. null if no page set yet.
-    protected ComponentContainer pageContainer;  // Contains page (there could be no page yet, so we cannot rely on this.page.getParent() because this.page could be null. Instantiated by descendants.
-    
-
-    @Override
-    public void attach() {
-        // Main layout creation. Do that before you add anything to the Window.
-        Layout main = createMainLayout();
-        main.addStyleName("PageTemplate-mainLayout");
-//        main.setWidth("100%");   If you do that instead of the addStyleName (containing a width:100%;) above, Vaadin JavaScript will recompute the width everytime you resize the browser.
-        this.setContent(main);    
-
-        // Must be done after calling this.setConent(main), as for any component added to the window.
-        this.navigator = new Navigator();
-        this.addComponent(navigator);
-
-        pageContainer = createComponents();  // Let descendants add components in this.getContent().
-        pageContainer.addStyleName("FixedPageTemplate-bandOuterLayoutPage");
-    }
-
-    /** Override (rare) this if you need something else than this CssLayout,
-     * or if you need to do something the the layout (as adding a style) before it's put in the Window.
-     */
-    protected Layout createMainLayout() {
-        return new CssLayout(); 
-
-    }
-    
-    
-    /** Should fill the window with template components (as a header, footer,...) including a placeholder for the current page.
-     * @return the container (probably a Layout) of the page, where the pages should be created and replaced as the user navigates. */
-    protected abstract ComponentContainer createComponents();
-    
-    /** Sets the page in the window, at the right place (and removes the previous one) */
-    synchronized public void changePage(Component pageParam) {
-        pageContainer.removeAllComponents();  // It is supposed to contain only the previous page (which we don't know the class at all, except it's a Component).
-        this.page = pageParam;
-        pageContainer.addComponent(page);
-    }
-
-    
-    
-    
-    public NavigableApplication getNavigableApplication() {
-        return (NavigableApplication)getApplication();
-    }
-
-    public Navigator getNavigator() {
-        return navigator;
-    }
-
-    /** Could return null if no page set yet (for example, during construction) */
-    public Component getPage() {
-        return page;
-    }
-
-
-    public ComponentContainer getPageContainer() {
-        // Defensive coding.
-        if (pageContainer == null) {
-            throw new IllegalStateException("bug: A page container must be set, by a descendant extending this class (probably in the overriden createComponents() method.");
-        }
- 
-        return pageContainer;
-    }
-
-
-
-    
-    
-    
-}
+package org.vaadin.navigator7.window;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import org.vaadin.navigator7.NavigableApplication;
+import org.vaadin.navigator7.Navigator;
+import org.vaadin.navigator7.NavigatorConfig;
+import org.vaadin.navigator7.PageLifecycle;
+import org.vaadin.navigator7.PageState;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.uri.ParsedFragment;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.ComponentContainer;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Layout;
+
+/** AppLevelWindow that owns a Navigator and a Page.
+ * The Navigator changes the current page of this Window when appropriate.
+ * 
+ * With NavigatorConfig.setCompactSerialization(true), the window is serialized as an empty window of the same class (never attached),
+ * that only holds the navigation state (see writeReplace()). NavigableApplication rebuilds the window from it when the session is used again.
+ * The same state is kept when the page of an idle window is released by the PageHibernator (see hibernate()).
+ * 
+ * @author John Rizzo - BlackBeltFactory.com
+ *
+ */
+public abstract class NavigableAppLevelWindow extends AppLevelWindow {
+
+    protected Navigator navigator;
+    
+    protected Component page;  // Current page being displayed. null if no page set yet.
+    protected String pageParams;  // Params of the current page (as in the URI).
+    protected ParsedFragment pageParsedParams;  // Idem, parsed with the values captured by its route (key of the page cache). null if not known.
+    protected PageCache pageCache;  // Recently left @CachedPage pages. Lazily created.
+    private CompactState compactState;  // Non null only for the stand-ins produced by writeReplace() (compact serialization).
+    private CompactState hibernatedState;  // Non null while the page is released (see hibernate()).
+    protected ComponentContainer pageContainer;  // Contains page (there could be no page yet, so we cannot rely on this.page.getParent() because this.page could be null. Instantiated by descendants.
+    
+
+    @Override
+    public void attach() {
+        // Main layout creation. Do that before you add anything to the Window.
+        Layout main = createMainLayout();
+        main.addStyleName("PageTemplate-mainLayout");
+//        main.setWidth("100%");   If you do that instead of the addStyleName (containing a width:100%;) above, Vaadin JavaScript will recompute the width everytime you resize the browser.
+        this.setContent(main);    
+
+        // Must be done after calling this.setConent(main), as for any component added to the window.
+        this.navigator = new Navigator();
+        this.addComponent(navigator);
+
+        pageContainer = createComponents();  // Let descendants add components in this.getContent().
+        pageContainer.addStyleName("FixedPageTemplate-bandOuterLayoutPage");
+    }
+
+    /** Override (rare) this if you need something else than this CssLayout,
+     * or if you need to do something the the layout (as adding a style) before it's put in the Window.
+     */
+    protected Layout createMainLayout() {
+        return new CssLayout(); 
+
+    }
+    
+    
+    /** Should fill the window with template components (as a header, footer,...) including a placeholder for the current page.
+     * @return the container (probably a Layout) of the page, where the pages should be created and replaced as the user navigates. */
+    protected abstract ComponentContainer createComponents();
+    
+    /** Sets the page in the window, at the right place (and removes the previous one) */
+    synchronized public void changePage(Component pageParam) {
+        changePage(pageParam, null);
+    }
+
+    /** Idem, and the previous page is kept in the page cache if it's a @CachedPage.
+     * @param params of the new page, used to find it in the page cache when we come back to it later. */
+    synchronized public void changePage(Component pageParam, String params) {
+        changePage(pageParam, params, null);
+    }
+
+    /** Idem, with the parsed params of the new page (including the values captured by its route, as in PageInvocation.getParsedParams()).
+     * They are the key of the page in the page cache: without them, the params are parsed again and the route captures are not known. */
+    synchronized public void changePage(Component pageParam, String params, ParsedFragment parsedParams) {
+        pageContainer.removeAllComponents();  // It is supposed to contain only the previous page (which we don't know the class at all, except it's a Component).
+        if (page != null && page != pageParam) {
+            leavePage(page);
+            cachePage(page, pageParsedParams != null ? pageParsedParams
+                    : getNavigableApplication().getWebApplication().getUriAnalyzer().parseFragment(pageParams));
+        }
+        this.page = pageParam;
+        this.pageParams = params;
+        this.pageParsedParams = parsedParams;
+        pageContainer.addComponent(page);
+    }
+
+    /** Puts the page that we leave in the page cache (if it's a @CachedPage), else disposes it (see PageLifecycle). */
+    protected void cachePage(Component leftPage, ParsedFragment params) {
+        WebApplication webApp = getNavigableApplication().getWebApplication();
+        int sizeKb = webApp.getNavigatorConfig().getCachedPageSizeKb(leftPage.getClass());
+        if (sizeKb > 0) {
+            String canonicalParams = webApp.getUriAnalyzer().canonicalizeParams(params);
+            getPageCache().put(leftPage, canonicalParams, sizeKb);  // Disposes it if it does not fit.
+        } else {
+            disposePage(leftPage);
+        }
+    }
+
+    /** The page is not displayed anymore (see PageLifecycle.onLeave()). */
+    static void leavePage(Component leftPage) {
+        if (leftPage instanceof PageLifecycle) {
+            ((PageLifecycle) leftPage).onLeave();
+        }
+    }
+
+    /** The page will never be displayed again (see PageLifecycle.onDispose()): from now on, it should be garbage collectable (see PageLeakDetector).
+     * Uses the WebApplication of this window: it may be called out of any request (PageHibernator thread, session expiration). */
+    void disposePage(Component disposedPage) {
+        if (disposedPage instanceof PageLifecycle) {
+            ((PageLifecycle) disposedPage).onDispose();
+        }
+        getNavigableApplication().getWebApplication().getNavigatorConfig().getPageLeakDetector().watch(disposedPage);
+    }
+
+    /** Disposes the current page and the pages of the page cache (see PageLifecycle). The window has no page anymore.
+     * Called when the window is closed, when the session ends (NavigableApplication.close()), and when the window is hibernated. */
+    public void disposePages() {
+        if (page != null) {
+            Component disposedPage = page;
+            page = null;
+            pageParams = null;
+            pageParsedParams = null;
+            leavePage(disposedPage);
+            disposePage(disposedPage);
+        }
+        if (pageCache != null) {
+            pageCache.dispose();
+            pageCache = null;
+        }
+    }
+
+    /** The recently left @CachedPage instances of this window. */
+    public PageCache getPageCache() {
+        if (pageCache == null) {
+            pageCache = new PageCache(this, getNavigableApplication().getPageCacheBudget(),
+                    getNavigableApplication().getWebApplication().getNavigatorConfig().getPageCacheMaxPagesPerWindow());
+        }
+        return pageCache;
+    }
+
+    /** The pages kept in the page cache of this window (none if the cache has not been created). */
+    public List<Component> getCachedPages() {
+        return pageCache == null ? Collections.<Component>emptyList() : pageCache.getPages();
+    }
+
+    /** The window is closed (removed from the application): its current and cached pages are disposed. */
+    @Override
+    public void detach() {
+        disposePages();
+        super.detach();
+    }
+
+    
+    
+    
+    /** Compact serialization (if enabled in the NavigatorConfig): this window is replaced in the stream by an empty window of the same class,
+     * holding only the page id, the fragment and the PageState of the current page. The components are not serialized through the window.
+     * They are still serialized through the terminal of the session (the paintable maps of Vaadin's CommunicationManager, in the WebApplicationContext),
+     * for the components painted at least once: see NavigatorConfig.setCompactSerialization().
+     * The live window is not modified (the session keeps working on this node after a replication).
+     * The stand-in has no Application until it is rebuilt (NavigableApplication.getWindow()): only isCompacted(), getFragment() and disposePages() may be called on it. */
+    protected Object writeReplace() {
+        NavigableApplication application = getNavigableApplication();
+        if (compactState != null || application == null) {  // Already a stand-in, or not attached (nothing to rebuild it with).
+            return this;
+        }
+        NavigatorConfig navigatorConfig = application.getWebApplication().getNavigatorConfig();
+        if (! navigatorConfig.isCompactSerialization()) {
+            return this;
+        }
+        NavigableAppLevelWindow standIn = application.createNewNavigableAppLevelWindow();
+        standIn.setName(getName());
+        standIn.compactState = captureState(navigatorConfig);
+        return standIn;
+    }
+
+    /** true if this window is a stand-in produced by compact serialization, to be rebuilt (see NavigableApplication.getWindow()). */
+    public boolean isCompacted() {
+        return compactState != null;
+    }
+
+    /** The fragment shown by this window (the one kept by a stand-in, see isCompacted()). Null for the home page. */
+    public String getFragment() {
+        if (compactState != null) {
+            return compactState.fragment;
+        }
+        return navigator == null ? null : navigator.getFragment();
+    }
+
+    /** Called on a new (attached) window, to show what the compacted window was showing: navigates to its fragment (through the interceptors,
+     * as any navigation), then gives its PageState back to the page if it's still the same page class. */
+    public void restoreFrom(NavigableAppLevelWindow compacted) {
+        restore(compacted.compactState);
+    }
+
+    /** Releases the component tree of the current page (and the pages of the page cache) of this idle window.
+     * Only its fragment and the PageState of the page are kept: wakeUp() builds the page again from them.
+     * Called by NavigableApplication.hibernateIdleWindows() (see PageHibernator). Returns false if there was no page to release. */
+    public boolean hibernate() {
+        if (page == null || hibernatedState != null || navigator == null || compactState != null) {
+            return false;
+        }
+        CompactState state = captureState(getNavigableApplication().getWebApplication().getNavigatorConfig());
+        boolean disposed = false;
+        try {
+            pageContainer.removeAllComponents();
+            disposePages();
+            disposed = true;
+        } finally {
+            // Hibernated only once the page is released: if a page fails to detach or dispose before, the window keeps it (and is not woken up over it).
+            if (disposed || page == null) {
+                hibernatedState = state;
+            }
+        }
+        return true;
+    }
+
+    /** true if the page has been released by hibernate(), and not rebuilt yet. */
+    public boolean isHibernated() {
+        return hibernatedState != null;
+    }
+
+    /** Builds the page released by hibernate() again, as restoreFrom() does. Called by NavigableApplication.getWindow() (the user is back on this window). */
+    public void wakeUp() {
+        CompactState state = hibernatedState;
+        hibernatedState = null;
+        restore(state);
+    }
+
+    private CompactState captureState(NavigatorConfig navigatorConfig) {
+        if (hibernatedState != null) {  // The page is not there anymore, but its state is.
+            return hibernatedState;
+        }
+        int pageId = page == null ? -1 : navigatorConfig.getPageId(page.getClass());
+        Serializable pageState = page instanceof PageState ? ((PageState) page).saveState() : null;
+        return new CompactState(pageId, navigator == null ? null : navigator.getFragment(), pageState);
+    }
+
+    private void restore(CompactState state) {
+        navigator.restoreFragment(state.fragment);
+        if (state.pageState != null && page instanceof PageState
+                && getNavigableApplication().getWebApplication().getNavigatorConfig().getPageId(page.getClass()) == state.pageId) {
+            ((PageState) page).restoreState(state.pageState);
+        }
+    }
+
+    /** What a compacted or hibernated window keeps. */
+    private static class CompactState implements Serializable {
+        final int pageId;              // See RouteTable. -1 if no page.
+        final String fragment;         // Null for the home page.
+        final Serializable pageState;  // See PageState. Null if none.
+
+        CompactState(int pageId, String fragment, Serializable pageState) {
+            this.pageId = pageId;
+            this.fragment = fragment;
+            this.pageState = pageState;
+        }
+    }
+
+
+
+    public NavigableApplication getNavigableApplication() {
+        return (NavigableApplication)getApplication();
+    }
+
+    public Navigator getNavigator() {
+        return navigator;
+    }
+
+    /** Could return null if no page set yet (for example, during construction) */
+    public Component getPage() {
+        return page;
+    }
+
+    /** Params of the current page, as in the URI. */
+    public String getPageParams() {
+        return pageParams;
+    }
+
+    /** Called by the Navigator when the page changes its params in the URI (without navigation). */
+    public void setPageParams(String pageParams) {
+        this.pageParams = pageParams;
+        this.pageParsedParams = null;  // Parsed again if the page is cached.
+    }
+
+
+    public ComponentContainer getPageContainer() {
+        // Defensive coding.
+        if (pageContainer == null) {
+            throw new IllegalStateException("bug: A page container must be set, by a descendant extending this class (probably in the overriden createComponents() method.");
+        }
+ 
+        return pageContainer;
+    }
+
+
+
+    
+    
+    
+}
@@ -0,0 +1,208 @@
+package org.vaadin.navigator7.window;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.vaadin.navigator7.PageEvictionListener;
+
+import com.vaadin.ui.Component;
+
+/** Recently left @CachedPage instances of one NavigableAppLevelWindow, keyed by page class and canonical params.
+ * The page being displayed is never in the cache: it's put in when the window changes to another page, and taken out when it's displayed again.
+ *
+ * Bounded in amount of pages (per window), and in memory by the PageCacheBudget of the session, shared by all the windows of the session.
+ * When a bound is exceeded, the least recently left pages are evicted (from any window of the session for the budget): the PageEvictionListeners are warned, and the pages disposed (see PageLifecycle).
+ *
+ * Lives in the session: not thread safe, called within Vaadin requests (synchronized on the Application).
+ */
+public class PageCache implements Serializable {
+
+    private final NavigableAppLevelWindow window;  // Disposes the evicted pages.
+    private final PageCacheBudget budget;
+    private final int maxPages;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);  // Access order (eldest first).
+    private int sizeKb;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+
+    public PageCache(NavigableAppLevelWindow window, PageCacheBudget budget, int maxPages) {
+        this.window = window;
+        this.budget = budget;
+        this.maxPages = maxPages;
+        budget.register(this);
+    }
+
+    /** Keeps the page (that the window is leaving) for later.
+     * @param sizeKb estimation of the memory held by the page (see CachedPage.sizeKb()). */
+    public void put(Component page, String canonicalParams, int sizeKb) {
+        if (maxPages <= 0 || sizeKb > budget.getMaxKb()) {  // Would not fit anyway.
+            notifyEvicted(page, canonicalParams);
+            return;
+        }
+        Key key = new Key(page.getClass(), canonicalParams);
+        Entry previous = entries.remove(key);
+        if (previous != null) {  // Another instance for the same page and params (opened from another link while this one was cached). Keep the most recent.
+            release(previous);
+            evicted(previous);
+        }
+        Entry entry = new Entry(key, page, sizeKb, budget.nextTick());
+        entries.put(key, entry);
+        this.sizeKb += sizeKb;
+        budget.add(sizeKb);
+
+        while (entries.size() > maxPages) {
+            evictEldest();
+        }
+        budget.enforce();
+    }
+
+    /** Removes the page from the cache and returns it, or returns null if that page has not been kept with these params. */
+    public Component take(Class<? extends Component> pageClass, String canonicalParams) {
+        Entry entry = entries.remove(new Key(pageClass, canonicalParams));
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        release(entry);
+        return entry.page;
+    }
+
+    /** Evicts all the pages (when the window is closed, for example). */
+    public void clear() {
+        while (! entries.isEmpty()) {
+            evictEldest();
+        }
+    }
+
+    /** Called by the budget when the session is over budget. Returns false if there is nothing to evict. */
+    boolean evictEldest() {
+        Iterator<Entry> it = entries.values().iterator();
+        if (! it.hasNext()) {
+            return false;
+        }
+        Entry eldest = it.next();
+        it.remove();
+        release(eldest);
+        evicted(eldest);
+        return true;
+    }
+
+    /** Tick of the least recently left page, or Long.MAX_VALUE if empty. */
+    long getEldestTick() {
+        Iterator<Entry> it = entries.values().iterator();
+        return it.hasNext() ? it.next().tick : Long.MAX_VALUE;
+    }
+
+    private void release(Entry entry) {
+        sizeKb -= entry.sizeKb;
+        budget.add(-entry.sizeKb);
+    }
+
+    private void evicted(Entry entry) {
+        evictionCount++;
+        notifyEvicted(entry.page, entry.key.params);
+    }
+
+    private void notifyEvicted(Component page, String params) {
+        if (page instanceof PageEvictionListener) {
+            ((PageEvictionListener)page).pageEvicted(page, params);
+        }
+        // Not WebApplication.getCurrent(): pages are also evicted out of any request (PageHibernator thread, session expiration).
+        for (PageEvictionListener listener : window.getNavigableApplication().getWebApplication().getNavigatorConfig().getPageEvictionListeners()) {
+            listener.pageEvicted(page, params);
+        }
+        window.disposePage(page);  // It will not be displayed again.
+    }
+
+    /** Called when the window goes away: the pages are evicted and the budget forgets this cache. */
+    public void dispose() {
+        clear();
+        budget.unregister(this);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** The cached pages, least recently used first. */
+    public List<Component> getPages() {
+        List<Component> result = new ArrayList<Component>(entries.size());
+        for (Entry entry : entries.values()) {
+            result.add(entry.page);
+        }
+        return result;
+    }
+
+    /** Sum of the estimated sizes of the cached pages. */
+    public int getSizeKb() {
+        return sizeKb;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCache[size=" + size() + "/" + maxPages + ", " + sizeKb + "KB, hits=" + hitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount + "]";
+    }
+
+
+    private static final class Key implements Serializable {
+        final Class<? extends Component> pageClass;
+        final String params;
+
+        Key(Class<? extends Component> pageClass, String params) {
+            this.pageClass = pageClass;
+            this.params = params == null ? "" : params;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return pageClass == other.pageClass && params.equals(other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pageClass.hashCode() + params.hashCode();
+        }
+    }
+
+    private static final class Entry implements Serializable {
+        final Key key;
+        final Component page;
+        final int sizeKb;
+        final long tick;  // When the page has been left (see PageCacheBudget.nextTick()), to find the least recently left page of the session.
+
+        Entry(Key key, Component page, int sizeKb, long tick) {
+            this.key = key;
+            this.page = page;
+            this.sizeKb = sizeKb;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.vaadin.navigator7.window;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.vaadin.navigator7.WebApplication;
+
+/** Memory budget shared by the PageCaches of all the windows of a session (one instance per NavigableApplication).
+ * When the estimated size of the cached pages exceeds the budget, the least recently left pages of the session are evicted, whatever their window.
+ *
+ * Not thread safe (as PageCache).
+ */
+public class PageCacheBudget implements Serializable {
+
+    private final int maxKb;
+    private int usedKb;
+    private long tick;
+    private final List<PageCache> caches = new ArrayList<PageCache>();
+
+
+    public PageCacheBudget(int maxKb) {
+        this.maxKb = maxKb;
+    }
+
+    void register(PageCache cache) {
+        caches.add(cache);
+    }
+
+    void unregister(PageCache cache) {
+        caches.remove(cache);
+    }
+
+    long nextTick() {
+        return ++tick;
+    }
+
+    void add(int kb) {
+        usedKb += kb;
+    }
+
+    /** Evicts pages (oldest first, in any window) until the budget is respected. */
+    void enforce() {
+        while (usedKb > maxKb) {
+            PageCache eldest = null;
+            long eldestTick = Long.MAX_VALUE;
+            for (PageCache cache : caches) {
+                long cacheTick = cache.getEldestTick();
+                if (cacheTick < eldestTick) {
+                    eldestTick = cacheTick;
+                    eldest = cache;
+                }
+            }
+            if (eldest == null || ! eldest.evictEldest()) {
+                return;  // Nothing left to evict.
+            }
+        }
+    }
+
+    /** Compact serialization (see NavigatorConfig.setCompactSerialization()): the cached pages are not serialized (the windows are rebuilt without them). */
+    protected Object writeReplace() {
+        if (WebApplication.getCurrent().getNavigatorConfig().isCompactSerialization()) {
+            return new PageCacheBudget(maxKb);
+        }
+        return this;
+    }
+
+    public int getMaxKb() {
+        return maxKb;
+    }
+
+    /** Sum of the estimated sizes of the pages cached in all the windows of the session. */
+    public int getUsedKb() {
+        return usedKb;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCacheBudget[" + usedKb + "/" + maxKb + "KB, " + caches.size() + " windows]";
+    }
+}
@@ -0,0 +1,211 @@
+package org.vaadin.navigator7.window;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.vaadin.navigator7.NavigableApplication;
+import org.vaadin.navigator7.metrics.LatencyHistogram;
+import org.vaadin.navigator7.metrics.NavigationMetrics;
+
+/** Releases the pages of the windows that nobody uses anymore, in sessions that stay alive (the user went to lunch with the tab open).
+ * 
+ * A background thread sweeps the sessions every sweepPeriodMillis. In each session, the windows not used for idleMillis are hibernated
+ * (see NavigableAppLevelWindow.hibernate()): their current page and their page cache are dropped, only the fragment and the PageState of the page are kept.
+ * The window itself (header, menu, footer...) stays: the browser keeps talking to the same window.
+ * When a request comes for a hibernated window, NavigableApplication.getWindow() wakes it up: the page is built again by navigating to its fragment
+ * (through the interceptors, as any navigation), then gets its PageState back. The state of the components that is not in the PageState is lost.
+ * 
+ * Each session is locked (synchronized on the Application, as Vaadin does for a request) while it is swept.
+ * 
+ * Disabled by default. Enable it with NavigatorConfig.setPageHibernator(new PageHibernator(...)) in your WebApplication constructor.
+ * The sessions created afterwards register themselves (NavigableApplication.init()), and are weakly referenced.
+ * 
+ * Thread safe.
+ */
+public class PageHibernator implements PageHibernatorMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(PageHibernator.class.getName());
+
+    private final long idleMillis;
+    private final long sweepPeriodMillis;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<NavigableApplication, Boolean> sessions = Collections.synchronizedMap(new WeakHashMap<NavigableApplication, Boolean>());
+
+    private final AtomicLong hibernationCount = new AtomicLong();
+    private final AtomicLong wakeUpCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final LatencyHistogram wakeUpLatency = new LatencyHistogram();
+    private volatile int hibernatedWindowCount;   // At the last sweep.
+    private volatile int hibernatedSessionCount;  // At the last sweep: sessions having at least one hibernated window.
+    private volatile long lastSweepMillis;
+
+    // JMX (null until registerMBean()).
+    private MBeanServer mBeanServer;
+    private ObjectName objectName;
+
+
+    /**
+     * @param idleMillis a window not used for that time gets its page released. Keep it below the session timeout, else the session expires first.
+     * @param sweepPeriodMillis time between two sweeps of the sessions (a window may then stay idle up to idleMillis + sweepPeriodMillis before hibernation).
+     */
+    public PageHibernator(long idleMillis, long sweepPeriodMillis) {
+        if (idleMillis <= 0 || sweepPeriodMillis <= 0) {
+            throw new IllegalArgumentException("idleMillis (" + idleMillis + ") and sweepPeriodMillis (" + sweepPeriodMillis + ") must be positive");
+        }
+        this.idleMillis = idleMillis;
+        this.sweepPeriodMillis = sweepPeriodMillis;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "navigator7-hibernator");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);  // The requests of the users come first.
+                return thread;
+            }
+        });
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }, sweepPeriodMillis, sweepPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Called by NavigableApplication.init(). */
+    public void track(NavigableApplication application) {
+        sessions.put(application, Boolean.TRUE);
+    }
+
+    /** Called by NavigableApplication.close(). */
+    public void untrack(NavigableApplication application) {
+        sessions.remove(application);
+    }
+
+    /** Hibernates the idle windows of all the tracked sessions (one session after the other). Called periodically by the background thread. */
+    @Override
+    public int sweep() {
+        List<NavigableApplication> applications;
+        synchronized (sessions) {
+            applications = new ArrayList<NavigableApplication>(sessions.keySet());
+        }
+        long start = System.currentTimeMillis();
+        int hibernated = 0;
+        int hibernatedWindows = 0;
+        int hibernatedSessions = 0;
+        for (NavigableApplication application : applications) {
+            if (! application.isRunning()) {
+                continue;
+            }
+            try {
+                hibernated += application.hibernateIdleWindows(start - idleMillis);
+                int windows = application.getHibernatedWindowCount();
+                hibernatedWindows += windows;
+                if (windows > 0) {
+                    hibernatedSessions++;
+                }
+            } catch (RuntimeException e) {  // A page failing to detach must not stop the sweep of the other sessions (nor the next sweeps).
+                failedCount.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Cannot hibernate the idle windows of " + application, e);
+            }
+        }
+        hibernationCount.addAndGet(hibernated);
+        hibernatedWindowCount = hibernatedWindows;
+        hibernatedSessionCount = hibernatedSessions;
+        lastSweepMillis = System.currentTimeMillis() - start;
+        return hibernated;
+    }
+
+    /** Builds the page of a hibernated window again (see NavigableAppLevelWindow.wakeUp()), and measures how long it takes.
+     * Called by NavigableApplication.getWindow(), in the request thread. */
+    public void wakeUp(NavigableAppLevelWindow window) {
+        long start = System.nanoTime();
+        try {
+            window.wakeUp();
+        } finally {
+            wakeUpLatency.record(System.nanoTime() - start);
+            wakeUpCount.incrementAndGet();
+        }
+    }
+
+    /** Stops the thread (when the web application stops). */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Time to build again the pages of the hibernated windows. */
+    public LatencyHistogram getWakeUpLatency() {
+        return wakeUpLatency;
+    }
+
+
+    ////////////////////////////////////////////////// MXBean
+
+    @Override public long getIdleMillis()               { return idleMillis; }
+    @Override public long getSweepPeriodMillis()        { return sweepPeriodMillis; }
+    @Override public int getTrackedSessionCount()       { return sessions.size(); }
+    @Override public int getHibernatedWindowCount()     { return hibernatedWindowCount; }
+    @Override public int getHibernatedSessionCount()    { return hibernatedSessionCount; }
+    @Override public long getHibernationCount()         { return hibernationCount.get(); }
+    @Override public long getWakeUpCount()              { return wakeUpCount.get(); }
+    @Override public long getFailedCount()              { return failedCount.get(); }
+    @Override public long getWakeUpP50Micros()          { return wakeUpLatency.getPercentileNanos(50) / 1000; }
+    @Override public long getWakeUpP90Micros()          { return wakeUpLatency.getPercentileNanos(90) / 1000; }
+    @Override public long getWakeUpP99Micros()          { return wakeUpLatency.getPercentileNanos(99) / 1000; }
+    @Override public long getWakeUpMaxMicros()          { return wakeUpLatency.getMaxNanos() / 1000; }
+    @Override public long getLastSweepMillis()          { return lastSweepMillis; }
+
+    @Override
+    public String toString() {
+        return "PageHibernator[hibernated windows=" + hibernatedWindowCount + " in " + hibernatedSessionCount + " sessions, hibernations=" + hibernationCount
+            + ", wake ups=" + wakeUpCount + " (" + wakeUpLatency + ")]";
+    }
+
+
+    ////////////////////////////////////////////////// JMX
+
+    /** Publishes this hibernator in the given MBeanServer. If it fails, the failure is logged and the sweeps go on without the MBean.
+     * @param applicationName distinguishes the web applications of the same JVM (typically the context path). */
+    public synchronized void registerMBean(MBeanServer server, String applicationName) {
+        unregisterMBean();
+        String name = NavigationMetrics.JMX_DOMAIN + ":type=PageHibernator,app="
+            + ObjectName.quote((applicationName == null || applicationName.length() == 0) ? "ROOT" : applicationName);
+        try {
+            ObjectName newName = new ObjectName(name);
+            if (server.isRegistered(newName)) {  // Left by a previous deployment of the same application.
+                server.unregisterMBean(newName);
+            }
+            server.registerMBean(this, newName);
+            mBeanServer = server;
+            objectName = newName;
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Cannot register MBean " + name, e);
+        }
+    }
+
+    /** Removes the MBean (when the web application stops, else the class loader would leak). */
+    public synchronized void unregisterMBean() {
+        if (mBeanServer == null) {
+            return;
+        }
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Already gone: nothing to do.
+        }
+        mBeanServer = null;
+        objectName = null;
+    }
+}
@@ -0,0 +1,22 @@
+package org.vaadin.navigator7.window;
+
+/** JMX view of the PageHibernator.
+ * Registered by WebApplication.init() as "org.vaadin.navigator7:type=PageHibernator,app=..."
+ * The hibernated window/session counts are the ones of the last sweep. */
+public interface PageHibernatorMXBean {
+    public long getIdleMillis();
+    public long getSweepPeriodMillis();
+    public int getTrackedSessionCount();
+    public int getHibernatedWindowCount();
+    public int getHibernatedSessionCount();
+    public long getHibernationCount();
+    public long getWakeUpCount();
+    public long getFailedCount();
+    public long getWakeUpP50Micros();
+    public long getWakeUpP90Micros();
+    public long getWakeUpP99Micros();
+    public long getWakeUpMaxMicros();
+    public long getLastSweepMillis();
+    /** Sweeps the tracked sessions now (instead of waiting for the next period). Returns the amount of windows hibernated. */
+    public int sweep();
+}
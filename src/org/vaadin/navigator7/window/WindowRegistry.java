@@ -0,0 +1,212 @@
+package org.vaadin.navigator7.window;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.Application;
+
+/** The NavigableAppLevelWindows of one session (one instance per NavigableApplication): one per browser tab.
+ * 
+ * Vaadin asks the application for the window of each request (Application.getWindow(name)). This registry answers with one hash lookup,
+ * and tells if an unknown name is the one of a new tab ("AppLevelWindow_0123456789") by comparing characters, without splitting the name.
+ * 
+ * Each window holds a complete component tree (header, menu, footer, page). To bound the memory of users opening many tabs:
+ * - at most maxWindows windows are kept alive: when a new tab opens, the least recently used window is evicted;
+ * - windows not used for idleTimeoutMillis are evicted (checked at each request, cheaply: the windows are kept in access order).
+ * The primary main window (the one of Application.getMainWindow()) is never evicted.
+ * 
+ * An evicted window is removed from the Application (its page cache is released with it), and only its last fragment is remembered.
+ * If the tab comes back (a request for that window name), NavigableApplication rebuilds the window and shows the page of that fragment again.
+ * The state of the components of the evicted page is lost (as if the user had reloaded the tab).
+ * 
+ * Lives in the session: not thread safe, called within Vaadin requests (synchronized on the Application).
+ */
+public class WindowRegistry implements Serializable {
+
+    /** Fragments of evicted windows that we remember. Beyond that, the oldest ones are forgotten (and their tabs get a new window on the home page). */
+    private static final int MAX_EVICTED_FRAGMENTS = 64;
+
+    private final Application application;  // Of the main window: removes the evicted windows (a stand-in of compact serialization has no Application of its own).
+    private final String mainWindowName;
+    private final int maxWindows;           // <= 0 means no limit.
+    private final long idleTimeoutMillis;   // <= 0 means no idle eviction.
+
+    private final LinkedHashMap<String, Entry> windows = new LinkedHashMap<String, Entry>(16, 0.75f, true);  // Access order (least recently used first).
+    private final LinkedHashMap<String, String> evictedFragments = new LinkedHashMap<String, String>() {  // Window name -> last fragment (maybe null: home page).
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_EVICTED_FRAGMENTS;
+        }
+    };
+
+    private long evictionCount;
+    private long rebuildCount;
+
+
+    /** @param mainWindow the primary main window of the application, whose name prefixes the names of the other tabs' windows. */
+    public WindowRegistry(NavigableAppLevelWindow mainWindow, int maxWindows, long idleTimeoutMillis) {
+        this.application = mainWindow.getApplication();
+        this.mainWindowName = mainWindow.getName();
+        this.maxWindows = maxWindows;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        windows.put(mainWindowName, new Entry(mainWindow, System.currentTimeMillis()));
+    }
+
+
+    /** Is name like "AppLevelWindow" or "AppLevelWindow_01234567890"? (the name of the main window, optionally followed by "_" and a suffix without "_"). */
+    public boolean isAppLevelWindowName(String name) {
+        if (name == null || ! name.startsWith(mainWindowName)) {
+            return false;
+        }
+        int length = mainWindowName.length();
+        return name.length() == length
+            || (name.length() > length + 1 && name.charAt(length) == '_' && name.indexOf('_', length + 1) < 0);
+    }
+
+    /** Returns the live window with that name (and marks it as used now), or null if there is none (new tab, evicted window, or not an app level window). */
+    public NavigableAppLevelWindow get(String name, long now) {
+        Entry entry = windows.get(name);  // Moves it at the end of the access order.
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry.window;
+    }
+
+    /** Adds a new window (of a new tab, or rebuilt after eviction), and evicts the least recently used ones if there are too many. */
+    public void register(NavigableAppLevelWindow window, long now) {
+        windows.put(window.getName(), new Entry(window, now));
+        if (evictedFragments.remove(window.getName()) != null) {
+            rebuildCount++;
+        }
+        if (maxWindows > 0 && windows.size() > maxWindows) {
+            List<Entry> evicted = new ArrayList<Entry>();
+            for (Iterator<Entry> it = windows.values().iterator(); windows.size() > maxWindows && it.hasNext();) {
+                Entry eldest = it.next();
+                if (eldest.window != window && ! mainWindowName.equals(eldest.window.getName())) {
+                    it.remove();
+                    evicted.add(eldest);
+                }
+            }
+            evict(evicted);
+        }
+    }
+
+    /** true if a window with that name has been evicted (its tab may come back). */
+    public boolean isEvicted(String name) {
+        return evictedFragments.containsKey(name);
+    }
+
+    /** The fragment that the window had when it has been evicted (null for the home page, or if the window has not been evicted). */
+    public String getEvictedFragment(String name) {
+        return evictedFragments.get(name);
+    }
+
+    /** Evicts the windows not used since idleTimeoutMillis, except currentName (the window of the current request).
+     * Cheap when there is nothing to evict: only the least recently used window is looked at. */
+    public void evictIdleWindows(long now, String currentName) {
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+        List<Entry> idle = new ArrayList<Entry>(0);
+        for (Iterator<Entry> it = windows.values().iterator(); it.hasNext();) {
+            Entry entry = it.next();
+            if (now - entry.lastAccess < idleTimeoutMillis) {
+                break;  // Access order: the next ones are more recent.
+            }
+            String name = entry.window.getName();
+            if (! name.equals(currentName) && ! name.equals(mainWindowName)) {
+                it.remove();
+                idle.add(entry);
+            }
+        }
+        evict(idle);
+    }
+
+    /** The windows not used since the given time, least recently used first (see PageHibernator).
+     * Cheap: the windows are kept in access order, the recent ones are not looked at. */
+    public List<NavigableAppLevelWindow> getWindowsIdleSince(long time) {
+        List<NavigableAppLevelWindow> result = new ArrayList<NavigableAppLevelWindow>(0);
+        for (Entry entry : windows.values()) {  // Iterating does not change the access order.
+            if (entry.lastAccess > time) {
+                break;  // Access order: the next ones are more recent.
+            }
+            result.add(entry.window);
+        }
+        return result;
+    }
+
+    /** Forgets the window (closed by the application, or by Vaadin). */
+    public void unregister(String name) {
+        windows.remove(name);
+    }
+
+    /** Called after the iteration on the windows: removing a window from the Application detaches it (and may call unregister()). */
+    private void evict(List<Entry> entries) {
+        for (Entry entry : entries) {
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry entry) {
+        NavigableAppLevelWindow window = entry.window;
+        evictedFragments.put(window.getName(), window.getFragment());
+        evictionCount++;
+        if (application != null) {
+            application.removeWindow(window);  // Detaches it: its page cache is released.
+        }
+    }
+
+
+    /** Amount of live app level windows (main window included). */
+    public int getWindowCount() {
+        return windows.size();
+    }
+
+    /** The live windows, least recently used first. */
+    public List<NavigableAppLevelWindow> getWindows() {
+        List<NavigableAppLevelWindow> result = new ArrayList<NavigableAppLevelWindow>(windows.size());
+        for (Entry entry : windows.values()) {
+            result.add(entry.window);
+        }
+        return result;
+    }
+
+    public int getMaxWindows() {
+        return maxWindows;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** Amount of evicted windows that have been built again because their tab came back. */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    @Override
+    public String toString() {
+        return "WindowRegistry[windows=" + windows.size() + "/" + (maxWindows > 0 ? String.valueOf(maxWindows) : "unlimited")
+            + ", evicted=" + evictionCount + ", rebuilt=" + rebuildCount + ", remembered=" + evictedFragments.size() + "]";
+    }
+
+
+    private static class Entry implements Serializable {
+        final NavigableAppLevelWindow window;
+        long lastAccess;
+
+        Entry(NavigableAppLevelWindow window, long lastAccess) {
+            this.window = window;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
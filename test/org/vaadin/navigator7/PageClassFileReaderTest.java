@@ -0,0 +1,119 @@
+package org.vaadin.navigator7;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.vaadin.ui.CustomComponent;
+
+public class PageClassFileReaderTest {
+
+    //////// Fixtures (their class files are parsed, and packed in jars by PageScannerTest)
+
+    @Page
+    public static class SimplePage extends CustomComponent {
+    }
+
+    /** @Page after another annotation with all the kinds of element values (skipped), and long/double constants (two constant pool entries each). */
+    @Fixture(policy = RetentionPolicy.RUNTIME, tags = {"a", "b"}, target = @Target(ElementType.TYPE), type = String.class, number = 3)
+    @Page(uriName = "constants", crawlable = true)
+    public static class PageWithConstants extends CustomComponent {
+        public static final long BIG = 1234567890123L;
+        public static final double PI = 3.14159;
+        public String field = "value";
+
+        public long twice() {
+            return BIG * 2;
+        }
+    }
+
+    @Page
+    public abstract static class AbstractPage extends CustomComponent {
+    }
+
+    /** Not annotated, but the descriptor of @Page is in its constant pool (type of its field). */
+    public static class NotAPage extends CustomComponent {
+        public Page page;
+    }
+
+    public static class PlainClass {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Fixture {
+        RetentionPolicy policy();
+        String[] tags();
+        Target target();
+        Class<?> type();
+        int number();
+    }
+
+
+    //////// Tests
+
+    @Test
+    public void concreteAnnotatedClassesArePages() throws IOException {
+        assertTrue(PageClassFileReader.isPage(classFile(SimplePage.class)));
+        assertTrue(PageClassFileReader.isPage(classFile(PageWithConstants.class)));
+    }
+
+    @Test
+    public void abstractClassesInterfacesAndAnnotationsAreNotPages() throws IOException {
+        assertFalse(PageClassFileReader.isPage(classFile(AbstractPage.class)));
+        assertFalse(PageClassFileReader.isPage(classFile(Fixture.class)));
+        assertFalse(PageClassFileReader.isPage(classFile(Page.class)));
+    }
+
+    @Test
+    public void classesWithoutTheAnnotationAreNotPages() throws IOException {
+        assertFalse(PageClassFileReader.isPage(classFile(NotAPage.class)));
+        assertFalse(PageClassFileReader.isPage(classFile(PlainClass.class)));
+        assertFalse(PageClassFileReader.isPage(classFile(PageClassFileReaderTest.class)));
+    }
+
+    @Test
+    public void readsFromThePositionOfTheBuffer() throws IOException {
+        byte[] bytes = classFileBytes(SimplePage.class);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 10);
+        buffer.position(7);
+        buffer.put(bytes);
+        buffer.position(7);
+        buffer.limit(7 + bytes.length);
+        assertTrue(PageClassFileReader.isPage(buffer));
+    }
+
+    @Test
+    public void notAClassFile() {
+        assertFalse(PageClassFileReader.isPage(ByteBuffer.wrap(new byte[0])));
+        assertFalse(PageClassFileReader.isPage(ByteBuffer.wrap("Not a class file at all".getBytes())));
+    }
+
+
+    static ByteBuffer classFile(Class<?> clazz) throws IOException {
+        return ByteBuffer.wrap(classFileBytes(clazz));
+    }
+
+    static byte[] classFileBytes(Class<?> clazz) throws IOException {
+        InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
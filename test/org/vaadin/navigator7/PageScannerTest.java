@@ -0,0 +1,176 @@
+package org.vaadin.navigator7;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.vaadin.navigator7.PageClassFileReaderTest.AbstractPage;
+import org.vaadin.navigator7.PageClassFileReaderTest.NotAPage;
+import org.vaadin.navigator7.PageClassFileReaderTest.PageWithConstants;
+import org.vaadin.navigator7.PageClassFileReaderTest.PlainClass;
+import org.vaadin.navigator7.PageClassFileReaderTest.SimplePage;
+
+/** Scans jars and directories built from the fixtures of PageClassFileReaderTest. */
+public class PageScannerTest {
+
+    private static final String PACKAGE = PageScannerTest.class.getPackage().getName();
+    private static final Set<String> PAGES = new TreeSet<String>(Arrays.asList(SimplePage.class.getName(), PageWithConstants.class.getName()));
+
+    private File tempDirectory;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = File.createTempFile("PageScannerTest", "");
+        tempDirectory.delete();
+        tempDirectory.mkdir();
+    }
+
+    @After
+    public void deleteTempDirectory() {
+        delete(tempDirectory);
+    }
+
+    @Test
+    public void deflatedJar() throws IOException {
+        File jar = writeJar("deflated.jar", ZipEntry.DEFLATED, false, null);
+        PageScanner scanner = scan(jar, true);
+        assertEquals(PAGES, scanner.getPageClassNames());
+        assertEquals(5, scanner.getScannedClassCount());
+        assertTrue(scanner.getUnsupportedRoots().isEmpty());
+    }
+
+    @Test
+    public void storedJarWithComment() throws IOException {
+        File jar = writeJar("stored.jar", ZipEntry.STORED, false, "A comment at the end of the central directory");
+        assertEquals(PAGES, scan(jar, true).getPageClassNames());
+    }
+
+    @Test
+    public void onlyThePackageIsScanned() throws IOException {
+        File jar = writeJar("deflated.jar", ZipEntry.DEFLATED, false, null);
+        PageScanner scanner = new PageScanner(classLoader(jar), true);
+        scanner.scan(PACKAGE + ".nothing");
+        assertEquals(Collections.emptySet(), scanner.getPageClassNames());
+        assertEquals(0, scanner.getScannedClassCount());
+    }
+
+    @Test
+    public void indexedJarIsSkipped() throws IOException {
+        File jar = writeJar("indexed.jar", ZipEntry.DEFLATED, true, null);
+        assertEquals(Collections.emptySet(), scan(jar, true).getPageClassNames());
+        assertEquals(PAGES, scan(jar, false).getPageClassNames());
+    }
+
+    @Test
+    public void directory() throws IOException {
+        PageScanner scanner = new PageScanner(classLoader(writeDirectory()), true);
+        scanner.scan("org.vaadin");  // The fixtures are in a sub-directory.
+        assertEquals(PAGES, scanner.getPageClassNames());
+        assertEquals(5, scanner.getScannedClassCount());
+    }
+
+    @Test
+    public void defaultPackageIsTheWholeDirectory() throws IOException {
+        PageScanner scanner = new PageScanner(classLoader(writeDirectory()), true);
+        scanner.scan("");
+        assertEquals(PAGES, scanner.getPageClassNames());
+    }
+
+
+    private PageScanner scan(File root, boolean skipIndexedRoots) throws IOException {
+        PageScanner scanner = new PageScanner(classLoader(root), skipIndexedRoots);
+        scanner.scan(PACKAGE);
+        return scanner;
+    }
+
+    /** Sees the root only (not the test classpath). */
+    private static ClassLoader classLoader(File root) throws IOException {
+        return new URLClassLoader(new URL[] {root.toURI().toURL()}, null);
+    }
+
+    private static Class<?>[] fixtures() {
+        return new Class<?>[] {SimplePage.class, PageWithConstants.class, AbstractPage.class, NotAPage.class, PlainClass.class};
+    }
+
+    private File writeDirectory() throws IOException {
+        File classes = new File(tempDirectory, "classes");
+        for (Class<?> clazz : fixtures()) {
+            File file = new File(classes, clazz.getName().replace('.', File.separatorChar) + ".class");
+            file.getParentFile().mkdirs();
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(PageClassFileReaderTest.classFileBytes(clazz));
+            } finally {
+                out.close();
+            }
+        }
+        return classes;
+    }
+
+    private File writeJar(String name, int method, boolean indexed, String comment) throws IOException {
+        File jar = new File(tempDirectory, name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            String path = "";
+            for (String part : PACKAGE.split("\\.")) {  // The class loader finds the package by its directory entry.
+                path += part + "/";
+                writeEntry(out, path, new byte[0], method);
+            }
+            writeEntry(out, "README.txt", "Not a class".getBytes(), method);
+            writeEntry(out, "other/Other.class", PageClassFileReaderTest.classFileBytes(SimplePage.class), method);  // Other package.
+            if (indexed) {
+                writeEntry(out, PageIndex.RESOURCE_NAME, (SimplePage.class.getName() + "\n").getBytes(), method);
+            }
+            for (Class<?> clazz : fixtures()) {
+                writeEntry(out, clazz.getName().replace('.', '/') + ".class", PageClassFileReaderTest.classFileBytes(clazz), method);
+            }
+            if (comment != null) {
+                out.setComment(comment);
+            }
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+
+    private static void writeEntry(ZipOutputStream out, String name, byte[] content, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,67 @@
+package org.vaadin.navigator7;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.vaadin.navigator7.uri.Route;
+
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.Panel;
+
+public class RouteTableTest {
+
+    @Test
+    public void routeStartingWithTheNameOfAnotherPageIsRejected() {
+        RouteTable table = RouteTable.EMPTY.with(Label.class, "Product", false, 0, null);
+        try {
+            table.with(Button.class, "ProductB", false, 0, Route.parse("PRODUCT/{id:long}"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("PRODUCT/{id:long}"));
+        }
+    }
+
+    @Test
+    public void pageNamedAsTheStartOfAnotherRouteIsRejected() {
+        RouteTable table = RouteTable.EMPTY.with(Button.class, "ProductB", false, 0, Route.parse("product/{id:long}"));
+        try {
+            table.with(Label.class, "Product", false, 0, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(Label.class.getName()));
+        }
+    }
+
+    @Test
+    public void routeStartingWithTheNameOfItsOwnPageIsAccepted() {
+        RouteTable table = RouteTable.EMPTY.with(Label.class, "Product", false, 0, Route.parse("product/{id:long}"))
+                .with(Button.class, "Shop", false, 0, Route.parse("shops/{shop}"))
+                .with(Panel.class, "Products", false, 0, null);
+        assertEquals(3, table.size());
+        assertEquals(Label.class, table.matchRoute("product/34", 0).getPageClass());
+        assertEquals(2, table.getPageId("products"));
+    }
+
+    @Test
+    public void deserializedTableFindsThePages() throws Exception {
+        RouteTable table = RouteTable.EMPTY.with(Label.class, "Product", false, 0, Route.parse("product/{id:long}"))
+                .with(Button.class, "Shop", true, 64, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(table);
+        out.close();
+        RouteTable copy = (RouteTable) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(1, copy.getPageId(Button.class));
+        assertEquals(1, copy.getPageId("shop"));
+        assertEquals(64, copy.getCachedPageSizeKb(1));
+        assertEquals(Label.class, copy.matchRoute("product/34", 0).getPageClass());
+    }
+}
@@ -0,0 +1,137 @@
+package org.vaadin.navigator7.apt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.navigator7.PageIndex;
+
+/** Compiles small page sources with the processor, as a full build then as incremental builds would. */
+public class PageIndexProcessorTest {
+
+    private File tempDirectory;
+    private File sources;
+    private File classes;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = File.createTempFile("PageIndexProcessorTest", "");
+        tempDirectory.delete();
+        sources = new File(tempDirectory, "src");
+        classes = new File(tempDirectory, "classes");
+        sources.mkdirs();
+        classes.mkdirs();
+    }
+
+    @After
+    public void deleteTempDirectory() {
+        delete(tempDirectory);
+    }
+
+    @Test
+    public void incrementalBuildKeepsTheUnchangedPages() throws IOException {
+        compile(source("pages.APage", true), source("pages.BPage", true));
+        assertEquals(Arrays.asList("pages.APage", "pages.BPage"), indexedClassNames());
+
+        compile(source("pages.BPage", true));
+        assertEquals(Arrays.asList("pages.APage", "pages.BPage"), indexedClassNames());
+    }
+
+    @Test
+    public void pageWhoseAnnotationIsRemovedLeavesTheIndex() throws IOException {
+        compile(source("pages.APage", true), source("pages.BPage", true));
+
+        compile(source("pages.BPage", false));  // No @Page left in the compiled sources.
+        assertEquals(Collections.singletonList("pages.APage"), indexedClassNames());
+
+        compile(source("pages.APage", false));
+        assertEquals(Collections.emptyList(), indexedClassNames());
+    }
+
+    @Test
+    public void noIndexWithoutPages() throws IOException {
+        compile(source("pages.APage", false));
+        assertFalse(new File(classes, PageIndex.RESOURCE_NAME).exists());
+    }
+
+    @Test
+    public void defaultPackage() throws IOException {
+        compile(source("HomePage", true), source("pages.APage", true));
+        List<PageIndex.Entry> entries = PageIndex.load(new URLClassLoader(new URL[] {classes.toURI().toURL()}, null));
+        assertEquals(2, entries.size());
+        assertEquals("HomePage", entries.get(0).getClassName());
+        assertTrue(entries.get(0).isInPackage(""));
+        assertTrue(entries.get(1).isInPackage(""));
+        assertFalse(entries.get(0).isInPackage("pages"));
+        assertTrue(entries.get(1).isInPackage("pages"));
+    }
+
+
+    private File source(String className, boolean annotated) throws IOException {
+        int dot = className.lastIndexOf('.');
+        File file = new File(sources, className.replace('.', File.separatorChar) + ".java");
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            if (dot >= 0) {
+                writer.write("package " + className.substring(0, dot) + ";\n");
+            }
+            writer.write((annotated ? "@org.vaadin.navigator7.Page " : "") +
+                    "public class " + className.substring(dot + 1) + " extends com.vaadin.ui.Label {}\n");
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    /** Only the given sources are compiled: the other classes are found in the output directory, as in an incremental build. */
+    private void compile(File... files) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            List<String> options = Arrays.asList("-d", classes.getPath(), "-classpath", classes.getPath() + File.pathSeparator + System.getProperty("java.class.path"));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjects(files));
+            task.setProcessors(Collections.singletonList(new PageIndexProcessor()));
+            assertTrue("Compilation failed", task.call());
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private List<String> indexedClassNames() throws IOException {
+        List<String> result = new ArrayList<String>();
+        for (PageIndex.Entry entry : PageIndex.load(new URLClassLoader(new URL[] {classes.toURI().toURL()}, null))) {
+            result.add(entry.getClassName());
+        }
+        return result;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
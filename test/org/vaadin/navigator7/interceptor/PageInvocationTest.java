@@ -0,0 +1,177 @@
+package org.vaadin.navigator7.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.navigator7.CachedPage;
+import org.vaadin.navigator7.NavigableApplication;
+import org.vaadin.navigator7.PageLifecycle;
+import org.vaadin.navigator7.WebApplication;
+import org.vaadin.navigator7.window.NavigableAppLevelWindow;
+import org.vaadin.navigator7.window.PageCache;
+
+import com.vaadin.service.ApplicationContext;
+import com.vaadin.ui.ComponentContainer;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.VerticalLayout;
+
+public class PageInvocationTest {
+
+    private static final StopInterceptor STOP = new StopInterceptor();
+
+    private TestApplication application;
+    private NavigableAppLevelWindow window;
+
+
+    @Before
+    public void setUp() throws Exception {
+        WebApplication.init(TestWebApplication.class);
+        application = new TestApplication();
+        application.start(new URL("http://localhost/"), new Properties(), newContext());
+        application.setCurrent();
+        window = (NavigableAppLevelWindow) application.getMainWindow();
+        STOP.stopping = false;
+    }
+
+    @After
+    public void tearDown() {
+        STOP.stopping = false;
+        application.close();
+        TestApplication.removeCurrent();
+    }
+
+    @Test
+    public void cachedPageIsPutBackWhenTheChainStops() {
+        window.getNavigator().navigateTo(CachedTestPage.class, "34");
+        CachedTestPage page = (CachedTestPage) window.getPage();
+        window.getNavigator().navigateTo(HomeTestPage.class);
+        PageCache cache = window.getPageCache();
+        assertEquals(1, cache.size());
+        int sizeKb = cache.getSizeKb();
+
+        STOP.stopping = true;  // As a NavigationWarner or bad params would do.
+        window.getNavigator().navigateTo(CachedTestPage.class, "34");
+        assertTrue(window.getPage() instanceof HomeTestPage);
+        assertEquals(1, cache.size());
+        assertEquals(sizeKb, cache.getSizeKb());
+        assertSame(page, cache.getPages().get(0));
+        assertFalse(page.disposed);
+
+        STOP.stopping = false;  // The page is still there for the next navigation.
+        window.getNavigator().navigateTo(CachedTestPage.class, "34");
+        assertSame(page, window.getPage());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getSizeKb());
+    }
+
+    @Test
+    public void suspendedChainTakesTheCachedPageAgainWhenContinued() {
+        window.getNavigator().navigateTo(CachedTestPage.class, "34");
+        CachedTestPage page = (CachedTestPage) window.getPage();
+        window.getNavigator().navigateTo(HomeTestPage.class);
+
+        STOP.stopping = true;
+        PageInvocation invocation = new PageInvocation(window.getNavigator(), CachedTestPage.class, "34", true);
+        invocation.invoke();
+        assertFalse(invocation.isPagePlaced());
+        assertEquals(1, window.getPageCache().size());
+
+        STOP.stopping = false;
+        STOP.suspended.invoke();  // As the NavigationWarner dialog box does, in a later request.
+        assertTrue(invocation.isPagePlaced());
+        assertSame(page, window.getPage());
+        assertEquals(0, window.getPageCache().size());
+    }
+
+
+    private static ApplicationContext newContext() {
+        return (ApplicationContext) Proxy.newProxyInstance(PageInvocationTest.class.getClassLoader(), new Class<?>[] {ApplicationContext.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return null;  // No transaction listener call, no base directory,...
+                    }
+                });
+    }
+
+
+    public static class TestWebApplication extends WebApplication {
+        public TestWebApplication() {
+            registerPages(new Class[] {HomeTestPage.class, CachedTestPage.class});
+        }
+
+        @Override
+        protected void registerInterceptors() {
+            registerInterceptor(STOP);
+            super.registerInterceptors();
+        }
+    }
+
+    /** Stops the chain on demand, after having looked at the page instance (as ParamInjectInterceptor does), keeping the invocation to continue it later. */
+    static class StopInterceptor implements Interceptor {
+        boolean stopping;
+        PageInvocation suspended;
+
+        @Override
+        public void intercept(PageInvocation pageInvocation) {
+            pageInvocation.getPageInstance();
+            if (stopping) {
+                suspended = pageInvocation;
+            } else {
+                pageInvocation.invoke();
+            }
+        }
+    }
+
+    static class TestApplication extends NavigableApplication {
+        @Override
+        public NavigableAppLevelWindow createNewNavigableAppLevelWindow() {
+            return new TestWindow();
+        }
+
+        void setCurrent() {
+            currentApplication.set(this);
+        }
+
+        static void removeCurrent() {
+            currentApplication.remove();
+        }
+    }
+
+    static class TestWindow extends NavigableAppLevelWindow {
+        @Override
+        protected ComponentContainer createComponents() {
+            VerticalLayout pageContainer = new VerticalLayout();
+            addComponent(pageContainer);
+            return pageContainer;
+        }
+    }
+
+    public static class HomeTestPage extends Label {
+    }
+
+    @CachedPage(sizeKb=10)
+    public static class CachedTestPage extends Label implements PageLifecycle {
+        boolean disposed;
+
+        @Override
+        public void onLeave() {
+        }
+
+        @Override
+        public void onDispose() {
+            disposed = true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.vaadin.navigator7.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void valuesBelow16HaveTheirOwnBucket() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.bucketIndex(value));
+            assertEquals(value, LatencyHistogram.bucketLowerBound(value));
+            assertEquals(value, LatencyHistogram.bucketMiddle(value));
+        }
+    }
+
+    @Test
+    public void eachPowerOfTwoHas8LinearSubBuckets() {
+        assertEquals(16, LatencyHistogram.bucketIndex(16));
+        assertEquals(16, LatencyHistogram.bucketIndex(17));
+        assertEquals(17, LatencyHistogram.bucketIndex(18));
+        assertEquals(23, LatencyHistogram.bucketIndex(31));
+        assertEquals(24, LatencyHistogram.bucketIndex(32));
+        assertEquals(24, LatencyHistogram.bucketIndex(35));
+        assertEquals(25, LatencyHistogram.bucketIndex(36));
+        assertEquals(36, LatencyHistogram.bucketLowerBound(25));
+        assertEquals(38, LatencyHistogram.bucketMiddle(25));
+    }
+
+    @Test
+    public void bucketBoundsContainTheValue() {
+        Random random = new Random(13);
+        for (int i = 0; i < 100000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);  // All the magnitudes.
+            checkBucket(value);
+        }
+        checkBucket(Long.MAX_VALUE);
+        for (int shift = 0; shift < 63; shift++) {
+            checkBucket((1L << shift) - 1);
+            checkBucket(1L << shift);
+        }
+    }
+
+    private void checkBucket(long value) {
+        int index = LatencyHistogram.bucketIndex(value);
+        long lower = LatencyHistogram.bucketLowerBound(index);
+        assertTrue(value + " below its bucket " + index, lower <= value);
+        if (value < Long.MAX_VALUE) {
+            assertTrue(value + " above its bucket " + index, LatencyHistogram.bucketIndex(value + 1) >= index);
+        }
+        long middle = LatencyHistogram.bucketMiddle(index);
+        assertTrue(Math.abs(middle - value) <= Math.max(1, value / 16));  // The precision announced.
+    }
+
+    @Test
+    public void bucketIndexIsContiguous() {
+        for (int index = 0; index < 200; index++) {
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.bucketLowerBound(index)));
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.bucketLowerBound(index + 1) - 1));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMaxNanos());
+        assertEquals(500500, histogram.getMeanNanos());
+        assertWithin(500000, histogram.getPercentileNanos(50));
+        assertWithin(990000, histogram.getPercentileNanos(99));
+        assertEquals(1000000, histogram.getPercentileNanos(100));  // Never more than the max.
+        assertWithin(1000, histogram.getPercentileNanos(0));
+    }
+
+    private void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+
+    @Test
+    public void negativeDurationCountsAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void reset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123456);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+}
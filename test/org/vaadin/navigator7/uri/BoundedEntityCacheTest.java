@@ -0,0 +1,36 @@
+package org.vaadin.navigator7.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class BoundedEntityCacheTest {
+
+    @Test
+    public void replacingALongPkEvictsNothing() {
+        BoundedEntityCache cache = new BoundedEntityCache(1, TimeUnit.HOURS, 2);
+        cache.put("black-belt", "string pk");
+        cache.put("34", "a");
+        cache.put("34", "b");  // Full, but a replacement.
+        assertEquals("string pk", cache.get("black-belt"));
+        assertEquals("b", cache.get("34"));
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void newLongPkEvictsTheEldestStringPkFirst() {
+        BoundedEntityCache cache = new BoundedEntityCache(1, TimeUnit.HOURS, 2);
+        cache.put("black-belt", "string pk");
+        cache.put("34", "a");
+        cache.put("35", null);  // Negative caching.
+        assertNull(cache.get("black-belt"));
+        assertEquals("a", cache.get("34"));
+        assertSame(EntityCache.NOT_FOUND, cache.get("35"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+}
@@ -0,0 +1,114 @@
+package org.vaadin.navigator7.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongKeyedTableTest {
+
+    private static final long NOW = 1000;
+    private static final long LATER = NOW + 1000;  // Expiry of the live entries.
+
+    @Test
+    public void putThenGet() {
+        LongKeyedTable table = new LongKeyedTable(8);
+        assertFalse(table.put(34, "a", LATER));
+        assertFalse(table.put(35, "b", LATER));
+        assertEquals("a", table.get(34, NOW));
+        assertEquals("b", table.get(35, NOW));
+        assertNull(table.get(36, NOW));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void putReplacesTheValueOfAnExistingKey() {
+        LongKeyedTable table = new LongKeyedTable(8);
+        table.put(34, "a", LATER);
+        assertFalse(table.put(34, "b", LATER));
+        assertEquals("b", table.get(34, NOW));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void expiredEntryIsRemovedByGet() {
+        LongKeyedTable table = new LongKeyedTable(8);
+        table.put(34, "a", NOW);
+        assertNull(table.get(34, NOW));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void negativeAndZeroKeys() {
+        LongKeyedTable table = new LongKeyedTable(8);
+        table.put(0, "zero", LATER);
+        table.put(-1, "minusOne", LATER);
+        table.put(Long.MIN_VALUE, "min", LATER);
+        assertEquals("zero", table.get(0, NOW));
+        assertEquals("minusOne", table.get(-1, NOW));
+        assertEquals("min", table.get(Long.MIN_VALUE, NOW));
+    }
+
+    @Test
+    public void fullTableEvictsOneEntry() {
+        LongKeyedTable table = new LongKeyedTable(4);
+        for (long key = 1; key <= 4; key++) {
+            assertFalse(table.put(key, "v" + key, LATER));
+        }
+        assertTrue(table.put(5, "v5", LATER));
+        assertEquals(4, table.size());
+        assertEquals("v5", table.get(5, NOW));
+        int found = 0;
+        for (long key = 1; key <= 4; key++) {
+            if (table.get(key, NOW) != null) {
+                found++;
+            }
+        }
+        assertEquals(3, found);
+    }
+
+    @Test
+    public void removeAndClear() {
+        LongKeyedTable table = new LongKeyedTable(8);
+        table.put(34, "a", LATER);
+        table.put(35, "b", LATER);
+        table.remove(34);
+        table.remove(99);  // Absent: no effect.
+        assertNull(table.get(34, NOW));
+        assertEquals("b", table.get(35, NOW));
+        assertEquals(1, table.size());
+        table.clear();
+        assertNull(table.get(35, NOW));
+        assertEquals(0, table.size());
+    }
+
+    /** Random puts and removes in a small table (long probe sequences wrapping around the end of the arrays), checked against a HashMap:
+     * the backward shift deletion must keep every remaining key reachable. */
+    @Test
+    public void removeKeepsTheProbeSequencesReachable() {
+        Random random = new Random(7);
+        LongKeyedTable table = new LongKeyedTable(16);  // 32 slots.
+        Map<Long, Object> expected = new HashMap<Long, Object>();
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(64);
+            if (random.nextBoolean() && expected.size() < 16) {
+                String value = "v" + i;
+                table.put(key, value, LATER);
+                expected.put(key, value);
+            } else {
+                table.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), table.size());
+            for (long k = 0; k < 64; k++) {
+                assertEquals("key " + k + " at step " + i, expected.get(k), table.get(k, NOW));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.vaadin.navigator7.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.vaadin.ui.Button;
+import com.vaadin.ui.CheckBox;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.Panel;
+import com.vaadin.ui.TextField;
+
+public class RouteTrieTest {
+
+    /** The page classes of the routes given to trie(), in that order (any component class will do). */
+    private static final Class<?>[] PAGES = {Label.class, Button.class, Panel.class, TextField.class, CheckBox.class};
+
+    @Test
+    public void longestRouteWins() {
+        RouteTrie trie = trie("product/{id:long}", "product/{id:long}/reviews");
+        assertMatch(trie.match("product/34/reviews", 0), Button.class, null, "id", 34L);
+        assertMatch(trie.match("product/34/reviews/page=2", 0), Button.class, "page=2", "id", 34L);
+        assertMatch(trie.match("product/34", 0), Label.class, null, "id", 34L);
+    }
+
+    @Test
+    public void backtracksToTheShorterRoute() {
+        RouteTrie trie = trie("product/{id:long}", "product/{id:long}/reviews");
+        assertMatch(trie.match("product/34/photos", 0), Label.class, "photos", "id", 34L);
+        assertMatch(trie.match("product/34/reviewsX", 0), Label.class, "reviewsX", "id", 34L);
+    }
+
+    @Test
+    public void backtracksFromALiteralToACapture() {
+        RouteTrie trie = trie("product/new/edit", "product/{slug}");
+        assertMatch(trie.match("product/new/edit", 0), Label.class, null);
+        assertMatch(trie.match("product/new", 0), Button.class, null, "slug", "new");  // The literal branch leads to no route.
+        assertMatch(trie.match("product/new/view", 0), Button.class, "view", "slug", "new");
+    }
+
+    @Test
+    public void mostSpecificCaptureTypeFirst() {
+        RouteTrie trie = trie("item/{s}", "item/{n:int}", "item/{l:long}");
+        assertMatch(trie.match("item/12", 0), Button.class, null, "n", 12);
+        assertMatch(trie.match("item/99999999999", 0), Panel.class, null, "l", 99999999999L);
+        assertMatch(trie.match("item/abc", 0), Label.class, null, "s", "abc");
+    }
+
+    @Test
+    public void backtracksFromACaptureTypeToTheNextOne() {
+        RouteTrie trie = trie("a/{n:int}/b/c", "a/{s}/b");
+        assertMatch(trie.match("a/5/b/c", 0), Label.class, null, "n", 5);
+        // The int branch goes deeper than the string branch before failing: the positions of the segments must be the ones of the string branch.
+        assertMatch(trie.match("a/5/b/d", 0), Button.class, "d", "s", "5");
+        assertMatch(trie.match("a/x/b/c", 0), Button.class, "c", "s", "x");
+    }
+
+    @Test
+    public void severalCaptures() {
+        RouteTrie trie = trie("shop/{shop}/product/{id:long}", "shop/{shop}");
+        RouteMatch match = trie.match("shop/paris/product/34/x=1", 0);
+        assertMatch(match, Label.class, "x=1", "shop", "paris");
+        assertEquals(34L, match.getCapture("id"));
+        assertEquals(2, match.getCaptureCount());
+        assertEquals("id", match.getCaptureName(1));
+        assertEquals("34", match.getCaptureString(1));
+        assertMatch(trie.match("shop/paris/product/abc", 0), Button.class, "product/abc", "shop", "paris");
+    }
+
+    @Test
+    public void literalsAreCaseInsensitiveAndStartSkipsTheBang() {
+        RouteTrie trie = trie("product/{id:long}/reviews");
+        assertMatch(trie.match("!PRODUCT/34/Reviews", 1), Label.class, null, "id", 34L);
+    }
+
+    @Test
+    public void noMatch() {
+        RouteTrie trie = trie("product/{id:long}", "item/{n:int}");
+        assertNull(trie.match("product", 0));
+        assertNull(trie.match("product/", 0));
+        assertNull(trie.match("product/abc", 0));
+        assertNull(trie.match("item/99999999999", 0));
+        assertNull(trie.match("other/34", 0));
+        assertNull(trie.match("", 0));
+        assertNull(trie.match(null, 0));
+    }
+
+    @Test
+    public void emptyTrie() {
+        assertTrue(RouteTrie.EMPTY.isEmpty());
+        assertNull(RouteTrie.EMPTY.match("product/34", 0));
+        assertTrue(trie().isEmpty());
+    }
+
+    @Test
+    public void routesMatchingTheSameFragmentsAreRejected() {
+        try {
+            trie("product/{id:long}", "PRODUCT/{x:long}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("PRODUCT/{x:long}"));
+        }
+        trie("product/{id:long}", "product/{slug}");  // Different capture types: accepted.
+    }
+
+
+    /** The route i goes to the page PAGES[i]. */
+    @SuppressWarnings("unchecked")
+    private static RouteTrie trie(String... patterns) {
+        Route[] routes = new Route[patterns.length];
+        Class<? extends Component>[] pageClasses = (Class<? extends Component>[]) new Class<?>[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            routes[i] = Route.parse(patterns[i]);
+            pageClasses[i] = PAGES[i].asSubclass(Component.class);
+        }
+        return new RouteTrie(routes, pageClasses);
+    }
+
+    private static void assertMatch(RouteMatch match, Class<?> pageClass, String params, Object... captures) {
+        assertEquals(pageClass, match.getPageClass());
+        assertEquals(params, match.getParams());
+        for (int i = 0; i < captures.length; i += 2) {
+            assertEquals(captures[i + 1], match.getCapture((String) captures[i]));
+        }
+    }
+}
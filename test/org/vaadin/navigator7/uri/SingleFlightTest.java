@@ -0,0 +1,125 @@
+package org.vaadin.navigator7.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void firstCallerLeadsTheOthersFollow() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+        SingleFlight<String, String>.Flight leader = singleFlight.join("a");
+        SingleFlight<String, String>.Flight follower = singleFlight.join("a");  // Same thread: still a follower.
+        assertTrue(leader.isLeader());
+        assertFalse(follower.isLeader());
+        assertTrue(singleFlight.join("b").isLeader());
+        assertTrue(singleFlight.isInFlight("a"));
+
+        leader.complete("A");
+        assertFalse(singleFlight.isInFlight("a"));
+        assertTrue(follower.await(SECOND));
+        assertEquals("A", follower.getValue());
+        assertTrue(singleFlight.join("a").isLeader());  // Nothing kept: the next call loads again.
+        assertEquals(3, singleFlight.getLoadCount());
+        assertEquals(1, singleFlight.getCollapsedCount());
+    }
+
+    @Test
+    public void followerInAnotherThreadGetsTheValue() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+        SingleFlight<String, String>.Flight leader = singleFlight.join("a");
+        final AtomicReference<String> result = new AtomicReference<String>();
+        final CountDownLatch joined = new CountDownLatch(1);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                SingleFlight<String, String>.Flight flight = singleFlight.join("a");
+                joined.countDown();
+                if (!flight.isLeader() && flight.await(10 * SECOND)) {
+                    result.set(flight.getValue());
+                }
+            }
+        };
+        thread.start();
+        joined.await();
+        leader.complete("A");
+        thread.join();
+        assertEquals("A", result.get());
+    }
+
+    @Test
+    public void followersGetTheFailureOfTheLeader() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+        SingleFlight<String, String>.Flight leader = singleFlight.join("a");
+        SingleFlight<String, String>.Flight follower = singleFlight.join("a");
+        IllegalStateException failure = new IllegalStateException("db down");
+        leader.fail(failure);
+        assertFalse(singleFlight.isInFlight("a"));
+        assertTrue(follower.await(SECOND));
+        try {
+            follower.getValue();
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+
+        SingleFlight<String, String>.Flight other = singleFlight.join("b");
+        follower = singleFlight.join("b");
+        other.fail(new Exception("checked"));
+        try {
+            follower.getValue();  // Checked exceptions are wrapped.
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("checked", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void onlyTheLeaderEndsTheLoad() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+        singleFlight.join("a");
+        SingleFlight<String, String>.Flight follower = singleFlight.join("a");
+        try {
+            follower.complete("A");
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(singleFlight.isInFlight("a"));
+        }
+    }
+
+    @Test
+    public void followerTimesOut() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+        singleFlight.join("a");
+        assertFalse(singleFlight.join("a").await(TimeUnit.MILLISECONDS.toNanos(10)));
+        assertEquals(1, singleFlight.getTimeoutCount());
+        assertEquals(0, singleFlight.getCollapsedCount());
+    }
+
+    @Test
+    public void interruptedFollowerStopsWaitingAndKeepsTheInterruptFlag() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+        singleFlight.join("a");
+        SingleFlight<String, String>.Flight follower = singleFlight.join("a");
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(follower.await(10 * SECOND));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();  // Clears it for the next tests.
+        }
+        assertEquals(1, singleFlight.getTimeoutCount());
+        assertTrue(singleFlight.isInFlight("a"));  // The leader is not disturbed.
+    }
+}